@@ -0,0 +1,137 @@
+/*
+ * file:       ColumnarTableTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       28/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+
+import net.sf.mpxj.common.ColumnarTable;
+import net.sf.mpxj.common.ColumnarTable.ColumnType;
+
+import org.junit.Test;
+
+/**
+ * Tests the ColumnarTable class.
+ */
+public class ColumnarTableTest
+{
+   /**
+    * Test storing and retrieving values of each column type.
+    */
+   @Test public void testValues()
+   {
+      ColumnarTable table = new ColumnarTable(new String[]
+      {
+         "id",
+         "cost",
+         "start",
+         "flag",
+         "name"
+      }, new ColumnType[]
+      {
+         ColumnType.INTEGER,
+         ColumnType.DOUBLE,
+         ColumnType.DATE,
+         ColumnType.BOOLEAN,
+         ColumnType.OBJECT
+      });
+
+      assertEquals(5, table.getColumnCount());
+      assertEquals(2, table.getColumnIndex("start"));
+      assertEquals(-1, table.getColumnIndex("missing"));
+
+      int rowCount = 1000;
+      for (int index = 0; index < rowCount; index++)
+      {
+         int row = table.addRow();
+         assertEquals(index, row);
+
+         //
+         // Leave every third row empty
+         //
+         if (index % 3 != 0)
+         {
+            table.setValue(row, 0, Integer.valueOf(index));
+            table.setValue(row, 1, Double.valueOf(index * 1.5));
+            table.setValue(row, 2, new Date(index * 60000L));
+            table.setValue(row, 3, Boolean.valueOf(index % 2 == 0));
+            table.setValue(row, 4, "Row " + index);
+         }
+      }
+      table.trimToSize();
+
+      assertEquals(rowCount, table.getRowCount());
+      for (int row = 0; row < rowCount; row++)
+      {
+         if (row % 3 == 0)
+         {
+            for (int column = 0; column < table.getColumnCount(); column++)
+            {
+               assertNull(table.getValue(row, column));
+            }
+         }
+         else
+         {
+            assertEquals(Integer.valueOf(row), table.getValue(row, "id"));
+            assertEquals(Double.valueOf(row * 1.5), table.getValue(row, "cost"));
+            assertEquals(new Date(row * 60000L), table.getValue(row, "start"));
+            assertEquals(Boolean.valueOf(row % 2 == 0), table.getValue(row, "flag"));
+            assertEquals("Row " + row, table.getValue(row, "name"));
+         }
+      }
+
+      assertNull(table.getValue(1, "missing"));
+
+      //
+      // Clearing a value
+      //
+      table.setValue(1, 0, null);
+      assertNull(table.getValue(1, 0));
+      assertEquals(Integer.valueOf(2), table.getValue(2, 0));
+   }
+
+   /**
+    * Test that storing a value of an unexpected type in a primitive
+    * column preserves both the new value and the existing values.
+    */
+   @Test public void testTypeChange()
+   {
+      ColumnarTable table = new ColumnarTable(new String[]
+      {
+         "date"
+      }, new ColumnType[]
+      {
+         ColumnType.DATE
+      });
+
+      table.setValue(table.addRow(), 0, new Date(1000));
+      table.addRow();
+      table.setValue(table.addRow(), 0, "not a date");
+
+      assertEquals(new Date(1000), table.getValue(0, 0));
+      assertNull(table.getValue(1, 0));
+      assertEquals("not a date", table.getValue(2, 0));
+   }
+}
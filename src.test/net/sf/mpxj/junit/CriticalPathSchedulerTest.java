@@ -0,0 +1,220 @@
+/*
+ * file:       CriticalPathSchedulerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       02/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.utility.CriticalPathScheduler;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the critical path scheduler.
+ */
+public class CriticalPathSchedulerTest
+{
+   /**
+    * Schedule a simple network of tasks linked with lags.
+    *
+    * @throws Exception
+    */
+   @Test public void testRelationships() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = addTask(file, null, "Task 1", 2);
+      Task task2 = addTask(file, null, "Task 2", 3);
+      Task task3 = addTask(file, null, "Task 3", 1);
+      task2.addPredecessor(task1, RelationType.FINISH_START, Duration.getInstance(1, TimeUnit.DAYS));
+      task3.addPredecessor(task1, RelationType.START_START, null);
+
+      new CriticalPathScheduler().schedule(file, m_df.parse("02/10/2017 08:00"));
+
+      assertDates(task1, "02/10/2017 08:00", "03/10/2017 17:00", "02/10/2017 08:00", "03/10/2017 17:00");
+      assertDates(task2, "05/10/2017 08:00", "09/10/2017 17:00", "05/10/2017 08:00", "09/10/2017 17:00");
+      assertDates(task3, "02/10/2017 08:00", "02/10/2017 17:00", "09/10/2017 08:00", "09/10/2017 17:00");
+
+      assertEquals(Duration.getInstance(0, TimeUnit.DAYS), task1.getTotalSlack());
+      assertTrue(task1.getCritical());
+      assertEquals(Duration.getInstance(5, TimeUnit.DAYS), task3.getTotalSlack());
+      assertEquals(Duration.getInstance(5, TimeUnit.DAYS), task3.getFreeSlack());
+      assertFalse(task3.getCritical());
+   }
+
+   /**
+    * Ensure that date constraints are honoured.
+    *
+    * @throws Exception
+    */
+   @Test public void testConstraints() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = addTask(file, null, "Task 1", 2);
+      task1.setConstraintType(ConstraintType.START_NO_EARLIER_THAN);
+      task1.setConstraintDate(m_df.parse("04/10/2017 08:00"));
+      Task task2 = addTask(file, null, "Task 2", 1);
+      task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      Task task3 = addTask(file, null, "Task 3", 1);
+      task3.setConstraintType(ConstraintType.MUST_FINISH_ON);
+      task3.setConstraintDate(m_df.parse("06/10/2017 17:00"));
+
+      new CriticalPathScheduler().schedule(file, m_df.parse("02/10/2017 08:00"));
+
+      assertDates(task1, "04/10/2017 08:00", "05/10/2017 17:00", "04/10/2017 08:00", "05/10/2017 17:00");
+      assertDates(task2, "06/10/2017 08:00", "06/10/2017 17:00", "06/10/2017 08:00", "06/10/2017 17:00");
+      assertDates(task3, "06/10/2017 08:00", "06/10/2017 17:00", "06/10/2017 08:00", "06/10/2017 17:00");
+   }
+
+   /**
+    * Ensure that summary tasks roll up the dates of their subtasks, and
+    * that relationships with summary tasks are applied.
+    *
+    * @throws Exception
+    */
+   @Test public void testSummaryTasks() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      Task summary = addTask(file, null, "Summary", 0);
+      Task task1 = addTask(file, summary, "Task 1", 2);
+      Task task2 = addTask(file, summary, "Task 2", 4);
+      Task task3 = addTask(file, null, "Task 3", 1);
+      task3.addPredecessor(summary, RelationType.FINISH_START, null);
+
+      new CriticalPathScheduler().schedule(file, m_df.parse("02/10/2017 08:00"));
+
+      assertDates(summary, "02/10/2017 08:00", "05/10/2017 17:00", "02/10/2017 08:00", "05/10/2017 17:00");
+      assertDates(task1, "02/10/2017 08:00", "03/10/2017 17:00", "04/10/2017 08:00", "05/10/2017 17:00");
+      assertDates(task2, "02/10/2017 08:00", "05/10/2017 17:00", "02/10/2017 08:00", "05/10/2017 17:00");
+      assertDates(task3, "06/10/2017 08:00", "06/10/2017 17:00", "06/10/2017 08:00", "06/10/2017 17:00");
+      assertEquals(m_df.parse("02/10/2017 08:00"), summary.getStart());
+      assertEquals(m_df.parse("05/10/2017 17:00"), summary.getFinish());
+   }
+
+   /**
+    * Ensure that a cycle in the task relationships is reported.
+    */
+   @Test public void testCycle()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = addTask(file, null, "Task 1", 1);
+      Task task2 = addTask(file, null, "Task 2", 1);
+      task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      task1.addPredecessor(task2, RelationType.FINISH_START, null);
+
+      try
+      {
+         new CriticalPathScheduler().schedule(file, new Date());
+         fail("Expected exception");
+      }
+
+      catch (MPXJException ex)
+      {
+         assertEquals(MPXJException.CYCLIC_RELATIONSHIPS, ex.getMessage());
+      }
+   }
+
+   /**
+    * Ensure that rescheduling a project created by Microsoft Project
+    * reproduces the dates it calculated.
+    *
+    * @throws Exception
+    */
+   @Test public void testProjectFile() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("generated/task-links/task-links-project2013-mpp9.mpp"));
+      List<Date[]> expected = new ArrayList<Date[]>();
+      for (Task task : file.getAllTasks())
+      {
+         expected.add(new Date[]
+         {
+            task.getEarlyStart(),
+            task.getEarlyFinish(),
+            task.getLateStart(),
+            task.getLateFinish()
+         });
+      }
+
+      new CriticalPathScheduler().schedule(file);
+
+      int index = 0;
+      for (Task task : file.getAllTasks())
+      {
+         Date[] dates = expected.get(index++);
+         assertEquals(task.getName(), dates[0], task.getEarlyStart());
+         assertEquals(task.getName(), dates[1], task.getEarlyFinish());
+         assertEquals(task.getName(), dates[2], task.getLateStart());
+         assertEquals(task.getName(), dates[3], task.getLateFinish());
+      }
+   }
+
+   /**
+    * Add a task to a project.
+    *
+    * @param file parent project
+    * @param parent parent task, or null for a top level task
+    * @param name task name
+    * @param days duration in days
+    * @return new task
+    */
+   private Task addTask(ProjectFile file, Task parent, String name, int days)
+   {
+      Task task = parent == null ? file.addTask() : parent.addTask();
+      task.setName(name);
+      task.setDuration(Duration.getInstance(days, TimeUnit.DAYS));
+      return task;
+   }
+
+   /**
+    * Validate the early and late dates of a task.
+    *
+    * @param task task under test
+    * @param earlyStart expected early start
+    * @param earlyFinish expected early finish
+    * @param lateStart expected late start
+    * @param lateFinish expected late finish
+    * @throws Exception
+    */
+   private void assertDates(Task task, String earlyStart, String earlyFinish, String lateStart, String lateFinish) throws Exception
+   {
+      assertEquals(task.getName(), m_df.parse(earlyStart), task.getEarlyStart());
+      assertEquals(task.getName(), m_df.parse(earlyFinish), task.getEarlyFinish());
+      assertEquals(task.getName(), m_df.parse(lateStart), task.getLateStart());
+      assertEquals(task.getName(), m_df.parse(lateFinish), task.getLateFinish());
+   }
+
+   private DateFormat m_df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+}
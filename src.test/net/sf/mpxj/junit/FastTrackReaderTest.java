@@ -0,0 +1,78 @@
+/*
+ * file:       FastTrackReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       04/12/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static net.sf.mpxj.junit.MpxjAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.fasttrack.FastTrackReader;
+
+import org.junit.Test;
+
+/**
+ * Tests reading FastTrack files.
+ */
+public class FastTrackReaderTest
+{
+   /**
+    * Ensure that decoding the column data using an executor service
+    * produces the same result as decoding it on the calling thread.
+    *
+    * @throws Exception
+    */
+   @Test public void testExecutorService() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath(FILE_NAME));
+      ProjectFile expected = new FastTrackReader().read(file);
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         FastTrackReader reader = new FastTrackReader();
+         reader.setExecutorService(executor);
+         assertSame(executor, reader.getExecutorService());
+         ProjectFile actual = reader.read(file);
+
+         assertTrue(expected.getAllResources().size() > 0);
+         assertFieldsEqual(null, TaskField.values(), expected.getAllTasks(), actual.getAllTasks());
+         assertFieldsEqual(null, ResourceField.values(), expected.getAllResources(), actual.getAllResources());
+         assertFieldsEqual(null, AssignmentField.values(), expected.getAllResourceAssignments(), actual.getAllResourceAssignments());
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   private static final String FILE_NAME = "generated/resource-misc/resource-misc-fasttrack10.fts";
+}
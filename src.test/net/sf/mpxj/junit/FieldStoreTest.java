@@ -0,0 +1,194 @@
+/*
+ * file:       FieldStoreTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.DenseFieldStore;
+import net.sf.mpxj.common.FieldStoreFactory;
+import net.sf.mpxj.common.SparseFieldStore;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to ensure that the sparse and dense field stores behave identically.
+ */
+public class FieldStoreTest
+{
+   /**
+    * Apply the same random sequence of updates to both store types
+    * and validate that they hold the same values.
+    */
+   @Test public void testSparseMatchesDense()
+   {
+      Random random = new Random(1);
+      DenseFieldStore dense = new DenseFieldStore(TaskField.MAX_VALUE);
+      SparseFieldStore sparse = new SparseFieldStore();
+
+      for (int loop = 0; loop < 20000; loop++)
+      {
+         int index = random.nextInt(TaskField.MAX_VALUE);
+         Object value = random.nextInt(4) == 0 ? null : Integer.valueOf(loop);
+         dense.set(index, value);
+         sparse.set(index, value);
+      }
+
+      for (int index = 0; index < TaskField.MAX_VALUE; index++)
+      {
+         assertEquals(dense.get(index), sparse.get(index));
+      }
+
+      BitSet denseIndexes = new BitSet();
+      dense.getPopulatedIndexes(denseIndexes);
+      BitSet sparseIndexes = new BitSet();
+      sparse.getPopulatedIndexes(sparseIndexes);
+      assertEquals(denseIndexes, sparseIndexes);
+      for (int index = 0; index < TaskField.MAX_VALUE; index++)
+      {
+         assertEquals(dense.get(index) != null, denseIndexes.get(index));
+      }
+   }
+
+   /**
+    * Ensure that setting a null value for an unpopulated field does not
+    * allocate storage.
+    */
+   @Test public void testNullDoesNotAllocate()
+   {
+      SparseFieldStore sparse = new SparseFieldStore();
+      sparse.set(10, null);
+      assertEquals(0, sparse.size());
+      assertNull(sparse.get(10));
+
+      sparse.set(10, "A");
+      sparse.set(10, null);
+      assertEquals(1, sparse.size());
+      assertNull(sparse.get(10));
+   }
+
+   /**
+    * Ensure that the field store is configured per project, and that
+    * dense storage is used by default.
+    */
+   @Test public void testFieldStoreConfiguration()
+   {
+      ProjectFile sparse = new ProjectFile();
+      sparse.getProjectConfig().setFieldStoreFactory(FieldStoreFactory.SPARSE);
+      assertSame(FieldStoreFactory.SPARSE, sparse.getProjectConfig().getFieldStoreFactory());
+      assertSame(FieldStoreFactory.DENSE, new ProjectFile().getProjectConfig().getFieldStoreFactory());
+   }
+
+   /**
+    * Ensure that the field store set on a reader is used by the projects
+    * it reads, and that the same data is read regardless of the field
+    * store used.
+    */
+   @Test public void testReaderFieldStore() throws Exception
+   {
+      UniversalProjectReader denseReader = new UniversalProjectReader();
+      UniversalProjectReader sparseReader = new UniversalProjectReader();
+      sparseReader.setFieldStoreFactory(FieldStoreFactory.SPARSE);
+      assertSame(FieldStoreFactory.DENSE, denseReader.getFieldStoreFactory());
+
+      for (String name : new String[]
+      {
+         "mpp14task.mpp",
+         "mspdiresource.xml",
+         "mpxrecurring.mpx"
+      })
+      {
+         ProjectFile dense = denseReader.read(MpxjTestData.filePath(name));
+         ProjectFile sparse = sparseReader.read(MpxjTestData.filePath(name));
+         assertSame(FieldStoreFactory.DENSE, dense.getProjectConfig().getFieldStoreFactory());
+         assertSame(FieldStoreFactory.SPARSE, sparse.getProjectConfig().getFieldStoreFactory());
+
+         List<Task> denseTasks = dense.getAllTasks();
+         List<Task> sparseTasks = sparse.getAllTasks();
+         assertEquals(denseTasks.size(), sparseTasks.size());
+         for (int index = 0; index < denseTasks.size(); index++)
+         {
+            assertEquals(denseTasks.get(index).getName(), sparseTasks.get(index).getName());
+            assertEquals(denseTasks.get(index).getStart(), sparseTasks.get(index).getStart());
+         }
+
+         List<Resource> denseResources = dense.getAllResources();
+         List<Resource> sparseResources = sparse.getAllResources();
+         assertEquals(denseResources.size(), sparseResources.size());
+         for (int index = 0; index < denseResources.size(); index++)
+         {
+            assertEquals(denseResources.get(index).getName(), sparseResources.get(index).getName());
+         }
+      }
+   }
+
+   /**
+    * Ensure that tasks behave the same way regardless of the field store used.
+    */
+   @Test public void testTaskFieldStore()
+   {
+      for (FieldStoreFactory factory : new FieldStoreFactory[]
+      {
+         FieldStoreFactory.DENSE,
+         FieldStoreFactory.SPARSE
+      })
+      {
+         ProjectFile file = new ProjectFile();
+         file.getProjectConfig().setFieldStoreFactory(factory);
+         Task task = file.addTask();
+         task.setName("Task 1");
+         task.setText(30, "Text 30");
+         task.setNumber(20, Integer.valueOf(20));
+
+         assertEquals("Task 1", task.getName());
+         assertEquals("Text 30", task.getText(30));
+         assertEquals(20, task.getNumber(20).intValue());
+         assertNull(task.getText(29));
+         assertEquals(0, task.getPredecessors().size());
+
+         //
+         // Populated fields are returned in field order,
+         // along with the fields calculated on demand
+         //
+         List<TaskField> fields = task.getPopulatedFields();
+         assertTrue(fields.contains(TaskField.NAME));
+         assertTrue(fields.contains(TaskField.TEXT30));
+         assertTrue(fields.contains(TaskField.NUMBER20));
+         assertTrue(fields.contains(TaskField.TOTAL_SLACK));
+         assertFalse(fields.contains(TaskField.TEXT29));
+         for (int index = 1; index < fields.size(); index++)
+         {
+            assertTrue(fields.get(index - 1).getValue() < fields.get(index).getValue());
+         }
+      }
+   }
+}
@@ -0,0 +1,153 @@
+/*
+ * file:       JsonWriterTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       30/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.json.JsonWriter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for the JSON writer.
+ */
+public class JsonWriterTest
+{
+   /**
+    * JsonWriter only writes the fields returned by getPopulatedFields.
+    * Ensure that every field with a current value, including those
+    * calculated on demand, is included.
+    *
+    * @throws Exception
+    */
+   @Test public void testPopulatedFields() throws Exception
+   {
+      for (String name : new String[]
+      {
+         "mspdiresource.xml",
+         "mpp14resource.mpp",
+         "mpp14task.mpp"
+      })
+      {
+         ProjectFile project = new UniversalProjectReader().read(new File(MpxjTestData.filePath(name)));
+         for (Task task : project.getAllTasks())
+         {
+            List<TaskField> fields = task.getPopulatedFields();
+            for (TaskField field : TaskField.values())
+            {
+               assertTrue(name + " " + field, task.getCurrentValue(field) == null || fields.contains(field));
+            }
+         }
+
+         for (Resource resource : project.getAllResources())
+         {
+            List<ResourceField> fields = resource.getPopulatedFields();
+            for (ResourceField field : ResourceField.values())
+            {
+               assertTrue(name + " " + field, resource.getCurrentValue(field) == null || fields.contains(field));
+            }
+         }
+      }
+   }
+
+   /**
+    * Ensure that newline delimited JSON holds one line per entity,
+    * and that each entity is written with the same content as it
+    * has in a normal JSON file.
+    *
+    * @throws Exception
+    */
+   @Test public void testNewlineDelimited() throws Exception
+   {
+      ProjectFile project = new UniversalProjectReader().read(new File(MpxjTestData.filePath("mspdiresource.xml")));
+
+      JsonWriter writer = new JsonWriter();
+      String json = write(writer, project);
+
+      writer.setNewlineDelimited(true);
+      writer.setPretty(true);
+      String ndjson = write(writer, project);
+
+      String[] lines = ndjson.split("\n");
+      int expectedLines = 1 + project.getAllResources().size() + project.getAllTasks().size() + project.getAllResourceAssignments().size();
+      assertEquals(expectedLines, lines.length);
+      assertTrue(ndjson.endsWith("\n"));
+
+      assertTrue(lines[0].startsWith("{\"custom_fields\":["));
+      assertTrue(lines[0].contains("\"assignment_types\":{"));
+      assertFalse(lines[0].contains("\"tasks\":"));
+
+      int index = 1;
+      index = checkLines(json, lines, index, "resource", project.getAllResources().size());
+      index = checkLines(json, lines, index, "task", project.getAllTasks().size());
+      index = checkLines(json, lines, index, "assignment", project.getAllResourceAssignments().size());
+   }
+
+   /**
+    * Validate the lines holding a given type of entity.
+    *
+    * @param json normal JSON output
+    * @param lines newline delimited JSON output
+    * @param index index of the first line to check
+    * @param name entity name
+    * @param count number of entities expected
+    * @return index of the next line
+    */
+   private int checkLines(String json, String[] lines, int index, String name, int count)
+   {
+      String prefix = "{\"" + name + "\":";
+      for (int loop = 0; loop < count; loop++)
+      {
+         String line = lines[index++];
+         assertTrue(line, line.startsWith(prefix));
+         assertTrue(line, line.endsWith("}}"));
+         assertTrue(line, json.contains(line.substring(prefix.length(), line.length() - 1)));
+      }
+      return index;
+   }
+
+   /**
+    * Write a project as JSON.
+    *
+    * @param writer JSON writer
+    * @param project project to write
+    * @return JSON text
+    */
+   private String write(JsonWriter writer, ProjectFile project) throws Exception
+   {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      writer.write(project, stream);
+      return new String(stream.toByteArray(), "UTF-8");
+   }
+}
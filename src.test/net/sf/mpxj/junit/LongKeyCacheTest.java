@@ -0,0 +1,152 @@
+/*
+ * file:       LongKeyCacheTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       10/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.LongKeyCache;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the cache used by calendar calculations.
+ */
+public class LongKeyCacheTest
+{
+   /**
+    * Test basic cache operations.
+    */
+   @Test public void testCacheOperations()
+   {
+      LongKeyCache cache = new LongKeyCache(16);
+      assertEquals(-1, cache.get(1, 2, -1));
+
+      cache.put(1, 2, 3);
+      cache.put(2, 1, 4);
+      assertEquals(3, cache.get(1, 2, -1));
+      assertEquals(4, cache.get(2, 1, -1));
+
+      cache.put(1, 2, 5);
+      assertEquals(5, cache.get(1, 2, -1));
+      assertEquals(3, cache.getHitCount());
+      assertEquals(1, cache.getMissCount());
+
+      cache.clear();
+      assertEquals(-1, cache.get(1, 2, -1));
+      assertEquals(2, cache.getMissCount());
+   }
+
+   /**
+    * Ensure that the cache does not grow beyond its capacity, and that
+    * recently used entries are retained.
+    */
+   @Test public void testBounded()
+   {
+      LongKeyCache cache = new LongKeyCache(256);
+      for (long key = 0; key < 10000; key++)
+      {
+         cache.put(key, key * 2, key * 3);
+         assertEquals(0, cache.get(0, 0, -1));
+      }
+
+      int count = 0;
+      for (long key = 0; key < 10000; key++)
+      {
+         long value = cache.get(key, key * 2, -1);
+         if (value != -1)
+         {
+            assertEquals(key * 3, value);
+            ++count;
+         }
+      }
+      assertTrue(count > 0);
+      assertTrue(count <= 256);
+   }
+
+   /**
+    * Query a shared calendar from several threads and ensure
+    * that the results are consistent.
+    *
+    * @throws Exception
+    */
+   @Test public void testConcurrentCalendarAccess() throws Exception
+   {
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectFile file = new ProjectFile();
+      final ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      calendar.addCalendarException(df.parse("25/12/2017 00:00"), df.parse("26/12/2017 00:00"));
+      final Date startDate = df.parse("01/12/2017 08:00");
+      final double expected = calendar.getWork(startDate, df.parse("01/02/2018 17:00"), TimeUnit.HOURS).getDuration();
+      final long finish = df.parse("01/02/2018 17:00").getTime();
+
+      final List<Throwable> errors = new ArrayList<Throwable>();
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int index = 0; index < 4; index++)
+      {
+         Thread thread = new Thread()
+         {
+            @Override public void run()
+            {
+               try
+               {
+                  for (int loop = 0; loop < 2000; loop++)
+                  {
+                     Date endDate = new Date(finish - (loop % 50) * 60000L);
+                     double work = calendar.getWork(startDate, endDate, TimeUnit.HOURS).getDuration();
+                     assertEquals(expected - (loop % 50) / 60.0, work, 0.001);
+                     calendar.getStartTime(endDate);
+                  }
+               }
+
+               catch (Throwable ex)
+               {
+                  synchronized (errors)
+                  {
+                     errors.add(ex);
+                  }
+               }
+            }
+         };
+         threads.add(thread);
+         thread.start();
+      }
+
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+
+      assertTrue(errors.toString(), errors.isEmpty());
+      assertTrue(calendar.getCacheHitCount() > 0);
+      assertTrue(calendar.getCacheMissCount() > 0);
+   }
+}
@@ -0,0 +1,115 @@
+/*
+ * file:       MerlinGeneratedFileTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       27/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import net.sf.mpxj.Day;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.junit.benchmark.MerlinGenerator;
+import net.sf.mpxj.merlin.MerlinReader;
+
+import org.junit.Test;
+
+/**
+ * Reads a generated Merlin database and ensures that the activity
+ * hierarchy, calendars, assignments and predecessors are read correctly.
+ */
+public class MerlinGeneratedFileTest
+{
+   /**
+    * Test reading a generated file.
+    *
+    * @throws Exception
+    */
+   @Test public void testGeneratedFile() throws Exception
+   {
+      File file = File.createTempFile("generated", ".sqlite");
+      try
+      {
+         MerlinGenerator.generate(file, ACTIVITY_COUNT);
+         ProjectFile project = new MerlinReader().read(file);
+
+         int summaryCount = MerlinGenerator.getSummaryCount(ACTIVITY_COUNT);
+         int phaseCount = MerlinGenerator.getPhaseCount(ACTIVITY_COUNT);
+         assertEquals(ACTIVITY_COUNT + summaryCount + phaseCount, project.getAllTasks().size());
+         assertEquals(ACTIVITY_COUNT, project.getAllResourceAssignments().size());
+
+         //
+         // Phases and summaries appear in order beneath their parents
+         //
+         List<Task> phases = project.getChildTasks();
+         assertEquals(phaseCount, phases.size());
+         int summaryIndex = 0;
+         for (int phaseIndex = 0; phaseIndex < phaseCount; phaseIndex++)
+         {
+            Task phase = phases.get(phaseIndex);
+            assertEquals("Phase " + phaseIndex, phase.getName());
+            for (Task summary : phase.getChildTasks())
+            {
+               assertEquals("Summary " + summaryIndex, summary.getName());
+               ++summaryIndex;
+            }
+         }
+         assertEquals(summaryCount, summaryIndex);
+
+         for (int index = 0; index < ACTIVITY_COUNT; index++)
+         {
+            Task task = project.getTaskByUniqueID(Integer.valueOf(MerlinGenerator.getActivityID(index)));
+            assertNotNull(task);
+            assertEquals("Activity " + index, task.getName());
+
+            Task parent = task.getParentTask();
+            assertEquals(Integer.valueOf(MerlinGenerator.getSummaryID(index)), parent.getUniqueID());
+            assertSame(task, parent.getChildTasks().get(index % MerlinGenerator.ACTIVITIES_PER_SUMMARY));
+
+            assertEquals(index % MerlinGenerator.ACTIVITIES_PER_SUMMARY == 0 ? 0 : 1, task.getPredecessors().size());
+            assertEquals(1, task.getResourceAssignments().size());
+            assertEquals(Integer.valueOf(MerlinGenerator.getResourceID(index)), task.getResourceAssignments().get(0).getResourceUniqueID());
+         }
+
+         ProjectCalendar calendar = project.getCalendarByUniqueID(Integer.valueOf(MerlinGenerator.CALENDAR_ID));
+         assertNotNull(calendar);
+         assertFalse(calendar.isWorkingDay(Day.SUNDAY));
+         assertTrue(calendar.isWorkingDay(Day.MONDAY));
+         assertTrue(calendar.isWorkingDay(Day.FRIDAY));
+         assertFalse(calendar.isWorkingDay(Day.SATURDAY));
+         assertEquals(2, calendar.getCalendarHours(Day.MONDAY).getRangeCount());
+         assertEquals(MerlinGenerator.EXCEPTION_COUNT, calendar.getCalendarExceptions().size());
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   private static final int ACTIVITY_COUNT = 20000;
+}
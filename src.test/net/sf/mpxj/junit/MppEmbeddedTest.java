@@ -25,12 +25,15 @@ package net.sf.mpxj.junit;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.util.List;
 
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.mpp.MPPReader;
 import net.sf.mpxj.mpp.RTFEmbeddedObject;
+import net.sf.mpxj.reader.UniversalProjectReader;
 
 import org.junit.Test;
 
@@ -117,6 +120,31 @@ public class MppEmbeddedTest
       testEmbeddedObjects(mpp);
    }
 
+   /**
+    * Test MPP14 file read from a stream rather than a file, and via
+    * the universal project reader's file backed path.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp14EmbeddedFromStream() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      reader.setPreserveNoteFormatting(true);
+      FileInputStream is = new FileInputStream(MpxjTestData.filePath("mpp14embedded.mpp"));
+      try
+      {
+         testEmbeddedObjects(reader.read(is));
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      ProjectFile mpp = new UniversalProjectReader().read(new File(MpxjTestData.filePath("mpp14embedded.mpp")));
+      assertEquals("Task 1", mpp.getTaskByID(Integer.valueOf(1)).getName());
+   }
+
    /**
     * Tests common to all file types.
     *
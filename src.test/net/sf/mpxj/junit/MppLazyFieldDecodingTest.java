@@ -0,0 +1,91 @@
+/*
+ * file:       MppLazyFieldDecodingTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       31/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static net.sf.mpxj.junit.MpxjAssert.*;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.mpp.MPPReader;
+
+import org.junit.Test;
+
+/**
+ * Ensure that reading MPP files with lazy field decoding produces
+ * the same field values as the default eager decoding.
+ */
+public class MppLazyFieldDecodingTest
+{
+   /**
+    * Test MPP9 file.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp9() throws Exception
+   {
+      testFile("mpp9task.mpp");
+   }
+
+   /**
+    * Test MPP12 file.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp12() throws Exception
+   {
+      testFile("mpp12assignmentcustom.mpp");
+   }
+
+   /**
+    * Test MPP14 file.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp14() throws Exception
+   {
+      testFile("mpp14assignmentcustom.mpp");
+      testFile("mpp14resource.mpp");
+   }
+
+   /**
+    * Read a file eagerly and lazily and compare the results.
+    *
+    * @param name file name
+    */
+   private void testFile(String name) throws Exception
+   {
+      ProjectFile eager = new MPPReader().read(MpxjTestData.filePath(name));
+
+      MPPReader reader = new MPPReader();
+      reader.setLazyFieldDecoding(true);
+      ProjectFile lazy = reader.read(MpxjTestData.filePath(name));
+
+      assertFieldsEqual(name, TaskField.values(), eager.getAllTasks(), lazy.getAllTasks());
+      assertFieldsEqual(name, ResourceField.values(), eager.getAllResources(), lazy.getAllResources());
+      assertFieldsEqual(name, AssignmentField.values(), eager.getAllResourceAssignments(), lazy.getAllResourceAssignments());
+   }
+
+}
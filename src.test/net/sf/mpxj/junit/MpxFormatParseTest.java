@@ -0,0 +1,218 @@
+/*
+ * file:       MpxFormatParseTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       13/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.text.DateFormatSymbols;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import net.sf.mpxj.mpx.MPXJDateFormat;
+import net.sf.mpxj.mpx.MPXJNumberFormat;
+
+import org.junit.Test;
+
+/**
+ * Ensure that the specialised date and number parsing used when reading
+ * MPX files produces the same results as SimpleDateFormat and DecimalFormat.
+ */
+public class MpxFormatParseTest
+{
+   /**
+    * Compare date parsing for a range of date and time patterns.
+    */
+   @Test public void testDateParsing()
+   {
+      String[] patterns =
+      {
+         "dd/MM/yyyy",
+         "MM/dd/yy",
+         "yyyy-MM-dd HH:mm",
+         "dd/MM/yy hh:mma",
+         "d.M.yyyy h:mm a",
+         "yyyy/MM/dd"
+      };
+
+      String[] values =
+      {
+         "04/09/2017",
+         "4/9/2017",
+         "31/12/1999",
+         "32/13/2017",
+         "00/00/0000",
+         "04/09/17",
+         "09/04/50",
+         "12/31/99",
+         "1/1/2",
+         "2017-09-04 08:00",
+         "2017-09-04 24:61",
+         "2017-9-4 8:5",
+         "04/09/17 12:00am",
+         "04/09/17 12:00pm",
+         "04/09/17 01:30PM",
+         "04/09/17 1:30 pm",
+         "4.9.2017 8:00 am",
+         "4.9.2017 12:30 PM",
+         "2017/09/04",
+         "2017/09/04extra",
+         "04/09/2017 08:00",
+         "123/09/2017",
+         "04/09/12345",
+         "04-09-2017",
+         "04/09",
+         "abc"
+      };
+
+      for (String pattern : patterns)
+      {
+         SimpleDateFormat expectedFormat = new SimpleDateFormat(pattern);
+         MPXJDateFormat format = new MPXJDateFormat();
+         format.applyPatterns(new String[]
+         {
+            pattern
+         });
+         format.setAmPmText("am", "pm");
+         DateFormatSymbols symbols = expectedFormat.getDateFormatSymbols();
+         symbols.setAmPmStrings(new String[]
+         {
+            "am",
+            "pm"
+         });
+         expectedFormat.setDateFormatSymbols(symbols);
+
+         for (String value : values)
+         {
+            ParsePosition expectedPosition = new ParsePosition(0);
+            Date expected = expectedFormat.parse(value, expectedPosition);
+
+            ParsePosition position = new ParsePosition(0);
+            Date actual = format.parse(value, position);
+
+            String message = pattern + " " + value;
+            assertEquals(message, expected, actual);
+            assertEquals(message, expectedPosition.getIndex(), position.getIndex());
+         }
+      }
+   }
+
+   /**
+    * Compare number parsing for a range of patterns and separators.
+    */
+   @Test public void testNumberParsing()
+   {
+      String[] patterns =
+      {
+         "#.##",
+         "0.00#",
+         "##0.##",
+         "$0.00",
+         "0.00 EUR",
+         "#,##0.00"
+      };
+
+      char[][] separators =
+      {
+         {
+            '.',
+            ','
+         },
+         {
+            ',',
+            '.'
+         }
+      };
+
+      String[] values =
+      {
+         "0",
+         "-0",
+         "-0.0",
+         "1",
+         "1.00",
+         "1,00",
+         "1568.00",
+         "$1568.00",
+         "$1,234.50",
+         "1.234,50",
+         "1 EUR",
+         "1.5 EUR",
+         "0.1",
+         "0.10",
+         ".5",
+         "5.",
+         "-12.75",
+         "+3",
+         "5E2",
+         "5e2",
+         "12345678901234567890",
+         "1234567890123456.789",
+         "99.999999999999999999",
+         "7d",
+         "56h",
+         "0%",
+         "100%",
+         "abc",
+         "$",
+         "-"
+      };
+
+      for (String pattern : patterns)
+      {
+         for (char[] separator : separators)
+         {
+            DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+            symbols.setDecimalSeparator(separator[0]);
+            symbols.setGroupingSeparator(separator[1]);
+            DecimalFormat expectedFormat = new DecimalFormat();
+            expectedFormat.setDecimalFormatSymbols(symbols);
+            expectedFormat.applyPattern(pattern);
+
+            MPXJNumberFormat format = new MPXJNumberFormat();
+            format.applyPattern(pattern, null, separator[0], separator[1]);
+
+            for (String value : values)
+            {
+               ParsePosition expectedPosition = new ParsePosition(0);
+               Number expected = expectedFormat.parse(value, expectedPosition);
+               if (expectedPosition.getIndex() == 0)
+               {
+                  expected = null;
+               }
+
+               ParsePosition position = new ParsePosition(0);
+               Number actual = format.parse(value, position);
+
+               String message = pattern + " " + separator[0] + " " + value;
+               assertEquals(message, expected, actual);
+               assertEquals(message, expectedPosition.getIndex(), position.getIndex());
+            }
+         }
+      }
+   }
+}
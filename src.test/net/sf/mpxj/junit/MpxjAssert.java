@@ -23,7 +23,12 @@
 
 package net.sf.mpxj.junit;
 
+import java.util.Arrays;
+import java.util.List;
+
 import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
 import net.sf.mpxj.TimeUnit;
 
 import org.junit.Assume;
@@ -85,4 +90,51 @@ public final class MpxjAssert
       org.junit.Assert.assertEquals(expectedDuration, duration.getDuration(), 0.005);
       org.junit.Assert.assertEquals(expectedUnits, duration.getUnits());
    }
+
+   /**
+    * Assert that the cached value of each of the supplied fields is the
+    * same in two containers. Values are compared using their string
+    * representation, apart from byte arrays which are compared by content.
+    *
+    * @param message prefix for the error message, may be null
+    * @param fields fields to compare
+    * @param expected container holding the expected values
+    * @param actual container holding the actual values
+    */
+   public static void assertFieldsEqual(String message, FieldType[] fields, FieldContainer expected, FieldContainer actual)
+   {
+      for (FieldType field : fields)
+      {
+         String fieldMessage = message == null ? String.valueOf(field) : message + " " + field;
+         Object expectedValue = expected.getCachedValue(field);
+         Object actualValue = actual.getCachedValue(field);
+         if (expectedValue instanceof byte[] && actualValue instanceof byte[])
+         {
+            org.junit.Assert.assertTrue(fieldMessage, Arrays.equals((byte[]) expectedValue, (byte[]) actualValue));
+         }
+         else
+         {
+            org.junit.Assert.assertEquals(fieldMessage, String.valueOf(expectedValue), String.valueOf(actualValue));
+         }
+      }
+   }
+
+   /**
+    * Assert that two lists of containers are the same size, and that
+    * the cached value of each of the supplied fields is the same in
+    * the corresponding containers.
+    *
+    * @param message prefix for the error message, may be null
+    * @param fields fields to compare
+    * @param expected containers holding the expected values
+    * @param actual containers holding the actual values
+    */
+   public static void assertFieldsEqual(String message, FieldType[] fields, List<? extends FieldContainer> expected, List<? extends FieldContainer> actual)
+   {
+      org.junit.Assert.assertEquals(message, expected.size(), actual.size());
+      for (int index = 0; index < expected.size(); index++)
+      {
+         assertFieldsEqual(message, fields, expected.get(index), actual.get(index));
+      }
+   }
 }
@@ -53,6 +53,7 @@ import net.sf.mpxj.junit.task.TaskPercentCompleteTest;
 import net.sf.mpxj.junit.task.TaskStartsTest;
 import net.sf.mpxj.junit.task.TaskTextTest;
 import net.sf.mpxj.junit.task.TaskTextValuesTest;
+import net.sf.mpxj.utility.CalendarTimelineTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -136,6 +137,26 @@ import org.junit.runners.Suite;
    ResourceFlagsTest.class,
    ResourceNumbersTest.class,
    ResourceTextTest.class,
+   FieldStoreTest.class,
+   MppLazyFieldDecodingTest.class,
+   LongKeyCacheTest.class,
+   MspdiStreamingReaderTest.class,
+   XerReadAllTest.class,
+   ColumnarTableTest.class,
+   XerGeneratedFileTest.class,
+   TimephasedSeriesTest.class,
+   TimephasedAggregatorTest.class,
+   RelationContainerTest.class,
+   CriticalPathSchedulerTest.class,
+   UniversalProjectReaderBatchTest.class,
+   UniversalProjectReaderSQLiteTest.class,
+   MspdiStreamingWriterTest.class,
+   JsonWriterTest.class,
+   MpxFormatParseTest.class,
+   PmxmlReadAllTest.class,
+   MerlinGeneratedFileTest.class,
+   FastTrackReaderTest.class,
+   CalendarTimelineTest.class,
    CustomerDataTest.class
 }) public class MpxjTestSuite
 {
@@ -0,0 +1,104 @@
+/*
+ * file:       MspdiStreamingReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       14/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static net.sf.mpxj.junit.MpxjAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.mspdi.MSPDIReader;
+
+import org.junit.Test;
+
+/**
+ * Ensure that reading MSPDI files as a stream produces the same
+ * results as unmarshalling the complete document.
+ */
+public class MspdiStreamingReaderTest
+{
+   /**
+    * Test each of the MSPDI files in the test data directory.
+    *
+    * @throws Exception
+    */
+   @Test public void testStreamingReader() throws Exception
+   {
+      int count = 0;
+      for (File file : new File(MpxjTestData.filePath("")).listFiles())
+      {
+         if (file.getName().endsWith(".xml"))
+         {
+            testFile(file);
+            ++count;
+         }
+      }
+      assertTrue(count > 0);
+   }
+
+   /**
+    * Read a file using both approaches and compare the results.
+    *
+    * @param file file to read
+    */
+   private void testFile(File file) throws Exception
+   {
+      ProjectFile expected = new MSPDIReader().read(file);
+
+      MSPDIReader reader = new MSPDIReader();
+      reader.setStreamingInput(true);
+      ProjectFile actual = reader.read(file);
+
+      String name = file.getName();
+      assertEquals(name, expected.getProjectProperties().getName(), actual.getProjectProperties().getName());
+      assertEquals(name, expected.getProjectProperties().getDefaultCalendarName(), actual.getProjectProperties().getDefaultCalendarName());
+
+      List<ProjectCalendar> expectedCalendars = expected.getCalendars();
+      List<ProjectCalendar> actualCalendars = actual.getCalendars();
+      assertEquals(name, expectedCalendars.size(), actualCalendars.size());
+      for (int index = 0; index < expectedCalendars.size(); index++)
+      {
+         assertEquals(name, expectedCalendars.get(index).toString(), actualCalendars.get(index).toString());
+      }
+
+      assertFieldsEqual(name, TaskField.values(), expected.getAllTasks(), actual.getAllTasks());
+      assertFieldsEqual(name, ResourceField.values(), expected.getAllResources(), actual.getAllResources());
+
+      List<ResourceAssignment> expectedAssignments = expected.getAllResourceAssignments();
+      List<ResourceAssignment> actualAssignments = actual.getAllResourceAssignments();
+      assertFieldsEqual(name, AssignmentField.values(), expectedAssignments, actualAssignments);
+      for (int index = 0; index < expectedAssignments.size(); index++)
+      {
+         assertEquals(name, String.valueOf(expectedAssignments.get(index).getTimephasedWork()), String.valueOf(actualAssignments.get(index).getTimephasedWork()));
+      }
+   }
+
+}
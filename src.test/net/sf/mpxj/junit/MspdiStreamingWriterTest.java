@@ -0,0 +1,132 @@
+/*
+ * file:       MspdiStreamingWriterTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       23/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.mspdi.MSPDIWriter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Ensure that writing MSPDI files as a stream produces exactly the same
+ * output as marshalling the complete document.
+ */
+public class MspdiStreamingWriterTest
+{
+   /**
+    * Test each of the MSPDI, MPP and MPX files in the test data directory.
+    *
+    * @throws Exception
+    */
+   @Test public void testStreamingWriter() throws Exception
+   {
+      int count = 0;
+      for (File file : new File(MpxjTestData.filePath("")).listFiles())
+      {
+         String name = file.getName().toLowerCase();
+         if ((name.endsWith(".xml") || name.endsWith(".mpp") || name.endsWith(".mpx")) && !name.startsWith("password"))
+         {
+            testFile(file, true, true);
+            ++count;
+         }
+      }
+      assertTrue(count > 0);
+   }
+
+   /**
+    * Ensure that turning off formatting removes the indentation,
+    * and that the streaming writer honours this.
+    *
+    * @throws Exception
+    */
+   @Test public void testUnformattedOutput() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mspdiresource.xml"));
+      testFile(file, false, false);
+
+      String formatted = new String(write(new UniversalProjectReader().read(file), false, true, false), "UTF-8");
+      String unformatted = new String(write(new UniversalProjectReader().read(file), false, false, false), "UTF-8");
+      assertTrue(formatted.contains("\n    <"));
+      assertFalse(unformatted.contains("\n"));
+      assertEquals(formatted.replaceAll("\n *", ""), unformatted);
+   }
+
+   /**
+    * Write a file using both approaches and compare the results.
+    *
+    * @param file file to read
+    * @param formatted true if the output is indented
+    * @param timephased true if timephased data is written
+    */
+   private void testFile(File file, boolean formatted, boolean timephased) throws Exception
+   {
+      //
+      // Writing the file adds dummy assignments to the project,
+      // so each write needs a freshly read copy.
+      //
+      ProjectFile expectedProject = new UniversalProjectReader().read(file);
+      if (expectedProject == null)
+      {
+         return;
+      }
+
+      //
+      // Some readers default the current date to now, so make sure
+      // both copies use the same value.
+      //
+      ProjectFile actualProject = new UniversalProjectReader().read(file);
+      actualProject.getProjectProperties().setCurrentDate(expectedProject.getProjectProperties().getCurrentDate());
+
+      byte[] expected = write(expectedProject, false, formatted, timephased);
+      byte[] actual = write(actualProject, true, formatted, timephased);
+      assertTrue(file.getName(), Arrays.equals(expected, actual));
+   }
+
+   /**
+    * Write a project as MSPDI.
+    *
+    * @param project project to write
+    * @param streaming true if streaming output is used
+    * @param formatted true if the output is indented
+    * @param timephased true if timephased data is written
+    * @return MSPDI file content
+    */
+   private byte[] write(ProjectFile project, boolean streaming, boolean formatted, boolean timephased) throws Exception
+   {
+      MSPDIWriter writer = new MSPDIWriter();
+      writer.setStreamingOutput(streaming);
+      writer.setFormattedOutput(formatted);
+      writer.setWriteTimephasedData(timephased);
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      writer.write(project, stream);
+      return stream.toByteArray();
+   }
+}
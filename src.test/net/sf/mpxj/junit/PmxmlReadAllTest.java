@@ -0,0 +1,183 @@
+/*
+ * file:       PmxmlReadAllTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       20/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static net.sf.mpxj.junit.MpxjAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+
+import org.junit.Test;
+
+/**
+ * Tests listing and reading all of the projects from a multi-project PMXML file.
+ */
+public class PmxmlReadAllTest
+{
+   /**
+    * Ensure that the non-external projects in a multi-project file are
+    * listed in file order.
+    *
+    * @throws Exception
+    */
+   @Test public void testListProjects() throws Exception
+   {
+      byte[] data = createMultiProjectFile();
+      Map<Integer, String> projects = new PrimaveraPMFileReader().listProjects(new ByteArrayInputStream(data));
+
+      assertEquals(PROJECT_COUNT, projects.size());
+      List<Integer> ids = new ArrayList<Integer>(projects.keySet());
+      for (int index = 0; index < PROJECT_COUNT; index++)
+      {
+         Integer id = Integer.valueOf(OBJECT_ID + index + 1);
+         assertEquals(id, ids.get(index));
+         assertEquals(PROJECT_ID + (index + 1), projects.get(id));
+      }
+   }
+
+   /**
+    * Ensure that each project is read correctly from a multi-project file,
+    * and that a specific project can be selected by its ObjectId.
+    *
+    * @throws Exception
+    */
+   @Test public void testReadAll() throws Exception
+   {
+      byte[] data = createMultiProjectFile();
+      ProjectFile single = new PrimaveraPMFileReader().read(new File(MpxjTestData.filePath(FILE_NAME)));
+      List<ProjectFile> projects = new PrimaveraPMFileReader().readAll(new ByteArrayInputStream(data));
+
+      assertEquals(PROJECT_COUNT, projects.size());
+
+      List<Task> expectedTasks = single.getAllTasks();
+      assertTrue(expectedTasks.size() > 0);
+
+      for (int index = 0; index < PROJECT_COUNT; index++)
+      {
+         ProjectFile project = projects.get(index);
+         assertEquals(PROJECT_ID + (index + 1), project.getProjectProperties().getProjectTitle());
+         assertEquals(single.getCalendars().size(), project.getCalendars().size());
+         assertEquals(single.getAllResources().size(), project.getAllResources().size());
+
+         assertFieldsEqual(null, TaskField.values(), expectedTasks, project.getAllTasks());
+      }
+
+      //
+      // The external project at the start of the file is ignored
+      //
+      PrimaveraPMFileReader reader = new PrimaveraPMFileReader();
+      assertEquals(PROJECT_ID + 1, reader.read(new ByteArrayInputStream(data)).getProjectProperties().getProjectTitle());
+
+      reader.setProjectID(Integer.valueOf(OBJECT_ID + PROJECT_COUNT));
+      assertEquals(PROJECT_ID + PROJECT_COUNT, reader.read(new ByteArrayInputStream(data)).getProjectProperties().getProjectTitle());
+
+      //
+      // The selected project does not restrict readAll
+      //
+      assertEquals(PROJECT_COUNT, reader.readAll(new ByteArrayInputStream(data)).size());
+
+      //
+      // A missing ObjectId is reported as such
+      //
+      reader.setProjectID(Integer.valueOf(OBJECT_ID + PROJECT_COUNT + 1));
+      try
+      {
+         reader.read(new ByteArrayInputStream(data));
+         fail("Expected an exception");
+      }
+
+      catch (MPXJException ex)
+      {
+         assertEquals("Unable to locate a non-external project with ObjectId " + (OBJECT_ID + PROJECT_COUNT + 1), ex.getMessage());
+      }
+
+      reader.setProjectID(null);
+      assertNull(reader.getProjectID());
+      assertEquals(PROJECT_ID + 1, reader.read(new ByteArrayInputStream(data)).getProjectProperties().getProjectTitle());
+   }
+
+   /**
+    * Creates a multi-project PMXML file by duplicating the Project element
+    * from a single project file. The first copy is marked as external,
+    * and each copy is given a new ObjectId and Id.
+    *
+    * @return multi-project file data
+    */
+   private byte[] createMultiProjectFile() throws Exception
+   {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      InputStream is = new FileInputStream(MpxjTestData.filePath(FILE_NAME));
+      try
+      {
+         byte[] buffer = new byte[8192];
+         int length;
+         while ((length = is.read(buffer)) != -1)
+         {
+            bytes.write(buffer, 0, length);
+         }
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      String text = new String(bytes.toByteArray(), CHARSET);
+      int start = text.indexOf("<Project>");
+      int end = text.indexOf("</Project>") + "</Project>".length();
+      String project = text.substring(start, end);
+
+      StringBuilder result = new StringBuilder(text.substring(0, start));
+      result.append(project.replace("<Project>", "<Project external=\"true\">"));
+      for (int index = 1; index <= PROJECT_COUNT; index++)
+      {
+         result.append('\n');
+         result.append(project.replaceFirst("<ObjectId>" + OBJECT_ID + "</ObjectId>", "<ObjectId>" + (OBJECT_ID + index) + "</ObjectId>").replaceFirst("<Id>EC00640</Id>", "<Id>" + PROJECT_ID + index + "</Id>"));
+      }
+      result.append(text.substring(end));
+
+      return result.toString().getBytes(CHARSET);
+   }
+
+   private static final Charset CHARSET = Charset.forName("UTF-8");
+   private static final String FILE_NAME = "generated/task-percentcomplete/percent-complete-8.4.pmxml";
+   private static final int PROJECT_COUNT = 3;
+   private static final int OBJECT_ID = 4507;
+   private static final String PROJECT_ID = "EC00640-";
+}
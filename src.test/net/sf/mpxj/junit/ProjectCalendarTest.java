@@ -27,12 +27,15 @@ import static org.junit.Assert.*;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 
 import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
@@ -689,6 +692,40 @@ public class ProjectCalendarTest
       assertEquals("14/10/2003 08:00", df.format(endDate));
    }
 
+   /**
+    * Test the ProjectCalendar.getStartDate method using calendars
+    * where working time ends at midnight.
+    *
+    * @throws Exception
+    */
+   @Test public void testGetStartDateMidnight() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      Date start = df.parse("01/01/0001 00:00");
+      Date midnight = df.parse("02/01/0001 00:00");
+
+      ProjectCalendar allDay = file.addCalendar();
+      ProjectCalendar evening = file.addCalendar();
+      for (Day day : Day.values())
+      {
+         allDay.setWorkingDay(day, true);
+         allDay.addCalendarHours(day).addRange(new DateRange(start, midnight));
+         boolean weekday = day != Day.SATURDAY && day != Day.SUNDAY;
+         evening.setWorkingDay(day, weekday);
+         ProjectCalendarHours hours = evening.addCalendarHours(day);
+         if (weekday)
+         {
+            hours.addRange(new DateRange(df.parse("01/01/0001 20:00"), midnight));
+         }
+      }
+
+      assertEquals("03/10/2017 00:00", df.format(allDay.getStartDate(df.parse("04/10/2017 00:00"), Duration.getInstance(24, TimeUnit.HOURS))));
+      assertEquals("02/10/2017 12:00", df.format(allDay.getStartDate(df.parse("04/10/2017 00:00"), Duration.getInstance(36, TimeUnit.HOURS))));
+      assertEquals("02/10/2017 22:00", df.format(evening.getStartDate(df.parse("03/10/2017 00:00"), Duration.getInstance(2, TimeUnit.HOURS))));
+      assertEquals("29/09/2017 22:00", df.format(evening.getStartDate(df.parse("03/10/2017 00:00"), Duration.getInstance(6, TimeUnit.HOURS))));
+   }
+
    /**
     * Simple tests to exercise the ProjectCalendar.getStartTime method.
     *
@@ -710,4 +747,116 @@ public class ProjectCalendarTest
       //
       assertNull(cal.getStartTime(df.parse("11/10/2003 00:00")));
    }
+
+   /**
+    * Test working time calculations over long date ranges which
+    * include exceptions from both a base and a derived calendar.
+    *
+    * @throws Exception
+    */
+   @Test public void testLongRangeCalculations() throws Exception
+   {
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar base = file.addDefaultBaseCalendar();
+      base.addCalendarException(df.parse("25/12/2017 00:00"), df.parse("26/12/2017 00:00"));
+      base.addCalendarException(df.parse("02/04/2018 00:00"), df.parse("06/04/2018 00:00"));
+      ProjectCalendarException saturday = base.addCalendarException(df.parse("16/06/2018 00:00"), df.parse("16/06/2018 00:00"));
+      saturday.addRange(new DateRange(df.parse("01/01/0001 09:00"), df.parse("01/01/0001 12:00")));
+
+      ProjectCalendar derived = file.addDefaultDerivedCalendar();
+      derived.setParent(base);
+      derived.addCalendarException(df.parse("03/04/2018 00:00"), df.parse("04/04/2018 00:00")).addRange(new DateRange(df.parse("01/01/0001 10:00"), df.parse("01/01/0001 14:00")));
+      derived.addCalendarException(df.parse("20/08/2018 00:00"), df.parse("24/08/2018 00:00"));
+
+      Date startDate = df.parse("01/12/2017 00:00");
+      Date endDate = df.parse("01/12/2018 00:00");
+      for (ProjectCalendar calendar : new ProjectCalendar[]
+      {
+         base,
+         derived
+      })
+      {
+         //
+         // Compare the work across the whole range with the sum of the work for each day
+         //
+         double expectedWork = 0;
+         Calendar cal = Calendar.getInstance();
+         cal.setTime(startDate);
+         while (cal.getTime().getTime() < endDate.getTime())
+         {
+            expectedWork += calendar.getWork(cal.getTime(), TimeUnit.MINUTES).getDuration();
+            cal.add(Calendar.DAY_OF_YEAR, 1);
+         }
+         assertEquals(expectedWork, calendar.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+         assertEquals(-expectedWork, calendar.getWork(endDate, startDate, TimeUnit.MINUTES).getDuration(), 0.01);
+
+         //
+         // Ensure that adding a duration and measuring the work are consistent
+         //
+         Date start = df.parse("01/12/2017 08:00");
+         for (int minutes = 60; minutes < 100000; minutes += 1970)
+         {
+            Duration duration = Duration.getInstance(minutes, TimeUnit.MINUTES);
+            Date finish = calendar.getDate(start, duration, false);
+            assertEquals(minutes, calendar.getWork(start, finish, TimeUnit.MINUTES).getDuration(), 0.01);
+
+            Date earlierStart = calendar.getStartDate(finish, duration);
+            assertEquals(minutes, calendar.getWork(earlierStart, finish, TimeUnit.MINUTES).getDuration(), 0.01);
+         }
+      }
+
+      assertEquals("04/04/2018 13:00", df.format(derived.getDate(df.parse("30/03/2018 17:00"), Duration.getInstance(7, TimeUnit.HOURS), false)));
+      assertEquals("16/06/2018 11:00", df.format(base.getDate(df.parse("15/06/2018 15:00"), Duration.getInstance(4, TimeUnit.HOURS), false)));
+   }
+
+   /**
+    * Ensure that changes made to working hours and exceptions after
+    * calculations have been carried out are reflected in later calculations.
+    *
+    * @throws Exception
+    */
+   @Test public void testEditAfterCalculation() throws Exception
+   {
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar base = file.addDefaultBaseCalendar();
+      ProjectCalendar derived = file.addDefaultDerivedCalendar();
+      derived.setParent(base);
+
+      Date startDate = df.parse("04/12/2017 00:00");
+      Date endDate = df.parse("18/12/2017 00:00");
+      Date start = df.parse("04/12/2017 08:00");
+      Duration duration = Duration.getInstance(80, TimeUnit.HOURS);
+
+      assertEquals(4800, base.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals(4800, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals("15/12/2017 17:00", df.format(derived.getDate(start, duration, false)));
+
+      //
+      // Extend the working hours on Mondays
+      //
+      base.getCalendarHours(Day.MONDAY).addRange(new DateRange(df.parse("01/01/0001 18:00"), df.parse("01/01/0001 20:00")));
+      assertEquals(5040, base.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals(5040, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals("15/12/2017 12:00", df.format(derived.getDate(start, duration, false)));
+
+      //
+      // Add a non-working exception, then add working time to it
+      //
+      ProjectCalendarException exception = base.addCalendarException(df.parse("06/12/2017 00:00"), df.parse("06/12/2017 00:00"));
+      assertEquals(4560, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      exception.addRange(new DateRange(df.parse("01/01/0001 09:00"), df.parse("01/01/0001 10:00")));
+      assertEquals(4620, base.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals(4620, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+
+      //
+      // Give the derived calendar its own hours for Tuesdays
+      //
+      ProjectCalendarHours hours = derived.addCalendarHours(Day.TUESDAY);
+      assertEquals(3660, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      hours.addRange(new DateRange(df.parse("01/01/0001 08:00"), df.parse("01/01/0001 10:00")));
+      assertEquals(3900, derived.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+      assertEquals(4620, base.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.01);
+   }
 }
@@ -0,0 +1,136 @@
+/*
+ * file:       RelationContainerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       25/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationContainer;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the indexed relation container.
+ */
+public class RelationContainerTest
+{
+   /**
+    * Ensure that duplicate relations are detected, and that relations
+    * which differ by type or lag are retained.
+    */
+   @Test public void testAddPredecessor()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = file.addTask();
+      Task task2 = file.addTask();
+
+      Relation relation1 = task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      Relation relation2 = task2.addPredecessor(task1, RelationType.FINISH_START, Duration.getInstance(0, TimeUnit.DAYS));
+      assertSame(relation1, relation2);
+      assertEquals(1, task2.getPredecessors().size());
+      assertEquals(1, task1.getSuccessors().size());
+
+      Relation relation3 = task2.addPredecessor(task1, RelationType.START_START, null);
+      assertNotSame(relation1, relation3);
+      assertEquals(2, task2.getPredecessors().size());
+      assertEquals(2, task1.getSuccessors().size());
+
+      RelationContainer relations = file.getRelations();
+      assertSame(relation1, relations.getPredecessor(task2, task1));
+      assertSame(task1.getSuccessors().get(0), relations.getSuccessor(task1, task2));
+      assertNull(relations.getPredecessor(task1, task2));
+   }
+
+   /**
+    * Ensure that the index follows changes made to the task relation lists.
+    */
+   @Test public void testRemove()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = file.addTask();
+      Task task2 = file.addTask();
+      RelationContainer relations = file.getRelations();
+
+      Relation relation1 = task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      Relation relation2 = task2.addPredecessor(task1, RelationType.START_START, null);
+
+      assertTrue(task2.removePredecessor(task1, RelationType.FINISH_START, null));
+      assertSame(relation2, relations.getPredecessor(task2, task1));
+      assertEquals(RelationType.START_START, relations.getSuccessor(task1, task2).getType());
+
+      Iterator<Relation> iter = task2.getPredecessors().iterator();
+      iter.next();
+      iter.remove();
+      assertNull(relations.getPredecessor(task2, task1));
+
+      Relation relation3 = task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      assertNotSame(relation1, relation3);
+      assertSame(relation3, relations.getPredecessor(task2, task1));
+
+      task2.getPredecessors().clear();
+      assertNull(relations.getPredecessor(task2, task1));
+   }
+
+   /**
+    * Ensure that bulk additions reuse existing relations, and that a large
+    * number of links to a single task are handled.
+    */
+   @Test public void testAddPredecessors()
+   {
+      ProjectFile file = new ProjectFile();
+      Task hub = file.addTask();
+      Task task1 = file.addTask();
+      Relation existing = hub.addPredecessor(task1, RelationType.FINISH_START, null);
+
+      List<Relation> list = new ArrayList<Relation>();
+      list.add(new Relation(hub, task1, RelationType.FINISH_START, null));
+      for (int index = 0; index < 20000; index++)
+      {
+         list.add(new Relation(hub, file.addTask(), RelationType.FINISH_START, null));
+      }
+      list.add(new Relation(hub, task1, RelationType.FINISH_START, null));
+
+      List<Relation> result = file.getRelations().addPredecessors(list);
+      assertEquals(list.size(), result.size());
+      assertSame(existing, result.get(0));
+      assertSame(existing, result.get(result.size() - 1));
+      assertSame(list.get(1), result.get(1));
+      assertEquals(20001, hub.getPredecessors().size());
+
+      for (Relation relation : hub.getPredecessors())
+      {
+         assertEquals(1, relation.getTargetTask().getSuccessors().size());
+         assertSame(hub, relation.getTargetTask().getSuccessors().get(0).getTargetTask());
+      }
+   }
+}
@@ -0,0 +1,174 @@
+/*
+ * file:       TimephasedAggregatorTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       18/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.mpp.TimescaleUnits;
+import net.sf.mpxj.utility.TimephasedAggregator;
+import net.sf.mpxj.utility.TimephasedMatrix;
+import net.sf.mpxj.utility.TimephasedUtility;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise bulk segmentation of timephased data.
+ */
+public class TimephasedAggregatorTest
+{
+   /**
+    * Ensure that the task matrix matches segmenting each assignment individually.
+    *
+    * @throws Exception
+    */
+   @Test public void testAggregateByTask() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp9timephasedsegments.mpp"));
+      TimephasedAggregator aggregator = new TimephasedAggregator(file.getProjectProperties().getStartDate(), TimescaleUnits.DAYS, 120);
+      TimephasedMatrix<Task> matrix = aggregator.aggregateByTask(file);
+      assertEquals(file.getAllTasks().size(), matrix.getRows().size());
+
+      for (Task task : file.getAllTasks())
+      {
+         double[] work = new double[aggregator.getTimescale().size()];
+         double[] cost = new double[aggregator.getTimescale().size()];
+         for (ResourceAssignment assignment : task.getResourceAssignments())
+         {
+            addExpected(file, assignment, aggregator.getTimescale(), TimescaleUnits.DAYS, work, cost);
+         }
+         assertArrayEquals(work, matrix.getWork(task), 0.0001);
+         assertArrayEquals(cost, matrix.getCost(task), 0.0001);
+      }
+   }
+
+   /**
+    * Ensure that the resource matrix matches segmenting each assignment individually.
+    *
+    * @throws Exception
+    */
+   @Test public void testAggregateByResource() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp14timephasedsegments.mpp"));
+      TimephasedAggregator aggregator = new TimephasedAggregator(file.getProjectProperties().getStartDate(), TimescaleUnits.WEEKS, 20);
+      TimephasedMatrix<Resource> matrix = aggregator.aggregateByResource(file);
+      assertEquals(file.getAllResources().size(), matrix.getRows().size());
+
+      boolean populated = false;
+      for (Resource resource : file.getAllResources())
+      {
+         double[] work = new double[aggregator.getTimescale().size()];
+         double[] cost = new double[aggregator.getTimescale().size()];
+         for (ResourceAssignment assignment : resource.getTaskAssignments())
+         {
+            addExpected(file, assignment, aggregator.getTimescale(), TimescaleUnits.WEEKS, work, cost);
+         }
+         assertArrayEquals(work, matrix.getWork(resource), 0.0001);
+         assertArrayEquals(cost, matrix.getCost(resource), 0.0001);
+
+         for (double value : work)
+         {
+            populated |= value != 0;
+         }
+      }
+      assertTrue(populated);
+   }
+
+   /**
+    * Ensure that segmenting on an executor produces the same result as
+    * segmenting on the calling thread.
+    *
+    * @throws Exception
+    */
+   @Test public void testExecutorService() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp12timephasedsegments.mpp"));
+      TimephasedAggregator aggregator = new TimephasedAggregator(file.getProjectProperties().getStartDate(), TimescaleUnits.DAYS, 120);
+      TimephasedMatrix<Task> expected = aggregator.aggregateByTask(file);
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         aggregator.setExecutorService(executor);
+         TimephasedMatrix<Task> actual = aggregator.aggregateByTask(file);
+         for (int index = 0; index < expected.getRows().size(); index++)
+         {
+            assertArrayEquals(expected.getWork()[index], actual.getWork()[index], 0);
+            assertArrayEquals(expected.getCost()[index], actual.getCost()[index], 0);
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Segment a single assignment and add the result to the expected values.
+    *
+    * @param file parent project
+    * @param assignment resource assignment
+    * @param timescale timescale ranges
+    * @param units timescale units
+    * @param work expected work in hours
+    * @param cost expected cost
+    */
+   private void addExpected(ProjectFile file, ResourceAssignment assignment, List<DateRange> timescale, TimescaleUnits units, double[] work, double[] cost)
+   {
+      TimephasedUtility utility = new TimephasedUtility();
+      ArrayList<DateRange> ranges = new ArrayList<DateRange>(timescale);
+
+      List<Duration> actualWork = utility.segmentWork(assignment.getCalendar(), assignment.getTimephasedActualWork(), units, ranges);
+      List<Duration> remainingWork = utility.segmentWork(assignment.getCalendar(), assignment.getTimephasedWork(), units, ranges);
+      for (int index = 0; index < work.length; index++)
+      {
+         work[index] += actualWork.get(index).convertUnits(TimeUnit.HOURS, file.getProjectProperties()).getDuration();
+         work[index] += remainingWork.get(index).convertUnits(TimeUnit.HOURS, file.getProjectProperties()).getDuration();
+      }
+
+      if (assignment.getResource() != null)
+      {
+         List<Double> actualCost = utility.segmentCost(assignment.getCalendar(), assignment.getTimephasedActualCost(), units, ranges);
+         List<Double> remainingCost = utility.segmentCost(assignment.getCalendar(), assignment.getTimephasedCost(), units, ranges);
+         for (int index = 0; index < cost.length; index++)
+         {
+            cost[index] += actualCost.get(index).doubleValue();
+            cost[index] += remainingCost.get(index).doubleValue();
+         }
+      }
+   }
+}
@@ -0,0 +1,278 @@
+/*
+ * file:       TimephasedSeriesTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       11/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.common.TimephasedCostSeries;
+import net.sf.mpxj.common.TimephasedWorkSeries;
+import net.sf.mpxj.mpp.TimescaleUnits;
+import net.sf.mpxj.utility.TimephasedUtility;
+import net.sf.mpxj.utility.TimescaleUtility;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the compact timephased series representation.
+ */
+public class TimephasedSeriesTest
+{
+   /**
+    * Ensure that work items are unchanged when stored in a series.
+    */
+   @Test public void testWorkItems()
+   {
+      List<TimephasedWork> items = createWork(100);
+      items.get(5).setModified(true);
+      items.get(10).setAmountPerDay(null);
+      items.get(10).setTotalAmount(Duration.getInstance(3, TimeUnit.MINUTES));
+
+      TimephasedWorkSeries series = new TimephasedWorkSeries(items);
+      List<TimephasedWork> data = series.getData();
+      assertEquals(items.toString(), data.toString());
+      assertTrue(data.get(5).getModified());
+      assertNull(data.get(10).getAmountPerDay());
+      assertEquals(TimeUnit.MINUTES, series.getTotalAmountUnits(10));
+      assertSame(data.get(20), data.get(20));
+
+      //
+      // Once the items have been retrieved they may have been modified,
+      // so we expect a new series to be created from them.
+      //
+      assertNotSame(series, TimephasedWorkSeries.getInstance(data));
+      TimephasedWorkSeries other = new TimephasedWorkSeries(items);
+      assertSame(other, TimephasedWorkSeries.getInstance(other.getData()));
+   }
+
+   /**
+    * Ensure that cost items are unchanged when stored in a series.
+    */
+   @Test public void testCostItems()
+   {
+      List<TimephasedCost> items = new ArrayList<TimephasedCost>();
+      for (TimephasedWork work : createWork(10))
+      {
+         TimephasedCost cost = new TimephasedCost();
+         cost.setStart(work.getStart());
+         cost.setFinish(work.getFinish());
+         cost.setTotalAmount(Double.valueOf(work.getTotalAmount().getDuration() * 10));
+         cost.setAmountPerDay(Double.valueOf(work.getAmountPerDay().getDuration() * 10));
+         items.add(cost);
+      }
+      items.get(3).setTotalAmount(null);
+
+      TimephasedCostSeries series = new TimephasedCostSeries(items);
+      assertEquals(items.toString(), series.getData().toString());
+      assertNull(series.getData().get(3).getTotalAmount());
+   }
+
+   /**
+    * Ensure that the list of items retrieved from a container may be
+    * modified, and that the modifications are retained.
+    */
+   @Test public void testModifyData()
+   {
+      List<TimephasedWork> items = createWork(10);
+      List<TimephasedWork> expected = new ArrayList<TimephasedWork>(items);
+      DefaultTimephasedWorkContainer container = new DefaultTimephasedWorkContainer(null, null, items, false);
+
+      List<TimephasedWork> data = container.getData();
+      TimephasedWork item = createWork(1).get(0);
+      data.add(item);
+      expected.add(item);
+      data.remove(0);
+      expected.remove(0);
+      data.set(3, item);
+      expected.set(3, item);
+
+      assertSame(data, container.getData());
+      assertEquals(expected.toString(), container.getData().toString());
+      assertSame(item, data.get(3));
+      assertEquals(expected.toString(), TimephasedWorkSeries.getInstance(data).getData().toString());
+
+      data.clear();
+      assertFalse(container.hasData());
+
+      //
+      // An empty container can be populated
+      //
+      container = new DefaultTimephasedWorkContainer(null, null, new ArrayList<TimephasedWork>(), false);
+      assertFalse(container.hasData());
+      container.getData().add(item);
+      assertTrue(container.hasData());
+      assertEquals(1, TimephasedWorkSeries.getInstance(container.getData()).size());
+   }
+
+   /**
+    * Ensure that a scaled copy of a series matches a scaled copy of the items.
+    */
+   @Test public void testScaledCopy()
+   {
+      List<TimephasedWork> items = createWork(10);
+      List<TimephasedWork> expected = new ArrayList<TimephasedWork>();
+      for (TimephasedWork item : items)
+      {
+         expected.add(new TimephasedWork(item, 0.5, 0.25));
+      }
+
+      TimephasedWorkSeries series = new TimephasedWorkSeries(new TimephasedWorkSeries(items), 0.25, 0.5);
+      assertEquals(expected.toString(), series.getData().toString());
+   }
+
+   /**
+    * Ensure that the binary search used for ordered data gives the same
+    * result as a linear search through the items.
+    */
+   @Test public void testStartIndex()
+   {
+      List<TimephasedWork> items = createWork(50);
+      TimephasedWorkSeries ordered = new TimephasedWorkSeries(items);
+
+      //
+      // Swapping the first two items means the series is no longer
+      // ordered, and a linear search is used
+      //
+      List<TimephasedWork> unorderedItems = new ArrayList<TimephasedWork>(items);
+      unorderedItems.add(0, unorderedItems.remove(1));
+      TimephasedWorkSeries unordered = new TimephasedWorkSeries(unorderedItems);
+
+      long first = items.get(0).getStart().getTime() - HOUR * 48;
+      long last = items.get(items.size() - 1).getFinish().getTime() + HOUR * 48;
+      for (long rangeStart = first; rangeStart < last; rangeStart += HOUR * 5)
+      {
+         for (long length = 0; length < HOUR * 72; length += HOUR * 7)
+         {
+            long rangeEnd = rangeStart + length;
+            for (int startIndex = 0; startIndex < items.size(); startIndex += 7)
+            {
+               assertEquals(getStartIndex(items, rangeStart, rangeEnd, startIndex), ordered.getStartIndex(rangeStart, rangeEnd, startIndex));
+               assertEquals(getStartIndex(unorderedItems, rangeStart, rangeEnd, startIndex), unordered.getStartIndex(rangeStart, rangeEnd, startIndex));
+            }
+         }
+      }
+   }
+
+   /**
+    * Ensure that segmenting a list and segmenting the equivalent series
+    * give the same results.
+    */
+   @Test public void testSegmentWork()
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      List<TimephasedWork> items = new LinkedList<TimephasedWork>(createWork(200));
+      TimescaleUtility timescale = new TimescaleUtility();
+      TimephasedUtility timephased = new TimephasedUtility();
+
+      for (TimescaleUnits units : new TimescaleUnits[]
+      {
+         TimescaleUnits.DAYS,
+         TimescaleUnits.WEEKS,
+         TimescaleUnits.MONTHS
+      })
+      {
+         ArrayList<DateRange> dates = timescale.createTimescale(new Date(items.get(0).getStart().getTime() - HOUR * 72), units, 50);
+         List<Duration> expected = timephased.segmentWork(calendar, items, units, dates);
+         assertEquals(expected, timephased.segmentWork(calendar, new TimephasedWorkSeries(items), units, dates));
+
+         double total = 0;
+         for (Duration duration : expected)
+         {
+            total += duration.getDuration();
+         }
+         assertTrue(total > 0);
+      }
+   }
+
+   /**
+    * Linear search equivalent to the series start index search.
+    *
+    * @param items timephased items
+    * @param rangeStart range start
+    * @param rangeEnd range end
+    * @param startIndex start index
+    * @return item index or -1
+    */
+   private int getStartIndex(List<TimephasedWork> items, long rangeStart, long rangeEnd, int startIndex)
+   {
+      int result = -1;
+      for (int loop = startIndex; loop < items.size(); loop++)
+      {
+         TimephasedWork item = items.get(loop);
+         if (item.getFinish().getTime() >= rangeStart && item.getStart().getTime() <= rangeEnd)
+         {
+            result = loop;
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Create a sequence of timephased work items. Each item covers a
+    * working day, with a gap of several days after every fifth item.
+    *
+    * @param count number of items
+    * @return timephased work items
+    */
+   private List<TimephasedWork> createWork(int count)
+   {
+      List<TimephasedWork> result = new ArrayList<TimephasedWork>();
+      Calendar cal = Calendar.getInstance();
+      cal.clear();
+      cal.set(2017, Calendar.SEPTEMBER, 11, 8, 0);
+
+      for (int index = 0; index < count; index++)
+      {
+         TimephasedWork item = new TimephasedWork();
+         item.setStart(cal.getTime());
+         cal.add(Calendar.HOUR_OF_DAY, 9);
+         item.setFinish(cal.getTime());
+         cal.add(Calendar.HOUR_OF_DAY, (index % 5 == 4) ? 63 : 15);
+
+         double hours = (index % 8) + 1;
+         item.setTotalAmount(Duration.getInstance(hours, TimeUnit.HOURS));
+         item.setAmountPerDay(Duration.getInstance(hours, TimeUnit.HOURS));
+         result.add(item);
+      }
+
+      return result;
+   }
+
+   private static final long HOUR = 60 * 60 * 1000;
+}
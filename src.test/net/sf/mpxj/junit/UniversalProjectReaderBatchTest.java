@@ -0,0 +1,266 @@
+/*
+ * file:       UniversalProjectReaderBatchTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       09/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.listener.DefaultProjectListener;
+import net.sf.mpxj.mspdi.DatatypeConverter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests reading a batch of files using the universal project reader.
+ */
+public class UniversalProjectReaderBatchTest
+{
+   /**
+    * Ensure that reading files of different types concurrently produces
+    * the same results as reading them in turn on a single thread.
+    *
+    * @throws Exception
+    */
+   @Test public void testConcurrentRead() throws Exception
+   {
+      List<File> files = getFiles();
+      TaskCounter counter = new TaskCounter();
+      UniversalProjectReader reader = new UniversalProjectReader();
+      reader.addProjectListener(counter);
+
+      List<ProjectFile> expected = new ArrayList<ProjectFile>();
+      for (File file : files)
+      {
+         expected.add(reader.read(file));
+      }
+      int expectedTaskCount = counter.m_count.getAndSet(0);
+
+      List<Future<ProjectFile>> futures;
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         //
+         // Submit the batch twice so that each type of file
+         // is being read by more than one thread at once
+         //
+         List<File> batch = new ArrayList<File>(files);
+         batch.addAll(files);
+         futures = reader.read(batch, executor);
+         for (Future<ProjectFile> future : futures)
+         {
+            future.get();
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+
+      assertEquals(expectedTaskCount * 2, counter.m_count.get());
+      for (int index = 0; index < futures.size(); index++)
+      {
+         compare(files.get(index % files.size()), expected.get(index % files.size()), futures.get(index).get());
+      }
+   }
+
+   /**
+    * Ensure that errors are reported for individual files, and that
+    * a batch can be read on the calling thread.
+    *
+    * @throws Exception
+    */
+   @Test public void testErrors() throws Exception
+   {
+      List<File> files = new ArrayList<File>();
+      files.add(new File(MpxjTestData.filePath("mspdiresource.xml")));
+      files.add(new File(MpxjTestData.filePath("does-not-exist.mpp")));
+
+      List<Future<ProjectFile>> futures = new UniversalProjectReader().read(files, null);
+      assertEquals(2, futures.size());
+      assertTrue(futures.get(0).isDone());
+      assertTrue(futures.get(1).isDone());
+      assertNotNull(futures.get(0).get());
+
+      try
+      {
+         futures.get(1).get();
+         fail("Expected exception");
+      }
+
+      catch (ExecutionException ex)
+      {
+         assertTrue(ex.getCause() instanceof MPXJException);
+      }
+   }
+
+   /**
+    * Ensure that the MSPDI reader does not leave the project it has read
+    * associated with the current thread once it has finished.
+    *
+    * @throws Exception
+    */
+   @Test public void testParentFileReleased() throws Exception
+   {
+      final AtomicInteger written = new AtomicInteger();
+      UniversalProjectReader reader = new UniversalProjectReader();
+      reader.addProjectListener(new DefaultProjectListener()
+      {
+         @Override public void taskWritten(Task task)
+         {
+            written.incrementAndGet();
+         }
+      });
+
+      ProjectFile file = reader.read(MpxjTestData.filePath("mspdiresource.xml"));
+      assertFalse(file.getAllTasks().isEmpty());
+      DatatypeConverter.printTaskUID(file.getAllTasks().get(0).getUniqueID());
+      assertEquals(0, written.get());
+   }
+
+   /**
+    * Retrieve a selection of files of different types.
+    *
+    * @return list of files
+    */
+   private List<File> getFiles()
+   {
+      List<File> files = new ArrayList<File>();
+      addFiles(files, new File(MpxjTestData.filePath("generated/task-links")));
+      addFiles(files, new File(MpxjTestData.filePath("generated/task-percentcomplete")));
+      addFiles(files, new File(MpxjTestData.filePath("")));
+      Collections.sort(files);
+      return files;
+   }
+
+   /**
+    * Add files from a directory which can be read by the universal reader.
+    *
+    * @param files list of files
+    * @param dir directory
+    */
+   private void addFiles(List<File> files, File dir)
+   {
+      for (File file : dir.listFiles())
+      {
+         String name = file.getName().toLowerCase();
+         if (name.endsWith(".xml") || name.endsWith(".mpx") || name.endsWith(".xer") || name.endsWith(".pmxml") || name.endsWith(".planner") || (name.endsWith(".mpp") && name.startsWith("task-links")))
+         {
+            files.add(file);
+         }
+      }
+   }
+
+   /**
+    * Compare two projects read from the same file.
+    *
+    * @param file source file
+    * @param expected expected project
+    * @param actual actual project
+    */
+   private void compare(File file, ProjectFile expected, ProjectFile actual)
+   {
+      if (expected == null)
+      {
+         assertNull(file.getName(), actual);
+         return;
+      }
+
+      assertNotNull(file.getName(), actual);
+      assertEquals(file.getName(), expected.getCalendars().size(), actual.getCalendars().size());
+      assertEquals(file.getName(), expected.getAllResources().size(), actual.getAllResources().size());
+      assertEquals(file.getName(), expected.getAllTasks().size(), actual.getAllTasks().size());
+
+      for (int index = 0; index < expected.getAllTasks().size(); index++)
+      {
+         compare(file, TaskField.values(), expected.getAllTasks().get(index), actual.getAllTasks().get(index));
+      }
+
+      for (int index = 0; index < expected.getAllResources().size(); index++)
+      {
+         Resource expectedResource = expected.getAllResources().get(index);
+         Resource actualResource = actual.getAllResources().get(index);
+         compare(file, ResourceField.values(), expectedResource, actualResource);
+      }
+   }
+
+   /**
+    * Compare the cached values of each field in two containers.
+    *
+    * @param file source file
+    * @param fields fields to compare
+    * @param expected expected values
+    * @param actual actual values
+    */
+   private void compare(File file, FieldType[] fields, FieldContainer expected, FieldContainer actual)
+   {
+      for (FieldType field : fields)
+      {
+         assertEquals(file.getName() + " " + field, getValue(expected.getCachedValue(field)), getValue(actual.getCachedValue(field)));
+      }
+   }
+
+   /**
+    * Convert a field value to a string for comparison.
+    *
+    * @param value field value
+    * @return string representation
+    */
+   private String getValue(Object value)
+   {
+      return value instanceof Priority ? String.valueOf(((Priority) value).getValue()) : String.valueOf(value);
+   }
+
+   /**
+    * Counts the tasks read, from any thread.
+    */
+   private static class TaskCounter extends DefaultProjectListener
+   {
+      @Override public void taskRead(Task task)
+      {
+         m_count.incrementAndGet();
+      }
+
+      final AtomicInteger m_count = new AtomicInteger();
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * file:       UniversalProjectReaderSQLiteTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       16/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests identifying SQLite databases using the universal project reader.
+ */
+public class UniversalProjectReaderSQLiteTest
+{
+   /**
+    * Ensure that a SQLite database which does not contain a schedule
+    * is handled in the same way whether it is read from a file or a stream.
+    *
+    * @throws Exception
+    */
+   @Test public void testUnrecognisedDatabase() throws Exception
+   {
+      File file = createDatabase("UNRECOGNISED");
+      try
+      {
+         assertNull(new UniversalProjectReader().read(file));
+         assertTrue(file.exists());
+
+         InputStream is = new FileInputStream(file);
+         try
+         {
+            assertNull(new UniversalProjectReader().read(is));
+         }
+
+         finally
+         {
+            is.close();
+         }
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * Ensure that a SQLite database is passed to the correct reader
+    * whether it is read from a file or a stream.
+    *
+    * @throws Exception
+    */
+   @Test public void testMerlinDatabase() throws Exception
+   {
+      File file = createDatabase("ZSCHEDULEITEM");
+      try
+      {
+         try
+         {
+            new UniversalProjectReader().read(file);
+            fail("Expected exception");
+         }
+
+         catch (MPXJException ex)
+         {
+            assertMerlinFailure(ex);
+         }
+
+         InputStream is = new FileInputStream(file);
+         try
+         {
+            new UniversalProjectReader().read(is);
+            fail("Expected exception");
+         }
+
+         catch (MPXJException ex)
+         {
+            assertMerlinFailure(ex);
+         }
+
+         finally
+         {
+            is.close();
+         }
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * The database contains none of the tables the Merlin reader expects,
+    * so we should see the error raised by the Merlin reader itself.
+    *
+    * @param ex exception raised by the universal reader
+    */
+   private void assertMerlinFailure(MPXJException ex)
+   {
+      Throwable cause = ex;
+      while (cause.getCause() instanceof MPXJException)
+      {
+         cause = cause.getCause();
+      }
+      assertTrue(cause.getCause() instanceof SQLException);
+   }
+
+   /**
+    * Create a SQLite database containing a single empty table.
+    *
+    * @param tableName table name
+    * @return database file
+    */
+   private File createDatabase(String tableName) throws Exception
+   {
+      File file = File.createTempFile("mpxj-test", ".sqlite");
+      Class.forName("org.sqlite.JDBC");
+      Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getCanonicalPath());
+      try
+      {
+         Statement statement = connection.createStatement();
+         try
+         {
+            statement.executeUpdate("create table " + tableName + " (id integer primary key)");
+         }
+
+         finally
+         {
+            statement.close();
+         }
+      }
+
+      finally
+      {
+         connection.close();
+      }
+      return file;
+   }
+}
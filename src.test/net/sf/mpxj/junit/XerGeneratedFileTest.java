@@ -0,0 +1,129 @@
+/*
+ * file:       XerGeneratedFileTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       04/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import net.sf.mpxj.ChildTaskContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.FieldTypeClass;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.junit.benchmark.XerGenerator;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+import org.junit.Test;
+
+/**
+ * Reads a generated XER file and ensures that user defined field values,
+ * costs, predecessors and assignments are attached to the correct activities.
+ */
+public class XerGeneratedFileTest
+{
+   /**
+    * Test reading a generated file.
+    *
+    * @throws Exception
+    */
+   @Test public void testGeneratedFile() throws Exception
+   {
+      File file = File.createTempFile("generated", ".xer");
+      try
+      {
+         XerGenerator.generate(file, ACTIVITY_COUNT);
+         ProjectFile project = new PrimaveraXERFileReader().read(file);
+
+         assertEquals(ACTIVITY_COUNT + XerGenerator.getWbsCount(ACTIVITY_COUNT), project.getAllTasks().size());
+         assertEquals(ACTIVITY_COUNT, project.getAllResourceAssignments().size());
+
+         FieldType[] udfFields = new FieldType[XerGenerator.UDF_TYPES.length];
+         for (int type = 0; type < udfFields.length; type++)
+         {
+            udfFields[type] = project.getCustomFields().getFieldByAlias(FieldTypeClass.TASK, XerGenerator.getUdfLabel(type));
+            assertNotNull(udfFields[type]);
+         }
+
+         for (int index = 0; index < ACTIVITY_COUNT; index++)
+         {
+            Task task = project.getTaskByUniqueID(Integer.valueOf(XerGenerator.getActivityID(index)));
+            assertNotNull(task);
+
+            assertEquals(XerGenerator.getUdfText(0, index), task.getCachedValue(udfFields[0]));
+            assertEquals(index, ((Number) task.getCachedValue(udfFields[1])).intValue());
+            assertNotNull(task.getCachedValue(udfFields[2]));
+            assertEquals(XerGenerator.getUdfText(3, index), task.getCachedValue(udfFields[3]));
+
+            assertEquals(100 + index, task.getCost().intValue());
+            assertEquals(index % XerGenerator.ACTIVITIES_PER_WBS == 0 ? 0 : 1, task.getPredecessors().size());
+            assertEquals(1, task.getResourceAssignments().size());
+         }
+
+         validateOrder(project);
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * Ensure that each list of child tasks places activities in Activity ID
+    * order, followed by WBS entries in ID order.
+    *
+    * @param container parent task or project
+    */
+   private void validateOrder(ChildTaskContainer container)
+   {
+      Task previous = null;
+      for (Task task : container.getChildTasks())
+      {
+         validateOrder(task);
+
+         if (previous != null)
+         {
+            boolean previousIsWbs = !previous.getChildTasks().isEmpty();
+            boolean currentIsWbs = !task.getChildTasks().isEmpty();
+            assertFalse(previousIsWbs && !currentIsWbs);
+
+            if (previousIsWbs)
+            {
+               assertTrue(previous.getID().intValue() < task.getID().intValue());
+            }
+            else
+            {
+               if (!currentIsWbs)
+               {
+                  assertTrue(previous.getText(1).compareTo(task.getText(1)) < 0);
+               }
+            }
+         }
+         previous = task;
+      }
+   }
+
+   private static final int ACTIVITY_COUNT = 1000;
+}
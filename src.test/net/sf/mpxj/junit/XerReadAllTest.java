@@ -0,0 +1,196 @@
+/*
+ * file:       XerReadAllTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       21/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static net.sf.mpxj.junit.MpxjAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+import org.junit.Test;
+
+/**
+ * Tests reading all of the projects from a multi-project XER file.
+ */
+public class XerReadAllTest
+{
+   /**
+    * Ensure that each project is read correctly from a multi-project file,
+    * and that building the projects using an executor produces the same
+    * results as building them on the calling thread.
+    *
+    * @throws Exception
+    */
+   @Test public void testReadAll() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("generated/task-percentcomplete/percent-complete-8.4.xer"));
+      byte[] data = createMultiProjectFile(file, PROJECT_COUNT);
+
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      reader.setCharset(CHARSET);
+      ProjectFile single = reader.read(file);
+      List<ProjectFile> sequential = reader.readAll(new ByteArrayInputStream(data));
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      List<ProjectFile> parallel;
+      try
+      {
+         reader.setExecutorService(executor);
+         parallel = reader.readAll(new ByteArrayInputStream(data));
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+
+      assertEquals(PROJECT_COUNT, sequential.size());
+      assertEquals(PROJECT_COUNT, parallel.size());
+
+      int expectedTaskCount = single.getAllTasks().size();
+      assertTrue(expectedTaskCount > 0);
+
+      for (int index = 0; index < PROJECT_COUNT; index++)
+      {
+         ProjectFile expected = sequential.get(index);
+         ProjectFile actual = parallel.get(index);
+
+         //
+         // Each project should only contain its own tasks
+         //
+         assertEquals(expectedTaskCount, expected.getAllTasks().size());
+         for (Task task : expected.getAllTasks())
+         {
+            assertEquals(Integer.valueOf(index), Integer.valueOf(task.getUniqueID().intValue() / ID_OFFSET));
+         }
+
+         assertEquals(expected.getProjectProperties().getName(), actual.getProjectProperties().getName());
+         assertEquals(expected.getCalendars().size(), actual.getCalendars().size());
+         assertEquals(expected.getAllResources().size(), actual.getAllResources().size());
+
+         assertFieldsEqual(null, TaskField.values(), expected.getAllTasks(), actual.getAllTasks());
+      }
+   }
+
+   /**
+    * Creates a multi-project XER file by duplicating the project
+    * data from a single project file, offsetting the IDs used by each copy.
+    *
+    * @param file single project XER file
+    * @param count number of projects to create
+    * @return multi-project file data
+    */
+   private byte[] createMultiProjectFile(File file, int count) throws Exception
+   {
+      StringBuilder result = new StringBuilder();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+      try
+      {
+         String[] fieldNames = null;
+         String line;
+         while ((line = reader.readLine()) != null)
+         {
+            if (line.startsWith("%F\t"))
+            {
+               fieldNames = line.split("\t", -1);
+            }
+            else
+            {
+               if (line.startsWith("%T\t"))
+               {
+                  fieldNames = null;
+               }
+            }
+
+            if (line.startsWith("%R\t") && fieldNames != null && Arrays.asList(fieldNames).contains("proj_id"))
+            {
+               for (int index = 0; index < count; index++)
+               {
+                  String[] values = line.split("\t", -1);
+                  for (int column = 1; column < values.length && column < fieldNames.length; column++)
+                  {
+                     if (OFFSET_COLUMNS.contains(fieldNames[column]) && values[column].length() != 0)
+                     {
+                        values[column] = String.valueOf(Integer.parseInt(values[column]) + (index * ID_OFFSET));
+                     }
+                  }
+                  appendLine(result, values);
+               }
+            }
+            else
+            {
+               result.append(line);
+               result.append('\n');
+            }
+         }
+      }
+
+      finally
+      {
+         reader.close();
+      }
+
+      return result.toString().getBytes(CHARSET);
+   }
+
+   /**
+    * Append a tab separated line to the file data.
+    *
+    * @param buffer file data
+    * @param values line values
+    */
+   private void appendLine(StringBuilder buffer, String[] values)
+   {
+      for (int index = 0; index < values.length; index++)
+      {
+         if (index != 0)
+         {
+            buffer.append('\t');
+         }
+         buffer.append(values[index]);
+      }
+      buffer.append('\n');
+   }
+
+   private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+   private static final int PROJECT_COUNT = 6;
+   private static final int ID_OFFSET = 1000000;
+   private static final Set<String> OFFSET_COLUMNS = new HashSet<String>(Arrays.asList("proj_id", "wbs_id", "task_id", "pred_task_id", "taskrsrc_id", "task_pred_id"));
+}
@@ -0,0 +1,194 @@
+/*
+ * file:       BenchmarkHelper.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Common methods used by the benchmarks.
+ */
+public final class BenchmarkHelper
+{
+   /**
+    * Recursively list the files in a test data directory.
+    *
+    * @param dir directory
+    * @return list of files
+    */
+   public static List<File> listDataFiles(File dir)
+   {
+      List<File> result = new ArrayList<File>();
+      listDataFiles(result, dir);
+      Collections.sort(result);
+      return result;
+   }
+
+   /**
+    * Determine the heap in use after requesting a garbage collection.
+    *
+    * @return used heap in bytes
+    */
+   public static long usedHeap()
+   {
+      Runtime runtime = Runtime.getRuntime();
+      long result = Long.MAX_VALUE;
+      for (int loop = 0; loop < 5; loop++)
+      {
+         System.gc();
+         try
+         {
+            Thread.sleep(100);
+         }
+
+         catch (InterruptedException ex)
+         {
+            Thread.currentThread().interrupt();
+         }
+         result = Math.min(result, runtime.totalMemory() - runtime.freeMemory());
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the number of bytes allocated so far by the current thread.
+    * This relies on the HotSpot extension to ThreadMXBean, so -1 is
+    * returned if it is not available.
+    *
+    * @return allocated bytes, or -1 if not supported
+    */
+   public static long allocatedBytes()
+   {
+      long result = -1;
+      Method method = getAllocatedBytesMethod();
+      if (method != null)
+      {
+         try
+         {
+            result = ((Long) method.invoke(ManagementFactory.getThreadMXBean(), Long.valueOf(Thread.currentThread().getId()))).longValue();
+         }
+
+         catch (Exception ex)
+         {
+            result = -1;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Reset the peak usage recorded by each heap memory pool.
+    */
+   public static void resetPeakHeap()
+   {
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      {
+         if (pool.getType() == MemoryType.HEAP)
+         {
+            pool.resetPeakUsage();
+         }
+      }
+   }
+
+   /**
+    * Retrieve the peak heap usage since the last call to resetPeakHeap.
+    * This is the sum of the peaks of the individual heap memory pools,
+    * so it is an upper bound on the true peak.
+    *
+    * @return peak heap in bytes
+    */
+   public static long peakHeap()
+   {
+      long result = 0;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      {
+         if (pool.getType() == MemoryType.HEAP)
+         {
+            result += pool.getPeakUsage().getUsed();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Locate the getThreadAllocatedBytes method, if the JVM provides it.
+    *
+    * @return Method instance or null
+    */
+   private static Method getAllocatedBytesMethod()
+   {
+      if (!g_allocatedBytesMethodInitialized)
+      {
+         try
+         {
+            Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+            if (c.isInstance(ManagementFactory.getThreadMXBean()))
+            {
+               g_allocatedBytesMethod = c.getMethod("getThreadAllocatedBytes", long.class);
+            }
+         }
+
+         catch (Exception ex)
+         {
+            g_allocatedBytesMethod = null;
+         }
+         g_allocatedBytesMethodInitialized = true;
+      }
+      return g_allocatedBytesMethod;
+   }
+
+   /**
+    * Recursively list files.
+    *
+    * @param list list to populate
+    * @param dir directory to list
+    */
+   private static void listDataFiles(List<File> list, File dir)
+   {
+      File[] files = dir.listFiles();
+      if (files != null)
+      {
+         for (File file : files)
+         {
+            if (file.isDirectory())
+            {
+               listDataFiles(list, file);
+            }
+            else
+            {
+               list.add(file);
+            }
+         }
+      }
+   }
+
+   private static boolean g_allocatedBytesMethodInitialized;
+   private static Method g_allocatedBytesMethod;
+}
@@ -0,0 +1,214 @@
+/*
+ * file:       CriticalPathBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       02/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.utility.CriticalPathScheduler;
+
+/**
+ * Compares the dates calculated by the critical path scheduler with the
+ * dates stored in the MPP test files, and measures the time taken to
+ * schedule a large generated network. Run as:
+ * java net.sf.mpxj.junit.benchmark.CriticalPathBenchmark [data directory] [tasks].
+ */
+public class CriticalPathBenchmark
+{
+   /**
+    * Main method.
+    *
+    * @param args optional test data directory and generated task count
+    */
+   public static void main(String[] args) throws Exception
+   {
+      File dir = new File(args.length > 0 ? args[0] : "junit/data");
+      int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+      compareFiles(dir);
+      scheduleNetwork(taskCount);
+   }
+
+   /**
+    * Schedule each MPP file in a directory, and report how many of
+    * the calculated dates match the dates stored in the file.
+    *
+    * @param dir test data directory
+    */
+   private static void compareFiles(File dir) throws Exception
+   {
+      int[] totals = new int[5];
+      long totalTime = 0;
+
+      for (File file : BenchmarkHelper.listDataFiles(dir))
+      {
+         if (!file.getName().toLowerCase().endsWith(".mpp"))
+         {
+            continue;
+         }
+
+         ProjectFile project;
+         try
+         {
+            project = new MPPReader().read(file);
+         }
+
+         catch (Exception ex)
+         {
+            continue;
+         }
+
+         List<Task> tasks = new ArrayList<Task>();
+         List<Date[]> expected = new ArrayList<Date[]>();
+         for (Task task : project.getAllTasks())
+         {
+            if (task.getEarlyStart() != null && task.getLateFinish() != null)
+            {
+               tasks.add(task);
+               expected.add(new Date[]
+               {
+                  task.getEarlyStart(),
+                  task.getEarlyFinish(),
+                  task.getLateStart(),
+                  task.getLateFinish()
+               });
+            }
+         }
+
+         if (tasks.isEmpty())
+         {
+            continue;
+         }
+
+         long start = System.nanoTime();
+         try
+         {
+            new CriticalPathScheduler().schedule(project);
+         }
+
+         catch (Exception ex)
+         {
+            System.out.println(file.getName() + ": " + ex.getMessage());
+            continue;
+         }
+         totalTime += System.nanoTime() - start;
+
+         int[] matches = new int[5];
+         for (int index = 0; index < tasks.size(); index++)
+         {
+            Task task = tasks.get(index);
+            Date[] dates = expected.get(index);
+            Date[] actual = new Date[]
+            {
+               task.getEarlyStart(),
+               task.getEarlyFinish(),
+               task.getLateStart(),
+               task.getLateFinish()
+            };
+
+            boolean all = true;
+            for (int field = 0; field < dates.length; field++)
+            {
+               if (dates[field].equals(actual[field]))
+               {
+                  ++matches[field];
+               }
+               else
+               {
+                  all = false;
+               }
+            }
+
+            if (all)
+            {
+               ++matches[4];
+            }
+         }
+
+         System.out.println(file.getName() + ": " + tasks.size() + " tasks, early start " + matches[0] + ", early finish " + matches[1] + ", late start " + matches[2] + ", late finish " + matches[3] + ", all " + matches[4]);
+         totals[0] += tasks.size();
+         for (int field = 0; field < 4; field++)
+         {
+            totals[field + 1] += matches[field];
+         }
+      }
+
+      System.out.println("Total: " + totals[0] + " tasks, early start " + totals[1] + ", early finish " + totals[2] + ", late start " + totals[3] + ", late finish " + totals[4] + ", " + (totalTime / 1000000) + " ms");
+   }
+
+   /**
+    * Generate and schedule a network of tasks, each linked to up
+    * to three randomly chosen earlier tasks.
+    *
+    * @param taskCount number of tasks
+    */
+   private static void scheduleNetwork(int taskCount) throws Exception
+   {
+      Random random = new Random(1);
+      ProjectFile project = new ProjectFile();
+      project.addDefaultBaseCalendar();
+      project.getProjectProperties().setStartDate(new Date(1483948800000L));
+
+      Task[] tasks = new Task[taskCount];
+      Task summary = null;
+      for (int index = 0; index < taskCount; index++)
+      {
+         if (index % 100 == 0)
+         {
+            summary = project.addTask();
+            summary.setName("Summary " + index);
+         }
+
+         Task task = summary.addTask();
+         task.setName("Task " + index);
+         task.setDuration(Duration.getInstance(random.nextInt(10), TimeUnit.DAYS));
+         tasks[index] = task;
+
+         int links = index == 0 ? 0 : 1 + random.nextInt(3);
+         for (int link = 0; link < links; link++)
+         {
+            int predecessor = Math.max(0, index - 1 - random.nextInt(200));
+            Duration lag = Duration.getInstance(random.nextInt(3), TimeUnit.DAYS);
+            task.addPredecessor(tasks[predecessor], link == 0 ? RelationType.FINISH_START : RelationType.START_START, lag);
+         }
+      }
+
+      for (int loop = 0; loop < 5; loop++)
+      {
+         long start = System.currentTimeMillis();
+         new CriticalPathScheduler().schedule(project);
+         long elapsed = System.currentTimeMillis() - start;
+         System.out.println("Network of " + taskCount + " tasks: " + elapsed + " ms, finish " + project.getAllTasks().get(project.getAllTasks().size() - 1).getFinish());
+      }
+   }
+}
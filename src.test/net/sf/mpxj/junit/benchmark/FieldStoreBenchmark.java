@@ -0,0 +1,103 @@
+/*
+ * file:       FieldStoreBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.FieldStoreFactory;
+import net.sf.mpxj.junit.MpxjTestData;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * Compares the heap used by the dense and sparse field stores when
+ * the test data files are read. Run with a fixed heap size, for example:
+ * java -Xms1g -Xmx1g net.sf.mpxj.junit.benchmark.FieldStoreBenchmark [copies].
+ */
+public class FieldStoreBenchmark
+{
+   /**
+    * Main method.
+    *
+    * @param args optional number of copies of each file to hold in memory
+    */
+   public static void main(String[] args) throws Exception
+   {
+      int copies = args.length == 0 ? 5 : Integer.parseInt(args[0]);
+      List<File> files = BenchmarkHelper.listDataFiles(new File(MpxjTestData.filePath("")));
+
+      long dense = measure(FieldStoreFactory.DENSE, files, copies);
+      long sparse = measure(FieldStoreFactory.SPARSE, files, copies);
+      System.out.println("Files read: " + files.size() + " x " + copies);
+      System.out.println("Dense heap: " + (dense / 1024) + " KB");
+      System.out.println("Sparse heap: " + (sparse / 1024) + " KB");
+      System.out.println("Ratio: " + ((double) sparse / dense));
+   }
+
+   /**
+    * Read each file the requested number of times using the supplied
+    * field store, and determine the heap retained by the results.
+    *
+    * @param factory field store factory
+    * @param files files to read
+    * @param copies number of copies of each file
+    * @return retained heap in bytes
+    */
+   private static long measure(FieldStoreFactory factory, List<File> files, int copies)
+   {
+      UniversalProjectReader reader = new UniversalProjectReader();
+      reader.setFieldStoreFactory(factory);
+      long before = BenchmarkHelper.usedHeap();
+
+      List<ProjectFile> projects = new ArrayList<ProjectFile>();
+      for (int loop = 0; loop < copies; loop++)
+      {
+         for (File file : files)
+         {
+            try
+            {
+               ProjectFile project = reader.read(file);
+               if (project != null)
+               {
+                  projects.add(project);
+               }
+            }
+
+            catch (Exception ex)
+            {
+               // Skip files we can't read in this environment
+            }
+         }
+      }
+
+      long after = BenchmarkHelper.usedHeap();
+      if (projects.isEmpty())
+      {
+         throw new IllegalStateException("No files read");
+      }
+      return after - before;
+   }
+}
@@ -0,0 +1,332 @@
+/*
+ * file:       MerlinGenerator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       27/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Generates synthetic Merlin SQLite databases used to test and benchmark
+ * the Merlin reader. Activities are grouped beneath a summary activity
+ * for every ACTIVITIES_PER_SUMMARY activities, and the summary activities
+ * are grouped beneath a phase for every SUMMARIES_PER_PHASE summaries.
+ * Child activities are written to the database in the reverse of their
+ * order within their parent. Each activity has a resource assignment,
+ * and a predecessor unless it is the first activity beneath its summary.
+ */
+public final class MerlinGenerator
+{
+   /**
+    * Main method.
+    *
+    * @param args output file name, and optional number of activities
+    */
+   public static void main(String[] args) throws Exception
+   {
+      int activityCount = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+      generate(new File(args[0]), activityCount);
+   }
+
+   /**
+    * Write a synthetic Merlin database.
+    *
+    * @param file output file
+    * @param activityCount number of activities to generate
+    */
+   public static void generate(File file, int activityCount) throws Exception
+   {
+      Class.forName("org.sqlite.JDBC");
+      Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getCanonicalPath());
+      try
+      {
+         connection.setAutoCommit(false);
+         new MerlinGenerator(connection, activityCount).write();
+         connection.commit();
+      }
+
+      finally
+      {
+         connection.close();
+      }
+   }
+
+   /**
+    * Retrieve the unique ID of a generated activity.
+    *
+    * @param index activity index, starting from zero
+    * @return activity unique ID
+    */
+   public static int getActivityID(int index)
+   {
+      return FIRST_ACTIVITY_ID + index;
+   }
+
+   /**
+    * Retrieve the unique ID of the summary activity containing an activity.
+    *
+    * @param index activity index, starting from zero
+    * @return summary activity unique ID
+    */
+   public static int getSummaryID(int index)
+   {
+      return FIRST_SUMMARY_ID + (index / ACTIVITIES_PER_SUMMARY);
+   }
+
+   /**
+    * Retrieve the number of summary activities generated for a given
+    * number of activities.
+    *
+    * @param activityCount number of activities
+    * @return number of summary activities
+    */
+   public static int getSummaryCount(int activityCount)
+   {
+      return (activityCount + ACTIVITIES_PER_SUMMARY - 1) / ACTIVITIES_PER_SUMMARY;
+   }
+
+   /**
+    * Retrieve the number of phases generated for a given number of activities.
+    *
+    * @param activityCount number of activities
+    * @return number of phases
+    */
+   public static int getPhaseCount(int activityCount)
+   {
+      return (getSummaryCount(activityCount) + SUMMARIES_PER_PHASE - 1) / SUMMARIES_PER_PHASE;
+   }
+
+   /**
+    * Retrieve the unique ID of the resource assigned to an activity.
+    *
+    * @param index activity index, starting from zero
+    * @return resource unique ID
+    */
+   public static int getResourceID(int index)
+   {
+      return FIRST_RESOURCE_ID + (index % RESOURCE_COUNT);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param connection database connection
+    * @param activityCount number of activities to generate
+    */
+   private MerlinGenerator(Connection connection, int activityCount)
+   {
+      m_connection = connection;
+      m_activityCount = activityCount;
+      m_summaryCount = getSummaryCount(activityCount);
+      m_phaseCount = getPhaseCount(activityCount);
+   }
+
+   /**
+    * Write the database contents.
+    */
+   private void write() throws SQLException
+   {
+      createTables();
+
+      execute("insert into zproject values (" + PROJECT_ID + ", 1, 1, 8, 20, 40, null, '$', 'Generated', '" + getUniqueID(PROJECT_ID) + "')");
+
+      execute("insert into zcalendar values (" + CALENDAR_ID + ", " + PROJECT_ID + ", 'Standard')");
+      PreparedStatement ps = m_connection.prepareStatement("insert into zcalendarrule values (?, ?, ?, ?, ?, ?, ?, ?)");
+      try
+      {
+         int ruleID = 1;
+         for (int day = 0; day < 7; day++)
+         {
+            boolean working = day != 0 && day != 6;
+            insert(ps, Integer.valueOf(ruleID++), Integer.valueOf(13), null, Integer.valueOf(CALENDAR_ID), Integer.valueOf(day), working ? WORKING_HOURS : null, null, null);
+         }
+
+         for (int index = 0; index < EXCEPTION_COUNT; index++)
+         {
+            Integer day = Integer.valueOf(300 + (index * 7));
+            insert(ps, Integer.valueOf(ruleID++), Integer.valueOf(12), Integer.valueOf(CALENDAR_ID), null, null, null, day, day);
+         }
+      }
+
+      finally
+      {
+         ps.close();
+      }
+
+      ps = m_connection.prepareStatement("insert into zresource values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+      try
+      {
+         for (int index = 0; index < RESOURCE_COUNT; index++)
+         {
+            int id = FIRST_RESOURCE_ID + index;
+            insert(ps, Integer.valueOf(id), Integer.valueOf(PROJECT_ID), Integer.valueOf(index), "resource" + index + "@example.com", "R" + index, "Resource " + index, getUniqueID(id), Integer.valueOf(0), null, Double.valueOf(1.0), null);
+         }
+      }
+
+      finally
+      {
+         ps.close();
+      }
+
+      ps = m_connection.prepareStatement("insert into zscheduleitem (z_pk, z_ent, zproject, zparentactivity_, zorderinparentactivity, ztitle, zpriority, zismilestone, zgivenduration_, zgivenwork_, zuniqueid, zgivencalendar, zactivity_, zresource, zorderinactivity, zresourceunits_) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+      try
+      {
+         for (int phase = m_phaseCount - 1; phase >= 0; phase--)
+         {
+            int id = FIRST_PHASE_ID + phase;
+            insert(ps, Integer.valueOf(id), Integer.valueOf(45), Integer.valueOf(PROJECT_ID), null, Integer.valueOf(phase), "Phase " + phase, Integer.valueOf(500), Integer.valueOf(0), null, null, getUniqueID(id), null, null, null, null, null);
+         }
+
+         for (int summary = m_summaryCount - 1; summary >= 0; summary--)
+         {
+            int id = FIRST_SUMMARY_ID + summary;
+            insert(ps, Integer.valueOf(id), Integer.valueOf(45), Integer.valueOf(PROJECT_ID), Integer.valueOf(FIRST_PHASE_ID + (summary / SUMMARIES_PER_PHASE)), Integer.valueOf(summary % SUMMARIES_PER_PHASE), "Summary " + summary, Integer.valueOf(500), Integer.valueOf(0), null, null, getUniqueID(id), null, null, null, null, null);
+         }
+
+         for (int index = m_activityCount - 1; index >= 0; index--)
+         {
+            int id = getActivityID(index);
+            insert(ps, Integer.valueOf(id), Integer.valueOf(45), Integer.valueOf(PROJECT_ID), Integer.valueOf(getSummaryID(index)), Integer.valueOf(index % ACTIVITIES_PER_SUMMARY), "Activity " + index, Integer.valueOf(500), Integer.valueOf(0), "1d", "8h", getUniqueID(id), Integer.valueOf(CALENDAR_ID), null, null, null, null);
+         }
+
+         for (int index = 0; index < m_activityCount; index++)
+         {
+            int id = FIRST_ASSIGNMENT_ID + index;
+            insert(ps, Integer.valueOf(id), Integer.valueOf(47), Integer.valueOf(PROJECT_ID), null, null, null, null, null, null, "8h", getUniqueID(id), null, Integer.valueOf(getActivityID(index)), Integer.valueOf(getResourceID(index)), Integer.valueOf(0), Double.valueOf(1.0));
+         }
+      }
+
+      finally
+      {
+         ps.close();
+      }
+
+      ps = m_connection.prepareStatement("insert into zdependency values (?, ?, ?, ?, ?, ?)");
+      try
+      {
+         for (int index = 0; index < m_activityCount; index++)
+         {
+            if (index % ACTIVITIES_PER_SUMMARY != 0)
+            {
+               insert(ps, Integer.valueOf(index), Integer.valueOf(PROJECT_ID), Integer.valueOf(getActivityID(index)), Integer.valueOf(getActivityID(index - 1)), "0d", Integer.valueOf(0));
+            }
+         }
+      }
+
+      finally
+      {
+         ps.close();
+      }
+   }
+
+   /**
+    * Create the subset of the Merlin schema used by the reader.
+    */
+   private void createTables() throws SQLException
+   {
+      execute("create table zproject (z_pk integer primary key, zfirstdayofweek integer, zschedulingdirection integer, zhoursperday integer, zdayspermonth integer, zhoursperweek integer, zgivenstatusdate integer, zcurrencysymbol varchar, ztitle varchar, zuniqueid varchar)");
+      execute("create table zcalendar (z_pk integer primary key, zproject integer, ztitle varchar)");
+      execute("create table zcalendarrule (z_pk integer primary key, z_ent integer, zcalendar integer, zcalendar1 integer, zweekday integer, ztimeintervals varchar, zstartday integer, zendday integer)");
+      execute("create table zresource (z_pk integer primary key, zproject integer, zorderinproject integer, zemail varchar, zinitials varchar, ztitle_ varchar, zuniqueid varchar, ztype integer, zmaterialunit varchar, zavailableunits_ float, zresourcecalendar integer)");
+      execute("create table zscheduleitem (z_pk integer primary key, z_ent integer, zproject integer, zparentactivity_ integer, zorderinparentactivity integer, ztitle varchar, zpriority integer, zismilestone integer, zgivenactualenddate_ integer, zgivenactualstartdate_ integer, zobjectdescription varchar, zgivenduration_ varchar, zgivenworkovertime_ varchar, zgivenwork_ varchar, zlevelingdelay_ varchar, zgivenactualworkovertime_ varchar, zgivenactualwork_ varchar, zuniqueid varchar, zgivencalendar integer, zgivenenddatemax_ integer, zgivenenddatemin_ integer, zgivenstartdatemax_ integer, zgivenstartdatemin_ integer, zactivity_ integer, zresource integer, zorderinactivity integer, zgivenremainingwork_ varchar, zresourceunits_ float)");
+      execute("create table zdependency (z_pk integer primary key, zproject integer, znextactivity_ integer, zpreviousactivity_ integer, zlag_ varchar, ztype integer)");
+   }
+
+   /**
+    * Execute a single SQL statement.
+    *
+    * @param sql SQL statement
+    */
+   private void execute(String sql) throws SQLException
+   {
+      Statement statement = m_connection.createStatement();
+      try
+      {
+         statement.executeUpdate(sql);
+      }
+
+      finally
+      {
+         statement.close();
+      }
+   }
+
+   /**
+    * Insert a row using a prepared statement.
+    *
+    * @param ps prepared statement
+    * @param values column values
+    */
+   private void insert(PreparedStatement ps, Object... values) throws SQLException
+   {
+      for (int index = 0; index < values.length; index++)
+      {
+         ps.setObject(index + 1, values[index]);
+      }
+      ps.executeUpdate();
+   }
+
+   /**
+    * Generate a unique ID in the encoded form used by Merlin.
+    *
+    * @param id row ID
+    * @return encoded unique ID
+    */
+   private String getUniqueID(int id)
+   {
+      UUID uuid = new UUID(0x4D65726C696E0000L, id);
+      ByteBuffer buffer = ByteBuffer.allocate(16);
+      buffer.putLong(uuid.getMostSignificantBits());
+      buffer.putLong(uuid.getLeastSignificantBits());
+      String value = DatatypeConverter.printBase64Binary(buffer.array());
+      return value.substring(0, value.length() - 2).replace('+', '-').replace('/', '_');
+   }
+
+   private final Connection m_connection;
+   private final int m_activityCount;
+   private final int m_summaryCount;
+   private final int m_phaseCount;
+
+   public static final int ACTIVITIES_PER_SUMMARY = 50;
+   public static final int SUMMARIES_PER_PHASE = 20;
+   public static final int RESOURCE_COUNT = 10;
+   public static final int EXCEPTION_COUNT = 5;
+   public static final int CALENDAR_ID = 1;
+
+   private static final int PROJECT_ID = 1;
+   private static final int FIRST_RESOURCE_ID = 100;
+   private static final int FIRST_PHASE_ID = 1000;
+   private static final int FIRST_SUMMARY_ID = 10000;
+   private static final int FIRST_ACTIVITY_ID = 1000000;
+   private static final int FIRST_ASSIGNMENT_ID = 5000000;
+   private static final String WORKING_HOURS = "<array><dayTimeInterval startTime=\"08:00:00\" endTime=\"12:00:00\"/><dayTimeInterval startTime=\"13:00:00\" endTime=\"17:00:00\"/></array>";
+}
@@ -0,0 +1,421 @@
+/*
+ * file:       ReaderWriterBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       06/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.fasttrack.FastTrackReader;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.mpx.MPXReader;
+import net.sf.mpxj.mspdi.MSPDIReader;
+import net.sf.mpxj.phoenix.PhoenixReader;
+import net.sf.mpxj.planner.PlannerReader;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.writer.ProjectWriter;
+import net.sf.mpxj.writer.ProjectWriterUtility;
+
+/**
+ * Measures reader and writer throughput, bytes allocated per operation
+ * and peak heap, first using the files in the test data directory,
+ * then using synthetic schedules of increasing size produced by
+ * ScheduleGenerator. Each file is read by the reader for its extension,
+ * and each project successfully read is written by every writer
+ * supported by ProjectWriterUtility. Run as:
+ * java net.sf.mpxj.junit.benchmark.ReaderWriterBenchmark [data directory] [iterations] [task counts].
+ * Task counts are comma separated, for example 1000,10000,100000.
+ */
+public class ReaderWriterBenchmark
+{
+   /**
+    * Main method.
+    *
+    * @param args optional test data directory, iterations and generated task counts
+    */
+   public static void main(String[] args) throws Exception
+   {
+      File dir = new File(args.length > 0 ? args[0] : "junit/data");
+      int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+      String taskCounts = args.length > 2 ? args[2] : "1000,10000,50000";
+
+      ReaderWriterBenchmark benchmark = new ReaderWriterBenchmark(iterations);
+      benchmark.benchmarkFiles(BenchmarkHelper.listDataFiles(dir));
+      for (String taskCount : taskCounts.split(","))
+      {
+         benchmark.benchmarkGenerated(Integer.parseInt(taskCount.trim()));
+      }
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param iterations number of times each operation is measured
+    */
+   private ReaderWriterBenchmark(int iterations)
+   {
+      m_iterations = iterations;
+   }
+
+   /**
+    * Read each file using the reader for its extension, then write
+    * the resulting project using each writer. Totals are reported
+    * for each reader and each writer.
+    *
+    * @param files test data files
+    */
+   private void benchmarkFiles(List<File> files) throws Exception
+   {
+      printHeader();
+
+      Map<String, Result> totals = new LinkedHashMap<String, Result>();
+      for (File file : files)
+      {
+         String extension = getExtension(file.getName());
+         Class<? extends ProjectReader> readerClass = READER_MAP.get(extension);
+         if (readerClass == null)
+         {
+            continue;
+         }
+
+         String readerName = readerClass.getSimpleName();
+         ProjectFile project = read(readerClass, file);
+         Result result = measure(readerName, file.getName(), new ReadOperation(readerClass, file));
+         if (project == null || result == null)
+         {
+            continue;
+         }
+         addTotal(totals, readerName, result);
+
+         for (String writerExtension : WRITER_EXTENSIONS)
+         {
+            String writerName = getWriter(writerExtension).getClass().getSimpleName();
+            result = measure(writerName, file.getName(), new WriteOperation(writerExtension, project));
+            if (result != null)
+            {
+               addTotal(totals, writerName, result);
+            }
+         }
+      }
+
+      System.out.println();
+      printHeader();
+      for (Map.Entry<String, Result> entry : totals.entrySet())
+      {
+         print(entry.getKey(), "TOTAL", entry.getValue());
+      }
+      System.out.println();
+   }
+
+   /**
+    * Generate a synthetic schedule, write it using each writer, and
+    * read back each written file for which there is a reader.
+    *
+    * @param taskCount number of tasks to generate
+    */
+   private void benchmarkGenerated(int taskCount) throws Exception
+   {
+      String name = "generated-" + taskCount;
+      ProjectFile project = ScheduleGenerator.generate(taskCount);
+      printHeader();
+
+      for (String extension : WRITER_EXTENSIONS)
+      {
+         measure(getWriter(extension).getClass().getSimpleName(), name, new WriteOperation(extension, project));
+
+         Class<? extends ProjectReader> readerClass = READER_MAP.get(extension);
+         if (readerClass != null)
+         {
+            File file = File.createTempFile("benchmark", "." + extension.toLowerCase());
+            try
+            {
+               getWriter(extension).write(project, file);
+               measure(readerClass.getSimpleName(), name + "." + extension.toLowerCase(), new ReadOperation(readerClass, file));
+            }
+
+            finally
+            {
+               file.delete();
+            }
+         }
+      }
+      System.out.println();
+   }
+
+   /**
+    * Run an operation once to warm up and confirm that it succeeds, then
+    * run it the requested number of times, recording the elapsed time,
+    * the bytes allocated and the peak heap. The result is printed.
+    *
+    * @param type reader or writer name
+    * @param name file name
+    * @param operation operation to measure
+    * @return measurement result, or null if the operation failed
+    */
+   private Result measure(String type, String name, Operation operation)
+   {
+      try
+      {
+         operation.run();
+      }
+
+      catch (Exception ex)
+      {
+         return null;
+      }
+
+      System.gc();
+      BenchmarkHelper.resetPeakHeap();
+      long allocated = BenchmarkHelper.allocatedBytes();
+      long start = System.nanoTime();
+
+      try
+      {
+         for (int loop = 0; loop < m_iterations; loop++)
+         {
+            operation.run();
+         }
+      }
+
+      catch (Exception ex)
+      {
+         return null;
+      }
+
+      Result result = new Result();
+      result.m_operations = m_iterations;
+      result.m_elapsed = System.nanoTime() - start;
+      result.m_allocated = allocated == -1 ? -1 : BenchmarkHelper.allocatedBytes() - allocated;
+      result.m_peakHeap = BenchmarkHelper.peakHeap();
+      print(type, name, result);
+
+      return result;
+   }
+
+   /**
+    * Read a file, ignoring any errors.
+    *
+    * @param readerClass reader class
+    * @param file file to read
+    * @return project file or null
+    */
+   private ProjectFile read(Class<? extends ProjectReader> readerClass, File file)
+   {
+      try
+      {
+         return readerClass.newInstance().read(file);
+      }
+
+      catch (Exception ex)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Add a result to the running total for a reader or writer.
+    *
+    * @param totals running totals
+    * @param type reader or writer name
+    * @param result result to add
+    */
+   private void addTotal(Map<String, Result> totals, String type, Result result)
+   {
+      Result total = totals.get(type);
+      if (total == null)
+      {
+         total = new Result();
+         totals.put(type, total);
+      }
+
+      total.m_operations += result.m_operations;
+      total.m_elapsed += result.m_elapsed;
+      total.m_allocated = total.m_allocated == -1 || result.m_allocated == -1 ? -1 : total.m_allocated + result.m_allocated;
+      total.m_peakHeap = Math.max(total.m_peakHeap, result.m_peakHeap);
+   }
+
+   /**
+    * Print the column headings.
+    */
+   private void printHeader()
+   {
+      System.out.println(String.format("%-24s %-50s %12s %16s %14s", "Type", "File", "Ops/sec", "KB alloc/op", "Peak heap MB"));
+   }
+
+   /**
+    * Print a single result.
+    *
+    * @param type reader or writer name
+    * @param name file name
+    * @param result result to print
+    */
+   private void print(String type, String name, Result result)
+   {
+      double seconds = result.m_elapsed / 1000000000.0;
+      double opsPerSecond = seconds == 0 ? 0 : result.m_operations / seconds;
+      String allocated = result.m_allocated == -1 ? "n/a" : String.valueOf(result.m_allocated / result.m_operations / 1024);
+      System.out.println(String.format("%-24s %-50s %12.2f %16s %14d", type, name, Double.valueOf(opsPerSecond), allocated, Long.valueOf(result.m_peakHeap / (1024 * 1024))));
+   }
+
+   /**
+    * Retrieve the upper case extension of a file name.
+    *
+    * @param name file name
+    * @return extension, or an empty string if the name has no extension
+    */
+   private static String getExtension(String name)
+   {
+      int index = name.lastIndexOf('.');
+      return index == -1 ? "" : name.substring(index + 1).toUpperCase();
+   }
+
+   /**
+    * Create a writer for a file extension. Writers are not reused, as
+    * some writers discard their configuration once a file is written.
+    *
+    * @param extension file extension
+    * @return ProjectWriter instance
+    */
+   private static ProjectWriter getWriter(String extension) throws InstantiationException, IllegalAccessException
+   {
+      return ProjectWriterUtility.getProjectWriter("file." + extension);
+   }
+
+   /**
+    * An operation to be measured.
+    */
+   private static interface Operation
+   {
+      /**
+       * Run the operation.
+       */
+      public void run() throws Exception;
+   }
+
+   /**
+    * Reads a file.
+    */
+   private static class ReadOperation implements Operation
+   {
+      /**
+       * Constructor.
+       *
+       * @param readerClass reader class
+       * @param file file to read
+       */
+      public ReadOperation(Class<? extends ProjectReader> readerClass, File file)
+      {
+         m_readerClass = readerClass;
+         m_file = file;
+      }
+
+      @Override public void run() throws Exception
+      {
+         if (m_readerClass.newInstance().read(m_file) == null)
+         {
+            throw new Exception("No project read from " + m_file.getName());
+         }
+      }
+
+      private final Class<? extends ProjectReader> m_readerClass;
+      private final File m_file;
+   }
+
+   /**
+    * Writes a project, discarding the output.
+    */
+   private static class WriteOperation implements Operation
+   {
+      /**
+       * Constructor.
+       *
+       * @param extension file extension identifying the writer
+       * @param project project to write
+       */
+      public WriteOperation(String extension, ProjectFile project)
+      {
+         m_extension = extension;
+         m_project = project;
+      }
+
+      @Override public void run() throws Exception
+      {
+         getWriter(m_extension).write(m_project, NULL_OUTPUT_STREAM);
+      }
+
+      private final String m_extension;
+      private final ProjectFile m_project;
+   }
+
+   /**
+    * Results of measuring an operation.
+    */
+   private static class Result
+   {
+      int m_operations;
+      long m_elapsed;
+      long m_allocated;
+      long m_peakHeap;
+   }
+
+   private final int m_iterations;
+
+   private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream()
+   {
+      @Override public void write(int b)
+      {
+         // Discard output
+      }
+
+      @Override public void write(byte[] b, int off, int len)
+      {
+         // Discard output
+      }
+
+      @Override public void close()
+      {
+         // Writers close their output, but this stream is reused
+      }
+   };
+
+   private static final Map<String, Class<? extends ProjectReader>> READER_MAP = new LinkedHashMap<String, Class<? extends ProjectReader>>();
+   static
+   {
+      READER_MAP.put("MPP", MPPReader.class);
+      READER_MAP.put("XML", MSPDIReader.class);
+      READER_MAP.put("MPX", MPXReader.class);
+      READER_MAP.put("XER", PrimaveraXERFileReader.class);
+      READER_MAP.put("PLANNER", PlannerReader.class);
+      READER_MAP.put("PPX", PhoenixReader.class);
+      READER_MAP.put("FTS", FastTrackReader.class);
+   }
+
+   private static final List<String> WRITER_EXTENSIONS = new ArrayList<String>(new TreeSet<String>(ProjectWriterUtility.getSupportedFileExtensions()));
+}
@@ -0,0 +1,192 @@
+/*
+ * file:       ScheduleGenerator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       06/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.Random;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskType;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.utility.CriticalPathScheduler;
+import net.sf.mpxj.writer.ProjectWriterUtility;
+
+/**
+ * Generates synthetic schedules of an arbitrary size, allowing reader and
+ * writer performance to be measured without relying on customer data.
+ * The generated project contains a summary task for every
+ * TASKS_PER_SUMMARY tasks. Each task has a finish-start predecessor,
+ * unless it is the first task beneath its summary task, in which case
+ * it has a start-start predecessor chosen at random from the earlier
+ * tasks. This keeps the overall duration realistic as the task count
+ * grows.
+ * Each task is assigned to a resource, and has text and number
+ * custom field values. Dates are calculated using CriticalPathScheduler.
+ * The same task count always produces the same schedule. Run as:
+ * java net.sf.mpxj.junit.benchmark.ScheduleGenerator [output file] [tasks].
+ * The output file format is determined by its extension, as for
+ * ProjectWriterUtility.
+ */
+public final class ScheduleGenerator
+{
+   /**
+    * Main method.
+    *
+    * @param args output file name, and optional number of tasks
+    */
+   public static void main(String[] args) throws Exception
+   {
+      int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+      ProjectFile project = generate(taskCount);
+      ProjectWriterUtility.getProjectWriter(args[0]).write(project, new File(args[0]));
+   }
+
+   /**
+    * Generate a synthetic schedule.
+    *
+    * @param taskCount number of non-summary tasks to generate
+    * @return project file
+    * @throws MPXJException
+    */
+   public static ProjectFile generate(int taskCount) throws MPXJException
+   {
+      Random random = new Random(taskCount);
+      ProjectFile project = new ProjectFile();
+      ProjectCalendar calendar = project.addDefaultBaseCalendar();
+      project.setDefaultCalendar(calendar);
+
+      Calendar cal = Calendar.getInstance();
+      cal.clear();
+      cal.set(2017, Calendar.SEPTEMBER, 4, 8, 0);
+      project.getProjectProperties().setStartDate(cal.getTime());
+      project.getProjectProperties().setName("Synthetic " + taskCount);
+
+      Resource[] resources = new Resource[Math.max(1, taskCount / TASKS_PER_RESOURCE)];
+      for (int index = 0; index < resources.length; index++)
+      {
+         Resource resource = project.addResource();
+         resource.setName("Resource " + (index + 1));
+         resource.setMaxUnits(Integer.valueOf(100));
+         resource.setStandardRate(new Rate(20 + random.nextInt(80), TimeUnit.HOURS));
+         resources[index] = resource;
+      }
+
+      Task[] tasks = new Task[taskCount];
+      Task summary = null;
+
+      for (int index = 0; index < taskCount; index++)
+      {
+         if (index % TASKS_PER_SUMMARY == 0)
+         {
+            summary = project.addTask();
+            summary.setName("Summary " + (index / TASKS_PER_SUMMARY + 1));
+            summary.setSummary(true);
+            setDefaults(summary);
+         }
+
+         Task task = summary.addTask();
+         task.setName("Task " + (index + 1));
+         task.setText(1, "Code " + (index % 97));
+         task.setNumber(1, Integer.valueOf(random.nextInt(1000)));
+         setDefaults(task);
+         tasks[index] = task;
+
+         Duration duration = Duration.getInstance(1 + random.nextInt(10), TimeUnit.DAYS);
+         Duration work = Duration.getInstance(duration.getDuration() * 8, TimeUnit.HOURS);
+         Resource resource = resources[random.nextInt(resources.length)];
+         task.setDuration(duration);
+         task.setRemainingDuration(duration);
+         task.setActualDuration(Duration.getInstance(0, TimeUnit.DAYS));
+         task.setWork(work);
+         task.setCost(Double.valueOf(work.getDuration() * resource.getStandardRate().getAmount()));
+         task.addResourceAssignment(resource);
+
+         if (index % TASKS_PER_SUMMARY == 0)
+         {
+            if (index != 0)
+            {
+               task.addPredecessor(tasks[random.nextInt(index)], RelationType.START_START, null);
+            }
+         }
+         else
+         {
+            task.addPredecessor(tasks[index - 1], RelationType.FINISH_START, null);
+         }
+      }
+
+      //
+      // Calculate the task dates, then copy them to the assignments
+      //
+      new CriticalPathScheduler().schedule(project);
+      for (ResourceAssignment assignment : project.getAllResourceAssignments())
+      {
+         Task task = assignment.getTask();
+         assignment.setStart(task.getStart());
+         assignment.setFinish(task.getFinish());
+         assignment.setWork(task.getWork());
+         assignment.setRemainingWork(task.getWork());
+         assignment.setUnits(Integer.valueOf(100));
+         assignment.setCost(task.getCost());
+      }
+      project.getProjectProperties().setFinishDate(project.getFinishDate());
+
+      return project;
+   }
+
+   /**
+    * Set the attributes which take the same value for every task.
+    *
+    * @param task task
+    */
+   private static void setDefaults(Task task)
+   {
+      task.setPercentageComplete(Integer.valueOf(0));
+      task.setPercentageWorkComplete(Integer.valueOf(0));
+      task.setPriority(Priority.getInstance(Priority.MEDIUM));
+      task.setConstraintType(ConstraintType.AS_SOON_AS_POSSIBLE);
+      task.setType(TaskType.FIXED_UNITS);
+   }
+
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private ScheduleGenerator()
+   {
+      // Private constructor to prevent instantiation
+   }
+
+   public static final int TASKS_PER_SUMMARY = 50;
+   public static final int TASKS_PER_RESOURCE = 20;
+}
@@ -0,0 +1,343 @@
+/*
+ * file:       XerGenerator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       04/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+
+/**
+ * Generates synthetic XER files used to benchmark the XER reader.
+ * The generated project contains a WBS node for every
+ * ACTIVITIES_PER_WBS activities. Each activity has a value for each
+ * of the task user defined fields, two cost items, a resource
+ * assignment and a predecessor, unless it is the first activity in
+ * its WBS node.
+ */
+public final class XerGenerator
+{
+   /**
+    * Main method.
+    *
+    * @param args output file name, and optional number of activities
+    */
+   public static void main(String[] args) throws Exception
+   {
+      int activityCount = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+      generate(new File(args[0]), activityCount);
+   }
+
+   /**
+    * Write a synthetic XER file.
+    *
+    * @param file output file
+    * @param activityCount number of activities to generate
+    * @throws IOException
+    */
+   public static void generate(File file, int activityCount) throws IOException
+   {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+      try
+      {
+         new XerGenerator(writer, activityCount).write();
+      }
+
+      finally
+      {
+         writer.close();
+      }
+   }
+
+   /**
+    * Retrieve the unique ID of a generated activity.
+    *
+    * @param index activity index, starting from zero
+    * @return activity unique ID
+    */
+   public static int getActivityID(int index)
+   {
+      return FIRST_ACTIVITY_ID + index;
+   }
+
+   /**
+    * Retrieve the number of WBS nodes generated for a given number of activities,
+    * including the top level node representing the project.
+    *
+    * @param activityCount number of activities
+    * @return number of WBS nodes
+    */
+   public static int getWbsCount(int activityCount)
+   {
+      return 1 + ((activityCount + ACTIVITIES_PER_WBS - 1) / ACTIVITIES_PER_WBS);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param writer output writer
+    * @param activityCount number of activities to generate
+    */
+   private XerGenerator(Writer writer, int activityCount)
+   {
+      m_writer = writer;
+      m_activityCount = activityCount;
+      m_wbsCount = getWbsCount(activityCount) - 1;
+      m_projectStart = Calendar.getInstance();
+      m_projectStart.clear();
+      m_projectStart.set(2017, Calendar.SEPTEMBER, 4);
+   }
+
+   /**
+    * Write the file contents.
+    *
+    * @throws IOException
+    */
+   private void write() throws IOException
+   {
+      m_writer.write("ERMHDR\t8.4\t2017-09-04\tProject\tadmin\tadmin\tdbxDatabaseNoName\tProject Management\tUSD\n");
+
+      table("CURRTYPE", "curr_id", "decimal_digit_cnt", "curr_symbol", "decimal_symbol", "digit_group_symbol", "pos_curr_fmt_type", "neg_curr_fmt_type", "curr_type", "curr_short_name", "group_digit_cnt", "base_exch_rate");
+      row("1", "2", "$", ".", ",", "#1.1", "(#1.1)", "US Dollar", "USD", "3", "1");
+
+      table("PROJECT", "proj_id", "proj_short_name", "clndr_id", "plan_start_date", "last_recalc_date", "def_duration_type");
+      row(PROJECT_ID, "GENERATED", CALENDAR_ID, date(0), date(0), "DT_FixedDUR2");
+
+      table("CALENDAR", "clndr_id", "default_flag", "clndr_name", "proj_id", "base_clndr_id", "last_chng_date", "clndr_type", "day_hr_cnt", "week_hr_cnt", "month_hr_cnt", "year_hr_cnt", "rsrc_private", "clndr_data");
+      row(CALENDAR_ID, "Y", "Standard", "", "", date(0), "CA_Base", "8", "40", "172", "2000", "N", CALENDAR_DATA);
+
+      table("UDFTYPE", "udf_type_id", "table_name", "udf_type_name", "udf_type_label", "logical_data_type", "super_flag");
+      for (int index = 0; index < UDF_TYPES.length; index++)
+      {
+         row(String.valueOf(FIRST_UDF_TYPE_ID + index), "TASK", "user_field_" + index, getUdfLabel(index), UDF_TYPES[index], "N");
+      }
+      row(String.valueOf(FIRST_UDF_TYPE_ID + UDF_TYPES.length), "PROJWBS", "user_field_wbs", "WBS Text", "FT_TEXT", "N");
+
+      table("RSRC", "rsrc_id", "rsrc_name", "rsrc_short_name", "rsrc_type", "clndr_id", "parent_rsrc_id");
+      for (int index = 0; index < RESOURCE_COUNT; index++)
+      {
+         row(String.valueOf(FIRST_RESOURCE_ID + index), "Resource " + index, "R" + index, "RT_Labor", CALENDAR_ID, "");
+      }
+
+      table("PROJWBS", "wbs_id", "proj_id", "seq_num", "proj_node_flag", "status_code", "wbs_short_name", "wbs_name", "parent_wbs_id");
+      row(String.valueOf(ROOT_WBS_ID), PROJECT_ID, "0", "Y", "WS_Open", "GENERATED", "Generated Project", "");
+      for (int index = 0; index < m_wbsCount; index++)
+      {
+         row(String.valueOf(getWbsID(index)), PROJECT_ID, String.valueOf(index), "N", "WS_Open", "W" + index, "WBS " + index, String.valueOf(ROOT_WBS_ID));
+      }
+
+      table("TASK", "task_id", "proj_id", "wbs_id", "clndr_id", "phys_complete_pct", "complete_pct_type", "task_type", "duration_type", "status_code", "task_code", "task_name", "remain_drtn_hr_cnt", "target_drtn_hr_cnt", "target_work_qty", "early_start_date", "early_end_date", "late_start_date", "late_end_date", "target_start_date", "target_end_date");
+      for (int index = 0; index < m_activityCount; index++)
+      {
+         String start = date(getStartOffset(index));
+         String finish = date(getStartOffset(index) + 1);
+         row(String.valueOf(getActivityID(index)), PROJECT_ID, String.valueOf(getWbsID(index / ACTIVITIES_PER_WBS)), CALENDAR_ID, "0", "CP_Phys", "TT_Task", "DT_FixedDUR2", "TK_NotStart", String.format("A%07d", Integer.valueOf(index)), "Activity " + index, "8", "8", "8", start, finish, start, finish, start, finish);
+      }
+
+      table("TASKPRED", "task_pred_id", "task_id", "pred_task_id", "proj_id", "pred_proj_id", "pred_type", "lag_hr_cnt");
+      for (int index = 0; index < m_activityCount; index++)
+      {
+         if (index % ACTIVITIES_PER_WBS != 0)
+         {
+            row(String.valueOf(index + 1), String.valueOf(getActivityID(index)), String.valueOf(getActivityID(index - 1)), PROJECT_ID, PROJECT_ID, "PR_FS", "0");
+         }
+      }
+
+      table("TASKRSRC", "taskrsrc_id", "task_id", "proj_id", "rsrc_id", "remain_qty", "target_qty", "act_reg_qty", "target_cost", "act_reg_cost", "target_start_date", "target_end_date");
+      for (int index = 0; index < m_activityCount; index++)
+      {
+         row(String.valueOf(index + 1), String.valueOf(getActivityID(index)), PROJECT_ID, String.valueOf(FIRST_RESOURCE_ID + (index % RESOURCE_COUNT)), "8", "8", "0", "400", "0", date(getStartOffset(index)), date(getStartOffset(index) + 1));
+      }
+
+      table("PROJCOST", "cost_item_id", "proj_id", "task_id", "act_cost", "target_cost", "remain_cost");
+      for (int index = 0; index < m_activityCount; index++)
+      {
+         String activityID = String.valueOf(getActivityID(index));
+         row(String.valueOf((index * 2) + 1), PROJECT_ID, activityID, "0", "100", "100");
+         row(String.valueOf((index * 2) + 2), PROJECT_ID, activityID, "0", String.valueOf(index), String.valueOf(index));
+      }
+
+      //
+      // Write the values grouped by user defined field type, as P6 does,
+      // so that the values for each activity are spread throughout the table.
+      //
+      table("UDFVALUE", "udf_type_id", "fk_id", "proj_id", "udf_date", "udf_number", "udf_text", "udf_code_id");
+      for (int type = 0; type < UDF_TYPES.length; type++)
+      {
+         String typeID = String.valueOf(FIRST_UDF_TYPE_ID + type);
+         for (int index = 0; index < m_activityCount; index++)
+         {
+            String activityID = String.valueOf(getActivityID(index));
+            if (UDF_TYPES[type].equals("FT_TEXT"))
+            {
+               row(typeID, activityID, PROJECT_ID, "", "", getUdfText(type, index), "");
+            }
+            else
+            {
+               if (UDF_TYPES[type].equals("FT_END_DATE"))
+               {
+                  row(typeID, activityID, PROJECT_ID, date(getStartOffset(index)), "", "", "");
+               }
+               else
+               {
+                  row(typeID, activityID, PROJECT_ID, "", String.valueOf(index), "", "");
+               }
+            }
+         }
+      }
+
+      String wbsTypeID = String.valueOf(FIRST_UDF_TYPE_ID + UDF_TYPES.length);
+      for (int index = 0; index < m_wbsCount; index++)
+      {
+         row(wbsTypeID, String.valueOf(getWbsID(index)), PROJECT_ID, "", "", "WBS value " + index, "");
+      }
+
+      m_writer.write("%E\n");
+   }
+
+   /**
+    * Retrieve the label of a generated task user defined field.
+    *
+    * @param index user defined field type index
+    * @return label
+    */
+   public static String getUdfLabel(int index)
+   {
+      return "Generated " + index + " " + UDF_TYPES[index];
+   }
+
+   /**
+    * Retrieve the text user defined field value for an activity.
+    *
+    * @param type user defined field type index
+    * @param index activity index
+    * @return text value
+    */
+   public static String getUdfText(int type, int index)
+   {
+      return "Text " + type + " " + index;
+   }
+
+   /**
+    * Retrieve the ID of a generated WBS node.
+    *
+    * @param index WBS node index
+    * @return WBS ID
+    */
+   private static int getWbsID(int index)
+   {
+      return ROOT_WBS_ID + 1 + index;
+   }
+
+   /**
+    * Retrieve the working day on which an activity starts.
+    *
+    * @param index activity index
+    * @return offset in days from the project start
+    */
+   private static int getStartOffset(int index)
+   {
+      return index % ACTIVITIES_PER_WBS;
+   }
+
+   /**
+    * Format a date offset from the project start.
+    *
+    * @param days offset in days
+    * @return formatted date
+    */
+   private String date(int days)
+   {
+      Calendar cal = (Calendar) m_projectStart.clone();
+      cal.add(Calendar.DAY_OF_YEAR, days);
+      return m_dateFormat.format(cal.getTime());
+   }
+
+   /**
+    * Write a table header.
+    *
+    * @param name table name
+    * @param fields field names
+    * @throws IOException
+    */
+   private void table(String name, String... fields) throws IOException
+   {
+      m_writer.write("%T\t");
+      m_writer.write(name);
+      m_writer.write('\n');
+      m_writer.write("%F");
+      for (String field : fields)
+      {
+         m_writer.write('\t');
+         m_writer.write(field);
+      }
+      m_writer.write('\n');
+   }
+
+   /**
+    * Write a table row.
+    *
+    * @param values row values
+    * @throws IOException
+    */
+   private void row(String... values) throws IOException
+   {
+      m_writer.write("%R");
+      for (String value : values)
+      {
+         m_writer.write('\t');
+         m_writer.write(value);
+      }
+      m_writer.write('\n');
+   }
+
+   private final Writer m_writer;
+   private final int m_activityCount;
+   private final int m_wbsCount;
+   private final Calendar m_projectStart;
+   private final SimpleDateFormat m_dateFormat = new SimpleDateFormat("yyyy-MM-dd 08:00");
+
+   public static final int ACTIVITIES_PER_WBS = 50;
+   public static final String[] UDF_TYPES =
+   {
+      "FT_TEXT",
+      "FT_FLOAT_2_DECIMALS",
+      "FT_END_DATE",
+      "FT_TEXT"
+   };
+
+   private static final String PROJECT_ID = "1";
+   private static final String CALENDAR_ID = "1";
+   private static final int ROOT_WBS_ID = 1000;
+   private static final int FIRST_ACTIVITY_ID = 10000000;
+   private static final int FIRST_UDF_TYPE_ID = 100;
+   private static final int FIRST_RESOURCE_ID = 500;
+   private static final int RESOURCE_COUNT = 10;
+   private static final String WORKING_DAY = "()((0||0(f|16:00|s|08:00)()))";
+   private static final String CALENDAR_DATA = "(0||CalendarData()((0||DaysOfWeek()((0||1()())(0||2" + WORKING_DAY + ")(0||3" + WORKING_DAY + ")(0||4" + WORKING_DAY + ")(0||5" + WORKING_DAY + ")(0||6" + WORKING_DAY + ")(0||7()())))(0||Exceptions()())))";
+}
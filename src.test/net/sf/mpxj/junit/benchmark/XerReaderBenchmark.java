@@ -0,0 +1,67 @@
+/*
+ * file:       XerReaderBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       04/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.benchmark;
+
+import java.io.File;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+/**
+ * Measures the time taken to read a large generated XER file. Run as:
+ * java net.sf.mpxj.junit.benchmark.XerReaderBenchmark [activities] [iterations].
+ */
+public class XerReaderBenchmark
+{
+   /**
+    * Main method.
+    *
+    * @param args optional number of activities and number of iterations
+    */
+   public static void main(String[] args) throws Exception
+   {
+      int activityCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+      int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+      File file = File.createTempFile("benchmark", ".xer");
+      try
+      {
+         XerGenerator.generate(file, activityCount);
+         System.out.println("Activities: " + activityCount + " (" + (file.length() / 1024) + " KB)");
+
+         for (int loop = 0; loop < iterations; loop++)
+         {
+            long start = System.currentTimeMillis();
+            ProjectFile project = new PrimaveraXERFileReader().read(file);
+            long elapsed = System.currentTimeMillis() - start;
+            System.out.println("Iteration " + (loop + 1) + ": " + elapsed + " ms (" + project.getAllTasks().size() + " tasks)");
+         }
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+}
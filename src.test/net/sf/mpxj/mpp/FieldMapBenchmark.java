@@ -0,0 +1,150 @@
+/*
+ * file:       FieldMapBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       03/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mpp;
+
+import java.io.File;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.junit.MpxjTestData;
+
+import org.apache.poi.poifs.filesystem.DirectoryEntry;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+/**
+ * Microbenchmark measuring the number of task rows per second
+ * which FieldMap14 can decode into Task instances.
+ * Usage: FieldMapBenchmark [mpp14 file name] [seconds].
+ */
+public class FieldMapBenchmark
+{
+   /**
+    * Main method.
+    *
+    * @param args command line arguments
+    */
+   public static void main(String[] args) throws Exception
+   {
+      String fileName = args.length > 0 ? args[0] : MpxjTestData.filePath("mpp14assignmentcustom.mpp");
+      int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+      POIFSFileSystem fs = new POIFSFileSystem(new File(fileName), true);
+      try
+      {
+         DirectoryEntry root = fs.getRoot();
+         Props14 props14 = new Props14(new DocumentInputStream(((DocumentEntry) root.getEntry("Props14"))));
+         DocumentInputStreamFactory inputStreamFactory = new DocumentInputStreamFactory(props14);
+         DirectoryEntry projectDir = (DirectoryEntry) root.getEntry("   114");
+         Props14 projectProps = new Props14(inputStreamFactory.getInstance(projectDir, "Props"));
+
+         ProjectFile file = new ProjectFile();
+         FieldMap fieldMap = new FieldMap14(file.getProjectProperties(), file.getCustomFields());
+         fieldMap.createTaskFieldMap(projectProps);
+
+         DirectoryEntry taskDir = (DirectoryEntry) projectDir.getEntry("TBkndTask");
+         VarMeta taskVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
+         Var2Data taskVarData = new Var2Data(taskVarMeta, new DocumentInputStream(((DocumentEntry) taskDir.getEntry("Var2Data"))));
+         FixedMeta taskFixedMeta = new FixedMeta(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("FixedMeta"))), 47);
+         FixedData taskFixedData = new FixedData(taskFixedMeta, new DocumentInputStream(((DocumentEntry) taskDir.getEntry("FixedData"))), fieldMap.getMaxFixedDataSize(0));
+         FixedMeta taskFixed2Meta = new FixedMeta(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("Fixed2Meta"))), taskFixedData, 92, 93, 94);
+         FixedData taskFixed2Data = new FixedData(taskFixed2Meta, new DocumentInputStream(((DocumentEntry) taskDir.getEntry("Fixed2Data"))));
+
+         int rowCount = taskFixedData.getItemCount();
+         byte[][][] rows = new byte[rowCount][][];
+         Integer[] uniqueIDs = new Integer[rowCount];
+         Task[] tasks = new Task[rowCount];
+         int uniqueIDOffset = fieldMap.getFixedDataOffset(TaskField.UNIQUE_ID);
+         for (int loop = 0; loop < rowCount; loop++)
+         {
+            byte[] data = taskFixedData.getByteArrayValue(loop);
+            if (data != null && data.length < fieldMap.getMaxFixedDataSize(0))
+            {
+               byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0) + 8];
+               System.arraycopy(data, 0, newData, 0, data.length);
+               data = newData;
+            }
+
+            rows[loop] = new byte[][]
+            {
+               data,
+               taskFixed2Data.getByteArrayValue(loop)
+            };
+            uniqueIDs[loop] = data == null ? null : Integer.valueOf(MPPUtility.getInt(data, uniqueIDOffset));
+            tasks[loop] = file.addTask();
+            tasks[loop].disableEvents();
+         }
+
+         // Warm up
+         populate(fieldMap, rows, uniqueIDs, tasks, taskVarData, 2000);
+
+         long rowsProcessed = 0;
+         long start = System.nanoTime();
+         long end = start + seconds * 1000000000L;
+         while (System.nanoTime() < end)
+         {
+            rowsProcessed += populate(fieldMap, rows, uniqueIDs, tasks, taskVarData, 100);
+         }
+         double elapsed = (System.nanoTime() - start) / 1000000000.0;
+
+         System.out.println("Rows per iteration: " + rowCount);
+         System.out.println("Rows per second: " + (long) (rowsProcessed / elapsed));
+      }
+
+      finally
+      {
+         fs.close();
+      }
+   }
+
+   /**
+    * Populate each task from its row data a number of times.
+    *
+    * @param fieldMap field map
+    * @param rows fixed data rows
+    * @param uniqueIDs unique ID for each row
+    * @param tasks task for each row
+    * @param varData var data
+    * @param iterations number of passes over the rows
+    * @return number of rows processed
+    */
+   private static long populate(FieldMap fieldMap, byte[][][] rows, Integer[] uniqueIDs, Task[] tasks, Var2Data varData, int iterations)
+   {
+      long count = 0;
+      for (int iteration = 0; iteration < iterations; iteration++)
+      {
+         for (int loop = 0; loop < rows.length; loop++)
+         {
+            if (uniqueIDs[loop] != null)
+            {
+               fieldMap.populateContainer(TaskField.class, tasks[loop], uniqueIDs[loop], rows[loop], varData);
+               ++count;
+            }
+         }
+      }
+      return count;
+   }
+}
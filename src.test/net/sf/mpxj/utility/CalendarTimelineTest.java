@@ -0,0 +1,64 @@
+/*
+ * file:       CalendarTimelineTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       11/12/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import static org.junit.Assert.*;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+
+import org.junit.Test;
+
+/**
+ * Tests for the CalendarTimeline class.
+ */
+public class CalendarTimelineTest
+{
+   /**
+    * Ensure that the previous work finish is the end of the last working
+    * period before the date, whether or not the timeline already covers
+    * that period.
+    *
+    * @throws Exception
+    */
+   @Test public void testGetPreviousWorkFinish() throws Exception
+   {
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectCalendar calendar = new ProjectFile().addDefaultBaseCalendar();
+      long monday = df.parse("16/10/2017 06:00").getTime();
+
+      CalendarTimeline timeline = new CalendarTimeline(calendar);
+      assertEquals("13/10/2017 17:00", df.format(new Date(timeline.getPreviousWorkFinish(monday))));
+
+      timeline = new CalendarTimeline(calendar);
+      assertEquals("13/10/2017 12:00", df.format(new Date(timeline.getPreviousWorkFinish(df.parse("13/10/2017 12:30").getTime()))));
+      assertEquals("13/10/2017 17:00", df.format(new Date(timeline.getPreviousWorkFinish(monday))));
+
+      assertEquals("16/10/2017 10:00", df.format(new Date(timeline.getPreviousWorkFinish(df.parse("16/10/2017 10:00").getTime()))));
+      assertEquals("16/10/2017 12:00", df.format(new Date(timeline.getPreviousWorkFinish(df.parse("16/10/2017 12:30").getTime()))));
+   }
+}
@@ -31,10 +31,9 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.LongKeyCache;
 import net.sf.mpxj.common.NumberHelper;
 
 /**
@@ -173,7 +172,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public ProjectCalendarException addCalendarException(Date fromDate, Date toDate)
    {
-      ProjectCalendarException bce = new ProjectCalendarException(fromDate, toDate);
+      ProjectCalendarException bce = new ProjectCalendarException(this, fromDate, toDate);
       m_exceptions.add(bce);
       m_exceptionsSorted = false;
       clearWorkingDateCache();
@@ -187,10 +186,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public List<ProjectCalendarException> getCalendarExceptions()
    {
-      if (!m_exceptionsSorted)
-      {
-         Collections.sort(m_exceptions);
-      }
+      sortExceptions();
       return (m_exceptions);
    }
 
@@ -336,8 +332,9 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Date getStartTime(Date date)
    {
-      Date result = m_startTimeCache.get(date);
-      if (result == null)
+      Date result;
+      long cachedResult = m_startTimeCache.get(date.getTime(), 0, CACHE_MISS);
+      if (cachedResult == CACHE_MISS)
       {
          ProjectCalendarDateRanges ranges = getRanges(date, null, null);
          if (ranges == null)
@@ -349,7 +346,11 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             result = ranges.getRange(0).getStart();
          }
          result = DateHelper.getCanonicalTime(result);
-         m_startTimeCache.put(new Date(date.getTime()), result);
+         m_startTimeCache.put(date.getTime(), 0, result == null ? NULL_TIME : result.getTime());
+      }
+      else
+      {
+         result = cachedResult == NULL_TIME ? null : new Date(cachedResult);
       }
       return result;
    }
@@ -444,6 +445,28 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             //
             remainingMinutes = NumberHelper.truncate(remainingMinutes - currentDateWorkingMinutes, 2);
 
+            //
+            // Skip any whole days which are consumed by the remaining work.
+            // The remaining work is truncated as each day is deducted,
+            // so we only skip days in one step when we are dealing with
+            // whole minutes and the result is guaranteed to be the same.
+            //
+            ProjectCalendarWorkIndex index = getWorkIndex();
+            if (index != null && remainingMinutes == Math.floor(remainingMinutes))
+            {
+               int nextDay = ProjectCalendarWorkIndex.getDayNumber(cal) + 1;
+               int lastDay = index.findDayAfter(nextDay, Math.round(remainingMinutes * 60000));
+               if (lastDay != ProjectCalendarWorkIndex.NO_DAY && lastDay > nextDay)
+               {
+                  long skippedWork = index.getWork(nextDay, lastDay - 1);
+                  if (skippedWork % 60000 == 0)
+                  {
+                     remainingMinutes -= skippedWork / 60000;
+                     cal.add(Calendar.DAY_OF_YEAR, lastDay - nextDay);
+                  }
+               }
+            }
+
             //
             // Move the calendar forward to the next working day
             //
@@ -595,13 +618,19 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       {
          //
          // Get the current date and time and determine how many
-         // working hours remain
+         // working hours remain. If we are at midnight, the working
+         // hours are those of the day which has just ended.
          //
          Date currentDate = cal.getTime();
-         startCal.setTime(currentDate);
-         startCal.add(Calendar.DAY_OF_YEAR, -1);
-         Date currentDateEnd = DateHelper.getDayEndDate(startCal.getTime());
-         double currentDateWorkingMinutes = getWork(currentDateEnd, currentDate, TimeUnit.MINUTES).getDuration();
+         Date currentDateStart = DateHelper.getDayStartDate(currentDate);
+         boolean midnight = currentDateStart.getTime() == currentDate.getTime();
+         if (midnight)
+         {
+            startCal.setTime(currentDateStart);
+            startCal.add(Calendar.DAY_OF_YEAR, -1);
+            currentDateStart = startCal.getTime();
+         }
+         double currentDateWorkingMinutes = getWork(currentDateStart, currentDate, TimeUnit.MINUTES).getDuration();
 
          //
          // We have more than enough hours left
@@ -612,6 +641,27 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             // Deduct this day's hours from our total
             //
             remainingMinutes = NumberHelper.truncate(remainingMinutes - currentDateWorkingMinutes, 2);
+            cal.setTime(currentDateStart);
+
+            //
+            // Skip any whole days which are consumed by the remaining work,
+            // subject to the same restriction as getDate.
+            //
+            ProjectCalendarWorkIndex index = getWorkIndex();
+            if (index != null && !index.hasOvernightWork() && remainingMinutes == Math.floor(remainingMinutes))
+            {
+               int previousDay = ProjectCalendarWorkIndex.getDayNumber(cal) - 1;
+               int firstDay = index.findDayBefore(previousDay, Math.round(remainingMinutes * 60000));
+               if (firstDay != ProjectCalendarWorkIndex.NO_DAY && firstDay < previousDay)
+               {
+                  long skippedWork = index.getWork(firstDay + 1, previousDay);
+                  if (skippedWork % 60000 == 0)
+                  {
+                     remainingMinutes -= skippedWork / 60000;
+                     cal.add(Calendar.DAY_OF_YEAR, firstDay - previousDay);
+                  }
+               }
+            }
 
             //
             // Move the calendar backward to the previous working day
@@ -637,10 +687,15 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             }
 
             //
-            // Retrieve the finish time for this day
+            // Retrieve the finish time for this day. If the working
+            // day finishes at midnight, move to the start of the next day.
             //
             Date finishTime = getFinishTime(cal.getTime());
             DateHelper.setTime(cal, finishTime);
+            if (finishTime != null && finishTime.getTime() != DateHelper.getCanonicalTime(finishTime).getTime())
+            {
+               cal.add(Calendar.DAY_OF_YEAR, 1);
+            }
          }
          else
          {
@@ -649,6 +704,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             // in this day. We need to calculate the time of day at which
             // our work starts.
             //
+            cal.setTime(currentDateStart);
             ProjectCalendarDateRanges ranges = getRanges(cal.getTime(), cal, null);
 
             //
@@ -657,6 +713,12 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             //
             Date startTime = null;
             Date currentDateFinishTime = DateHelper.getCanonicalTime(currentDate);
+            if (midnight)
+            {
+               startCal.setTime(currentDateFinishTime);
+               startCal.add(Calendar.DAY_OF_YEAR, 1);
+               currentDateFinishTime = startCal.getTime();
+            }
             boolean firstRange = true;
             // Traverse from end to start
             for (int i = ranges.getRangeCount() - 1; i >= 0; i--)
@@ -1059,11 +1121,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       ProjectCalendarException exception = null;
       if (!m_exceptions.isEmpty())
       {
-         if (!m_exceptionsSorted)
-         {
-            Collections.sort(m_exceptions);
-            m_exceptionsSorted = true;
-         }
+         sortExceptions();
 
          int low = 0;
          int high = m_exceptions.size() - 1;
@@ -1102,6 +1160,25 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       return (exception);
    }
 
+   /**
+    * Ensure that the list of exceptions is sorted. This is synchronized
+    * so that calendars can be safely queried from multiple threads.
+    */
+   private void sortExceptions()
+   {
+      if (!m_exceptionsSorted)
+      {
+         synchronized (this)
+         {
+            if (!m_exceptionsSorted)
+            {
+               Collections.sort(m_exceptions);
+               m_exceptionsSorted = true;
+            }
+         }
+      }
+   }
+
    /**
     * Retrieves the amount of work on a given day, and
     * returns it in the specified format.
@@ -1128,12 +1205,14 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Duration getWork(Date startDate, Date endDate, TimeUnit format)
    {
-      DateRange range = new DateRange(startDate, endDate);
-      Long cachedResult = m_workingDateCache.get(range);
-      long totalTime = 0;
+      long startTime = startDate.getTime();
+      long endTime = endDate.getTime();
+      long totalTime = m_workingDateCache.get(startTime, endTime, CACHE_MISS);
 
-      if (cachedResult == null)
+      if (totalTime == CACHE_MISS)
       {
+         totalTime = 0;
+
          //
          // We want the start date to be the earliest date, and the end date
          // to be the latest date. Set a flag here to indicate if we have swapped
@@ -1183,42 +1262,15 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
                totalTime += getTotalTime(getRanges(currentDate, null, day), currentDate, true);
 
                //
-               // Process each working day until we reach the last day
+               // Add the working time for each whole day until we reach the last day
                //
-               while (true)
-               {
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  currentDate = cal.getTime();
-                  day = day.getNextDay();
-
-                  //
-                  // We have reached the last day
-                  //
-                  if (currentDate.getTime() >= canonicalEndDate.getTime())
-                  {
-                     break;
-                  }
-
-                  //
-                  // Skip this day if it has no working time
-                  //
-                  ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
-                  if (ranges.getRangeCount() == 0)
-                  {
-                     continue;
-                  }
-
-                  //
-                  // Add the working time for the whole day
-                  //
-                  totalTime += getTotalTime(ranges);
-               }
+               totalTime += getWholeDayWork(cal, canonicalEndDate);
             }
 
             //
             // We are now at the last day
             //
-            ProjectCalendarDateRanges ranges = getRanges(endDate, null, day);
+            ProjectCalendarDateRanges ranges = getRanges(endDate, null, null);
             if (ranges.getRangeCount() != 0)
             {
                totalTime += getTotalTime(ranges, DateHelper.getDayStartDate(endDate), endDate);
@@ -1230,14 +1282,176 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             totalTime = -totalTime;
          }
 
-         m_workingDateCache.put(range, Long.valueOf(totalTime));
+         m_workingDateCache.put(startTime, endTime, totalTime);
+      }
+
+      return convertFormat(totalTime, format);
+   }
+
+   /**
+    * Calculates the working time for each whole day following the day
+    * represented by the Calendar instance, stopping before the
+    * supplied end date.
+    *
+    * @param cal Calendar instance representing the first day
+    * @param canonicalEndDate start of the last day
+    * @return working time in milliseconds
+    */
+   private long getWholeDayWork(Calendar cal, Date canonicalEndDate)
+   {
+      long totalTime = 0;
+      ProjectCalendarWorkIndex index = getWorkIndex();
+
+      if (index == null)
+      {
+         Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+         while (true)
+         {
+            cal.add(Calendar.DAY_OF_YEAR, 1);
+            Date currentDate = cal.getTime();
+            day = day.getNextDay();
+
+            //
+            // We have reached the last day
+            //
+            if (currentDate.getTime() >= canonicalEndDate.getTime())
+            {
+               break;
+            }
+
+            //
+            // Skip this day if it has no working time
+            //
+            ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
+            if (ranges.getRangeCount() == 0)
+            {
+               continue;
+            }
+
+            //
+            // Add the working time for the whole day
+            //
+            totalTime += getTotalTime(ranges);
+         }
       }
       else
       {
-         totalTime = cachedResult.longValue();
+         Calendar endCal = Calendar.getInstance();
+         endCal.setTime(canonicalEndDate);
+         totalTime = index.getWork(ProjectCalendarWorkIndex.getDayNumber(cal) + 1, ProjectCalendarWorkIndex.getDayNumber(endCal) - 1);
       }
 
-      return convertFormat(totalTime, format);
+      return totalTime;
+   }
+
+   /**
+    * Retrieves the compiled representation of the working time defined
+    * by this calendar, creating it if necessary. Returns null if
+    * this calendar, or a base calendar, has overlapping exceptions
+    * and therefore cannot be represented in this way.
+    *
+    * @return work index or null
+    */
+   private ProjectCalendarWorkIndex getWorkIndex()
+   {
+      if (!m_workIndexCreated)
+      {
+         m_workIndex = createWorkIndex();
+         m_workIndexCreated = true;
+      }
+      return m_workIndex;
+   }
+
+   /**
+    * Creates the compiled representation of the working time
+    * defined by this calendar.
+    *
+    * @return work index or null
+    */
+   private ProjectCalendarWorkIndex createWorkIndex()
+   {
+      ProjectCalendarWorkIndex parentIndex = null;
+      if (getParent() != null)
+      {
+         parentIndex = getParent().getWorkIndex();
+         if (parentIndex == null)
+         {
+            return null;
+         }
+      }
+
+      long[] weekWork = new long[7];
+      boolean overnightWork = false;
+      for (Day day : Day.values())
+      {
+         ProjectCalendarHours hours = getHours(day);
+         if (hours != null)
+         {
+            weekWork[day.getValue() - 1] = getTotalTime(hours);
+            overnightWork = overnightWork || hasOvernightWork(hours);
+         }
+      }
+
+      sortExceptions();
+
+      int[] from = new int[m_exceptions.size()];
+      int[] to = new int[from.length];
+      long[] dailyWork = new long[from.length];
+      Calendar cal = Calendar.getInstance();
+      int index = 0;
+      for (ProjectCalendarException exception : m_exceptions)
+      {
+         if (exception.getFromDate() == null || exception.getToDate() == null)
+         {
+            return null;
+         }
+
+         cal.setTime(exception.getFromDate());
+         from[index] = ProjectCalendarWorkIndex.getDayNumber(cal);
+         cal.setTime(exception.getToDate());
+         to[index] = ProjectCalendarWorkIndex.getDayNumber(cal);
+         dailyWork[index] = getTotalTime(exception);
+         overnightWork = overnightWork || hasOvernightWork(exception);
+
+         if (to[index] < from[index] || (index != 0 && from[index] <= to[index - 1]))
+         {
+            return null;
+         }
+         ++index;
+      }
+
+      ProjectCalendarWorkIndex result;
+      if (parentIndex == null)
+      {
+         result = new ProjectCalendarWorkIndex(weekWork, from, to, dailyWork, overnightWork);
+      }
+      else
+      {
+         result = ProjectCalendarWorkIndex.fold(weekWork, from, to, dailyWork, overnightWork, parentIndex);
+      }
+      return result;
+   }
+
+   /**
+    * Determine if any of the supplied ranges extend past midnight.
+    *
+    * @param ranges working hours
+    * @return true if any range extends past midnight
+    */
+   private boolean hasOvernightWork(ProjectCalendarDateRanges ranges)
+   {
+      boolean result = false;
+      for (DateRange range : ranges)
+      {
+         Date rangeStart = range.getStart();
+         Date rangeEnd = range.getEnd();
+         if (rangeStart != null && rangeEnd != null && DateHelper.getDayStartDate(rangeStart).getTime() != DateHelper.getDayStartDate(rangeEnd).getTime())
+         {
+            result = true;
+            break;
+         }
+      }
+      return result;
    }
 
    /**
@@ -1782,6 +1996,38 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       }
    }
 
+   /**
+    * Retrieve the number of date calculations which have been answered
+    * from this calendar's caches.
+    *
+    * @return cache hit count
+    */
+   public long getCacheHitCount()
+   {
+      return m_workingDateCache.getHitCount() + m_startTimeCache.getHitCount();
+   }
+
+   /**
+    * Retrieve the number of date calculations which could not be answered
+    * from this calendar's caches.
+    *
+    * @return cache miss count
+    */
+   public long getCacheMissCount()
+   {
+      return m_workingDateCache.getMissCount() + m_startTimeCache.getMissCount();
+   }
+
+   /**
+    * Called when the working hours, exceptions or work weeks of this
+    * calendar are changed, to discard cached calendar data
+    * for this calendar and any calendars derived from it.
+    */
+   @Override void modified()
+   {
+      clearWorkingDateCache();
+   }
+
    /**
     * Utility method to clear cached calendar data.
     */
@@ -1789,6 +2035,8 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    {
       m_workingDateCache.clear();
       m_startTimeCache.clear();
+      m_workIndexCreated = false;
+      m_workIndex = null;
       for (ProjectCalendar calendar : m_derivedCalendars)
       {
          calendar.clearWorkingDateCache();
@@ -1850,7 +2098,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    /**
     * Flag indicating if the list of exceptions is sorted.
     */
-   private boolean m_exceptionsSorted;
+   private volatile boolean m_exceptionsSorted;
 
    /**
     * This resource to which this calendar is attached.
@@ -1865,8 +2113,14 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    /**
     * Caches used to speed up date calculations.
     */
-   private Map<DateRange, Long> m_workingDateCache = new WeakHashMap<DateRange, Long>();
-   private Map<Date, Date> m_startTimeCache = new WeakHashMap<Date, Date>();
+   private final LongKeyCache m_workingDateCache = new LongKeyCache(WORKING_DATE_CACHE_SIZE);
+   private final LongKeyCache m_startTimeCache = new LongKeyCache(START_TIME_CACHE_SIZE);
+
+   /**
+    * Compiled representation of the working time defined by this calendar.
+    */
+   private volatile ProjectCalendarWorkIndex m_workIndex;
+   private volatile boolean m_workIndexCreated;
 
    /**
     * Work week definitions.
@@ -1891,4 +2145,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * and take an alternative approach.
     */
    private static final int MAX_NONWORKING_DAYS = 1000;
+
+   /**
+    * Maximum number of entries held by each calendar's caches.
+    */
+   private static final int WORKING_DATE_CACHE_SIZE = 1024;
+   private static final int START_TIME_CACHE_SIZE = 256;
+
+   /**
+    * Values used to represent a cache miss and a null time in the caches.
+    */
+   private static final long CACHE_MISS = Long.MIN_VALUE;
+   private static final long NULL_TIME = Long.MAX_VALUE;
 }
@@ -40,6 +40,7 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
    public void addRange(DateRange range)
    {
       m_ranges.add(range);
+      modified();
    }
 
    /**
@@ -75,6 +76,7 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
    public void setRange(int index, DateRange value)
    {
       m_ranges.set(index, value);
+      modified();
    }
 
    /**
@@ -97,5 +99,14 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
       return (m_ranges.size());
    }
 
+   /**
+    * Records that the date ranges have changed. Subclasses pass this
+    * on to the calendar which owns them.
+    */
+   void modified()
+   {
+      // Default implementation does nothing
+   }
+
    private LinkedList<DateRange> m_ranges = new LinkedList<DateRange>();
 }
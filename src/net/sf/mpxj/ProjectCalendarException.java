@@ -37,11 +37,13 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
    /**
     * Package private constructor.
     *
+    * @param calendar calendar to which this exception belongs
     * @param fromDate exception start date
     * @param toDate exception end date
     */
-   ProjectCalendarException(Date fromDate, Date toDate)
+   ProjectCalendarException(ProjectCalendar calendar, Date fromDate, Date toDate)
    {
+      m_calendar = calendar;
       m_fromDate = DateHelper.getDayStartDate(fromDate);
       m_toDate = DateHelper.getDayEndDate(toDate);
    }
@@ -96,6 +98,14 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
       return (result);
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override void modified()
+   {
+      m_calendar.modified();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -126,6 +136,7 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
       return (sb.toString());
    }
 
+   private ProjectCalendar m_calendar;
    private Date m_fromDate;
    private Date m_toDate;
 }
@@ -76,6 +76,14 @@ public final class ProjectCalendarHours extends ProjectCalendarDateRanges
       m_parentCalendar.attachHoursToDay(this);
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override void modified()
+   {
+      m_parentCalendar.modified();
+   }
+
    /**
     * {@inheritDoc}
     */
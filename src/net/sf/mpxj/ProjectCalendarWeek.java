@@ -70,6 +70,7 @@ public class ProjectCalendarWeek
    public void setDateRange(DateRange range)
    {
       m_dateRange = range;
+      modified();
    }
 
    /**
@@ -99,6 +100,7 @@ public class ProjectCalendarWeek
             m_days[loop] = DayType.DEFAULT;
          }
       }
+      modified();
    }
 
    /**
@@ -237,6 +239,7 @@ public class ProjectCalendarWeek
          throw new IllegalArgumentException();
       }
       m_hours[hours.getDay().getValue() - 1] = hours;
+      modified();
    }
 
    /**
@@ -252,6 +255,7 @@ public class ProjectCalendarWeek
          throw new IllegalArgumentException();
       }
       m_hours[hours.getDay().getValue() - 1] = null;
+      modified();
    }
 
    /**
@@ -322,6 +326,20 @@ public class ProjectCalendarWeek
       }
 
       m_days[day.getValue() - 1] = value;
+      modified();
+   }
+
+   /**
+    * Records that the working time defined by this week, or by the hours
+    * attached to it, has changed. By default this is passed on to the
+    * week from which this week is derived.
+    */
+   void modified()
+   {
+      if (m_parent != null)
+      {
+         m_parent.modified();
+      }
    }
 
    /**
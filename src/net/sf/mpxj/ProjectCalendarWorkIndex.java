@@ -0,0 +1,462 @@
+/*
+ * file:       ProjectCalendarWorkIndex.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       07/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.Calendar;
+
+/**
+ * Compiled representation of the working time defined by a calendar.
+ * Working time for each day of the week is held as a prefix sum, and
+ * calendar exceptions, including those inherited from a base calendar,
+ * are held as a sorted list of non-overlapping day intervals. This
+ * allows the amount of working time between two days to be calculated
+ * without visiting each day in turn.
+ *
+ * Days are identified by a day number: the number of days since
+ * 01/01/1970, based on the local date rather than the absolute time.
+ */
+final class ProjectCalendarWorkIndex
+{
+   /**
+    * Constructor.
+    *
+    * @param weekWork working time in milliseconds for each day of the week, Sunday first
+    * @param from first day number of each exception, sorted in ascending order
+    * @param to last day number of each exception
+    * @param dailyWork working time in milliseconds for each day of each exception
+    * @param overnightWork true if any working time extends past midnight
+    */
+   ProjectCalendarWorkIndex(long[] weekWork, int[] from, int[] to, long[] dailyWork, boolean overnightWork)
+   {
+      m_overnightWork = overnightWork;
+
+      m_weekPrefix = new long[15];
+      for (int index = 0; index < 14; index++)
+      {
+         m_weekPrefix[index + 1] = m_weekPrefix[index] + weekWork[index % 7];
+      }
+      m_weekTotal = m_weekPrefix[7];
+
+      m_from = from;
+      m_to = to;
+      m_dailyWork = dailyWork;
+
+      m_deltaPrefix = new long[from.length + 1];
+      for (int index = 0; index < from.length; index++)
+      {
+         m_deltaPrefix[index + 1] = m_deltaPrefix[index] + getExceptionDelta(index, from[index], to[index]);
+      }
+   }
+
+   /**
+    * Creates a new index by folding the exceptions defined by a base
+    * calendar into the exceptions defined by a derived calendar. Where
+    * both calendars define an exception for the same day, the exception
+    * from the derived calendar takes precedence.
+    *
+    * @param weekWork working time in milliseconds for each day of the week, Sunday first
+    * @param from first day number of each exception, sorted in ascending order
+    * @param to last day number of each exception
+    * @param dailyWork working time in milliseconds for each day of each exception
+    * @param overnightWork true if any working time extends past midnight
+    * @param parent index representing the base calendar
+    * @return new index
+    */
+   static ProjectCalendarWorkIndex fold(long[] weekWork, int[] from, int[] to, long[] dailyWork, boolean overnightWork, ProjectCalendarWorkIndex parent)
+   {
+      int maxSize = from.length + parent.m_from.length + from.length;
+      int[] resultFrom = new int[maxSize];
+      int[] resultTo = new int[maxSize];
+      long[] resultWork = new long[maxSize];
+      int size = 0;
+      int childIndex = 0;
+      int coveredTo = Integer.MIN_VALUE;
+
+      for (int parentIndex = 0; parentIndex < parent.m_from.length; parentIndex++)
+      {
+         int start = parent.m_from[parentIndex];
+         int end = parent.m_to[parentIndex];
+         long work = parent.m_dailyWork[parentIndex];
+         if (start <= coveredTo)
+         {
+            start = coveredTo + 1;
+         }
+
+         //
+         // Emit any child exceptions which precede the remaining part of
+         // this parent exception, clipping the parent exception as we go.
+         //
+         while (start <= end)
+         {
+            if (childIndex < from.length && from[childIndex] <= end)
+            {
+               if (from[childIndex] > start)
+               {
+                  resultFrom[size] = start;
+                  resultTo[size] = from[childIndex] - 1;
+                  resultWork[size] = work;
+                  ++size;
+               }
+
+               resultFrom[size] = from[childIndex];
+               resultTo[size] = to[childIndex];
+               resultWork[size] = dailyWork[childIndex];
+               ++size;
+
+               coveredTo = Math.max(coveredTo, to[childIndex]);
+               if (coveredTo >= start)
+               {
+                  start = coveredTo + 1;
+               }
+               ++childIndex;
+            }
+            else
+            {
+               resultFrom[size] = start;
+               resultTo[size] = end;
+               resultWork[size] = work;
+               ++size;
+               break;
+            }
+         }
+      }
+
+      while (childIndex < from.length)
+      {
+         resultFrom[size] = from[childIndex];
+         resultTo[size] = to[childIndex];
+         resultWork[size] = dailyWork[childIndex];
+         ++size;
+         ++childIndex;
+      }
+
+      int[] finalFrom = new int[size];
+      int[] finalTo = new int[size];
+      long[] finalWork = new long[size];
+      System.arraycopy(resultFrom, 0, finalFrom, 0, size);
+      System.arraycopy(resultTo, 0, finalTo, 0, size);
+      System.arraycopy(resultWork, 0, finalWork, 0, size);
+
+      return new ProjectCalendarWorkIndex(weekWork, finalFrom, finalTo, finalWork, overnightWork || parent.m_overnightWork);
+   }
+
+   /**
+    * Returns true if any of the working time represented by this index
+    * extends past midnight into the following day.
+    *
+    * @return true if there is overnight working time
+    */
+   boolean hasOvernightWork()
+   {
+      return m_overnightWork;
+   }
+
+   /**
+    * Retrieve the amount of working time in a range of whole days.
+    *
+    * @param startDay first day number, inclusive
+    * @param endDay last day number, inclusive
+    * @return working time in milliseconds
+    */
+   long getWork(int startDay, int endDay)
+   {
+      if (startDay > endDay)
+      {
+         return 0;
+      }
+
+      long total = getWeekWork(startDay, endDay);
+
+      int first = findFirstException(startDay);
+      int last = findLastException(endDay);
+      if (first <= last)
+      {
+         if (first == last)
+         {
+            total += getExceptionDelta(first, Math.max(startDay, m_from[first]), Math.min(endDay, m_to[first]));
+         }
+         else
+         {
+            total += getExceptionDelta(first, Math.max(startDay, m_from[first]), m_to[first]);
+            total += m_deltaPrefix[last] - m_deltaPrefix[first + 1];
+            total += getExceptionDelta(last, m_from[last], Math.min(endDay, m_to[last]));
+         }
+      }
+
+      return total;
+   }
+
+   /**
+    * Starting from a given day, find the first day by which the
+    * cumulative working time reaches the required amount. Returns
+    * NO_DAY if the required amount of working time cannot be reached.
+    *
+    * @param startDay first day number
+    * @param work required working time in milliseconds
+    * @return day number, or NO_DAY
+    */
+   int findDayAfter(int startDay, long work)
+   {
+      int limit = getSearchLimit(work);
+      if (limit == -1)
+      {
+         return NO_DAY;
+      }
+
+      int low = startDay;
+      int high = Math.max(startDay, m_from.length == 0 ? startDay : m_to[m_from.length - 1]) + limit;
+      if (getWork(startDay, high) < work)
+      {
+         return NO_DAY;
+      }
+
+      while (low < high)
+      {
+         int mid = (int) (((long) low + high) >>> 1);
+         if (getWork(startDay, mid) >= work)
+         {
+            high = mid;
+         }
+         else
+         {
+            low = mid + 1;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Working backwards from a given day, find the first day by which the
+    * cumulative working time reaches the required amount. Returns
+    * NO_DAY if the required amount of working time cannot be reached.
+    *
+    * @param endDay last day number
+    * @param work required working time in milliseconds
+    * @return day number, or NO_DAY
+    */
+   int findDayBefore(int endDay, long work)
+   {
+      int limit = getSearchLimit(work);
+      if (limit == -1)
+      {
+         return NO_DAY;
+      }
+
+      int low = Math.min(endDay, m_from.length == 0 ? endDay : m_from[0]) - limit;
+      int high = endDay;
+      if (getWork(low, endDay) < work)
+      {
+         return NO_DAY;
+      }
+
+      while (low < high)
+      {
+         int mid = (int) (((long) low + high + 1) >> 1);
+         if (getWork(mid, endDay) >= work)
+         {
+            low = mid;
+         }
+         else
+         {
+            high = mid - 1;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Calculate the number of days beyond the last exception we need to
+    * search to accumulate the required amount of working time.
+    *
+    * @param work required working time in milliseconds
+    * @return number of days, or -1 if the week contains no working time
+    */
+   private int getSearchLimit(long work)
+   {
+      int result;
+      if (m_weekTotal == 0)
+      {
+         result = m_from.length == 0 ? -1 : 0;
+      }
+      else
+      {
+         double weeks = Math.ceil((double) work / m_weekTotal) + 1;
+         result = weeks > MAX_SEARCH_WEEKS ? -1 : (int) weeks * 7;
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the working time defined by the working week for a
+    * range of days, ignoring exceptions.
+    *
+    * @param startDay first day number, inclusive
+    * @param endDay last day number, inclusive
+    * @return working time in milliseconds
+    */
+   private long getWeekWork(int startDay, int endDay)
+   {
+      long days = (long) endDay - startDay + 1;
+      int startIndex = getDayOfWeekIndex(startDay);
+      int remainder = (int) (days % 7);
+      return (days / 7) * m_weekTotal + m_weekPrefix[startIndex + remainder] - m_weekPrefix[startIndex];
+   }
+
+   /**
+    * Retrieve the difference between the working time defined by an
+    * exception and the working time defined by the working week
+    * for a range of days covered by the exception.
+    *
+    * @param index exception index
+    * @param startDay first day number, inclusive
+    * @param endDay last day number, inclusive
+    * @return difference in milliseconds
+    */
+   private long getExceptionDelta(int index, int startDay, int endDay)
+   {
+      return ((long) endDay - startDay + 1) * m_dailyWork[index] - getWeekWork(startDay, endDay);
+   }
+
+   /**
+    * Find the index of the first exception which ends on or after the given day.
+    *
+    * @param day day number
+    * @return exception index
+    */
+   private int findFirstException(int day)
+   {
+      int low = 0;
+      int high = m_to.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_to[mid] < day)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Find the index of the last exception which starts on or before the given day.
+    *
+    * @param day day number
+    * @return exception index
+    */
+   private int findLastException(int day)
+   {
+      int low = 0;
+      int high = m_from.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_from[mid] <= day)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return low - 1;
+   }
+
+   /**
+    * Retrieve the day of the week for a day number, where zero
+    * represents Sunday.
+    *
+    * @param day day number
+    * @return day of week index
+    */
+   private static int getDayOfWeekIndex(int day)
+   {
+      // 01/01/1970 was a Thursday
+      int result = (day + 4) % 7;
+      if (result < 0)
+      {
+         result += 7;
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the day number for the date currently represented by
+    * a Calendar instance.
+    *
+    * @param cal Calendar instance
+    * @return day number
+    */
+   static int getDayNumber(Calendar cal)
+   {
+      long year = cal.get(Calendar.YEAR) - 1;
+      long days = 365 * year + floorDiv(year, 4) - floorDiv(year, 100) + floorDiv(year, 400) - DAYS_TO_EPOCH;
+      return (int) (days + cal.get(Calendar.DAY_OF_YEAR) - 1);
+   }
+
+   /**
+    * Integer division rounding towards negative infinity.
+    *
+    * @param value dividend
+    * @param divisor divisor
+    * @return quotient
+    */
+   private static long floorDiv(long value, long divisor)
+   {
+      long result = value / divisor;
+      if (value % divisor < 0)
+      {
+         --result;
+      }
+      return result;
+   }
+
+   /**
+    * Value returned when a search fails to find a day.
+    */
+   static final int NO_DAY = Integer.MIN_VALUE;
+
+   private final long[] m_weekPrefix;
+   private final long m_weekTotal;
+   private final int[] m_from;
+   private final int[] m_to;
+   private final long[] m_dailyWork;
+   private final long[] m_deltaPrefix;
+   private final boolean m_overnightWork;
+
+   /**
+    * Number of days from 01/01/0001 to 01/01/1970.
+    */
+   private static final long DAYS_TO_EPOCH = 719162;
+
+   /**
+    * Upper limit on the number of weeks we will search.
+    */
+   private static final double MAX_SEARCH_WEEKS = 1000000;
+}
@@ -23,6 +23,7 @@
 
 package net.sf.mpxj;
 
+import net.sf.mpxj.common.FieldStoreFactory;
 import net.sf.mpxj.common.NumberHelper;
 
 /**
@@ -229,6 +230,29 @@ public class ProjectConfig
       return m_autoResourceID;
    }
 
+   /**
+    * Set the factory used to create the storage which holds field values
+    * for tasks, resources and resource assignments created after
+    * this call.
+    *
+    * @param factory field store factory
+    */
+   public void setFieldStoreFactory(FieldStoreFactory factory)
+   {
+      m_fieldStoreFactory = factory;
+   }
+
+   /**
+    * Retrieve the factory used to create the storage which holds field
+    * values for tasks, resources and resource assignments.
+    *
+    * @return field store factory, default is FieldStoreFactory.DENSE
+    */
+   public FieldStoreFactory getFieldStoreFactory()
+   {
+      return m_fieldStoreFactory;
+   }
+
    /**
     * This method is used to retrieve the next unique ID for a task.
     *
@@ -347,6 +371,11 @@ public class ProjectConfig
 
    private final ProjectFile m_parent;
 
+   /**
+    * Factory used to create field storage for new entities.
+    */
+   private FieldStoreFactory m_fieldStoreFactory = FieldStoreFactory.DENSE;
+
    /**
     * Indicating whether WBS value should be calculated on creation, or will
     * be manually set.
@@ -510,6 +510,17 @@ public final class ProjectFile implements ChildTaskContainer
       return m_tables;
    }
 
+   /**
+    * Retrieves the container which indexes the relationships between
+    * the tasks in this project.
+    *
+    * @return relation container
+    */
+   public RelationContainer getRelations()
+   {
+      return m_relations;
+   }
+
    /**
     * This method returns the filters defined in an MPP file.
     *
@@ -629,5 +640,6 @@ public final class ProjectFile implements ChildTaskContainer
    private final SubProjectContainer m_subProjects = new SubProjectContainer();
    private final ViewContainer m_views = new ViewContainer();
    private final EventManager m_eventManager = new EventManager();
+   private final RelationContainer m_relations = new RelationContainer();
    private final CustomFieldContainer m_customFields = new CustomFieldContainer();
 }
@@ -0,0 +1,308 @@
+/*
+ * file:       RelationContainer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       25/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages the relationships between the tasks belonging to a project.
+ * Each task holds its predecessor and successor relations in its own
+ * list, which is exposed via the PREDECESSORS and SUCCESSORS fields.
+ * This container indexes those lists by source and target task, allowing
+ * duplicate relations to be detected without scanning the lists.
+ */
+public final class RelationContainer
+{
+   /**
+    * Create the list used to hold the predecessors of a task.
+    *
+    * @return predecessor list
+    */
+   List<Relation> createPredecessorList()
+   {
+      return new RelationList(m_predecessors);
+   }
+
+   /**
+    * Create the list used to hold the successors of a task.
+    *
+    * @return successor list
+    */
+   List<Relation> createSuccessorList()
+   {
+      return new RelationList(m_successors);
+   }
+
+   /**
+    * Retrieve the first predecessor relation held by a task
+    * for a given predecessor task.
+    *
+    * @param task task
+    * @param predecessor predecessor task
+    * @return Relation instance, or null if the tasks are not related
+    */
+   public Relation getPredecessor(Task task, Task predecessor)
+   {
+      return m_predecessors.get(new RelationKey(task, predecessor));
+   }
+
+   /**
+    * Retrieve the first successor relation held by a task
+    * for a given successor task.
+    *
+    * @param task task
+    * @param successor successor task
+    * @return Relation instance, or null if the tasks are not related
+    */
+   public Relation getSuccessor(Task task, Task successor)
+   {
+      return m_successors.get(new RelationKey(task, successor));
+   }
+
+   /**
+    * Add a predecessor relationship to a task, and the matching successor
+    * relationship to the predecessor task. If the first relationship between
+    * the two tasks has the same type and lag, it is reused rather than
+    * creating a duplicate.
+    *
+    * @param task task
+    * @param predecessor predecessor task
+    * @param type relation type
+    * @param lag relation lag
+    * @return predecessor relationship
+    */
+   Relation addPredecessor(Task task, Task predecessor, RelationType type, Duration lag)
+   {
+      Relation predecessorRelation = getPredecessor(task, predecessor);
+      if (predecessorRelation != null && (predecessorRelation.getType() != type || predecessorRelation.getLag().compareTo(lag) != 0))
+      {
+         predecessorRelation = null;
+      }
+
+      if (predecessorRelation == null)
+      {
+         predecessorRelation = new Relation(task, predecessor, type, lag);
+         task.getPredecessors().add(predecessorRelation);
+      }
+
+      addSuccessor(predecessor, task, type, lag);
+
+      return predecessorRelation;
+   }
+
+   /**
+    * Add a group of predecessor relationships. This is intended for use
+    * by readers which have assembled all of the relationships in a file.
+    * Each Relation instance passed in is added to the predecessors of its
+    * source task, and a matching successor relationship is added to its
+    * target task. As with Task.addPredecessor, where the first relationship
+    * between the two tasks has the same type and lag it is reused, and the
+    * existing instance is returned in place of the new one.
+    *
+    * @param relations predecessor relationships
+    * @return predecessor relationships held by the tasks, in the same order
+    */
+   public List<Relation> addPredecessors(List<Relation> relations)
+   {
+      List<Relation> result = new ArrayList<Relation>(relations.size());
+      for (Relation relation : relations)
+      {
+         Task task = relation.getSourceTask();
+         Task predecessor = relation.getTargetTask();
+
+         Relation predecessorRelation = getPredecessor(task, predecessor);
+         if (predecessorRelation == null || predecessorRelation.getType() != relation.getType() || predecessorRelation.getLag().compareTo(relation.getLag()) != 0)
+         {
+            predecessorRelation = relation;
+            task.getPredecessors().add(predecessorRelation);
+         }
+
+         addSuccessor(predecessor, task, relation.getType(), relation.getLag());
+         result.add(predecessorRelation);
+      }
+      return result;
+   }
+
+   /**
+    * Add a successor relationship to a task, unless the first relationship
+    * between the two tasks has the same type and lag.
+    *
+    * @param task task
+    * @param successor successor task
+    * @param type relation type
+    * @param lag relation lag
+    */
+   private void addSuccessor(Task task, Task successor, RelationType type, Duration lag)
+   {
+      Relation successorRelation = getSuccessor(task, successor);
+      if (successorRelation == null || successorRelation.getType() != type || successorRelation.getLag().compareTo(lag) != 0)
+      {
+         successorRelation = new Relation(task, successor, type, lag);
+         task.getSuccessors().add(successorRelation);
+      }
+   }
+
+   /**
+    * Key used to index relations by source and target task. Tasks are
+    * compared by identity, matching the existing relation handling,
+    * so the key remains valid if a task's unique ID changes.
+    */
+   private static final class RelationKey
+   {
+      /**
+       * Constructor.
+       *
+       * @param source source task
+       * @param target target task
+       */
+      public RelationKey(Task source, Task target)
+      {
+         m_source = source;
+         m_target = target;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int hashCode()
+      {
+         return 31 * System.identityHashCode(m_source) + System.identityHashCode(m_target);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public boolean equals(Object obj)
+      {
+         if (!(obj instanceof RelationKey))
+         {
+            return false;
+         }
+         RelationKey key = (RelationKey) obj;
+         return m_source == key.m_source && m_target == key.m_target;
+      }
+
+      private final Task m_source;
+      private final Task m_target;
+   }
+
+   /**
+    * List of relations held by a single task. Changes made to the list
+    * are reflected in the index, which always refers to the first relation
+    * in the list for a given target task.
+    */
+   private static final class RelationList extends ListWithCallbacks<Relation>
+   {
+      /**
+       * Constructor.
+       *
+       * @param index index to maintain
+       */
+      public RelationList(Map<RelationKey, Relation> index)
+      {
+         m_index = index;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void add(int index, Relation element)
+      {
+         super.add(index, element);
+         if (index != size() - 1)
+         {
+            reindex(element);
+         }
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void clear()
+      {
+         for (Relation relation : this)
+         {
+            m_index.remove(new RelationKey(relation.getSourceTask(), relation.getTargetTask()));
+         }
+         super.clear();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override protected void added(Relation element)
+      {
+         RelationKey key = new RelationKey(element.getSourceTask(), element.getTargetTask());
+         if (!m_index.containsKey(key))
+         {
+            m_index.put(key, element);
+         }
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override protected void removed(Relation element)
+      {
+         reindex(element);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override protected void replaced(Relation oldElement, Relation newElement)
+      {
+         reindex(oldElement);
+         reindex(newElement);
+      }
+
+      /**
+       * Update the index entry for the source and target task of a relation
+       * to refer to the first matching relation in this list.
+       *
+       * @param relation relation
+       */
+      private void reindex(Relation relation)
+      {
+         RelationKey key = new RelationKey(relation.getSourceTask(), relation.getTargetTask());
+         m_index.remove(key);
+         for (Relation item : this)
+         {
+            if (item.getSourceTask() == relation.getSourceTask() && item.getTargetTask() == relation.getTargetTask())
+            {
+               m_index.put(key, item);
+               break;
+            }
+         }
+      }
+
+      private final Map<RelationKey, Relation> m_index;
+   }
+
+   private final Map<RelationKey, Relation> m_predecessors = new HashMap<RelationKey, Relation>();
+   private final Map<RelationKey, Relation> m_successors = new HashMap<RelationKey, Relation>();
+}
@@ -24,13 +24,18 @@
 
 package net.sf.mpxj;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.ResourceFieldLists;
 import net.sf.mpxj.listener.FieldListener;
@@ -49,6 +54,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    {
       super(file);
 
+      m_fields = file.getProjectConfig().getFieldStoreFactory().createFieldStore(ResourceField.MAX_VALUE);
       setType(ResourceType.WORK);
       ProjectConfig config = file.getProjectConfig();
 
@@ -2259,7 +2265,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -2271,51 +2277,97 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
 
       if (field != null)
       {
-         ResourceField resourceField = (ResourceField) field;
+         if (CALCULATED_FIELDS.contains(field))
+         {
+            result = getCalculatedValue((ResourceField) field);
+         }
+         else
+         {
+            result = m_fields.get(field.getValue());
+         }
+      }
+
+      return (result);
+   }
 
-         switch (resourceField)
+   /**
+    * Calculate the value of one of the fields listed in CALCULATED_FIELDS.
+    *
+    * @param field field to calculate
+    * @return field value
+    */
+   private Object getCalculatedValue(ResourceField field)
+   {
+      Object result;
+
+      switch (field)
+      {
+         case COST_VARIANCE:
          {
-            case COST_VARIANCE:
-            {
-               result = getCostVariance();
-               break;
-            }
+            result = getCostVariance();
+            break;
+         }
 
-            case WORK_VARIANCE:
-            {
-               result = getWorkVariance();
-               break;
-            }
+         case WORK_VARIANCE:
+         {
+            result = getWorkVariance();
+            break;
+         }
 
-            case CV:
-            {
-               result = getCV();
-               break;
-            }
+         case CV:
+         {
+            result = getCV();
+            break;
+         }
 
-            case SV:
-            {
-               result = getSV();
-               break;
-            }
+         case SV:
+         {
+            result = getSV();
+            break;
+         }
 
-            case OVERALLOCATED:
-            {
-               result = Boolean.valueOf(getOverAllocated());
-               break;
-            }
+         case OVERALLOCATED:
+         {
+            result = Boolean.valueOf(getOverAllocated());
+            break;
+         }
 
-            default:
-            {
-               result = m_array[field.getValue()];
-               break;
-            }
+         default:
+         {
+            result = m_fields.get(field.getValue());
+            break;
          }
       }
 
       return (result);
    }
 
+   /**
+    * Retrieve the fields which may have a value for this resource, in field order:
+    * those which have been populated, plus those which getCurrentValue
+    * calculates on demand. This allows callers to visit only these fields
+    * rather than testing every field in turn.
+    *
+    * @return list of fields
+    */
+   public List<ResourceField> getPopulatedFields()
+   {
+      BitSet indexes = new BitSet(ResourceField.MAX_VALUE);
+      m_fields.getPopulatedIndexes(indexes);
+
+      for (ResourceField field : CALCULATED_FIELDS)
+      {
+         indexes.set(field.getValue());
+      }
+
+      List<ResourceField> result = new ArrayList<ResourceField>(indexes.cardinality());
+      for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1))
+      {
+         result.add(ResourceField.getInstance(index));
+      }
+      return result;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -2326,9 +2378,9 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((ResourceField) field, m_array[index], value);
+            fireFieldChangeEvent((ResourceField) field, m_fields.get(index), value);
          }
-         m_array[index] = value;
+         m_fields.set(index, value);
       }
    }
 
@@ -2370,35 +2422,35 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
          case COST:
          case BASELINE_COST:
          {
-            m_array[ResourceField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(ResourceField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[ResourceField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(ResourceField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[ResourceField.CV.getValue()] = null;
-            m_array[ResourceField.SV.getValue()] = null;
+            m_fields.set(ResourceField.CV.getValue(), null);
+            m_fields.set(ResourceField.SV.getValue(), null);
             break;
          }
 
          case BCWS:
          {
-            m_array[ResourceField.SV.getValue()] = null;
+            m_fields.set(ResourceField.SV.getValue(), null);
             break;
          }
 
          case PEAK:
          case MAX_UNITS:
          {
-            m_array[ResourceField.OVERALLOCATED.getValue()] = null;
+            m_fields.set(ResourceField.OVERALLOCATED.getValue(), null);
             break;
          }
 
@@ -2518,9 +2570,9 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[ResourceField.MAX_VALUE];
+   private final FieldStore m_fields;
 
    /**
     * Resource calendar for this resource.
@@ -2545,6 +2597,13 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    private CostRateTable[] m_costRateTables = new CostRateTable[5];
    private AvailabilityTable m_availability = new AvailabilityTable();
    private List<FieldListener> m_listeners;
+
+   /**
+    * Fields whose values are calculated by getCurrentValue, rather than
+    * being read directly from the field store. This set is also used by
+    * getPopulatedFields, so that the two remain consistent.
+    */
+   private static final Set<ResourceField> CALCULATED_FIELDS = EnumSet.of(ResourceField.COST_VARIANCE, ResourceField.WORK_VARIANCE, ResourceField.CV, ResourceField.SV, ResourceField.OVERALLOCATED);
 }
 
 /*
@@ -24,6 +24,8 @@
 
 package net.sf.mpxj;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -34,6 +36,7 @@ import net.sf.mpxj.common.AssignmentFieldLists;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.FieldListener;
 
@@ -52,6 +55,8 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
    {
       super(file);
 
+      m_fields = file.getProjectConfig().getFieldStoreFactory().createFieldStore(AssignmentField.MAX_VALUE);
+
       if (file.getProjectConfig().getAutoAssignmentUniqueID() == true)
       {
          setUniqueID(Integer.valueOf(file.getProjectConfig().getNextAssignmentUniqueID()));
@@ -2712,9 +2717,9 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((AssignmentField) field, m_array[index], value);
+            fireFieldChangeEvent((AssignmentField) field, m_fields.get(index), value);
          }
-         m_array[index] = value;
+         m_fields.set(index, value);
       }
    }
 
@@ -2748,43 +2753,43 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
          case START:
          case BASELINE_START:
          {
-            m_array[AssignmentField.START_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.START_VARIANCE.getValue(), null);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[AssignmentField.FINISH_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.FINISH_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[AssignmentField.CV.getValue()] = null;
-            m_array[AssignmentField.SV.getValue()] = null;
+            m_fields.set(AssignmentField.CV.getValue(), null);
+            m_fields.set(AssignmentField.SV.getValue(), null);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[AssignmentField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[AssignmentField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case ACTUAL_OVERTIME_COST:
          case REMAINING_OVERTIME_COST:
          {
-            m_array[AssignmentField.OVERTIME_COST.getValue()] = null;
+            m_fields.set(AssignmentField.OVERTIME_COST.getValue(), null);
             break;
          }
 
@@ -2834,7 +2839,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -2848,12 +2853,32 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       {
          int fieldValue = field.getValue();
 
-         result = m_array[fieldValue];
+         result = m_fields.get(fieldValue);
       }
 
       return (result);
    }
 
+   /**
+    * Retrieve the fields which have been populated for this assignment, in field
+    * order. This allows callers to visit only these fields rather than
+    * testing every field in turn.
+    *
+    * @return list of fields
+    */
+   public List<AssignmentField> getPopulatedFields()
+   {
+      BitSet indexes = new BitSet(AssignmentField.MAX_VALUE);
+      m_fields.getPopulatedIndexes(indexes);
+
+      List<AssignmentField> result = new ArrayList<AssignmentField>(indexes.cardinality());
+      for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1))
+      {
+         result.add(AssignmentField.getInstance(index));
+      }
+      return result;
+   }
+
    /**
     * Disable events firing when fields are updated.
     */
@@ -2871,9 +2896,9 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[AssignmentField.MAX_VALUE];
+   private final FieldStore m_fields;
 
    private boolean m_eventsEnabled = true;
 
@@ -24,14 +24,19 @@
 
 package net.sf.mpxj;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.TaskFieldLists;
 import net.sf.mpxj.listener.FieldListener;
@@ -51,14 +56,13 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    {
       super(file);
 
+      m_fields = file.getProjectConfig().getFieldStoreFactory().createFieldStore(TaskField.MAX_VALUE);
       setType(TaskType.FIXED_UNITS);
       setConstraintType(ConstraintType.AS_SOON_AS_POSSIBLE);
       setTaskMode(TaskMode.AUTO_SCHEDULED);
       setActive(true);
-      set(TaskField.PREDECESSORS, new LinkedList<Relation>());
-      set(TaskField.SUCCESSORS, new LinkedList<Relation>());
-      //      m_array[TaskField.PREDECESSORS.getValue()] = new LinkedList<Relation>();
-      //      m_array[TaskField.SUCCESSORS.getValue()] = new LinkedList<Relation>();
+      set(TaskField.PREDECESSORS, file.getRelations().createPredecessorList());
+      set(TaskField.SUCCESSORS, file.getRelations().createSuccessorList());
 
       m_parent = parent;
       ProjectConfig config = file.getProjectConfig();
@@ -463,7 +467,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     * @param lag relation lag
     * @return relationship
     */
-   @SuppressWarnings("unchecked") public Relation addPredecessor(Task targetTask, RelationType type, Duration lag)
+   public Relation addPredecessor(Task targetTask, RelationType type, Duration lag)
    {
       //
       // Ensure that we have a valid lag duration
@@ -474,74 +478,11 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       }
 
       //
-      // Retrieve the list of predecessors
-      //
-      List<Relation> predecessorList = (List<Relation>) getCachedValue(TaskField.PREDECESSORS);
-
-      //
-      // Ensure that there is only one predecessor relationship between
-      // these two tasks.
-      //
-      Relation predecessorRelation = null;
-      Iterator<Relation> iter = predecessorList.iterator();
-      while (iter.hasNext() == true)
-      {
-         predecessorRelation = iter.next();
-         if (predecessorRelation.getTargetTask() == targetTask)
-         {
-            if (predecessorRelation.getType() != type || predecessorRelation.getLag().compareTo(lag) != 0)
-            {
-               predecessorRelation = null;
-            }
-            break;
-         }
-         predecessorRelation = null;
-      }
-
-      //
-      // If necessary, create a new predecessor relationship
-      //
-      if (predecessorRelation == null)
-      {
-         predecessorRelation = new Relation(this, targetTask, type, lag);
-         predecessorList.add(predecessorRelation);
-      }
-
+      // Ensure that there is only one relationship between these two tasks
+      // in each direction. The project's relation container indexes the
+      // predecessor and successor lists, so no scanning is required here.
       //
-      // Retrieve the list of successors
-      //
-      List<Relation> successorList = (List<Relation>) targetTask.getCachedValue(TaskField.SUCCESSORS);
-
-      //
-      // Ensure that there is only one successor relationship between
-      // these two tasks.
-      //
-      Relation successorRelation = null;
-      iter = successorList.iterator();
-      while (iter.hasNext() == true)
-      {
-         successorRelation = iter.next();
-         if (successorRelation.getTargetTask() == this)
-         {
-            if (successorRelation.getType() != type || successorRelation.getLag().compareTo(lag) != 0)
-            {
-               successorRelation = null;
-            }
-            break;
-         }
-         successorRelation = null;
-      }
-
-      //
-      // If necessary, create a new successor relationship
-      //
-      if (successorRelation == null)
-      {
-         successorRelation = new Relation(targetTask, this, type, lag);
-         successorList.add(successorRelation);
-      }
-
-      return (predecessorRelation);
+      return getParentFile().getRelations().addPredecessor(this, targetTask, type, lag);
    }
 
    /**
@@ -4587,7 +4528,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -4599,97 +4540,145 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
 
       if (field != null)
       {
-         switch ((TaskField) field)
+         if (CALCULATED_FIELDS.contains(field))
          {
-            case PARENT_TASK_UNIQUE_ID:
-            {
-               result = m_parent == null ? Integer.valueOf(-1) : m_parent.getUniqueID();
-               break;
-            }
+            result = getCalculatedValue((TaskField) field);
+         }
+         else
+         {
+            result = m_fields.get(field.getValue());
+         }
+      }
 
-            case START_VARIANCE:
-            {
-               result = getStartVariance();
-               break;
-            }
+      return (result);
+   }
 
-            case FINISH_VARIANCE:
-            {
-               result = getFinishVariance();
-               break;
-            }
+   /**
+    * Calculate the value of one of the fields listed in CALCULATED_FIELDS.
+    *
+    * @param field field to calculate
+    * @return field value
+    */
+   private Object getCalculatedValue(TaskField field)
+   {
+      Object result;
 
-            case START_SLACK:
-            {
-               result = getStartSlack();
-               break;
-            }
+      switch (field)
+      {
+         case PARENT_TASK_UNIQUE_ID:
+         {
+            result = m_parent == null ? Integer.valueOf(-1) : m_parent.getUniqueID();
+            break;
+         }
 
-            case FINISH_SLACK:
-            {
-               result = getFinishSlack();
-               break;
-            }
+         case START_VARIANCE:
+         {
+            result = getStartVariance();
+            break;
+         }
 
-            case COST_VARIANCE:
-            {
-               result = getCostVariance();
-               break;
-            }
+         case FINISH_VARIANCE:
+         {
+            result = getFinishVariance();
+            break;
+         }
 
-            case DURATION_VARIANCE:
-            {
-               result = getDurationVariance();
-               break;
-            }
+         case START_SLACK:
+         {
+            result = getStartSlack();
+            break;
+         }
 
-            case WORK_VARIANCE:
-            {
-               result = getWorkVariance();
-               break;
-            }
+         case FINISH_SLACK:
+         {
+            result = getFinishSlack();
+            break;
+         }
 
-            case CV:
-            {
-               result = getCV();
-               break;
-            }
+         case COST_VARIANCE:
+         {
+            result = getCostVariance();
+            break;
+         }
 
-            case SV:
-            {
-               result = getSV();
-               break;
-            }
+         case DURATION_VARIANCE:
+         {
+            result = getDurationVariance();
+            break;
+         }
 
-            case TOTAL_SLACK:
-            {
-               result = getTotalSlack();
-               break;
-            }
+         case WORK_VARIANCE:
+         {
+            result = getWorkVariance();
+            break;
+         }
 
-            case CRITICAL:
-            {
-               result = Boolean.valueOf(getCritical());
-               break;
-            }
+         case CV:
+         {
+            result = getCV();
+            break;
+         }
 
-            case COMPLETE_THROUGH:
-            {
-               result = getCompleteThrough();
-               break;
-            }
+         case SV:
+         {
+            result = getSV();
+            break;
+         }
 
-            default:
-            {
-               result = m_array[field.getValue()];
-               break;
-            }
+         case TOTAL_SLACK:
+         {
+            result = getTotalSlack();
+            break;
+         }
+
+         case CRITICAL:
+         {
+            result = Boolean.valueOf(getCritical());
+            break;
+         }
+
+         case COMPLETE_THROUGH:
+         {
+            result = getCompleteThrough();
+            break;
+         }
+
+         default:
+         {
+            result = m_fields.get(field.getValue());
+            break;
          }
       }
 
       return (result);
    }
 
+   /**
+    * Retrieve the fields which may have a value for this task, in field order:
+    * those which have been populated, plus those which getCurrentValue
+    * calculates on demand. This allows callers to visit only these fields
+    * rather than testing every field in turn.
+    *
+    * @return list of fields
+    */
+   public List<TaskField> getPopulatedFields()
+   {
+      BitSet indexes = new BitSet(TaskField.MAX_VALUE);
+      m_fields.getPopulatedIndexes(indexes);
+
+      for (TaskField field : CALCULATED_FIELDS)
+      {
+         indexes.set(field.getValue());
+      }
+
+      List<TaskField> result = new ArrayList<TaskField>(indexes.cardinality());
+      for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1))
+      {
+         result.add(TaskField.getInstance(index));
+      }
+      return result;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -4700,9 +4689,9 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((TaskField) field, m_array[index], value);
+            fireFieldChangeEvent((TaskField) field, m_fields.get(index), value);
          }
-         m_array[index] = value;
+         m_fields.set(index, value);
       }
    }
 
@@ -4736,88 +4725,88 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
          case START:
          case BASELINE_START:
          {
-            m_array[TaskField.START_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.START_VARIANCE.getValue(), null);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[TaskField.FINISH_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.FINISH_VARIANCE.getValue(), null);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[TaskField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            m_fields.set(TaskField.DURATION_VARIANCE.getValue(), null);
+            m_fields.set(TaskField.COMPLETE_THROUGH.getValue(), null);
             break;
          }
 
          case BASELINE_DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.DURATION_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[TaskField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[TaskField.CV.getValue()] = null;
-            m_array[TaskField.SV.getValue()] = null;
+            m_fields.set(TaskField.CV.getValue(), null);
+            m_fields.set(TaskField.SV.getValue(), null);
             break;
          }
 
          case BCWS:
          {
-            m_array[TaskField.SV.getValue()] = null;
+            m_fields.set(TaskField.SV.getValue(), null);
             break;
          }
 
          case START_SLACK:
          case FINISH_SLACK:
          {
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case EARLY_FINISH:
          case LATE_FINISH:
          {
-            m_array[TaskField.FINISH_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.FINISH_SLACK.getValue(), null);
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case EARLY_START:
          case LATE_START:
          {
-            m_array[TaskField.START_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.START_SLACK.getValue(), null);
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case ACTUAL_START:
          case PERCENT_COMPLETE:
          {
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            m_fields.set(TaskField.COMPLETE_THROUGH.getValue(), null);
             break;
          }
 
@@ -4944,9 +4933,9 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[TaskField.MAX_VALUE];
+   private final FieldStore m_fields;
 
    /**
     * This is a reference to the parent task, as specified by the
@@ -4984,4 +4973,11 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    private Date m_splitsComplete;
    private SubProject m_subProject;
    private List<FieldListener> m_listeners;
+
+   /**
+    * Fields whose values are calculated by getCurrentValue, rather than
+    * being read directly from the field store. This set is also used by
+    * getPopulatedFields, so that the two remain consistent.
+    */
+   private static final Set<TaskField> CALCULATED_FIELDS = EnumSet.of(TaskField.PARENT_TASK_UNIQUE_ID, TaskField.START_VARIANCE, TaskField.FINISH_VARIANCE, TaskField.START_SLACK, TaskField.FINISH_SLACK, TaskField.COST_VARIANCE, TaskField.DURATION_VARIANCE, TaskField.WORK_VARIANCE, TaskField.CV, TaskField.SV, TaskField.TOTAL_SLACK, TaskField.CRITICAL, TaskField.COMPLETE_THROUGH);
 }
@@ -46,13 +46,13 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a SQLite-based Asta PP file.
  */
-public final class AstaDatabaseFileReader implements ProjectReader
+public final class AstaDatabaseFileReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -150,6 +150,7 @@ public final class AstaDatabaseFileReader implements ProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         project.getProjectConfig().setFieldStoreFactory(getFieldStoreFactory());
          project.getEventManager().addProjectListeners(m_projectListeners);
 
          processProjectProperties();
@@ -284,6 +285,17 @@ public final class AstaDatabaseFileReader implements ProjectReader
       m_projectID = Integer.valueOf(projectID);
    }
 
+   /**
+    * Set the connection to an open SQLite database from which the project
+    * will be read. The caller retains ownership of the connection.
+    *
+    * @param connection database connection
+    */
+   public void setConnection(Connection connection)
+   {
+      m_connection = connection;
+   }
+
    /**
     * Retrieve a number of rows matching the supplied query.
     *
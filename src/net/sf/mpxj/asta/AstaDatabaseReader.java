@@ -43,13 +43,13 @@ import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a database.
  */
-public final class AstaDatabaseReader implements ProjectReader
+public final class AstaDatabaseReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -105,6 +105,7 @@ public final class AstaDatabaseReader implements ProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         project.getProjectConfig().setFieldStoreFactory(getFieldStoreFactory());
          project.getEventManager().addProjectListeners(m_projectListeners);
 
          processProjectProperties();
@@ -109,7 +109,8 @@ public final class AstaFileReader extends AbstractProjectReader
     */
    private ProjectFile readTextFile(InputStream inputStream) throws MPXJException
    {
-      ProjectReader reader = new AstaTextFileReader();
+      AbstractProjectReader reader = new AstaTextFileReader();
+      reader.setFieldStoreFactory(getFieldStoreFactory());
       addListeners(reader);
       return reader.read(inputStream);
    }
@@ -122,7 +123,8 @@ public final class AstaFileReader extends AbstractProjectReader
     */
    private ProjectFile readDatabaseFile(InputStream inputStream) throws MPXJException
    {
-      ProjectReader reader = new AstaDatabaseFileReader();
+      AbstractProjectReader reader = new AstaDatabaseFileReader();
+      reader.setFieldStoreFactory(getFieldStoreFactory());
       addListeners(reader);
       return reader.read(inputStream);
    }
@@ -39,6 +39,7 @@ import net.sf.mpxj.DayType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.CharsetHelper;
+import net.sf.mpxj.common.ColumnarTable;
 import net.sf.mpxj.common.ReaderTokenizer;
 import net.sf.mpxj.common.Tokenizer;
 import net.sf.mpxj.listener.ProjectListener;
@@ -71,12 +72,20 @@ public final class AstaTextFileReader extends AbstractProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         project.getProjectConfig().setFieldStoreFactory(getFieldStoreFactory());
          project.getEventManager().addProjectListeners(m_projectListeners);
 
          m_tables = new HashMap<String, List<Row>>();
+         m_columnarTables = new HashMap<TableDefinition, ColumnarTable>();
 
          processFile(inputStream);
 
+         for (ColumnarTable table : m_columnarTables.values())
+         {
+            table.trimToSize();
+         }
+         m_columnarTables = null;
+
          processProjectProperties();
          processCalendars();
          processResources();
@@ -95,6 +104,7 @@ public final class AstaTextFileReader extends AbstractProjectReader
       finally
       {
          m_reader = null;
+         m_columnarTables = null;
       }
    }
 
@@ -194,11 +204,18 @@ public final class AstaTextFileReader extends AbstractProjectReader
                //               }
                //               System.out.println();
 
-               TextFileRow row = new TextFileRow(table, columns, m_epochDateFormat);
+               ColumnarTable columnarTable = m_columnarTables.get(table);
+               if (columnarTable == null)
+               {
+                  columnarTable = TextFileRow.createColumnarTable(table);
+                  m_columnarTables.put(table, columnarTable);
+               }
+
+               TextFileRow row = new TextFileRow(table, columnarTable, columns, m_epochDateFormat);
                List<Row> rows = m_tables.get(table.getName());
                if (rows == null)
                {
-                  rows = new LinkedList<Row>();
+                  rows = new ArrayList<Row>();
                   m_tables.put(table.getName(), rows);
                }
                rows.add(row);
@@ -443,6 +460,7 @@ public final class AstaTextFileReader extends AbstractProjectReader
    private AstaReader m_reader;
    private List<ProjectListener> m_projectListeners;
    private Map<String, List<Row>> m_tables;
+   private Map<TableDefinition, ColumnarTable> m_columnarTables;
    private Map<Integer, TableDefinition> m_tableDefinitions;
    private boolean m_epochDateFormat;
 
@@ -207,7 +207,7 @@ class MapRow implements Row
     */
    @Override public void merge(Row row, String prefix)
    {
-      Map<String, Object> otherMap = ((MapRow) row).m_map;
+      Map<String, Object> otherMap = ((MapRow) row).getMap();
       for (Map.Entry<String, Object> entry : otherMap.entrySet())
       {
          m_map.put(prefix + entry.getKey(), entry.getValue());
@@ -26,11 +26,17 @@ package net.sf.mpxj.asta;
 import java.sql.Types;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.common.ColumnarTable;
+import net.sf.mpxj.common.ColumnarTable.ColumnType;
 
 /**
  * Extends the MapRow class to allow it to manage data read from an Asta file.
+ * The row data is held in a ColumnarTable shared by all rows read
+ * for the same table. Any values merged into the row from other rows
+ * are held in a map.
  */
 class TextFileRow extends MapRow
 {
@@ -38,27 +44,156 @@ class TextFileRow extends MapRow
     * Constructor.
     *
     * @param table table definition
+    * @param columnarTable storage for the table data, created by createColumnarTable
     * @param data table data
     * @param epochDateFormat true if date is represented as an offset from an epoch
     * @throws MPXJException
     */
-   public TextFileRow(TableDefinition table, List<String> data, boolean epochDateFormat)
+   public TextFileRow(TableDefinition table, ColumnarTable columnarTable, List<String> data, boolean epochDateFormat)
       throws MPXJException
    {
-      super(new HashMap<String, Object>());
+      super(null);
 
+      m_table = columnarTable;
+      m_row = columnarTable.addRow();
+
+      ColumnDefinition[] columns = table.getColumns();
+      m_columnCount = Math.min(columns.length, data.size());
+      for (int index = 0; index < m_columnCount; index++)
+      {
+         ColumnDefinition column = columns[index];
+         if (column != null)
+         {
+            m_table.setValue(m_row, index, getColumnValue(table.getName(), column.getName(), data.get(index), column.getType(), epochDateFormat));
+         }
+      }
+   }
+
+   /**
+    * Create the storage used to hold the rows read for a table. There
+    * is one column for each column definition, in the same order.
+    *
+    * @param table table definition
+    * @return new ColumnarTable instance
+    */
+   public static ColumnarTable createColumnarTable(TableDefinition table)
+   {
       ColumnDefinition[] columns = table.getColumns();
+      String[] names = new String[columns.length];
+      ColumnType[] types = new ColumnType[columns.length];
       for (int index = 0; index < columns.length; index++)
       {
          ColumnDefinition column = columns[index];
-         if (index < data.size())
+         if (column == null)
          {
-            if (column != null)
-            {
-               m_map.put(column.getName(), getColumnValue(table.getName(), column.getName(), data.get(index), column.getType(), epochDateFormat));
-            }
+            types[index] = ColumnType.OBJECT;
+         }
+         else
+         {
+            names[index] = column.getName();
+            types[index] = getColumnType(column.getType());
+         }
+      }
+      return new ColumnarTable(names, types);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object getObject(String name)
+   {
+      Object result;
+      if (m_map != null && m_map.containsKey(name))
+      {
+         result = m_map.get(name);
+      }
+      else
+      {
+         result = name == null ? null : m_table.getValue(m_row, name);
+      }
+      return result;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Map<String, Object> getMap()
+   {
+      Map<String, Object> result = new HashMap<String, Object>();
+      for (int index = 0; index < m_columnCount; index++)
+      {
+         String name = m_table.getColumnName(index);
+         if (name != null)
+         {
+            result.put(name, m_table.getValue(m_row, index));
          }
       }
+
+      if (m_map != null)
+      {
+         result.putAll(m_map);
+      }
+
+      return result;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void merge(Row row, String prefix)
+   {
+      if (m_map == null)
+      {
+         m_map = new HashMap<String, Object>();
+      }
+      super.merge(row, prefix);
+   }
+
+   /**
+    * Determine how values of an SQL type are stored.
+    *
+    * @param type SQL type
+    * @return column type
+    */
+   private static ColumnType getColumnType(int type)
+   {
+      ColumnType result;
+
+      switch (type)
+      {
+         case Types.BIT:
+         {
+            result = ColumnType.BOOLEAN;
+            break;
+         }
+
+         case Types.TIME:
+         case Types.TIMESTAMP:
+         {
+            result = ColumnType.DATE;
+            break;
+         }
+
+         case Types.DOUBLE:
+         {
+            result = ColumnType.DOUBLE;
+            break;
+         }
+
+         case Types.INTEGER:
+         {
+            result = ColumnType.INTEGER;
+            break;
+         }
+
+         default:
+         {
+            result = ColumnType.OBJECT;
+            break;
+         }
+      }
+
+      return result;
    }
 
    /**
@@ -138,4 +273,8 @@ class TextFileRow extends MapRow
          throw new MPXJException("Failed to parse " + table + "." + column + " (data=" + data + ", type=" + type + ")", ex);
       }
    }
+
+   private final ColumnarTable m_table;
+   private final int m_row;
+   private final int m_columnCount;
 }
@@ -0,0 +1,413 @@
+/*
+ * file:       AbstractTimephasedSeries.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       11/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.sf.mpxj.TimephasedItem;
+
+/**
+ * Compact representation of a sequence of timephased items. The start,
+ * finish and amounts of each item are held in parallel arrays of primitive
+ * values, rather than as individual objects. Where the items are held in
+ * date order, blocks intersecting a date range can be located using a
+ * binary search.
+ *
+ * @param <T> timephased item type
+ */
+public abstract class AbstractTimephasedSeries<T extends TimephasedItem<?>>
+{
+   /**
+    * Constructor.
+    *
+    * @param size number of items in the series
+    */
+   protected AbstractTimephasedSeries(int size)
+   {
+      m_start = new long[size];
+      m_finish = new long[size];
+      m_totalAmount = new double[size];
+      m_amountPerDay = new double[size];
+      m_modified = new boolean[size];
+   }
+
+   /**
+    * Retrieve the number of items in this series.
+    *
+    * @return item count
+    */
+   public int size()
+   {
+      return m_start.length;
+   }
+
+   /**
+    * Retrieve the start of an item as a timestamp.
+    *
+    * @param index item index
+    * @return start timestamp
+    */
+   public long getStartTime(int index)
+   {
+      return m_start[index];
+   }
+
+   /**
+    * Retrieve the finish of an item as a timestamp.
+    *
+    * @param index item index
+    * @return finish timestamp
+    */
+   public long getFinishTime(int index)
+   {
+      return m_finish[index];
+   }
+
+   /**
+    * Retrieve the total amount for an item.
+    *
+    * @param index item index
+    * @return total amount
+    */
+   public double getTotalAmount(int index)
+   {
+      return m_totalAmount[index];
+   }
+
+   /**
+    * Retrieve the amount per day for an item.
+    *
+    * @param index item index
+    * @return amount per day
+    */
+   public double getAmountPerDay(int index)
+   {
+      return m_amountPerDay[index];
+   }
+
+   /**
+    * Retrieve the modified flag for an item.
+    *
+    * @param index item index
+    * @return modified flag
+    */
+   public boolean getModified(int index)
+   {
+      return m_modified[index];
+   }
+
+   /**
+    * Locate the first item, at or after a given index, which intersects
+    * with a date range. Both ends of the item and of the range are treated
+    * as inclusive.
+    *
+    * @param rangeStart range start timestamp
+    * @param rangeEnd range end timestamp
+    * @param startIndex index at which to start the search
+    * @return item index, or -1 if no item intersects with the range
+    */
+   public int getStartIndex(long rangeStart, long rangeEnd, int startIndex)
+   {
+      int result = -1;
+
+      if (m_ordered)
+      {
+         //
+         // Find the first item which finishes at or after the start of
+         // the range. As the items are in order, if this item does not
+         // intersect with the range, no later item will.
+         //
+         int low = startIndex;
+         int high = m_finish.length;
+         while (low < high)
+         {
+            int mid = (low + high) >>> 1;
+            if (m_finish[mid] < rangeStart)
+            {
+               low = mid + 1;
+            }
+            else
+            {
+               high = mid;
+            }
+         }
+
+         if (low < m_finish.length && m_start[low] <= rangeEnd)
+         {
+            result = low;
+         }
+      }
+      else
+      {
+         for (int loop = startIndex; loop < m_start.length; loop++)
+         {
+            if (m_finish[loop] >= rangeStart && m_start[loop] <= rangeEnd)
+            {
+               result = loop;
+               break;
+            }
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve the items in this series as a list. Item instances are
+    * created on demand as they are retrieved from the list. The list
+    * may be modified, in which case it holds its own copy of the items
+    * and no longer reflects the contents of this series.
+    *
+    * @return list of items
+    */
+   public List<T> getData()
+   {
+      return m_list;
+   }
+
+   /**
+    * Indicates if the list of items retrieved from this series
+    * contains any items.
+    *
+    * @return true if the list is not empty
+    */
+   public boolean hasData()
+   {
+      return !m_list.isEmpty();
+   }
+
+   /**
+    * Populate the common attributes of an item in this series.
+    *
+    * @param index item index
+    * @param item source item
+    */
+   protected void setItem(int index, T item)
+   {
+      m_start[index] = getTime(item.getStart());
+      m_finish[index] = getTime(item.getFinish());
+      m_modified[index] = item.getModified();
+   }
+
+   /**
+    * Populate the common attributes of an item from this series.
+    *
+    * @param index item index
+    * @param item target item
+    */
+   protected void getItem(int index, T item)
+   {
+      item.setStart(getDate(m_start[index]));
+      item.setFinish(getDate(m_finish[index]));
+      item.setModified(m_modified[index]);
+   }
+
+   /**
+    * Called once the series has been populated to determine if the
+    * items are in date order.
+    */
+   protected void updateOrdered()
+   {
+      boolean ordered = true;
+      for (int loop = 1; loop < m_start.length; loop++)
+      {
+         if (m_start[loop] < m_start[loop - 1] || m_finish[loop] < m_finish[loop - 1])
+         {
+            ordered = false;
+            break;
+         }
+      }
+      m_ordered = ordered;
+   }
+
+   /**
+    * Create an item instance representing an entry in this series.
+    *
+    * @param index item index
+    * @return new item instance
+    */
+   protected abstract T createItem(int index);
+
+   /**
+    * Retrieve the series backing a list, provided that the items in the
+    * list have not been retrieved, and potentially modified, since it
+    * was created.
+    *
+    * @param list list of items
+    * @return series backing the list, or null
+    */
+   protected static AbstractTimephasedSeries<?> getSeries(List<?> list)
+   {
+      AbstractTimephasedSeries<?> result = null;
+      if (list instanceof AbstractTimephasedSeries<?>.SeriesList)
+      {
+         AbstractTimephasedSeries<?>.SeriesList seriesList = (AbstractTimephasedSeries<?>.SeriesList) list;
+         if (seriesList.m_items == null && seriesList.m_copy == null)
+         {
+            result = seriesList.getSeries();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Convert a date to a timestamp, representing null as Long.MIN_VALUE.
+    *
+    * @param date date
+    * @return timestamp
+    */
+   private static long getTime(Date date)
+   {
+      return date == null ? Long.MIN_VALUE : date.getTime();
+   }
+
+   /**
+    * Convert a timestamp to a date, representing Long.MIN_VALUE as null.
+    *
+    * @param time timestamp
+    * @return date
+    */
+   private static Date getDate(long time)
+   {
+      return time == Long.MIN_VALUE ? null : new Date(time);
+   }
+
+   /**
+    * List view of this series. Items are created when they are first
+    * retrieved, and the same instance is returned by subsequent calls.
+    * When the list is first modified, all of the items are created and
+    * copied into a separate list which is used from then on.
+    */
+   private final class SeriesList extends AbstractList<T> implements RandomAccess
+   {
+      /**
+       * Retrieve the series represented by this list.
+       *
+       * @return parent series
+       */
+      AbstractTimephasedSeries<T> getSeries()
+      {
+         return AbstractTimephasedSeries.this;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @SuppressWarnings("unchecked") @Override public T get(int index)
+      {
+         if (m_copy != null)
+         {
+            return m_copy.get(index);
+         }
+
+         if (index < 0 || index >= m_start.length)
+         {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_start.length);
+         }
+
+         if (m_items == null)
+         {
+            m_items = new Object[m_start.length];
+         }
+
+         T item = (T) m_items[index];
+         if (item == null)
+         {
+            item = createItem(index);
+            m_items[index] = item;
+         }
+         return item;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int size()
+      {
+         return m_copy == null ? m_start.length : m_copy.size();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public T set(int index, T element)
+      {
+         return getCopy().set(index, element);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void add(int index, T element)
+      {
+         getCopy().add(index, element);
+         ++modCount;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public T remove(int index)
+      {
+         T result = getCopy().remove(index);
+         ++modCount;
+         return result;
+      }
+
+      /**
+       * Retrieve the modifiable copy of the items in this list,
+       * creating it if necessary.
+       *
+       * @return list of items
+       */
+      private List<T> getCopy()
+      {
+         if (m_copy == null)
+         {
+            List<T> copy = new ArrayList<T>(m_start.length + 1);
+            for (int index = 0; index < m_start.length; index++)
+            {
+               copy.add(get(index));
+            }
+            m_copy = copy;
+         }
+         return m_copy;
+      }
+
+      private Object[] m_items;
+      private List<T> m_copy;
+   }
+
+   protected final long[] m_start;
+   protected final long[] m_finish;
+   protected final double[] m_totalAmount;
+   protected final double[] m_amountPerDay;
+   protected final boolean[] m_modified;
+   private boolean m_ordered;
+   private final SeriesList m_list = new SeriesList();
+}
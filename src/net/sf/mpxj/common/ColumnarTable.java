@@ -0,0 +1,494 @@
+/*
+ * file:       ColumnarTable.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       28/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact storage for tabular data read from files and databases.
+ * Rather than holding each row as a map from column name to value,
+ * values are held column by column. Integer, double, date and boolean
+ * columns are stored as arrays of primitives, with a bit set recording
+ * which values are present. The column names are held once for the
+ * whole table. If a value of an unexpected type is stored in a
+ * primitive column, the column is converted to hold objects.
+ *
+ * Once populated, a table may be read safely by multiple threads.
+ */
+public final class ColumnarTable
+{
+   /**
+    * Types of column storage supported by this class.
+    */
+   public enum ColumnType
+   {
+      INTEGER,
+      DOUBLE,
+      DATE,
+      BOOLEAN,
+      OBJECT
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param columnNames column names
+    * @param columnTypes column types
+    */
+   public ColumnarTable(String[] columnNames, ColumnType[] columnTypes)
+   {
+      m_columnNames = columnNames.clone();
+      m_columns = new Column[columnNames.length];
+      m_columnIndexes = new HashMap<String, Integer>();
+      for (int index = 0; index < m_columns.length; index++)
+      {
+         m_columns[index] = createColumn(columnTypes[index]);
+         m_columnIndexes.put(columnNames[index], Integer.valueOf(index));
+      }
+   }
+
+   /**
+    * Retrieve the number of columns in this table.
+    *
+    * @return column count
+    */
+   public int getColumnCount()
+   {
+      return m_columns.length;
+   }
+
+   /**
+    * Retrieve a column name.
+    *
+    * @param column column index
+    * @return column name
+    */
+   public String getColumnName(int column)
+   {
+      return m_columnNames[column];
+   }
+
+   /**
+    * Retrieve the index of a named column. Where more than one column
+    * has the same name, the index of the last of these columns is returned.
+    *
+    * @param name column name
+    * @return column index, or -1 if the column is not present
+    */
+   public int getColumnIndex(String name)
+   {
+      Integer result = m_columnIndexes.get(name);
+      return result == null ? -1 : result.intValue();
+   }
+
+   /**
+    * Retrieve the number of rows in this table.
+    *
+    * @return row count
+    */
+   public int getRowCount()
+   {
+      return m_rowCount;
+   }
+
+   /**
+    * Add a new row to the table. All values in the new row are null.
+    *
+    * @return index of the new row
+    */
+   public int addRow()
+   {
+      if (m_rowCount == m_capacity)
+      {
+         setCapacity(m_capacity + (m_capacity >> 1) + 1);
+      }
+      return m_rowCount++;
+   }
+
+   /**
+    * Set a value.
+    *
+    * @param row row index
+    * @param column column index
+    * @param value new value
+    */
+   public void setValue(int row, int column, Object value)
+   {
+      if (!m_columns[column].set(row, value))
+      {
+         ObjectColumn objectColumn = new ObjectColumn();
+         objectColumn.setCapacity(m_capacity);
+         for (int index = 0; index < m_rowCount; index++)
+         {
+            objectColumn.set(index, m_columns[column].get(index));
+         }
+         objectColumn.set(row, value);
+         m_columns[column] = objectColumn;
+      }
+   }
+
+   /**
+    * Retrieve a value.
+    *
+    * @param row row index
+    * @param column column index
+    * @return value
+    */
+   public Object getValue(int row, int column)
+   {
+      return m_columns[column].get(row);
+   }
+
+   /**
+    * Retrieve a value from a named column.
+    *
+    * @param row row index
+    * @param name column name
+    * @return value, or null if the column is not present
+    */
+   public Object getValue(int row, String name)
+   {
+      int column = getColumnIndex(name);
+      return column == -1 ? null : m_columns[column].get(row);
+   }
+
+   /**
+    * Release any unused storage once the table has been populated.
+    */
+   public void trimToSize()
+   {
+      if (m_capacity != m_rowCount)
+      {
+         setCapacity(m_rowCount);
+      }
+   }
+
+   /**
+    * Change the number of rows each column can hold.
+    *
+    * @param capacity new capacity
+    */
+   private void setCapacity(int capacity)
+   {
+      for (Column column : m_columns)
+      {
+         column.setCapacity(capacity);
+      }
+      m_capacity = capacity;
+   }
+
+   /**
+    * Create storage for a column of the given type.
+    *
+    * @param type column type
+    * @return column storage
+    */
+   private Column createColumn(ColumnType type)
+   {
+      Column result;
+      switch (type)
+      {
+         case INTEGER:
+         {
+            result = new IntegerColumn();
+            break;
+         }
+
+         case DOUBLE:
+         {
+            result = new DoubleColumn();
+            break;
+         }
+
+         case DATE:
+         {
+            result = new DateColumn();
+            break;
+         }
+
+         case BOOLEAN:
+         {
+            result = new BooleanColumn();
+            break;
+         }
+
+         default:
+         {
+            result = new ObjectColumn();
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Storage for the values in a single column.
+    */
+   private static abstract class Column
+   {
+      /**
+       * Change the number of values this column can hold.
+       *
+       * @param capacity new capacity
+       */
+      public abstract void setCapacity(int capacity);
+
+      /**
+       * Set a value.
+       *
+       * @param row row index
+       * @param value new value
+       * @return false if the value can't be stored in this column
+       */
+      public abstract boolean set(int row, Object value);
+
+      /**
+       * Retrieve a value.
+       *
+       * @param row row index
+       * @return value
+       */
+      public abstract Object get(int row);
+   }
+
+   /**
+    * Column storage for objects.
+    */
+   private static final class ObjectColumn extends Column
+   {
+      @Override public void setCapacity(int capacity)
+      {
+         Object[] values = new Object[capacity];
+         System.arraycopy(m_values, 0, values, 0, Math.min(capacity, m_values.length));
+         m_values = values;
+      }
+
+      @Override public boolean set(int row, Object value)
+      {
+         m_values[row] = value;
+         return true;
+      }
+
+      @Override public Object get(int row)
+      {
+         return m_values[row];
+      }
+
+      private Object[] m_values = new Object[0];
+   }
+
+   /**
+    * Base class for column storage using primitive values. A bit set is
+    * used to record which rows have a value.
+    */
+   private static abstract class PrimitiveColumn extends Column
+   {
+      @Override public void setCapacity(int capacity)
+      {
+         long[] present = new long[(capacity + 63) >>> 6];
+         System.arraycopy(m_present, 0, present, 0, Math.min(present.length, m_present.length));
+         m_present = present;
+         setValueCapacity(capacity);
+      }
+
+      @Override public final boolean set(int row, Object value)
+      {
+         boolean result;
+         if (value == null)
+         {
+            m_present[row >>> 6] &= ~(1L << row);
+            result = true;
+         }
+         else
+         {
+            result = setValue(row, value);
+            if (result)
+            {
+               m_present[row >>> 6] |= (1L << row);
+            }
+         }
+         return result;
+      }
+
+      @Override public final Object get(int row)
+      {
+         return (m_present[row >>> 6] & (1L << row)) == 0 ? null : getValue(row);
+      }
+
+      /**
+       * Change the number of values this column can hold.
+       *
+       * @param capacity new capacity
+       */
+      protected abstract void setValueCapacity(int capacity);
+
+      /**
+       * Set a non-null value.
+       *
+       * @param row row index
+       * @param value new value
+       * @return false if the value can't be stored in this column
+       */
+      protected abstract boolean setValue(int row, Object value);
+
+      /**
+       * Retrieve a value known to be present.
+       *
+       * @param row row index
+       * @return value
+       */
+      protected abstract Object getValue(int row);
+
+      private long[] m_present = new long[0];
+   }
+
+   /**
+    * Column storage for Integer values.
+    */
+   private static final class IntegerColumn extends PrimitiveColumn
+   {
+      @Override protected void setValueCapacity(int capacity)
+      {
+         int[] values = new int[capacity];
+         System.arraycopy(m_values, 0, values, 0, Math.min(capacity, m_values.length));
+         m_values = values;
+      }
+
+      @Override protected boolean setValue(int row, Object value)
+      {
+         boolean result = value instanceof Integer;
+         if (result)
+         {
+            m_values[row] = ((Integer) value).intValue();
+         }
+         return result;
+      }
+
+      @Override protected Object getValue(int row)
+      {
+         return Integer.valueOf(m_values[row]);
+      }
+
+      private int[] m_values = new int[0];
+   }
+
+   /**
+    * Column storage for Double values.
+    */
+   private static final class DoubleColumn extends PrimitiveColumn
+   {
+      @Override protected void setValueCapacity(int capacity)
+      {
+         double[] values = new double[capacity];
+         System.arraycopy(m_values, 0, values, 0, Math.min(capacity, m_values.length));
+         m_values = values;
+      }
+
+      @Override protected boolean setValue(int row, Object value)
+      {
+         boolean result = value instanceof Double;
+         if (result)
+         {
+            m_values[row] = ((Double) value).doubleValue();
+         }
+         return result;
+      }
+
+      @Override protected Object getValue(int row)
+      {
+         return Double.valueOf(m_values[row]);
+      }
+
+      private double[] m_values = new double[0];
+   }
+
+   /**
+    * Column storage for Date values. Dates are held as milliseconds,
+    * and a new Date instance is returned each time a value is retrieved.
+    */
+   private static final class DateColumn extends PrimitiveColumn
+   {
+      @Override protected void setValueCapacity(int capacity)
+      {
+         long[] values = new long[capacity];
+         System.arraycopy(m_values, 0, values, 0, Math.min(capacity, m_values.length));
+         m_values = values;
+      }
+
+      @Override protected boolean setValue(int row, Object value)
+      {
+         boolean result = value instanceof Date;
+         if (result)
+         {
+            m_values[row] = ((Date) value).getTime();
+         }
+         return result;
+      }
+
+      @Override protected Object getValue(int row)
+      {
+         return new Date(m_values[row]);
+      }
+
+      private long[] m_values = new long[0];
+   }
+
+   /**
+    * Column storage for Boolean values.
+    */
+   private static final class BooleanColumn extends PrimitiveColumn
+   {
+      @Override protected void setValueCapacity(int capacity)
+      {
+         boolean[] values = new boolean[capacity];
+         System.arraycopy(m_values, 0, values, 0, Math.min(capacity, m_values.length));
+         m_values = values;
+      }
+
+      @Override protected boolean setValue(int row, Object value)
+      {
+         boolean result = value instanceof Boolean;
+         if (result)
+         {
+            m_values[row] = ((Boolean) value).booleanValue();
+         }
+         return result;
+      }
+
+      @Override protected Object getValue(int row)
+      {
+         return Boolean.valueOf(m_values[row]);
+      }
+
+      private boolean[] m_values = new boolean[0];
+   }
+
+   private final String[] m_columnNames;
+   private final Map<String, Integer> m_columnIndexes;
+   private final Column[] m_columns;
+   private int m_rowCount;
+   private int m_capacity;
+}
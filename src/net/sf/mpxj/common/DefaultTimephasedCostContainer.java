@@ -23,7 +23,6 @@
 
 package net.sf.mpxj.common;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import net.sf.mpxj.ProjectCalendar;
@@ -45,17 +44,22 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
     */
    public DefaultTimephasedCostContainer(ProjectCalendar calendar, TimephasedCostNormaliser normaliser, List<TimephasedCost> data, boolean raw)
    {
-      if (data instanceof LinkedList<?>)
+      m_raw = raw;
+      m_calendar = calendar;
+      m_normaliser = normaliser;
+
+      //
+      // Raw data is held as a list until it is normalised,
+      // once normalised we can use the compact representation.
+      //
+      if (raw)
       {
-         m_data = (LinkedList<TimephasedCost>) data;
+         m_data = data;
       }
       else
       {
-         m_data = new LinkedList<TimephasedCost>(data);
+         m_series = new TimephasedCostSeries(data);
       }
-      m_raw = raw;
-      m_calendar = calendar;
-      m_normaliser = normaliser;
    }
 
    /* (non-Javadoc)
@@ -67,8 +71,10 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
       {
          m_normaliser.normalise(m_calendar, m_data);
          m_raw = false;
+         m_series = new TimephasedCostSeries(m_data);
+         m_data = null;
       }
-      return m_data;
+      return m_series.getData();
    }
 
    /**
@@ -78,10 +84,11 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
     */
    @Override public boolean hasData()
    {
-      return !m_data.isEmpty();
+      return m_series == null ? !m_data.isEmpty() : m_series.hasData();
    }
 
-   private LinkedList<TimephasedCost> m_data;
+   private List<TimephasedCost> m_data;
+   private TimephasedCostSeries m_series;
    private boolean m_raw;
    private TimephasedCostNormaliser m_normaliser;
    private ProjectCalendar m_calendar;
@@ -23,7 +23,7 @@
 
 package net.sf.mpxj.common;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import net.sf.mpxj.ProjectCalendar;
@@ -45,17 +45,22 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
     */
    public DefaultTimephasedWorkContainer(ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, List<TimephasedWork> data, boolean raw)
    {
-      if (data instanceof LinkedList<?>)
+      m_raw = raw;
+      m_calendar = calendar;
+      m_normaliser = normaliser;
+
+      //
+      // Raw data is held as a list until it is normalised,
+      // once normalised we can use the compact representation.
+      //
+      if (raw)
       {
-         m_data = (LinkedList<TimephasedWork>) data;
+         m_data = data;
       }
       else
       {
-         m_data = new LinkedList<TimephasedWork>(data);
+         m_series = new TimephasedWorkSeries(data);
       }
-      m_raw = raw;
-      m_calendar = calendar;
-      m_normaliser = normaliser;
    }
 
    /**
@@ -68,14 +73,21 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
     */
    public DefaultTimephasedWorkContainer(DefaultTimephasedWorkContainer source, double perDayFactor, double totalFactor)
    {
-      m_data = new LinkedList<TimephasedWork>();
       m_raw = source.m_raw;
       m_calendar = source.m_calendar;
       m_normaliser = source.m_normaliser;
 
-      for (TimephasedWork sourceItem : source.m_data)
+      if (source.m_series == null)
+      {
+         m_data = new ArrayList<TimephasedWork>(source.m_data.size());
+         for (TimephasedWork sourceItem : source.m_data)
+         {
+            m_data.add(new TimephasedWork(sourceItem, totalFactor, perDayFactor));
+         }
+      }
+      else
       {
-         m_data.add(new TimephasedWork(sourceItem, totalFactor, perDayFactor));
+         m_series = new TimephasedWorkSeries(TimephasedWorkSeries.getInstance(source.m_series.getData()), perDayFactor, totalFactor);
       }
    }
 
@@ -88,8 +100,10 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
       {
          m_normaliser.normalise(m_calendar, m_data);
          m_raw = false;
+         m_series = new TimephasedWorkSeries(m_data);
+         m_data = null;
       }
-      return m_data;
+      return m_series.getData();
    }
 
    /**
@@ -99,10 +113,11 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
     */
    @Override public boolean hasData()
    {
-      return !m_data.isEmpty();
+      return m_series == null ? !m_data.isEmpty() : m_series.hasData();
    }
 
-   private LinkedList<TimephasedWork> m_data;
+   private List<TimephasedWork> m_data;
+   private TimephasedWorkSeries m_series;
    private boolean m_raw;
    private TimephasedWorkNormaliser m_normaliser;
    private ProjectCalendar m_calendar;
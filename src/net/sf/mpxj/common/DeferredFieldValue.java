@@ -0,0 +1,41 @@
+/*
+ * file:       DeferredFieldValue.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       31/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+/**
+ * Implementations of this interface are placed in a field store in
+ * place of a field value when decoding the value is deferred until
+ * the field is first accessed. The field store replaces the deferred
+ * value with the decoded value when it is retrieved.
+ */
+public interface DeferredFieldValue
+{
+   /**
+    * Decode the value of a field.
+    *
+    * @param index field index
+    * @return field value
+    */
+   public Object getValue(int index);
+}
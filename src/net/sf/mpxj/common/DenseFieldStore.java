@@ -0,0 +1,80 @@
+/*
+ * file:       DenseFieldStore.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.BitSet;
+
+/**
+ * Field store which allocates an array slot for every possible field.
+ */
+public final class DenseFieldStore implements FieldStore
+{
+   /**
+    * Constructor.
+    *
+    * @param maxValue number of distinct field indexes which may be stored
+    */
+   public DenseFieldStore(int maxValue)
+   {
+      m_array = new Object[maxValue];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object get(int index)
+   {
+      Object value = m_array[index];
+      if (value instanceof DeferredFieldValue)
+      {
+         value = ((DeferredFieldValue) value).getValue(index);
+         m_array[index] = value;
+      }
+      return value;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void set(int index, Object value)
+   {
+      m_array[index] = value;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void getPopulatedIndexes(BitSet indexes)
+   {
+      for (int index = 0; index < m_array.length; index++)
+      {
+         if (m_array[index] != null)
+         {
+            indexes.set(index);
+         }
+      }
+   }
+
+   private final Object[] m_array;
+}
@@ -0,0 +1,60 @@
+/*
+ * file:       FieldStore.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.BitSet;
+
+/**
+ * Implementations of this interface hold the field values for a
+ * field container, indexed by the field's numeric value.
+ * Where a DeferredFieldValue instance has been stored, implementations
+ * must decode it when the field is retrieved, and replace it with
+ * the decoded value.
+ */
+public interface FieldStore
+{
+   /**
+    * Retrieve the value held at the given index.
+    *
+    * @param index field index
+    * @return field value, or null if no value has been set
+    */
+   public Object get(int index);
+
+   /**
+    * Store a value at the given index.
+    *
+    * @param index field index
+    * @param value field value
+    */
+   public void set(int index, Object value);
+
+   /**
+    * Set a bit for the index of each field which holds a value.
+    * Values are not decoded by this method.
+    *
+    * @param indexes populated field indexes
+    */
+   public void getPopulatedIndexes(BitSet indexes);
+}
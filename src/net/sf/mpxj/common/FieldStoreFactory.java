@@ -0,0 +1,64 @@
+/*
+ * file:       FieldStoreFactory.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+/**
+ * Implementations of this interface are used to create the storage
+ * used to hold field values for tasks, resources and resource assignments.
+ */
+public interface FieldStoreFactory
+{
+   /**
+    * Create a new field store.
+    *
+    * @param maxValue number of distinct field indexes which may be stored
+    * @return new FieldStore instance
+    */
+   public FieldStore createFieldStore(int maxValue);
+
+   /**
+    * Factory which creates array backed field stores. Every field
+    * has a slot allocated, which is fastest for access but is wasteful
+    * of memory as most fields are never populated.
+    */
+   public static final FieldStoreFactory DENSE = new FieldStoreFactory()
+   {
+      @Override public FieldStore createFieldStore(int maxValue)
+      {
+         return new DenseFieldStore(maxValue);
+      }
+   };
+
+   /**
+    * Factory which creates hash based field stores. Storage is only
+    * allocated for fields which have been populated.
+    */
+   public static final FieldStoreFactory SPARSE = new FieldStoreFactory()
+   {
+      @Override public FieldStore createFieldStore(int maxValue)
+      {
+         return new SparseFieldStore();
+      }
+   };
+}
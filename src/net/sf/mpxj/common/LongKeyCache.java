@@ -0,0 +1,274 @@
+/*
+ * file:       LongKeyCache.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       10/08/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+/**
+ * Bounded, thread safe cache mapping a pair of long keys to a long value.
+ * The cache is split into segments, each protected by its own lock, so
+ * concurrent readers rarely contend with each other. Each segment is a
+ * set associative table: a key pair maps to a small set of slots, and
+ * when the set is full the least recently used entry in the set is
+ * replaced. Storage for a segment is only allocated when the first
+ * entry is added to it.
+ */
+public final class LongKeyCache
+{
+   /**
+    * Constructor.
+    *
+    * @param capacity maximum number of entries held by the cache
+    */
+   public LongKeyCache(int capacity)
+   {
+      int setsPerSegment = 1;
+      int setShift = SEGMENT_SHIFT;
+      while (setShift > 1 && setsPerSegment * WAYS * SEGMENT_COUNT < capacity)
+      {
+         setsPerSegment <<= 1;
+         --setShift;
+      }
+      m_setShift = setShift;
+
+      m_segments = new Segment[SEGMENT_COUNT];
+      for (int index = 0; index < SEGMENT_COUNT; index++)
+      {
+         m_segments[index] = new Segment(setsPerSegment);
+      }
+   }
+
+   /**
+    * Retrieve the value associated with a key pair.
+    *
+    * @param key1 first key
+    * @param key2 second key
+    * @param missingValue value to return if the key pair is not present
+    * @return cached value, or missingValue
+    */
+   public long get(long key1, long key2, long missingValue)
+   {
+      int hash = hash(key1, key2);
+      return m_segments[hash >>> SEGMENT_SHIFT].get(key1, key2, hash >>> m_setShift, missingValue);
+   }
+
+   /**
+    * Add or replace the value associated with a key pair.
+    *
+    * @param key1 first key
+    * @param key2 second key
+    * @param value value to cache
+    */
+   public void put(long key1, long key2, long value)
+   {
+      int hash = hash(key1, key2);
+      m_segments[hash >>> SEGMENT_SHIFT].put(key1, key2, hash >>> m_setShift, value);
+   }
+
+   /**
+    * Remove all entries from the cache. Hit and miss counts are retained.
+    */
+   public void clear()
+   {
+      for (Segment segment : m_segments)
+      {
+         segment.clear();
+      }
+   }
+
+   /**
+    * Retrieve the number of lookups which found a cached value.
+    *
+    * @return hit count
+    */
+   public long getHitCount()
+   {
+      long result = 0;
+      for (Segment segment : m_segments)
+      {
+         result += segment.getHitCount();
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the number of lookups which did not find a cached value.
+    *
+    * @return miss count
+    */
+   public long getMissCount()
+   {
+      long result = 0;
+      for (Segment segment : m_segments)
+      {
+         result += segment.getMissCount();
+      }
+      return result;
+   }
+
+   /**
+    * Combine the key pair into a hash code. The high order bits
+    * are used to select the segment and the set.
+    *
+    * @param key1 first key
+    * @param key2 second key
+    * @return hash code
+    */
+   private static int hash(long key1, long key2)
+   {
+      long value = key1 * 0x9E3779B97F4A7C15L + key2;
+      value ^= (value >>> 32);
+      return (int) value * 0x9E3779B9;
+   }
+
+   /**
+    * A segment of the cache, protected by its own lock.
+    */
+   private static final class Segment
+   {
+      /**
+       * Constructor.
+       *
+       * @param sets number of sets in this segment
+       */
+      public Segment(int sets)
+      {
+         m_setMask = sets - 1;
+      }
+
+      /**
+       * Retrieve the value associated with a key pair.
+       *
+       * @param key1 first key
+       * @param key2 second key
+       * @param set set number, only the low order bits are significant
+       * @param missingValue value to return if the key pair is not present
+       * @return cached value, or missingValue
+       */
+      public synchronized long get(long key1, long key2, int set, long missingValue)
+      {
+         if (m_stamps != null)
+         {
+            int start = (set & m_setMask) * WAYS;
+            for (int slot = start; slot < start + WAYS; slot++)
+            {
+               if (m_stamps[slot] != 0 && m_keys1[slot] == key1 && m_keys2[slot] == key2)
+               {
+                  m_stamps[slot] = ++m_clock;
+                  ++m_hitCount;
+                  return m_values[slot];
+               }
+            }
+         }
+         ++m_missCount;
+         return missingValue;
+      }
+
+      /**
+       * Add or replace the value associated with a key pair.
+       *
+       * @param key1 first key
+       * @param key2 second key
+       * @param set set number, only the low order bits are significant
+       * @param value value to cache
+       */
+      public synchronized void put(long key1, long key2, int set, long value)
+      {
+         if (m_stamps == null)
+         {
+            int size = (m_setMask + 1) * WAYS;
+            m_keys1 = new long[size];
+            m_keys2 = new long[size];
+            m_values = new long[size];
+            m_stamps = new long[size];
+         }
+
+         int start = (set & m_setMask) * WAYS;
+         int target = start;
+         for (int slot = start; slot < start + WAYS; slot++)
+         {
+            if (m_stamps[slot] != 0 && m_keys1[slot] == key1 && m_keys2[slot] == key2)
+            {
+               target = slot;
+               break;
+            }
+
+            if (m_stamps[slot] < m_stamps[target])
+            {
+               target = slot;
+            }
+         }
+
+         m_keys1[target] = key1;
+         m_keys2[target] = key2;
+         m_values[target] = value;
+         m_stamps[target] = ++m_clock;
+      }
+
+      /**
+       * Remove all entries from this segment.
+       */
+      public synchronized void clear()
+      {
+         m_keys1 = null;
+         m_keys2 = null;
+         m_values = null;
+         m_stamps = null;
+      }
+
+      /**
+       * Retrieve the number of lookups which found a cached value.
+       *
+       * @return hit count
+       */
+      public synchronized long getHitCount()
+      {
+         return m_hitCount;
+      }
+
+      /**
+       * Retrieve the number of lookups which did not find a cached value.
+       *
+       * @return miss count
+       */
+      public synchronized long getMissCount()
+      {
+         return m_missCount;
+      }
+
+      private final int m_setMask;
+      private long[] m_keys1;
+      private long[] m_keys2;
+      private long[] m_values;
+      private long[] m_stamps;
+      private long m_clock;
+      private long m_hitCount;
+      private long m_missCount;
+   }
+
+   private final Segment[] m_segments;
+   private final int m_setShift;
+
+   private static final int SEGMENT_SHIFT = 29;
+   private static final int SEGMENT_COUNT = 1 << (32 - SEGMENT_SHIFT);
+   private static final int WAYS = 4;
+}
@@ -28,7 +28,9 @@ import java.io.Reader;
 
 /**
  * This class implements a tokenizer as per the underlying Tokenizer class,
- * with characters being read from a Reader instance.
+ * with characters being read from a Reader instance. Characters are read
+ * from the Reader in blocks, as reading a single character at a time
+ * from a Reader which decodes an underlying stream is expensive.
  */
 public class ReaderTokenizer extends Tokenizer
 {
@@ -47,8 +49,23 @@ public class ReaderTokenizer extends Tokenizer
     */
    @Override protected int read() throws IOException
    {
-      return (m_reader.read());
+      if (m_index == m_length)
+      {
+         m_length = m_reader.read(m_buffer);
+         m_index = 0;
+         if (m_length < 1)
+         {
+            m_length = 0;
+            return -1;
+         }
+      }
+      return m_buffer[m_index++];
    }
 
    private Reader m_reader;
+   private char[] m_buffer = new char[BUFFER_SIZE];
+   private int m_index;
+   private int m_length;
+
+   private static final int BUFFER_SIZE = 8192;
 }
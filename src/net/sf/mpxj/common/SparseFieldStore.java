@@ -0,0 +1,163 @@
+/*
+ * file:       SparseFieldStore.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       24/07/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.BitSet;
+
+/**
+ * Field store which only allocates storage for fields which have been
+ * populated. Values are held in an open addressed hash table keyed
+ * by the field index, using linear probing to resolve collisions.
+ * Once a field has been allocated a slot, setting it to null
+ * simply clears the value held in the slot.
+ */
+public final class SparseFieldStore implements FieldStore
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object get(int index)
+   {
+      int slot = findSlot(index);
+      if (m_keys[slot] == 0)
+      {
+         return null;
+      }
+
+      Object value = m_values[slot];
+      if (value instanceof DeferredFieldValue)
+      {
+         value = ((DeferredFieldValue) value).getValue(index);
+         m_values[slot] = value;
+      }
+      return value;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void set(int index, Object value)
+   {
+      int slot = findSlot(index);
+      if (m_keys[slot] == 0)
+      {
+         if (value == null)
+         {
+            return;
+         }
+
+         if (m_size >= (m_keys.length * 3) / 4)
+         {
+            resize();
+            slot = findSlot(index);
+         }
+
+         m_keys[slot] = index + 1;
+         ++m_size;
+      }
+      m_values[slot] = value;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void getPopulatedIndexes(BitSet indexes)
+   {
+      for (int slot = 0; slot < m_keys.length; slot++)
+      {
+         if (m_keys[slot] != 0 && m_values[slot] != null)
+         {
+            indexes.set(m_keys[slot] - 1);
+         }
+      }
+   }
+
+   /**
+    * Retrieve the number of slots which have been allocated.
+    *
+    * @return allocated slot count
+    */
+   public int size()
+   {
+      return m_size;
+   }
+
+   /**
+    * Locate the slot which holds the given index, or the empty slot
+    * where it would be inserted.
+    *
+    * @param index field index
+    * @return slot number
+    */
+   private int findSlot(int index)
+   {
+      int key = index + 1;
+      int mask = m_keys.length - 1;
+      int slot = (key * HASH_MULTIPLIER) >>> m_shift;
+      while (m_keys[slot] != 0 && m_keys[slot] != key)
+      {
+         slot = (slot + 1) & mask;
+      }
+      return slot;
+   }
+
+   /**
+    * Double the size of the hash table and re-insert the existing entries.
+    */
+   private void resize()
+   {
+      int[] oldKeys = m_keys;
+      Object[] oldValues = m_values;
+
+      m_keys = new int[oldKeys.length * 2];
+      m_values = new Object[oldKeys.length * 2];
+      --m_shift;
+
+      for (int loop = 0; loop < oldKeys.length; loop++)
+      {
+         if (oldKeys[loop] != 0)
+         {
+            int slot = findSlot(oldKeys[loop] - 1);
+            m_keys[slot] = oldKeys[loop];
+            m_values[slot] = oldValues[loop];
+         }
+      }
+   }
+
+   /**
+    * Fibonacci hashing multiplier, spreads adjacent field indexes
+    * across the table.
+    */
+   private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+   private static final int INITIAL_CAPACITY = 16;
+
+   /**
+    * Field index plus one, zero indicates an empty slot.
+    */
+   private int[] m_keys = new int[INITIAL_CAPACITY];
+   private Object[] m_values = new Object[INITIAL_CAPACITY];
+   private int m_shift = 32 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+   private int m_size;
+}
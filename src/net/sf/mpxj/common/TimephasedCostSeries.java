@@ -0,0 +1,106 @@
+/*
+ * file:       TimephasedCostSeries.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       11/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.List;
+
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedCostContainer;
+
+/**
+ * Compact representation of a sequence of timephased cost items.
+ * Cost amounts are held as double values, with null amounts
+ * represented as NaN.
+ */
+public final class TimephasedCostSeries extends AbstractTimephasedSeries<TimephasedCost> implements TimephasedCostContainer
+{
+   /**
+    * Constructor.
+    *
+    * @param data timephased cost items
+    */
+   public TimephasedCostSeries(List<TimephasedCost> data)
+   {
+      super(data.size());
+
+      int index = 0;
+      for (TimephasedCost item : data)
+      {
+         setItem(index, item);
+         m_totalAmount[index] = getCost(item.getTotalAmount());
+         m_amountPerDay[index] = getCost(item.getAmountPerDay());
+         ++index;
+      }
+
+      updateOrdered();
+   }
+
+   /**
+    * Retrieve a series representing a list of timephased cost items.
+    * If the list is a view of an existing series, that series is returned,
+    * otherwise a new series is created.
+    *
+    * @param data timephased cost items
+    * @return timephased cost series
+    */
+   public static TimephasedCostSeries getInstance(List<TimephasedCost> data)
+   {
+      AbstractTimephasedSeries<?> series = getSeries(data);
+      return series instanceof TimephasedCostSeries ? (TimephasedCostSeries) series : new TimephasedCostSeries(data);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected TimephasedCost createItem(int index)
+   {
+      TimephasedCost item = new TimephasedCost();
+      getItem(index, item);
+      item.setTotalAmount(getCost(m_totalAmount[index]));
+      item.setAmountPerDay(getCost(m_amountPerDay[index]));
+      return item;
+   }
+
+   /**
+    * Convert a cost to a double, representing null as NaN.
+    *
+    * @param cost cost value
+    * @return double value
+    */
+   private static double getCost(Number cost)
+   {
+      return cost == null ? Double.NaN : cost.doubleValue();
+   }
+
+   /**
+    * Convert a double to a cost, representing NaN as null.
+    *
+    * @param cost double value
+    * @return cost value
+    */
+   private static Double getCost(double cost)
+   {
+      return Double.isNaN(cost) ? null : Double.valueOf(cost);
+   }
+}
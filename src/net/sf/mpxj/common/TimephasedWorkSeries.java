@@ -0,0 +1,188 @@
+/*
+ * file:       TimephasedWorkSeries.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       11/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkContainer;
+
+/**
+ * Compact representation of a sequence of timephased work items.
+ */
+public final class TimephasedWorkSeries extends AbstractTimephasedSeries<TimephasedWork> implements TimephasedWorkContainer
+{
+   /**
+    * Constructor.
+    *
+    * @param data timephased work items
+    */
+   public TimephasedWorkSeries(List<TimephasedWork> data)
+   {
+      super(data.size());
+      m_totalAmountUnits = new byte[data.size()];
+      m_amountPerDayUnits = new byte[data.size()];
+
+      int index = 0;
+      for (TimephasedWork item : data)
+      {
+         setItem(index, item);
+         m_totalAmountUnits[index] = getUnits(item.getTotalAmount());
+         m_totalAmount[index] = getDuration(item.getTotalAmount());
+         m_amountPerDayUnits[index] = getUnits(item.getAmountPerDay());
+         m_amountPerDay[index] = getDuration(item.getAmountPerDay());
+         ++index;
+      }
+
+      updateOrdered();
+   }
+
+   /**
+    * Copy constructor which can be used to scale the data it is copying
+    * by a given factor.
+    *
+    * @param source source data
+    * @param perDayFactor per day scaling factor
+    * @param totalFactor total scaling factor
+    */
+   public TimephasedWorkSeries(TimephasedWorkSeries source, double perDayFactor, double totalFactor)
+   {
+      super(source.size());
+      m_totalAmountUnits = source.m_totalAmountUnits.clone();
+      m_amountPerDayUnits = source.m_amountPerDayUnits.clone();
+
+      for (int index = 0; index < m_start.length; index++)
+      {
+         m_start[index] = source.m_start[index];
+         m_finish[index] = source.m_finish[index];
+         m_modified[index] = source.m_modified[index];
+         m_totalAmount[index] = source.m_totalAmount[index] * totalFactor;
+         m_amountPerDay[index] = source.m_amountPerDay[index] * perDayFactor;
+      }
+
+      updateOrdered();
+   }
+
+   /**
+    * Retrieve a series representing a list of timephased work items.
+    * If the list is a view of an existing series, that series is returned,
+    * otherwise a new series is created.
+    *
+    * @param data timephased work items
+    * @return timephased work series
+    */
+   public static TimephasedWorkSeries getInstance(List<TimephasedWork> data)
+   {
+      AbstractTimephasedSeries<?> series = getSeries(data);
+      return series instanceof TimephasedWorkSeries ? (TimephasedWorkSeries) series : new TimephasedWorkSeries(data);
+   }
+
+   /**
+    * Retrieve the units of the total amount for an item.
+    *
+    * @param index item index
+    * @return total amount units
+    */
+   public TimeUnit getTotalAmountUnits(int index)
+   {
+      return getTimeUnit(m_totalAmountUnits[index]);
+   }
+
+   /**
+    * Retrieve the units of the amount per day for an item.
+    *
+    * @param index item index
+    * @return amount per day units
+    */
+   public TimeUnit getAmountPerDayUnits(int index)
+   {
+      return getTimeUnit(m_amountPerDayUnits[index]);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected TimephasedWork createItem(int index)
+   {
+      TimephasedWork item = new TimephasedWork();
+      getItem(index, item);
+      item.setTotalAmount(getDuration(m_totalAmount[index], m_totalAmountUnits[index]));
+      item.setAmountPerDay(getDuration(m_amountPerDay[index], m_amountPerDayUnits[index]));
+      return item;
+   }
+
+   /**
+    * Retrieve the value of a duration, handling null values.
+    *
+    * @param duration duration
+    * @return duration value
+    */
+   private static double getDuration(Duration duration)
+   {
+      return duration == null ? 0 : duration.getDuration();
+   }
+
+   /**
+    * Retrieve a compact representation of the units of a duration,
+    * using -1 to represent a null duration.
+    *
+    * @param duration duration
+    * @return units
+    */
+   private static byte getUnits(Duration duration)
+   {
+      return duration == null ? NULL_UNITS : (byte) duration.getUnits().ordinal();
+   }
+
+   /**
+    * Create a duration from its compact representation.
+    *
+    * @param value duration value
+    * @param units units
+    * @return Duration instance
+    */
+   private static Duration getDuration(double value, byte units)
+   {
+      return units == NULL_UNITS ? null : Duration.getInstance(value, TIME_UNITS[units]);
+   }
+
+   /**
+    * Retrieve the time unit represented by a compact value.
+    *
+    * @param units units
+    * @return TimeUnit instance
+    */
+   private static TimeUnit getTimeUnit(byte units)
+   {
+      return units == NULL_UNITS ? null : TIME_UNITS[units];
+   }
+
+   private final byte[] m_totalAmountUnits;
+   private final byte[] m_amountPerDayUnits;
+
+   private static final byte NULL_UNITS = -1;
+   private static final TimeUnit[] TIME_UNITS = TimeUnit.values();
+}
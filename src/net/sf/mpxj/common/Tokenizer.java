@@ -182,7 +182,7 @@ public abstract class Tokenizer
     */
    public String getToken()
    {
-      return (m_buffer.toString());
+      return (m_buffer.length() == 0 ? "" : m_buffer.toString());
    }
 
    /**
@@ -0,0 +1,157 @@
+/*
+ * file:       XmlStreamHelper.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       20/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * This class contains utility methods used by readers which process
+ * large XML files one element at a time using an XMLStreamReader.
+ */
+public final class XmlStreamHelper
+{
+   /**
+    * Create an XMLStreamReader for the supplied stream. DTD processing
+    * and external entities are disabled.
+    *
+    * @param stream input stream
+    * @return XMLStreamReader instance
+    */
+   public static final XMLStreamReader createReader(InputStream stream) throws XMLStreamException
+   {
+      XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+      inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+      return inputFactory.createXMLStreamReader(stream);
+   }
+
+   /**
+    * Advance the reader to the start of the next child element. Returns
+    * false, leaving the reader positioned at the end of the parent
+    * element, if there are no further child elements.
+    *
+    * @param reader XML stream reader
+    * @return true if the reader is positioned at the start of a child element
+    */
+   public static final boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      int event = reader.getEventType();
+      while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+      {
+         event = reader.next();
+      }
+      return event == XMLStreamConstants.START_ELEMENT;
+   }
+
+   /**
+    * Skip an element and its content, leaving the reader positioned
+    * after the end of the element.
+    *
+    * @param reader XML stream reader positioned at the start of the element
+    */
+   public static final void skipElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      int depth = 0;
+      do
+      {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+         {
+            ++depth;
+         }
+         else
+         {
+            if (event == XMLStreamConstants.END_ELEMENT)
+            {
+               --depth;
+            }
+         }
+      }
+      while (depth >= 0);
+      reader.next();
+   }
+
+   /**
+    * Copy an element and its content from the XML stream into a DOM
+    * document, leaving the reader positioned at the end of the element.
+    *
+    * @param reader XML stream reader positioned at the start of the element
+    * @param document target document
+    * @param parent parent node in the target document
+    */
+   public static final void copyElement(XMLStreamReader reader, Document document, Node parent) throws XMLStreamException
+   {
+      Element element = createElement(reader, document);
+      parent.appendChild(element);
+
+      while (true)
+      {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+         {
+            copyElement(reader, document, element);
+         }
+         else
+         {
+            if (event == XMLStreamConstants.END_ELEMENT)
+            {
+               break;
+            }
+
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)
+            {
+               element.appendChild(document.createTextNode(reader.getText()));
+            }
+         }
+      }
+   }
+
+   /**
+    * Create a DOM element representing the element at the current
+    * position of the XML stream.
+    *
+    * @param reader XML stream reader positioned at the start of an element
+    * @param document target document
+    * @return new element
+    */
+   public static final Element createElement(XMLStreamReader reader, Document document)
+   {
+      Element element = document.createElementNS(reader.getNamespaceURI(), reader.getLocalName());
+      for (int index = 0; index < reader.getAttributeCount(); index++)
+      {
+         element.setAttributeNS(reader.getAttributeNamespace(index), reader.getAttributeLocalName(index), reader.getAttributeValue(index));
+      }
+      return element;
+   }
+}
@@ -28,6 +28,8 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -35,6 +37,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.CharsetHelper;
@@ -44,6 +50,19 @@ import net.sf.mpxj.common.CharsetHelper;
  */
 class FastTrackData
 {
+   /**
+    * Set the executor service used to decode the blocks of column data
+    * in parallel. The caller retains ownership of the executor, and is
+    * responsible for shutting it down. Defaults to null, in which case
+    * the blocks are decoded in turn on the calling thread.
+    *
+    * @param executorService executor service
+    */
+   public void setExecutorService(ExecutorService executorService)
+   {
+      m_executorService = executorService;
+   }
+
    /**
     * Read a FastTrack file.
     *
@@ -53,45 +72,145 @@ class FastTrackData
    {
       openLogFile();
 
+      m_buffer = readFile(file);
+
+      List<Integer> blocks = new ArrayList<Integer>();
+      int endIndex = m_buffer.length - 11;
+      int index = PARENT_BLOCK_SCANNER.find(m_buffer, 64, endIndex);
+      while (index != -1)
+      {
+         blocks.add(Integer.valueOf(index));
+         index = PARENT_BLOCK_SCANNER.find(m_buffer, index + 1, endIndex);
+      }
+      blocks.add(Integer.valueOf(m_buffer.length));
+
+      //
+      // Table blocks determine which table the following column blocks
+      // belong to, so they are read in order. Once this is known, each
+      // block of column data can be decoded independently.
+      //
+      List<ColumnBlock> columnBlocks = new ArrayList<ColumnBlock>();
       int blockIndex = 0;
-      int length = (int) file.length();
-      m_buffer = new byte[length];
+      int startIndex = 0;
+      for (int blockEndIndex : blocks)
+      {
+         int blockLength = blockEndIndex - startIndex;
+         logBlock(blockIndex, startIndex, blockLength);
+
+         if (blockLength < 128)
+         {
+            readTableBlock(startIndex, blockLength);
+         }
+         else
+         {
+            if (m_currentTable != null)
+            {
+               ColumnBlock block = new ColumnBlock(m_currentTable, m_currentFields, startIndex, blockLength);
+               if (m_executorService == null || m_log != null)
+               {
+                  block.call();
+                  addColumns(block);
+               }
+               else
+               {
+                  columnBlocks.add(block);
+               }
+            }
+         }
+
+         startIndex = blockEndIndex;
+         ++blockIndex;
+      }
+
+      if (!columnBlocks.isEmpty())
+      {
+         readColumnBlocks(columnBlocks);
+      }
+
+      closeLogFile();
+   }
+
+   /**
+    * Read the complete file into memory.
+    *
+    * @param file FastTrack file
+    * @return file data
+    */
+   private byte[] readFile(File file) throws IOException
+   {
       FileInputStream is = new FileInputStream(file);
       try
       {
-         int bytesRead = is.read(m_buffer);
-         if (bytesRead != length)
+         FileChannel channel = is.getChannel();
+         long length = channel.size();
+         if (length > Integer.MAX_VALUE)
+         {
+            throw new IOException("File too large");
+         }
+
+         byte[] result = new byte[(int) length];
+         ByteBuffer buffer = ByteBuffer.wrap(result);
+         while (buffer.hasRemaining())
          {
-            throw new RuntimeException("Read count different");
+            if (channel.read(buffer) == -1)
+            {
+               throw new IOException("Unexpected end of file");
+            }
          }
+         return result;
       }
+
       finally
       {
          is.close();
       }
+   }
 
-      List<Integer> blocks = new ArrayList<Integer>();
-      for (int index = 64; index < m_buffer.length - 11; index++)
+   /**
+    * Decode each block of column data as a separate task using the
+    * configured executor service, then add the columns to their tables
+    * in file order.
+    *
+    * @param blocks blocks of column data
+    */
+   private void readColumnBlocks(List<ColumnBlock> blocks) throws Exception
+   {
+      List<Future<ColumnBlock>> futures = new ArrayList<Future<ColumnBlock>>(blocks.size());
+
+      try
       {
-         if (matchPattern(PARENT_BLOCK_PATTERNS, index))
+         for (ColumnBlock block : blocks)
          {
-            blocks.add(Integer.valueOf(index));
+            futures.add(m_executorService.submit(block));
+         }
+
+         for (Future<ColumnBlock> future : futures)
+         {
+            addColumns(future.get());
          }
       }
 
-      int startIndex = 0;
-      for (int endIndex : blocks)
+      catch (ExecutionException ex)
       {
-         int blockLength = endIndex - startIndex;
-         readBlock(blockIndex, startIndex, blockLength);
-         startIndex = endIndex;
-         ++blockIndex;
+         Throwable cause = ex.getCause();
+         if (cause instanceof Exception)
+         {
+            throw (Exception) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw ex;
       }
 
-      int blockLength = m_buffer.length - startIndex;
-      readBlock(blockIndex, startIndex, blockLength);
-
-      closeLogFile();
+      finally
+      {
+         for (Future<ColumnBlock> future : futures)
+         {
+            future.cancel(true);
+         }
+      }
    }
 
    /**
@@ -130,28 +249,6 @@ class FastTrackData
       return m_workTimeUnit == null ? TimeUnit.HOURS : m_workTimeUnit;
    }
 
-   /**
-    * Read a block of data from the FastTrack file and determine if
-    * it contains a table definition, or columns.
-    *
-    * @param blockIndex index of the current block
-    * @param startIndex start index of the block in the file
-    * @param blockLength block length
-    */
-   private void readBlock(int blockIndex, int startIndex, int blockLength) throws Exception
-   {
-      logBlock(blockIndex, startIndex, blockLength);
-
-      if (blockLength < 128)
-      {
-         readTableBlock(startIndex, blockLength);
-      }
-      else
-      {
-         readColumnBlock(startIndex, blockLength);
-      }
-   }
-
    /**
     * Read the name of a table and prepare to populate it with column data.
     *
@@ -160,92 +257,82 @@ class FastTrackData
     */
    private void readTableBlock(int startIndex, int blockLength)
    {
-      for (int index = startIndex; index < (startIndex + blockLength - 11); index++)
+      int index = TABLE_BLOCK_SCANNER.find(m_buffer, startIndex, startIndex + blockLength - 11);
+      if (index != -1)
       {
-         if (matchPattern(TABLE_BLOCK_PATTERNS, index))
+         int offset = index + 7;
+         int nameLength = FastTrackUtility.getInt(m_buffer, offset);
+         offset += 4;
+         String name = new String(m_buffer, offset, nameLength, CharsetHelper.UTF16LE).toUpperCase();
+         FastTrackTableType type = REQUIRED_TABLES.get(name);
+         if (type != null)
          {
-            int offset = index + 7;
-            int nameLength = FastTrackUtility.getInt(m_buffer, offset);
-            offset += 4;
-            String name = new String(m_buffer, offset, nameLength, CharsetHelper.UTF16LE).toUpperCase();
-            FastTrackTableType type = REQUIRED_TABLES.get(name);
-            if (type != null)
-            {
-               m_currentTable = new FastTrackTable(type, this);
-               m_tables.put(type, m_currentTable);
-            }
-            else
-            {
-               m_currentTable = null;
-            }
-            m_currentFields.clear();
-            break;
+            m_currentTable = new FastTrackTable(type, this);
+            m_tables.put(type, m_currentTable);
          }
+         else
+         {
+            m_currentTable = null;
+         }
+         m_currentFields = new TreeSet<FastTrackField>();
       }
    }
 
    /**
-    * Read multiple columns from a block.
+    * Read multiple columns from a block. This method only reads the
+    * file data, so may be called concurrently for different blocks.
     *
+    * @param tableType type of the table containing the columns
     * @param startIndex start of the block
     * @param blockLength length of the block
+    * @return columns read from the block
     */
-   private void readColumnBlock(int startIndex, int blockLength) throws Exception
+   private List<FastTrackColumn> readColumnBlock(FastTrackTableType tableType, int startIndex, int blockLength)
    {
       int endIndex = startIndex + blockLength;
       List<Integer> blocks = new ArrayList<Integer>();
-      for (int index = startIndex; index < endIndex - 11; index++)
+      int index = CHILD_BLOCK_SCANNER.find(m_buffer, startIndex, endIndex - 11);
+      while (index != -1)
       {
-         if (matchPattern(CHILD_BLOCK_PATTERNS, index))
-         {
-            int childBlockStart = index - 2;
-            blocks.add(Integer.valueOf(childBlockStart));
-         }
+         int childBlockStart = index - 2;
+         blocks.add(Integer.valueOf(childBlockStart));
+         index = CHILD_BLOCK_SCANNER.find(m_buffer, index + 1, endIndex - 11);
       }
       blocks.add(Integer.valueOf(endIndex));
 
+      List<FastTrackColumn> columns = new ArrayList<FastTrackColumn>(blocks.size());
       int childBlockStart = -1;
       for (int childBlockEnd : blocks)
       {
          if (childBlockStart != -1)
          {
             int childblockLength = childBlockEnd - childBlockStart;
+            FastTrackColumn column = createColumn(FastTrackUtility.getByte(m_buffer, childBlockStart));
             try
             {
-               readColumn(childBlockStart, childblockLength);
+               logColumnData(childBlockStart, childblockLength);
+               column.read(tableType, m_buffer, childBlockStart, childblockLength);
+               columns.add(column);
             }
             catch (UnexpectedStructureException ex)
             {
-               logUnexpectedStructure();
+               logUnexpectedStructure(column);
             }
          }
          childBlockStart = childBlockEnd;
       }
+      return columns;
    }
 
    /**
-    * Read data for a single column.
+    * Add the columns read from a block to their table.
     *
-    * @param startIndex block start
-    * @param length block length
+    * @param block block of column data
     */
-   private void readColumn(int startIndex, int length) throws Exception
+   private void addColumns(ColumnBlock block)
    {
-      if (m_currentTable != null)
+      for (FastTrackColumn column : block.getColumns())
       {
-         int value = FastTrackUtility.getByte(m_buffer, startIndex);
-         Class<?> klass = COLUMN_MAP[value];
-         if (klass == null)
-         {
-            klass = UnknownColumn.class;
-         }
-
-         FastTrackColumn column = (FastTrackColumn) klass.newInstance();
-         m_currentColumn = column;
-
-         logColumnData(startIndex, length);
-
-         column.read(m_currentTable.getType(), m_buffer, startIndex, length);
          FastTrackField type = column.getType();
 
          //
@@ -253,47 +340,133 @@ class FastTrackData
          // 1. We don't know what type it is
          // 2. We have seen the type already
          //
-         if (type != null && !m_currentFields.contains(type))
+         if (type != null && !block.getFields().contains(type))
          {
-            m_currentFields.add(type);
-            m_currentTable.addColumn(column);
+            block.getFields().add(type);
+            block.getTable().addColumn(column);
             updateDurationTimeUnit(column);
             updateWorkTimeUnit(column);
 
-            logColumn(column);
+            logColumn(block.getTable(), column);
          }
       }
    }
 
    /**
-    * Locate a feature in the file by match a byte pattern.
+    * Create a column instance to read the column type found in the file.
     *
-    * @param patterns patterns to match
-    * @param bufferIndex start index
-    * @return true if the bytes at the position match a pattern
+    * @param value column type
+    * @return FastTrackColumn instance
     */
-   private final boolean matchPattern(byte[][] patterns, int bufferIndex)
+   private FastTrackColumn createColumn(int value)
    {
-      boolean match = false;
-      for (byte[] pattern : patterns)
+      FastTrackColumn result;
+
+      switch (value)
       {
-         int index = 0;
-         match = true;
-         for (byte b : pattern)
+         case 0x6E:
          {
-            if (b != m_buffer[bufferIndex + index])
-            {
-               match = false;
-               break;
-            }
-            ++index;
+            result = new DateColumn();
+            break;
+         }
+
+         case 0x6F:
+         {
+            result = new TimeColumn();
+            break;
+         }
+
+         case 0x71:
+         {
+            result = new DurationColumn();
+            break;
+         }
+
+         case 0x46:
+         {
+            result = new PercentColumn();
+            break;
+         }
+
+         case 0x6C:
+         case 0x73:
+         {
+            result = new ShortColumn();
+            break;
+         }
+
+         case 0x6D:
+         {
+            result = new IdentifierColumn();
+            break;
+         }
+
+         case 0x70:
+         {
+            result = new NumberColumn();
+            break;
+         }
+
+         case 0x5C:
+         {
+            result = new CalendarColumn();
+            break;
+         }
+
+         case 0x4B:
+         {
+            result = new IntegerColumn();
+            break;
+         }
+
+         case 0x49:
+         {
+            result = new AssignmentColumn();
+            break;
+         }
+
+         case 0x59:
+         {
+            result = new EnumColumn();
+            break;
+         }
+
+         case 0x53:
+         {
+            result = new BooleanColumn();
+            break;
+         }
+
+         case 0x5B:
+         case 0x4A:
+         case 0x54:
+         {
+            result = new DoubleColumn();
+            break;
+         }
+
+         case 0x57:
+         case 0x58:
+         {
+            result = new RelationColumn();
+            break;
          }
-         if (match)
+
+         case 0x68:
+         case 0x69:
          {
+            result = new StringColumn();
+            break;
+         }
+
+         default:
+         {
+            result = new UnknownColumn();
             break;
          }
       }
-      return match;
+
+      return result;
    }
 
    /**
@@ -423,39 +596,110 @@ class FastTrackData
 
    /**
     * Log unexpected column structure.
+    *
+    * @param column column being read
     */
-   private void logUnexpectedStructure()
+   private void logUnexpectedStructure(FastTrackColumn column)
    {
       if (m_log != null)
       {
-         m_log.println("ABORTED COLUMN - unexpected structure: " + m_currentColumn.getClass().getSimpleName() + " " + m_currentColumn.getName());
+         m_log.println("ABORTED COLUMN - unexpected structure: " + column.getClass().getSimpleName() + " " + column.getName());
       }
    }
 
    /**
     * Log column data.
     *
+    * @param table table containing the column
     * @param column column data
     */
-   private void logColumn(FastTrackColumn column)
+   private void logColumn(FastTrackTable table, FastTrackColumn column)
    {
       if (m_log != null)
       {
-         m_log.println("TABLE: " + m_currentTable.getType());
+         m_log.println("TABLE: " + table.getType());
          m_log.println(column.toString());
          m_log.flush();
       }
    }
 
+   /**
+    * A block of column data, along with the table it belongs to.
+    * Calling this object reads the columns from the block.
+    */
+   private final class ColumnBlock implements Callable<ColumnBlock>
+   {
+      /**
+       * Constructor.
+       *
+       * @param table table containing the columns
+       * @param fields fields already read for this table
+       * @param startIndex start of the block
+       * @param blockLength length of the block
+       */
+      public ColumnBlock(FastTrackTable table, Set<FastTrackField> fields, int startIndex, int blockLength)
+      {
+         m_table = table;
+         m_fields = fields;
+         m_startIndex = startIndex;
+         m_blockLength = blockLength;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public ColumnBlock call()
+      {
+         m_columns = readColumnBlock(m_table.getType(), m_startIndex, m_blockLength);
+         return this;
+      }
+
+      /**
+       * Retrieve the table containing the columns.
+       *
+       * @return table
+       */
+      public FastTrackTable getTable()
+      {
+         return m_table;
+      }
+
+      /**
+       * Retrieve the fields already read for this table.
+       *
+       * @return set of fields
+       */
+      public Set<FastTrackField> getFields()
+      {
+         return m_fields;
+      }
+
+      /**
+       * Retrieve the columns read from this block.
+       *
+       * @return list of columns
+       */
+      public List<FastTrackColumn> getColumns()
+      {
+         return m_columns;
+      }
+
+      private final FastTrackTable m_table;
+      private final Set<FastTrackField> m_fields;
+      private final int m_startIndex;
+      private final int m_blockLength;
+      private List<FastTrackColumn> m_columns;
+   }
+
    private byte[] m_buffer;
    private String m_logFile;
    private PrintWriter m_log;
    private final Map<FastTrackTableType, FastTrackTable> m_tables = new EnumMap<FastTrackTableType, FastTrackTable>(FastTrackTableType.class);
    private FastTrackTable m_currentTable;
-   private FastTrackColumn m_currentColumn;
-   private final Set<FastTrackField> m_currentFields = new TreeSet<FastTrackField>();
+   private Set<FastTrackField> m_currentFields = new TreeSet<FastTrackField>();
    private TimeUnit m_durationTimeUnit;
    private TimeUnit m_workTimeUnit;
+   private ExecutorService m_executorService;
 
    private static final byte[][] PARENT_BLOCK_PATTERNS =
    {
@@ -538,30 +782,9 @@ class FastTrackData
       }
    };
 
-   private static final Class<?>[] COLUMN_MAP = new Class<?>[256];
-   static
-   {
-      COLUMN_MAP[0x6E] = DateColumn.class;
-      COLUMN_MAP[0x6F] = TimeColumn.class;
-      COLUMN_MAP[0x71] = DurationColumn.class;
-      COLUMN_MAP[0x46] = PercentColumn.class;
-      COLUMN_MAP[0x6C] = ShortColumn.class;
-      COLUMN_MAP[0x73] = ShortColumn.class;
-      COLUMN_MAP[0x6D] = IdentifierColumn.class;
-      COLUMN_MAP[0x70] = NumberColumn.class;
-      COLUMN_MAP[0x5C] = CalendarColumn.class;
-      COLUMN_MAP[0x4B] = IntegerColumn.class;
-      COLUMN_MAP[0x49] = AssignmentColumn.class;
-      COLUMN_MAP[0x59] = EnumColumn.class;
-      COLUMN_MAP[0x53] = BooleanColumn.class;
-      COLUMN_MAP[0x5b] = DoubleColumn.class;
-      COLUMN_MAP[0x4A] = DoubleColumn.class;
-      COLUMN_MAP[0x54] = DoubleColumn.class;
-      COLUMN_MAP[0x57] = RelationColumn.class;
-      COLUMN_MAP[0x58] = RelationColumn.class;
-      COLUMN_MAP[0x68] = StringColumn.class;
-      COLUMN_MAP[0x69] = StringColumn.class;
-   }
+   private static final PatternScanner PARENT_BLOCK_SCANNER = new PatternScanner(PARENT_BLOCK_PATTERNS);
+   private static final PatternScanner CHILD_BLOCK_SCANNER = new PatternScanner(CHILD_BLOCK_PATTERNS);
+   private static final PatternScanner TABLE_BLOCK_SCANNER = new PatternScanner(TABLE_BLOCK_PATTERNS);
 
    private static final Map<String, FastTrackTableType> REQUIRED_TABLES = new HashMap<String, FastTrackTableType>();
    static
@@ -32,6 +32,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,7 +48,7 @@ import net.sf.mpxj.Task;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 // TODO:
 // 1. Handle multiple bars per activity
@@ -62,7 +63,7 @@ import net.sf.mpxj.reader.ProjectReader;
 /**
  * Reads FastTrack FTS files.
  */
-public class FastTrackReader implements ProjectReader
+public class FastTrackReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -117,6 +118,7 @@ public class FastTrackReader implements ProjectReader
       try
       {
          m_data = new FastTrackData();
+         m_data.setExecutorService(m_executorService);
          // Uncomment this to write debug data to a log file
          // m_data.setLogFile("c:/temp/project1.txt");
          m_data.process(file);
@@ -132,6 +134,29 @@ public class FastTrackReader implements ProjectReader
       }
    }
 
+   /**
+    * Retrieve the executor service used to decode column data.
+    *
+    * @return executor service, or null if column data is decoded on the calling thread
+    */
+   public ExecutorService getExecutorService()
+   {
+      return m_executorService;
+   }
+
+   /**
+    * Set the executor service used to decode the blocks of column data
+    * in the file as separate tasks. The caller retains ownership of the
+    * executor, and is responsible for shutting it down. Defaults to null,
+    * in which case column data is decoded on the calling thread.
+    *
+    * @param executorService executor service
+    */
+   public void setExecutorService(ExecutorService executorService)
+   {
+      m_executorService = executorService;
+   }
+
    /**
     * Read FTS file data from the configured source and return a populated ProjectFile instance.
     *
@@ -143,6 +168,7 @@ public class FastTrackReader implements ProjectReader
       m_eventManager = m_project.getEventManager();
 
       ProjectConfig config = m_project.getProjectConfig();
+      config.setFieldStoreFactory(getFieldStoreFactory());
       config.setAutoCalendarUniqueID(false);
       config.setAutoTaskID(false);
       config.setAutoTaskUniqueID(false);
@@ -645,6 +671,7 @@ public class FastTrackReader implements ProjectReader
    private ProjectFile m_project;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
+   private ExecutorService m_executorService;
 
    private static final Pattern WBS_SPLIT_REGEX = Pattern.compile("(\\.|\\-|\\+|\\/|\\,|\\:|\\;|\\~|\\\\|\\| )");
    private static final Pattern RELATION_REGEX = Pattern.compile("(\\d+)(:\\d+)?(FS|SF|SS|FF)*(\\-|\\+)*(\\d+\\.\\d+)*");
@@ -0,0 +1,127 @@
+/*
+ * file:       PatternScanner.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       04/12/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.fasttrack;
+
+/**
+ * Locates occurrences of a set of byte patterns in a buffer. Rather than
+ * comparing each pattern at every offset, the scanner uses a table of the
+ * bytes the patterns contain at a single anchor position, and only compares
+ * the patterns in full where the buffer holds one of these bytes. The anchor
+ * is the first position at which none of the patterns has a zero byte, as
+ * zero bytes are very common in FastTrack data.
+ */
+final class PatternScanner
+{
+   /**
+    * Constructor.
+    *
+    * @param patterns patterns to locate
+    */
+   public PatternScanner(byte[]... patterns)
+   {
+      m_patterns = patterns;
+
+      int anchor = 0;
+      while (anchor < patterns[0].length - 1 && containsZero(anchor))
+      {
+         ++anchor;
+      }
+      m_anchor = anchor;
+
+      for (byte[] pattern : patterns)
+      {
+         m_candidates[pattern[anchor] & 0xFF] = true;
+      }
+   }
+
+   /**
+    * Find the first offset in the given range at which one of the patterns
+    * occurs. The caller must ensure that a complete pattern starting at
+    * any offset in the range lies within the buffer.
+    *
+    * @param buffer buffer to search
+    * @param startIndex first offset to test
+    * @param endIndex offset after the last offset to test
+    * @return offset of the pattern, or -1 if no pattern was found
+    */
+   public int find(byte[] buffer, int startIndex, int endIndex)
+   {
+      for (int index = startIndex; index < endIndex; index++)
+      {
+         if (m_candidates[buffer[index + m_anchor] & 0xFF] && matches(buffer, index))
+         {
+            return index;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Determine if any pattern occurs at the given offset.
+    *
+    * @param buffer buffer to search
+    * @param offset offset to test
+    * @return true if a pattern occurs at this offset
+    */
+   public boolean matches(byte[] buffer, int offset)
+   {
+      for (byte[] pattern : m_patterns)
+      {
+         int index = 0;
+         while (index < pattern.length && pattern[index] == buffer[offset + index])
+         {
+            ++index;
+         }
+
+         if (index == pattern.length)
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Determine if any of the patterns has a zero byte at the given position.
+    *
+    * @param index position in the patterns
+    * @return true if a zero byte is present
+    */
+   private boolean containsZero(int index)
+   {
+      for (byte[] pattern : m_patterns)
+      {
+         if (index >= pattern.length || pattern[index] == 0)
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private final byte[][] m_patterns;
+   private final int m_anchor;
+   private final boolean[] m_candidates = new boolean[256];
+}
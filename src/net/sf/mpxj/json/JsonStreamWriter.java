@@ -23,9 +23,11 @@
 
 package net.sf.mpxj.json;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -46,7 +48,7 @@ public class JsonStreamWriter
     */
    public JsonStreamWriter(OutputStream stream, Charset encoding)
    {
-      m_writer = new OutputStreamWriter(stream, encoding);
+      m_writer = new BufferedWriter(new OutputStreamWriter(stream, encoding));
       m_firstNameValuePair.push(Boolean.TRUE);
    }
 
@@ -78,6 +80,18 @@ public class JsonStreamWriter
       m_writer.flush();
    }
 
+   /**
+    * Write a new line following a complete top level value. This is used
+    * when writing newline delimited JSON, where each line holds a separate
+    * JSON value, so the next value is not preceded by a comma.
+    */
+   public void writeNewLine() throws IOException
+   {
+      m_writer.write('\n');
+      m_firstNameValuePair.pop();
+      m_firstNameValuePair.push(Boolean.TRUE);
+   }
+
    /**
     * Begin writing a named object attribute.
     *
@@ -366,7 +380,7 @@ public class JsonStreamWriter
    }
 
    private final StringBuilder m_buffer = new StringBuilder();
-   private final OutputStreamWriter m_writer;
+   private final Writer m_writer;
    private final Deque<Boolean> m_firstNameValuePair = new LinkedList<Boolean>();
    private boolean m_pretty;
    private String m_indent = "";
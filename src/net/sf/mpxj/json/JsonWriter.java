@@ -26,6 +26,7 @@ package net.sf.mpxj.json;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -76,6 +77,31 @@ public final class JsonWriter extends AbstractProjectWriter
       m_pretty = pretty;
    }
 
+   /**
+    * Retrieve the newline delimited JSON flag.
+    *
+    * @return true if newline delimited JSON is written
+    */
+   public boolean getNewlineDelimited()
+   {
+      return m_newlineDelimited;
+   }
+
+   /**
+    * Set the newline delimited JSON flag. When this flag is set, the
+    * first line written is an object containing the custom field, project
+    * property and attribute type data. This is followed by one line for each
+    * resource, task and assignment, each holding an object with a single
+    * attribute named resource, task or assignment. Pretty printing is not
+    * used in this mode.
+    *
+    * @param newlineDelimited true if newline delimited JSON is written
+    */
+   public void setNewlineDelimited(boolean newlineDelimited)
+   {
+      m_newlineDelimited = newlineDelimited;
+   }
+
    /**
     * Retrieve the encoding to used when writing the JSON file.
     *
@@ -105,15 +131,22 @@ public final class JsonWriter extends AbstractProjectWriter
       {
          m_projectFile = projectFile;
          m_writer = new JsonStreamWriter(stream, m_encoding);
-         m_writer.setPretty(m_pretty);
+         m_writer.setPretty(m_pretty && !m_newlineDelimited);
 
-         m_writer.writeStartObject(null);
-         writeCustomFields();
-         writeProperties();
-         writeResources();
-         writeTasks();
-         writeAssignments();
-         m_writer.writeEndObject();
+         if (m_newlineDelimited)
+         {
+            writeNewlineDelimited();
+         }
+         else
+         {
+            m_writer.writeStartObject(null);
+            writeCustomFields();
+            writeProperties();
+            writeResources();
+            writeTasks();
+            writeAssignments();
+            m_writer.writeEndObject();
+         }
 
          m_writer.flush();
       }
@@ -124,6 +157,36 @@ public final class JsonWriter extends AbstractProjectWriter
       }
    }
 
+   /**
+    * Write the project as newline delimited JSON.
+    */
+   private void writeNewlineDelimited() throws IOException
+   {
+      m_writer.writeStartObject(null);
+      writeCustomFields();
+      writeProperties();
+      writeAttributeTypes("resource_types", RESOURCE_FIELDS, RESOURCE_FIELD_NAMES);
+      writeAttributeTypes("task_types", TASK_FIELDS, TASK_FIELD_NAMES);
+      writeAttributeTypes("assignment_types", ASSIGNMENT_FIELDS, ASSIGNMENT_FIELD_NAMES);
+      m_writer.writeEndObject();
+      m_writer.writeNewLine();
+
+      for (Resource resource : m_projectFile.getAllResources())
+      {
+         writeResource(resource);
+      }
+
+      for (Task task : m_projectFile.getChildTasks())
+      {
+         writeTask(task);
+      }
+
+      for (ResourceAssignment assignment : m_projectFile.getAllResourceAssignments())
+      {
+         writeAssignment(assignment);
+      }
+   }
+
    /**
     * Write a list of custom field attributes.
     */
@@ -164,8 +227,8 @@ public final class JsonWriter extends AbstractProjectWriter
     */
    private void writeProperties() throws IOException
    {
-      writeAttributeTypes("property_types", ProjectField.values());
-      writeFields("property_values", m_projectFile.getProjectProperties(), ProjectField.values());
+      writeAttributeTypes("property_types", PROJECT_FIELDS, PROJECT_FIELD_NAMES);
+      writeFields("property_values", m_projectFile.getProjectProperties(), Arrays.asList(PROJECT_FIELDS), PROJECT_FIELD_NAMES);
    }
 
    /**
@@ -173,23 +236,33 @@ public final class JsonWriter extends AbstractProjectWriter
     */
    private void writeResources() throws IOException
    {
-      writeAttributeTypes("resource_types", ResourceField.values());
+      writeAttributeTypes("resource_types", RESOURCE_FIELDS, RESOURCE_FIELD_NAMES);
 
       m_writer.writeStartList("resources");
       for (Resource resource : m_projectFile.getAllResources())
       {
-         writeFields(null, resource, ResourceField.values());
+         writeResource(resource);
       }
       m_writer.writeEndList();
    }
 
+   /**
+    * Write a single resource.
+    *
+    * @param resource resource to write
+    */
+   private void writeResource(Resource resource) throws IOException
+   {
+      writeEntity("resource", resource, resource.getPopulatedFields(), RESOURCE_FIELD_NAMES);
+   }
+
    /**
     * This method writes task data to a JSON file.
     * Note that we write the task hierarchy in order to make rebuilding the hierarchy easier.
     */
    private void writeTasks() throws IOException
    {
-      writeAttributeTypes("task_types", TaskField.values());
+      writeAttributeTypes("task_types", TASK_FIELDS, TASK_FIELD_NAMES);
 
       m_writer.writeStartList("tasks");
       for (Task task : m_projectFile.getChildTasks())
@@ -207,7 +280,7 @@ public final class JsonWriter extends AbstractProjectWriter
     */
    private void writeTask(Task task) throws IOException
    {
-      writeFields(null, task, TaskField.values());
+      writeEntity("task", task, task.getPopulatedFields(), TASK_FIELD_NAMES);
       for (Task child : task.getChildTasks())
       {
          writeTask(child);
@@ -219,15 +292,24 @@ public final class JsonWriter extends AbstractProjectWriter
     */
    private void writeAssignments() throws IOException
    {
-      writeAttributeTypes("assignment_types", AssignmentField.values());
+      writeAttributeTypes("assignment_types", ASSIGNMENT_FIELDS, ASSIGNMENT_FIELD_NAMES);
 
       m_writer.writeStartList("assignments");
       for (ResourceAssignment assignment : m_projectFile.getAllResourceAssignments())
       {
-         writeFields(null, assignment, AssignmentField.values());
+         writeAssignment(assignment);
       }
       m_writer.writeEndList();
+   }
 
+   /**
+    * Write a single assignment.
+    *
+    * @param assignment assignment to write
+    */
+   private void writeAssignment(ResourceAssignment assignment) throws IOException
+   {
+      writeEntity("assignment", assignment, assignment.getPopulatedFields(), ASSIGNMENT_FIELD_NAMES);
    }
 
    /**
@@ -235,24 +317,50 @@ public final class JsonWriter extends AbstractProjectWriter
     *
     * @param name name of the map
     * @param types types to write
+    * @param names field names
     */
-   private void writeAttributeTypes(String name, FieldType[] types) throws IOException
+   private void writeAttributeTypes(String name, FieldType[] types, String[] names) throws IOException
    {
       m_writer.writeStartObject(name);
       for (FieldType field : types)
       {
-         m_writer.writeNameValuePair(field.name().toLowerCase(), field.getDataType().getValue());
+         m_writer.writeNameValuePair(names[field.getValue()], field.getDataType().getValue());
       }
       m_writer.writeEndObject();
    }
 
+   /**
+    * Write a resource, task or assignment. When writing newline delimited
+    * JSON, the fields are wrapped in an object on a line of their own.
+    *
+    * @param recordName name used to identify the entity in newline delimited JSON
+    * @param container field container
+    * @param fields fields to write
+    * @param names field names
+    */
+   private void writeEntity(String recordName, FieldContainer container, List<? extends FieldType> fields, String[] names) throws IOException
+   {
+      if (m_newlineDelimited)
+      {
+         m_writer.writeStartObject(null);
+         writeFields(recordName, container, fields, names);
+         m_writer.writeEndObject();
+         m_writer.writeNewLine();
+      }
+      else
+      {
+         writeFields(null, container, fields, names);
+      }
+   }
+
    /**
     * Write a set of fields from a field container to a JSON file.
     * @param objectName name of the object, or null if no name required
     * @param container field container
     * @param fields fields to write
+    * @param names field names
     */
-   private void writeFields(String objectName, FieldContainer container, FieldType[] fields) throws IOException
+   private void writeFields(String objectName, FieldContainer container, List<? extends FieldType> fields, String[] names) throws IOException
    {
       m_writer.writeStartObject(objectName);
       for (FieldType field : fields)
@@ -260,24 +368,12 @@ public final class JsonWriter extends AbstractProjectWriter
          Object value = container.getCurrentValue(field);
          if (value != null)
          {
-            writeField(field, value);
+            writeField(names[field.getValue()], field.getDataType(), value);
          }
       }
       m_writer.writeEndObject();
    }
 
-   /**
-    * Write the appropriate data for a field to the JSON file based on its type.
-    *
-    * @param field field type
-    * @param value field value
-    */
-   private void writeField(FieldType field, Object value) throws IOException
-   {
-      String fieldName = field.name().toLowerCase();
-      writeField(fieldName, field.getDataType(), value);
-   }
-
    /**
     * Write the appropriate data for a field to the JSON file based on its type.
     *
@@ -537,13 +633,41 @@ public final class JsonWriter extends AbstractProjectWriter
       }
    }
 
+   /**
+    * Generate the attribute names used for a set of fields,
+    * indexed by field value.
+    *
+    * @param fields fields
+    * @return attribute names
+    */
+   private static String[] getFieldNames(FieldType[] fields)
+   {
+      String[] names = new String[fields.length];
+      for (FieldType field : fields)
+      {
+         names[field.getValue()] = field.name().toLowerCase();
+      }
+      return names;
+   }
+
    private ProjectFile m_projectFile;
    private JsonStreamWriter m_writer;
    private boolean m_pretty;
+   private boolean m_newlineDelimited;
    private Charset m_encoding = DEFAULT_ENCODING;
 
    private static final Charset DEFAULT_ENCODING = CharsetHelper.UTF8;
 
+   private static final ProjectField[] PROJECT_FIELDS = ProjectField.values();
+   private static final ResourceField[] RESOURCE_FIELDS = ResourceField.values();
+   private static final TaskField[] TASK_FIELDS = TaskField.values();
+   private static final AssignmentField[] ASSIGNMENT_FIELDS = AssignmentField.values();
+
+   private static final String[] PROJECT_FIELD_NAMES = getFieldNames(PROJECT_FIELDS);
+   private static final String[] RESOURCE_FIELD_NAMES = getFieldNames(RESOURCE_FIELDS);
+   private static final String[] TASK_FIELD_NAMES = getFieldNames(TASK_FIELDS);
+   private static final String[] ASSIGNMENT_FIELD_NAMES = getFieldNames(ASSIGNMENT_FIELDS);
+
    private static Map<String, DataType> TYPE_MAP = new HashMap<String, DataType>();
    static
    {
@@ -34,7 +34,9 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -72,7 +74,7 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
@@ -86,7 +88,7 @@ import org.xml.sax.InputSource;
  * file, or the read methods that accept a file name or a File object can be pointed at
  * the top level directory.
  */
-public class MerlinReader implements ProjectReader
+public class MerlinReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -165,17 +167,10 @@ public class MerlinReader implements ProjectReader
          String url = "jdbc:sqlite:" + file.getAbsolutePath();
          Properties props = new Properties();
          m_connection = org.sqlite.JDBC.createConnection(url, props);
-
-         m_documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-
-         XPathFactory xPathfactory = XPathFactory.newInstance();
-         XPath xpath = xPathfactory.newXPath();
-         m_dayTimeIntervals = xpath.compile("/array/dayTimeInterval");
-
          return read();
       }
 
-      catch (Exception ex)
+      catch (SQLException ex)
       {
          throw new MPXJException(MPXJException.INVALID_FORMAT, ex);
       }
@@ -194,40 +189,69 @@ public class MerlinReader implements ProjectReader
                // silently ignore exceptions when closing connection
             }
          }
-
-         m_documentBuilder = null;
-         m_dayTimeIntervals = null;
       }
    }
 
    /**
-    * Read the project data and return a ProjectFile instance.
+    * Set the connection to an open SQLite database from which the project
+    * will be read. The caller retains ownership of the connection.
+    *
+    * @param connection database connection
+    */
+   public void setConnection(Connection connection)
+   {
+      m_connection = connection;
+   }
+
+   /**
+    * Read a project from the current connection.
     *
     * @return ProjectFile instance
     */
-   private ProjectFile read() throws Exception
+   public ProjectFile read() throws MPXJException
    {
-      m_project = new ProjectFile();
-      m_eventManager = m_project.getEventManager();
+      try
+      {
+         m_documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+
+         XPathFactory xPathfactory = XPathFactory.newInstance();
+         XPath xpath = xPathfactory.newXPath();
+         m_dayTimeIntervals = xpath.compile("/array/dayTimeInterval");
+
+         m_project = new ProjectFile();
+         m_eventManager = m_project.getEventManager();
 
-      ProjectConfig config = m_project.getProjectConfig();
-      config.setAutoCalendarUniqueID(false);
-      config.setAutoTaskUniqueID(false);
-      config.setAutoResourceUniqueID(false);
+         ProjectConfig config = m_project.getProjectConfig();
+         config.setFieldStoreFactory(getFieldStoreFactory());
+         config.setAutoCalendarUniqueID(false);
+         config.setAutoTaskUniqueID(false);
+         config.setAutoResourceUniqueID(false);
 
-      m_project.getProjectProperties().setFileApplication("Merlin");
-      m_project.getProjectProperties().setFileType("SQLITE");
+         m_project.getProjectProperties().setFileApplication("Merlin");
+         m_project.getProjectProperties().setFileType("SQLITE");
 
-      m_eventManager.addProjectListeners(m_projectListeners);
+         m_eventManager.addProjectListeners(m_projectListeners);
 
-      processProject();
-      processCalendars();
-      processResources();
-      processTasks();
-      processAssignments();
-      processDependencies();
+         processProject();
+         processCalendars();
+         processResources();
+         processTasks();
+         processAssignments();
+         processDependencies();
 
-      return m_project;
+         return m_project;
+      }
+
+      catch (Exception ex)
+      {
+         throw new MPXJException(MPXJException.INVALID_FORMAT, ex);
+      }
+
+      finally
+      {
+         m_documentBuilder = null;
+         m_dayTimeIntervals = null;
+      }
    }
 
    /**
@@ -253,14 +277,32 @@ public class MerlinReader implements ProjectReader
     */
    private void processCalendars() throws Exception
    {
+      //
+      // Read all of the calendar rules in one query, then
+      // index them by the calendar they belong to.
+      //
+      Map<Integer, List<Row>> dayMap = new HashMap<Integer, List<Row>>();
+      Map<Integer, List<Row>> exceptionMap = new HashMap<Integer, List<Row>>();
+      for (Row row : getRows("select * from zcalendarrule where z_ent=12 or z_ent=13"))
+      {
+         if (row.getInt("Z_ENT") == 13)
+         {
+            addToIndex(dayMap, row.getInteger("ZCALENDAR1"), row);
+         }
+         else
+         {
+            addToIndex(exceptionMap, row.getInteger("ZCALENDAR"), row);
+         }
+      }
+
       List<Row> rows = getRows("select * from zcalendar where zproject=?", m_projectID);
       for (Row row : rows)
       {
          ProjectCalendar calendar = m_project.addCalendar();
          calendar.setUniqueID(row.getInteger("Z_PK"));
          calendar.setName(row.getString("ZTITLE"));
-         processDays(calendar);
-         processExceptions(calendar);
+         processDays(calendar, getIndexedRows(dayMap, calendar.getUniqueID()));
+         processExceptions(calendar, getIndexedRows(exceptionMap, calendar.getUniqueID()));
          m_eventManager.fireCalendarReadEvent(calendar);
       }
    }
@@ -269,8 +311,9 @@ public class MerlinReader implements ProjectReader
     * Process normal calendar working and non-working days.
     *
     * @param calendar parent calendar
+    * @param rows calendar rules for normal days
     */
-   private void processDays(ProjectCalendar calendar) throws Exception
+   private void processDays(ProjectCalendar calendar, List<Row> rows) throws Exception
    {
       // Default all days to non-working
       for (Day day : Day.values())
@@ -278,7 +321,6 @@ public class MerlinReader implements ProjectReader
          calendar.setWorkingDay(day, false);
       }
 
-      List<Row> rows = getRows("select * from zcalendarrule where zcalendar1=? and z_ent=13", calendar.getUniqueID());
       for (Row row : rows)
       {
          Day day = row.getDay("ZWEEKDAY");
@@ -317,10 +359,10 @@ public class MerlinReader implements ProjectReader
     * Process calendar exceptions.
     *
     * @param calendar parent calendar.
+    * @param rows calendar rules for exceptions
     */
-   private void processExceptions(ProjectCalendar calendar) throws Exception
+   private void processExceptions(ProjectCalendar calendar, List<Row> rows) throws Exception
    {
-      List<Row> rows = getRows("select * from zcalendarrule where zcalendar=? and z_ent=12", calendar.getUniqueID());
       for (Row row : rows)
       {
          Date startDay = row.getDate("ZSTARTDAY");
@@ -394,31 +436,48 @@ public class MerlinReader implements ProjectReader
    private void processTasks() throws SQLException
    {
       //
-      // Yes... we could probably read this in one query in the right order
-      // using a CTE... but life's too short.
+      // Read all of the activities in one query, then index
+      // them by parent activity to build the hierarchy.
       //
-      List<Row> rows = getRows("select * from zscheduleitem where zproject=? and zparentactivity_ is null and z_ent=45 order by zorderinparentactivity", m_projectID);
-      for (Row row : rows)
+      List<Row> topLevelRows = new ArrayList<Row>();
+      Map<Integer, List<Row>> childMap = new HashMap<Integer, List<Row>>();
+      for (Row row : getRows("select * from zscheduleitem where z_ent=45 order by zorderinparentactivity"))
+      {
+         Integer parentID = row.getInteger("ZPARENTACTIVITY_");
+         if (parentID == null)
+         {
+            if (NumberHelper.equals(m_projectID, row.getInteger("ZPROJECT")))
+            {
+               topLevelRows.add(row);
+            }
+         }
+         else
+         {
+            addToIndex(childMap, parentID, row);
+         }
+      }
+
+      for (Row row : topLevelRows)
       {
          Task task = m_project.addTask();
          populateTask(row, task);
-         processChildTasks(task);
+         processChildTasks(childMap, task);
       }
    }
 
    /**
     * Read all child tasks for a given parent.
     *
+    * @param childMap activities indexed by parent activity
     * @param parentTask parent task
     */
-   private void processChildTasks(Task parentTask) throws SQLException
+   private void processChildTasks(Map<Integer, List<Row>> childMap, Task parentTask)
    {
-      List<Row> rows = getRows("select * from zscheduleitem where zparentactivity_=? and z_ent=45 order by zorderinparentactivity", parentTask.getUniqueID());
-      for (Row row : rows)
+      for (Row row : getIndexedRows(childMap, parentTask.getUniqueID()))
       {
          Task task = parentTask.addTask();
          populateTask(row, task);
-         processChildTasks(task);
+         processChildTasks(childMap, task);
       }
    }
 
@@ -599,46 +658,102 @@ public class MerlinReader implements ProjectReader
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query
-    * which takes a single parameter.
+    * Add a row to an index of rows keyed by a parent ID.
+    *
+    * @param index row index
+    * @param key parent ID
+    * @param row row to add
+    */
+   private void addToIndex(Map<Integer, List<Row>> index, Integer key, Row row)
+   {
+      List<Row> list = index.get(key);
+      if (list == null)
+      {
+         list = new ArrayList<Row>();
+         index.put(key, list);
+      }
+      list.add(row);
+   }
+
+   /**
+    * Retrieve the rows for a parent ID from an index.
+    *
+    * @param index row index
+    * @param key parent ID
+    * @return list of rows, empty if none were found
+    */
+   private List<Row> getIndexedRows(Map<Integer, List<Row>> index, Integer key)
+   {
+      List<Row> result = index.get(key);
+      if (result == null)
+      {
+         result = Collections.emptyList();
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve a number of rows matching the supplied query.
     *
     * @param sql query statement
-    * @param var bind variable value
+    * @param vars bind variable values
     * @return result set
     * @throws SQLException
     */
-   private List<Row> getRows(String sql, Integer var) throws SQLException
+   private List<Row> getRows(String sql, Integer... vars) throws SQLException
    {
-      List<Row> result = new LinkedList<Row>();
+      List<Row> result = new ArrayList<Row>();
 
       m_ps = m_connection.prepareStatement(sql);
-      m_ps.setInt(1, NumberHelper.getInt(var));
-      m_rs = m_ps.executeQuery();
-      populateMetaData();
-      while (m_rs.next())
+      try
       {
-         result.add(new SqliteResultSetRow(m_rs, m_meta));
+         for (int index = 0; index < vars.length; index++)
+         {
+            m_ps.setInt(index + 1, NumberHelper.getInt(vars[index]));
+         }
+
+         m_rs = m_ps.executeQuery();
+         populateMetaData();
+         while (m_rs.next())
+         {
+            result.add(new SqliteResultSetRow(m_rs, m_columns, m_columnTypes));
+         }
+      }
+
+      finally
+      {
+         m_ps.close();
+         m_ps = null;
+         m_rs = null;
       }
 
       return (result);
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Retrieves basic meta data from the result set: a map of column
+    * names to column indexes, allowing each row to read its values by
+    * column index rather than by name, and the type of each column.
+    * Where a name appears more than once the first column is used,
+    * matching the behaviour of reading the column by name.
     *
     * @throws SQLException
     */
    private void populateMetaData() throws SQLException
    {
-      m_meta.clear();
+      m_columns.clear();
 
       ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
+      int columnCount = meta.getColumnCount();
+      m_columnTypes = new int[columnCount + 1];
+      for (int loop = 1; loop <= columnCount; loop++)
       {
-         String name = meta.getColumnName(loop);
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
+         String name = meta.getColumnName(loop).toUpperCase();
+         if (!m_columns.containsKey(name))
+         {
+            m_columns.put(name, Integer.valueOf(loop));
+         }
+         m_columnTypes[loop] = meta.getColumnType(loop);
       }
    }
 
@@ -661,7 +776,8 @@ public class MerlinReader implements ProjectReader
    private Connection m_connection;
    private PreparedStatement m_ps;
    private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private Map<String, Integer> m_columns = new HashMap<String, Integer>();
+   private int[] m_columnTypes;
    private List<ProjectListener> m_projectListeners;
    private DocumentBuilder m_documentBuilder;
    private DateFormat m_calendarTimeFormat = new SimpleDateFormat("HH:mm:ss");
@@ -43,17 +43,19 @@ final class SqliteResultSetRow extends MapRow
     * Constructor.
     *
     * @param rs result set from which data is drawn
-    * @param meta result set meta data
+    * @param columns map of column names to column indexes
+    * @param types column types, indexed by column index
     */
-   public SqliteResultSetRow(ResultSet rs, Map<String, Integer> meta)
+   public SqliteResultSetRow(ResultSet rs, Map<String, Integer> columns, int[] types)
       throws SQLException
    {
       super(new HashMap<String, Object>());
 
-      for (Entry<String, Integer> entry : meta.entrySet())
+      for (Entry<String, Integer> entry : columns.entrySet())
       {
-         String name = entry.getKey().toUpperCase();
-         int type = (entry.getValue()).intValue();
+         String name = entry.getKey();
+         int column = entry.getValue().intValue();
+         int type = types[column];
          Object value;
 
          switch (type)
@@ -61,7 +63,7 @@ final class SqliteResultSetRow extends MapRow
             case Types.BIT:
             case Types.BOOLEAN:
             {
-               value = Boolean.valueOf(rs.getBoolean(name));
+               value = Boolean.valueOf(rs.getBoolean(column));
                break;
             }
 
@@ -70,27 +72,27 @@ final class SqliteResultSetRow extends MapRow
             case Types.LONGVARCHAR:
             case Types.CLOB:
             {
-               value = rs.getString(name);
+               value = rs.getString(column);
                break;
             }
 
             case Types.DATE:
             {
-               String stringValue = rs.getString(name);
+               String stringValue = rs.getString(column);
                if (stringValue == null || stringValue.isEmpty())
                {
                   value = null;
                }
                else
                {
-                  value = rs.getDate(name);
+                  value = rs.getDate(column);
                }
                break;
             }
 
             case Types.TIMESTAMP:
             {
-               Timestamp ts = rs.getTimestamp(name);
+               Timestamp ts = rs.getTimestamp(column);
                if (ts != null)
                {
                   value = new Date(ts.getTime());
@@ -106,20 +108,20 @@ final class SqliteResultSetRow extends MapRow
             case Types.NUMERIC:
             case Types.FLOAT:
             {
-               value = NumberHelper.getDouble(rs.getDouble(name));
+               value = NumberHelper.getDouble(rs.getDouble(column));
                break;
             }
 
             case Types.INTEGER:
             case Types.SMALLINT:
             {
-               value = Integer.valueOf(rs.getInt(name));
+               value = Integer.valueOf(rs.getInt(column));
                break;
             }
 
             case Types.BIGINT:
             {
-               value = Long.valueOf(rs.getLong(name));
+               value = Long.valueOf(rs.getLong(column));
                break;
             }
 
@@ -127,13 +129,13 @@ final class SqliteResultSetRow extends MapRow
             case Types.VARBINARY:
             case Types.LONGVARBINARY:
             {
-               value = rs.getBytes(name);
+               value = rs.getBytes(column);
                break;
             }
 
             case Types.OTHER:
             {
-               value = rs.getObject(name);
+               value = rs.getObject(column);
                break;
             }
 
@@ -44,6 +44,7 @@ import net.sf.mpxj.ProjectConfig;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.SubProject;
 import net.sf.mpxj.Task;
+import net.sf.mpxj.common.FieldStoreFactory;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
 
@@ -108,6 +109,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
          m_eventManager = m_project.getEventManager();
 
          ProjectConfig config = m_project.getProjectConfig();
+         config.setFieldStoreFactory(m_fieldStoreFactory);
          config.setAutoTaskID(false);
          config.setAutoTaskUniqueID(false);
          config.setAutoResourceID(false);
@@ -662,6 +664,17 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       queryDatabaseMetaData();
    }
 
+   /**
+    * Sets the factory used to create the storage which holds field values
+    * for the tasks, resources and resource assignments read.
+    *
+    * @param factory field store factory
+    */
+   public void setFieldStoreFactory(FieldStoreFactory factory)
+   {
+      m_fieldStoreFactory = factory;
+   }
+
    /**
     * Queries database meta data to check for the existence of
     * specific tables.
@@ -709,6 +722,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    }
 
    private DataSource m_dataSource;
+   private FieldStoreFactory m_fieldStoreFactory = FieldStoreFactory.DENSE;
    private boolean m_allocatedConnection;
    private Connection m_connection;
    private PreparedStatement m_ps;
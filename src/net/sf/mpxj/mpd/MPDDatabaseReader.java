@@ -37,13 +37,13 @@ import javax.sql.DataSource;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a database.
  */
-public final class MPDDatabaseReader implements ProjectReader
+public final class MPDDatabaseReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -83,6 +83,7 @@ public final class MPDDatabaseReader implements ProjectReader
       reader.setPreserveNoteFormatting(m_preserveNoteFormatting);
       reader.setDataSource(m_dataSource);
       reader.setConnection(m_connection);
+      reader.setFieldStoreFactory(getFieldStoreFactory());
       ProjectFile project = reader.read();
       return (project);
    }
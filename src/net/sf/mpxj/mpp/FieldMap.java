@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -49,6 +50,7 @@ import net.sf.mpxj.ResourceRequestType;
 import net.sf.mpxj.TaskType;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.WorkGroup;
+import net.sf.mpxj.common.DeferredFieldValue;
 import net.sf.mpxj.common.NumberHelper;
 
 /**
@@ -182,7 +184,7 @@ abstract class FieldMap
          //         {
          //            System.out.println(MPPUtility.hexdump(data, index, 28, false) + " " + item + " mpxjDataType=" + item.getType().getDataType() + " index=" + index);
          //         }
-         m_map.put(type, item);
+         addItem(item);
 
          index += 28;
       }
@@ -267,6 +269,8 @@ abstract class FieldMap
       {
          createFieldMap(fieldMapData);
       }
+
+      prepareDecoders();
    }
 
    /**
@@ -294,6 +298,8 @@ abstract class FieldMap
       {
          createFieldMap(fieldMapData);
       }
+
+      prepareDecoders();
    }
 
    /**
@@ -327,7 +333,7 @@ abstract class FieldMap
             {
                int varDataKey = (typeValue & 0xFFFF);
                FieldItem item = new FieldItem(type, FieldLocation.VAR_DATA, 0, 0, varDataKey, 0, 0);
-               m_map.put(type, item);
+               addItem(item);
                //System.out.println(item);
             }
             //System.out.println((type == null ? "?" : type.getClass().getSimpleName() + "." + type) + " " + Integer.toHexString(typeValue));
@@ -335,6 +341,8 @@ abstract class FieldMap
             index += 4;
          }
       }
+
+      prepareDecoders();
    }
 
    /**
@@ -362,6 +370,8 @@ abstract class FieldMap
       {
          createFieldMap(fieldMapData);
       }
+
+      prepareDecoders();
    }
 
    /**
@@ -390,6 +400,8 @@ abstract class FieldMap
       {
          createFieldMap(fieldMapData);
       }
+
+      prepareDecoders();
    }
 
    /**
@@ -402,7 +414,7 @@ abstract class FieldMap
    {
       for (FieldItem item : defaultData)
       {
-         m_map.put(item.getType(), item);
+         addItem(item);
       }
    }
 
@@ -418,17 +430,125 @@ abstract class FieldMap
     */
    public void populateContainer(Class<? extends FieldType> type, FieldContainer container, Integer id, byte[][] fixedData, Var2Data varData)
    {
-      //System.out.println(container.getClass().getSimpleName()+": " + id);
+      FieldItem[] items = getDecoders(type);
+
+      if (m_lazyDecoding)
+      {
+         DeferredFieldData deferred = new DeferredFieldData(getFieldItemIndex(type), id, fixedData, varData);
+         for (FieldItem item : items)
+         {
+            container.set(item.getType(), deferred);
+         }
+      }
+      else
+      {
+         for (FieldItem item : items)
+         {
+            container.set(item.getType(), item.read(id, fixedData, varData));
+         }
+      }
+   }
+
+   /**
+    * Retrieve the field items for a particular field type class. These are
+    * prepared once when the field map is created, allowing containers to
+    * be populated without searching the map for each row of data.
+    *
+    * @param type field type class
+    * @return field items
+    */
+   private FieldItem[] getDecoders(Class<? extends FieldType> type)
+   {
+      prepareDecoders();
+      FieldItem[] result = m_decoders.get(type);
+      return result == null ? EMPTY_ITEMS : result;
+   }
+
+   /**
+    * Retrieve an array of the field items for a particular field type class,
+    * indexed by the field value.
+    *
+    * @param type field type class
+    * @return field items indexed by field value
+    */
+   private FieldItem[] getFieldItemIndex(Class<? extends FieldType> type)
+   {
+      prepareDecoders();
+      FieldItem[] result = m_fieldItemIndex.get(type);
+      return result == null ? EMPTY_ITEMS : result;
+   }
+
+   /**
+    * Group the field items by field type class, and resolve any
+    * dependencies between items so that they don't need to be
+    * looked up when each value is read.
+    */
+   private void prepareDecoders()
+   {
+      if (m_decodersPrepared)
+      {
+         return;
+      }
+
+      Map<Class<? extends FieldType>, List<FieldItem>> map = new HashMap<Class<? extends FieldType>, List<FieldItem>>();
       for (FieldItem item : m_map.values())
       {
-         if (item.getType().getClass().equals(type))
+         item.prepare();
+
+         Class<? extends FieldType> type = item.getType().getClass();
+         List<FieldItem> list = map.get(type);
+         if (list == null)
          {
-            //System.out.println(item.m_type);
-            Object value = item.read(id, fixedData, varData);
-            //System.out.println(item.m_type.getClass().getSimpleName() + "." + item.m_type +  ": " + value);
-            container.set(item.getType(), value);
+            list = new ArrayList<FieldItem>();
+            map.put(type, list);
          }
+         list.add(item);
       }
+
+      m_decoders.clear();
+      m_fieldItemIndex.clear();
+      for (Entry<Class<? extends FieldType>, List<FieldItem>> entry : map.entrySet())
+      {
+         List<FieldItem> list = entry.getValue();
+         m_decoders.put(entry.getKey(), list.toArray(new FieldItem[list.size()]));
+
+         int maxValue = 0;
+         for (FieldItem item : list)
+         {
+            maxValue = Math.max(maxValue, item.getType().getValue() + 1);
+         }
+
+         FieldItem[] index = new FieldItem[maxValue];
+         for (FieldItem item : list)
+         {
+            index[item.getType().getValue()] = item;
+         }
+         m_fieldItemIndex.put(entry.getKey(), index);
+      }
+
+      m_decodersPrepared = true;
+   }
+
+   /**
+    * Add an item to the field map.
+    *
+    * @param item field item
+    */
+   private void addItem(FieldItem item)
+   {
+      m_map.put(item.getType(), item);
+      m_decodersPrepared = false;
+   }
+
+   /**
+    * Determines whether field values are decoded when the container
+    * is populated, or when each field is first retrieved.
+    *
+    * @param lazyDecoding true if field values are decoded when first retrieved
+    */
+   public void setLazyDecoding(boolean lazyDecoding)
+   {
+      m_lazyDecoding = lazyDecoding;
    }
 
    /**
@@ -535,6 +655,7 @@ abstract class FieldMap
       FieldItem item = m_map.get(type);
       if (item != null)
       {
+         prepareDecoders();
          result = item.read(id, fixedData, varData);
       }
 
@@ -557,6 +678,7 @@ abstract class FieldMap
    public void clear()
    {
       m_map.clear();
+      m_decodersPrepared = false;
       Arrays.fill(m_maxFixedDataSize, 0);
    }
 
@@ -684,6 +806,44 @@ abstract class FieldMap
       pw.close();
       return sw.toString();
    }
+
+   /**
+    * Holds the raw data blocks for an entity, allowing individual
+    * field values to be decoded on demand.
+    */
+   private class DeferredFieldData implements DeferredFieldValue
+   {
+      /**
+       * Constructor.
+       *
+       * @param items field items indexed by field value
+       * @param id entity ID
+       * @param fixedData fixed data block
+       * @param varData var data block
+       */
+      DeferredFieldData(FieldItem[] items, Integer id, byte[][] fixedData, Var2Data varData)
+      {
+         m_items = items;
+         m_id = id;
+         m_fixedData = fixedData;
+         m_varData = varData;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object getValue(int index)
+      {
+         FieldItem item = index < m_items.length ? m_items[index] : null;
+         return item == null ? null : item.read(m_id, m_fixedData, m_varData);
+      }
+
+      private final FieldItem[] m_items;
+      private final Integer m_id;
+      private final byte[][] m_fixedData;
+      private final Var2Data m_varData;
+   }
+
    /**
     * Enumeration representing the location of field data.
     */
@@ -722,6 +882,28 @@ abstract class FieldMap
          m_varDataKey = Integer.valueOf(varDataKey);
          m_mask = mask;
          m_metaBlock = metaBlock;
+         m_dataType = type.getDataType();
+      }
+
+      /**
+       * Resolve the item used to read the units for a duration field.
+       */
+      void prepare()
+      {
+         m_unitsItem = m_dataType == DataType.DURATION ? m_map.get(m_type.getUnitsType()) : null;
+      }
+
+      /**
+       * Read the units for a duration field.
+       *
+       * @param id parent entity ID
+       * @param fixedData fixed data block
+       * @param varData var data block
+       * @return duration units
+       */
+      private TimeUnit readUnits(Integer id, byte[][] fixedData, Var2Data varData)
+      {
+         return m_unitsItem == null ? null : (TimeUnit) m_unitsItem.read(id, fixedData, varData);
       }
 
       /**
@@ -789,7 +971,7 @@ abstract class FieldMap
             byte[] data = fixedData[m_fixedDataBlockIndex];
             if (data != null && m_fixedDataOffset < data.length)
             {
-               switch (m_type.getDataType())
+               switch (m_dataType)
                {
                   case DATE:
                   {
@@ -805,8 +987,7 @@ abstract class FieldMap
 
                   case DURATION:
                   {
-                     FieldType unitsType = m_type.getUnitsType();
-                     TimeUnit units = (TimeUnit) getFieldData(id, unitsType, fixedData, varData);
+                     TimeUnit units = readUnits(id, fixedData, varData);
                      if (units == null)
                      {
                         units = getProjectProperties().getDefaultDurationUnits();
@@ -955,12 +1136,11 @@ abstract class FieldMap
       {
          Object result = null;
 
-         switch (m_type.getDataType())
+         switch (m_dataType)
          {
             case DURATION:
             {
-               FieldType unitsType = m_type.getUnitsType();
-               TimeUnit units = (TimeUnit) getFieldData(id, unitsType, fixedData, varData);
+               TimeUnit units = readUnits(id, fixedData, varData);
                if (units == null)
                {
                   units = TimeUnit.HOURS;
@@ -1426,11 +1606,17 @@ abstract class FieldMap
       private Integer m_varDataKey;
       private long m_mask;
       private int m_metaBlock;
+      private final DataType m_dataType;
+      private FieldItem m_unitsItem;
    }
 
    private ProjectProperties m_properties;
    protected CustomFieldContainer m_customFields;
    private Map<FieldType, FieldItem> m_map = new HashMap<FieldType, FieldItem>();
+   private Map<Class<? extends FieldType>, FieldItem[]> m_decoders = new HashMap<Class<? extends FieldType>, FieldItem[]>();
+   private Map<Class<? extends FieldType>, FieldItem[]> m_fieldItemIndex = new HashMap<Class<? extends FieldType>, FieldItem[]>();
+   private boolean m_decodersPrepared;
+   private boolean m_lazyDecoding;
    private int[] m_maxFixedDataSize = new int[MAX_FIXED_DATA_BLOCKS];
 
    private static final Integer[] TASK_KEYS =
@@ -1464,4 +1650,6 @@ abstract class FieldMap
    private static final int VALUE_LIST_MASK = 0x0700;
 
    private static final int MAX_FIXED_DATA_BLOCKS = 2;
+
+   private static final FieldItem[] EMPTY_ITEMS = new FieldItem[0];
 }
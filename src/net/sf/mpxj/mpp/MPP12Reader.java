@@ -1240,9 +1240,11 @@ final class MPP12Reader implements MPPVariantReader
    private void processTaskData() throws IOException
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createTaskFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, TaskField.class);
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
@@ -1992,9 +1994,11 @@ final class MPP12Reader implements MPPVariantReader
    private void processResourceData() throws IOException
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createResourceFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, ResourceField.class);
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
@@ -2145,9 +2149,11 @@ final class MPP12Reader implements MPPVariantReader
    private void processAssignmentData() throws IOException
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createAssignmentFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, AssignmentField.class);
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
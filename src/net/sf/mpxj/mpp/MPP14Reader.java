@@ -1272,9 +1272,11 @@ final class MPP14Reader implements MPPVariantReader
    private void processTaskData() throws IOException
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createTaskFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, TaskField.class);
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
@@ -1902,9 +1904,11 @@ final class MPP14Reader implements MPPVariantReader
    private void processResourceData() throws IOException
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createResourceFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, ResourceField.class);
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
@@ -2055,9 +2059,11 @@ final class MPP14Reader implements MPPVariantReader
    private void processAssignmentData() throws IOException
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createAssignmentFieldMap(m_projectProps);
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
+      enterpriseCustomFieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, AssignmentField.class);
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
@@ -1281,6 +1281,7 @@ final class MPP9Reader implements MPPVariantReader
    private void processTaskData() throws IOException
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createTaskFieldMap(m_projectProps);
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
@@ -1975,6 +1976,7 @@ final class MPP9Reader implements MPPVariantReader
    private void processResourceData() throws IOException
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createResourceFieldMap(m_projectProps);
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
@@ -2105,6 +2107,7 @@ final class MPP9Reader implements MPPVariantReader
    private void processAssignmentData() throws IOException
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
+      fieldMap.setLazyDecoding(m_reader.getLazyFieldDecoding());
       fieldMap.createAssignmentFieldMap(m_projectProps);
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
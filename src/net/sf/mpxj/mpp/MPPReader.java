@@ -23,6 +23,7 @@
 
 package net.sf.mpxj.mpp;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -88,6 +89,34 @@ public final class MPPReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * {@inheritDoc}
+    *
+    * The compound document is accessed via a read-only file backed
+    * file system, which memory maps the file rather than copying
+    * the whole document onto the heap.
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      POIFSFileSystem fs = null;
+
+      try
+      {
+         fs = new POIFSFileSystem(file, true);
+         return read(fs);
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         closeQuietly(fs);
+      }
+   }
+
    /**
     * This method allows us to peek into the OLE compound document to extract the file format.
     * This allows the UniversalProjectReader to determine if this is an MPP file, or if
@@ -124,6 +153,7 @@ public final class MPPReader extends AbstractProjectReader
          ProjectFile projectFile = new ProjectFile();
          ProjectConfig config = projectFile.getProjectConfig();
 
+         config.setFieldStoreFactory(getFieldStoreFactory());
          config.setAutoTaskID(false);
          config.setAutoTaskUniqueID(false);
          config.setAutoResourceID(false);
@@ -207,6 +237,27 @@ public final class MPPReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Close a file system, ignoring any errors.
+    *
+    * @param fs file system to close
+    */
+   private void closeQuietly(POIFSFileSystem fs)
+   {
+      if (fs != null)
+      {
+         try
+         {
+            fs.close();
+         }
+
+         catch (IOException ex)
+         {
+            // Silently ignore exceptions on close
+         }
+      }
+   }
+
    /**
     * This method validates all relationships for a task, removing
     * any which have been incorrectly read from the MPP file and
@@ -307,6 +358,33 @@ public final class MPPReader extends AbstractProjectReader
       m_readPresentationData = readPresentationData;
    }
 
+   /**
+    * Retrieves a flag which indicates whether task, resource and
+    * assignment field values are decoded when they are first accessed,
+    * rather than when the file is read.
+    *
+    * @return lazy field decoding flag
+    */
+   public boolean getLazyFieldDecoding()
+   {
+      return m_lazyFieldDecoding;
+   }
+
+   /**
+    * Setting this flag to true defers decoding task, resource and assignment
+    * field values until each field is first accessed. This saves time where
+    * only a few fields are read from each entity, at the expense of
+    * retaining the raw data from the file until the fields are decoded.
+    * As decoding updates the entity, a ProjectFile read in this
+    * mode should not be accessed from multiple threads concurrently.
+    *
+    * @param lazyFieldDecoding true if lazy field decoding is required
+    */
+   public void setLazyFieldDecoding(boolean lazyFieldDecoding)
+   {
+      m_lazyFieldDecoding = lazyFieldDecoding;
+   }
+
    /**
     * Flag to determine if the reader should only read the project properties.
     * This allows for rapid access to the document properties, without the
@@ -396,6 +474,11 @@ public final class MPPReader extends AbstractProjectReader
    private boolean m_readPresentationData = true;
    private boolean m_readPropertiesOnly;
 
+   /**
+    * Flag to defer decoding field values until they are accessed.
+    */
+   private boolean m_lazyFieldDecoding;
+
    private String m_readPassword;
    private String m_writePassword;
    private List<ProjectListener> m_projectListeners;
@@ -23,8 +23,8 @@
 
 package net.sf.mpxj.mpp;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
 import net.sf.mpxj.Duration;
@@ -59,11 +59,12 @@ final class TimephasedDataFactory
     */
    public List<TimephasedWork> getCompleteWork(ProjectCalendar calendar, ResourceAssignment resourceAssignment, byte[] data)
    {
-      LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      List<TimephasedWork> list = new ArrayList<TimephasedWork>();
 
       if (calendar != null && data != null && data.length > 0)
       {
          Date startDate = resourceAssignment.getStart();
+         WorkCursor cursor = new WorkCursor(calendar, startDate);
          double finishTime = MPPUtility.getInt(data, 24);
 
          int blockCount = MPPUtility.getShort(data, 0);
@@ -107,7 +108,7 @@ final class TimephasedDataFactory
             }
             else
             {
-               start = calendar.getDate(startDate, startWork, true);
+               start = cursor.getDate(startWork, true);
             }
 
             TimephasedWork assignment = new TimephasedWork();
@@ -117,11 +118,11 @@ final class TimephasedDataFactory
 
             if (previousAssignment != null)
             {
-               Date finish = calendar.getDate(startDate, startWork, false);
+               Date finish = cursor.getDate(startWork, false);
                previousAssignment.setFinish(finish);
                if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
                {
-                  list.removeLast();
+                  list.remove(list.size() - 1);
                }
             }
 
@@ -135,11 +136,11 @@ final class TimephasedDataFactory
          if (previousAssignment != null)
          {
             Duration finishWork = Duration.getInstance(finishTime / 80, TimeUnit.MINUTES);
-            Date finish = calendar.getDate(startDate, finishWork, false);
+            Date finish = cursor.getDate(finishWork, false);
             previousAssignment.setFinish(finish);
             if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
             {
-               list.removeLast();
+               list.remove(list.size() - 1);
             }
          }
       }
@@ -161,7 +162,7 @@ final class TimephasedDataFactory
     */
    public List<TimephasedWork> getPlannedWork(ProjectCalendar calendar, Date startDate, double units, byte[] data, List<TimephasedWork> timephasedComplete)
    {
-      LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      List<TimephasedWork> list = new ArrayList<TimephasedWork>();
 
       if (calendar != null && data != null && data.length > 0)
       {
@@ -207,6 +208,7 @@ final class TimephasedDataFactory
                offset = lastComplete.getFinish();
             }
 
+            WorkCursor cursor = new WorkCursor(calendar, offset);
             int index = 40;
             double previousCumulativeWork = 0;
             TimephasedWork previousAssignment = null;
@@ -225,7 +227,7 @@ final class TimephasedDataFactory
                }
                else
                {
-                  start = calendar.getDate(offset, blockDuration, true);
+                  start = cursor.getDate(blockDuration, true);
                }
 
                double currentCumulativeWork = MPPUtility.getDouble(data, index + 4);
@@ -251,11 +253,11 @@ final class TimephasedDataFactory
 
                if (previousAssignment != null)
                {
-                  Date finish = calendar.getDate(offset, blockDuration, false);
+                  Date finish = cursor.getDate(blockDuration, false);
                   previousAssignment.setFinish(finish);
                   if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
                   {
-                     list.removeLast();
+                     list.remove(list.size() - 1);
                   }
                }
 
@@ -271,11 +273,11 @@ final class TimephasedDataFactory
                double time = MPPUtility.getInt(data, 24);
                time /= 80;
                Duration blockDuration = Duration.getInstance(time, TimeUnit.MINUTES);
-               Date finish = calendar.getDate(offset, blockDuration, false);
+               Date finish = cursor.getDate(blockDuration, false);
                previousAssignment.setFinish(finish);
                if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
                {
-                  list.removeLast();
+                  list.remove(list.size() - 1);
                }
             }
          }
@@ -323,7 +325,7 @@ final class TimephasedDataFactory
 
       if (data != null && data.length > 0)
       {
-         LinkedList<TimephasedWork> list = null;
+         List<TimephasedWork> list = null;
 
          //System.out.println(MPPUtility.hexdump(data, false));
          int index = 8; // 8 byte header
@@ -359,7 +361,7 @@ final class TimephasedDataFactory
 
                if (list == null)
                {
-                  list = new LinkedList<TimephasedWork>();
+                  list = new ArrayList<TimephasedWork>();
                }
                list.add(work);
                //System.out.println(work);
@@ -398,7 +400,7 @@ final class TimephasedDataFactory
 
       if (data != null && data.length > 0)
       {
-         LinkedList<TimephasedCost> list = null;
+         List<TimephasedCost> list = null;
 
          //System.out.println(MPPUtility.hexdump(data, false));
          int index = 16; // 16 byte header
@@ -421,7 +423,7 @@ final class TimephasedDataFactory
 
                if (list == null)
                {
-                  list = new LinkedList<TimephasedCost>();
+                  list = new ArrayList<TimephasedCost>();
                }
                list.add(cost);
                //System.out.println(cost);
@@ -442,6 +444,75 @@ final class TimephasedDataFactory
       return result;
    }
 
+   /**
+    * Timephased data blocks are positioned by the amount of work which
+    * has been carried out since a fixed start date. Rather than calculating
+    * the date of each block by walking the calendar from the start date,
+    * this class remembers the date reached for the previous block, and
+    * continues the calculation from there.
+    */
+   private static final class WorkCursor
+   {
+      /**
+       * Constructor.
+       *
+       * @param calendar calendar on which date calculations are based
+       * @param startDate date from which work is measured
+       */
+      public WorkCursor(ProjectCalendar calendar, Date startDate)
+      {
+         m_calendar = calendar;
+         m_startDate = startDate;
+      }
+
+      /**
+       * Calculate the date at which a given amount of work has been
+       * carried out. Requests are expected to be made in ascending order
+       * of work; if this is not the case, or if the calculation involves
+       * fractions of a minute, the date is calculated from the start date.
+       *
+       * @param work work carried out since the start date
+       * @param returnNextWorkStart if true, return the start of the next working period
+       * @return date
+       */
+      public Date getDate(Duration work, boolean returnNextWorkStart)
+      {
+         double minutes = NumberHelper.truncate(work.getDuration(), 2);
+
+         boolean wholeMinutes = minutes == Math.floor(minutes);
+
+         Date result;
+         if (m_date == null || minutes <= m_minutes || !wholeMinutes)
+         {
+            result = m_calendar.getDate(m_startDate, work, returnNextWorkStart);
+         }
+         else
+         {
+            result = m_calendar.getDate(m_date, Duration.getInstance(minutes - m_minutes, TimeUnit.MINUTES), returnNextWorkStart);
+         }
+
+         //
+         // The end of the work is the point from which subsequent
+         // calculations can continue. Calendar calculations truncate
+         // fractions of a minute, so we only continue from whole minutes
+         // to ensure we produce exactly the same dates as a calculation
+         // from the start date.
+         //
+         if (!returnNextWorkStart && wholeMinutes && result.getTime() % 60000 == 0)
+         {
+            m_minutes = minutes;
+            m_date = result;
+         }
+
+         return result;
+      }
+
+      private final ProjectCalendar m_calendar;
+      private final Date m_startDate;
+      private double m_minutes;
+      private Date m_date;
+   }
+
    /**
     * Equality test cost values.
     *
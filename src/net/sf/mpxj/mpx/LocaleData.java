@@ -28,6 +28,7 @@ import java.util.ListResourceBundle;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.mpxj.CodePage;
 import net.sf.mpxj.CurrencySymbolPosition;
@@ -50,6 +51,25 @@ public final class LocaleData extends ListResourceBundle
       return (RESOURCE_DATA);
    }
 
+   /**
+    * Retrieve the resource bundle for a locale. Bundles are cached here
+    * as the MPX reader and writer retrieve resources for each record,
+    * and ResourceBundle.getBundle is comparatively expensive.
+    *
+    * @param locale locale identifier
+    * @return resource bundle
+    */
+   private static ResourceBundle getBundle(Locale locale)
+   {
+      ResourceBundle bundle = BUNDLES.get(locale);
+      if (bundle == null)
+      {
+         bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+         BUNDLES.put(locale, bundle);
+      }
+      return bundle;
+   }
+
    /**
     * Convenience method for retrieving a String resource.
     *
@@ -59,7 +79,7 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final String getString(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return (bundle.getString(key));
    }
 
@@ -72,7 +92,7 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final String[] getStringArray(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return (bundle.getStringArray(key));
    }
 
@@ -85,7 +105,7 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final String[][] getStringArrays(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return ((String[][]) bundle.getObject(key));
    }
 
@@ -98,7 +118,7 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final Object getObject(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return (bundle.getObject(key));
    }
 
@@ -111,7 +131,7 @@ public final class LocaleData extends ListResourceBundle
     */
    @SuppressWarnings("rawtypes") public static final Map getMap(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return ((Map) bundle.getObject(key));
    }
 
@@ -124,7 +144,7 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final Integer getInteger(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return ((Integer) bundle.getObject(key));
    }
 
@@ -137,10 +157,12 @@ public final class LocaleData extends ListResourceBundle
     */
    public static final char getChar(Locale locale, String key)
    {
-      ResourceBundle bundle = ResourceBundle.getBundle(LocaleData.class.getName(), locale);
+      ResourceBundle bundle = getBundle(locale);
       return (bundle.getString(key).charAt(0));
    }
 
+   private static final Map<Locale, ResourceBundle> BUNDLES = new ConcurrentHashMap<Locale, ResourceBundle>();
+
    public static final String FILE_DELIMITER = "FILE_DELIMITER";
    public static final String PROGRAM_NAME = "PROGRAM_NAME";
    public static final String FILE_VERSION = "FILE_VERSION";
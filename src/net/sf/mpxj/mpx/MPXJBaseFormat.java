@@ -54,11 +54,23 @@ abstract class MPXJBaseFormat extends DateFormat
     */
    public void applyPatterns(String[] patterns)
    {
-      m_formats = new SimpleDateFormat[patterns.length];
+      SimpleDateFormat[] formats = new SimpleDateFormat[patterns.length];
       for (int index = 0; index < patterns.length; index++)
       {
-         m_formats[index] = new SimpleDateFormat(patterns[index]);
+         formats[index] = new SimpleDateFormat(patterns[index]);
       }
+      setFormats(formats);
+   }
+
+   /**
+    * Set the formats used to parse and format dates.
+    *
+    * @param formats SimpleDateFormat instances
+    */
+   protected void setFormats(SimpleDateFormat[] formats)
+   {
+      m_formats = formats;
+      m_parsers = null;
    }
 
    /**
@@ -83,8 +95,25 @@ abstract class MPXJBaseFormat extends DateFormat
          else
          {
             result = null;
+            NumericDateParser[] parsers = getParsers();
             for (int index = 0; index < m_formats.length; index++)
             {
+               NumericDateParser parser = parsers[index];
+               if (parser != null)
+               {
+                  pos.setErrorIndex(-1);
+                  result = parser.parse(str, pos);
+                  if (result != null)
+                  {
+                     break;
+                  }
+
+                  if (pos.getErrorIndex() != -1)
+                  {
+                     continue;
+                  }
+               }
+
                result = m_formats[index].parse(str, pos);
                if (pos.getIndex() != 0)
                {
@@ -116,6 +145,28 @@ abstract class MPXJBaseFormat extends DateFormat
          });
          format.setDateFormatSymbols(symbols);
       }
+      m_parsers = null;
+   }
+
+   /**
+    * Retrieve the parsers used for the common numeric date patterns,
+    * creating them if necessary. The array contains a parser for each
+    * format whose pattern is supported by NumericDateParser, and null
+    * for the other formats.
+    *
+    * @return array of parsers
+    */
+   private NumericDateParser[] getParsers()
+   {
+      if (m_parsers == null)
+      {
+         m_parsers = new NumericDateParser[m_formats.length];
+         for (int index = 0; index < m_formats.length; index++)
+         {
+            m_parsers[index] = NumericDateParser.getInstance(m_formats[index]);
+         }
+      }
+      return m_parsers;
    }
 
    /**
@@ -128,4 +179,5 @@ abstract class MPXJBaseFormat extends DateFormat
 
    protected String m_null = "NA";
    protected SimpleDateFormat[] m_formats;
+   private NumericDateParser[] m_parsers;
 }
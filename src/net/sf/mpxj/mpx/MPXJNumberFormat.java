@@ -93,7 +93,12 @@ public final class MPXJNumberFormat extends DecimalFormat
          }
          else
          {
-            result = super.parse(str, parsePosition);
+            result = parseSimpleNumber(str, parsePosition);
+            if (result == null)
+            {
+               result = super.parse(str, parsePosition);
+            }
+
             if (parsePosition.getIndex() == 0)
             {
                result = null;
@@ -121,6 +126,158 @@ public final class MPXJNumberFormat extends DecimalFormat
       return (result);
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setDecimalFormatSymbols(DecimalFormatSymbols newSymbols)
+   {
+      super.setDecimalFormatSymbols(newSymbols);
+      m_decimalSeparator = newSymbols.getDecimalSeparator();
+      m_groupingSeparator = newSymbols.getGroupingSeparator();
+      m_exponentSeparator = newSymbols.getExponentSeparator();
+      m_simpleParseSupported = m_decimalSeparator != m_groupingSeparator && m_decimalSeparator == newSymbols.getMonetaryDecimalSeparator() && newSymbols.getZeroDigit() == '0';
+   }
+
+   /**
+    * Parses the plain numbers which make up the majority of the values in
+    * an MPX file, consisting of the prefix and suffix from the primary
+    * pattern, ASCII digits and an optional decimal separator. The result
+    * is identical to the result from DecimalFormat. If the text is not in
+    * this form, null is returned and the caller falls back to the
+    * DecimalFormat parser.
+    *
+    * @param str text to parse
+    * @param parsePosition parse position
+    * @return parsed number, or null if the text can't be parsed here
+    */
+   private Number parseSimpleNumber(String str, ParsePosition parsePosition)
+   {
+      if (!m_simpleParseSupported || getMultiplier() != 1 || isParseBigDecimal() || isParseIntegerOnly())
+      {
+         return null;
+      }
+
+      //
+      // Match the prefix, preferring the longest as DecimalFormat does
+      //
+      String positivePrefix = getPositivePrefix();
+      String negativePrefix = getNegativePrefix();
+      boolean positive = str.startsWith(positivePrefix);
+      boolean negative = str.startsWith(negativePrefix);
+      if (positive && negative)
+      {
+         if (positivePrefix.length() > negativePrefix.length())
+         {
+            negative = false;
+         }
+         else
+         {
+            if (positivePrefix.length() < negativePrefix.length())
+            {
+               positive = false;
+            }
+         }
+      }
+
+      if (positive == negative)
+      {
+         return null;
+      }
+
+      //
+      // Read the integer and fraction digits
+      //
+      int length = str.length();
+      int index = positive ? positivePrefix.length() : negativePrefix.length();
+      int integerStart = index;
+      while (index < length && isAsciiDigit(str.charAt(index)))
+      {
+         ++index;
+      }
+      int integerEnd = index;
+
+      int fractionStart = index;
+      int fractionEnd = index;
+      if (index < length && str.charAt(index) == m_decimalSeparator)
+      {
+         fractionStart = ++index;
+         while (index < length && isAsciiDigit(str.charAt(index)))
+         {
+            ++index;
+         }
+         fractionEnd = index;
+      }
+
+      if (integerStart == integerEnd || (fractionEnd - fractionStart) + (integerEnd - integerStart) > MAX_SIMPLE_DIGITS)
+      {
+         return null;
+      }
+
+      //
+      // Anything following the number which DecimalFormat might treat
+      // as part of the number means we can't handle it here
+      //
+      if (index < length)
+      {
+         char c = str.charAt(index);
+         if (Character.isDigit(c) || c == m_decimalSeparator || c == m_groupingSeparator || str.startsWith(m_exponentSeparator, index))
+         {
+            return null;
+         }
+      }
+
+      //
+      // Match the suffix
+      //
+      String suffix = positive ? getPositiveSuffix() : getNegativeSuffix();
+      if (!str.startsWith(suffix, index))
+      {
+         return null;
+      }
+
+      //
+      // Ignore trailing zeros in the fraction, then determine if the value
+      // is returned as a Long or a Double.
+      //
+      while (fractionEnd > fractionStart && str.charAt(fractionEnd - 1) == '0')
+      {
+         --fractionEnd;
+      }
+
+      Number result;
+      if (fractionEnd == fractionStart)
+      {
+         long value = Long.parseLong(str.substring(integerStart, integerEnd));
+         if (value == 0 && !positive)
+         {
+            result = Double.valueOf(-0.0);
+         }
+         else
+         {
+            result = Long.valueOf(positive ? value : -value);
+         }
+      }
+      else
+      {
+         double value = Double.parseDouble(str.substring(integerStart, integerEnd) + '.' + str.substring(fractionStart, fractionEnd));
+         result = Double.valueOf(positive ? value : -value);
+      }
+
+      parsePosition.setIndex(index + suffix.length());
+      return result;
+   }
+
+   /**
+    * Determine if a character is an ASCII digit.
+    *
+    * @param c character
+    * @return true if the character is an ASCII digit
+    */
+   private boolean isAsciiDigit(char c)
+   {
+      return c >= '0' && c <= '9';
+   }
+
    @Override public int hashCode()
    {
       final int prime = 31;
@@ -176,4 +333,14 @@ public final class MPXJNumberFormat extends DecimalFormat
     */
    private DecimalFormatSymbols m_symbols = new DecimalFormatSymbols();
    private DecimalFormat[] m_alternativeFormats;
+   private boolean m_simpleParseSupported;
+   private char m_decimalSeparator;
+   private char m_groupingSeparator;
+   private String m_exponentSeparator;
+
+   /**
+    * DecimalFormat retains at most 19 significant digits, so simple
+    * parsing is limited to numbers with fewer digits than this.
+    */
+   private static final int MAX_SIMPLE_DIGITS = 18;
 }
@@ -37,9 +37,9 @@ public final class MPXJTimeFormat extends MPXJBaseFormat
     */
    public MPXJTimeFormat()
    {
-      m_formats = new SimpleDateFormat[]
+      setFormats(new SimpleDateFormat[]
       {
          new SimpleDateFormat("HH:mm")
-      };
+      });
    }
 }
@@ -114,6 +114,7 @@ public final class MPXReader extends AbstractProjectReader
          m_eventManager = m_projectFile.getEventManager();
 
          m_projectConfig = m_projectFile.getProjectConfig();
+         m_projectConfig.setFieldStoreFactory(getFieldStoreFactory());
          m_projectConfig.setAutoTaskID(false);
          m_projectConfig.setAutoTaskUniqueID(false);
          m_projectConfig.setAutoResourceID(false);
@@ -168,9 +169,10 @@ public final class MPXReader extends AbstractProjectReader
          //
          // Read the remainder of the records
          //
+         Record record = new Record(m_locale, m_formats);
          while (tk.getType() != Tokenizer.TT_EOF)
          {
-            Record record = new Record(m_locale, tk, m_formats);
+            record.read(tk);
             Integer number = record.getRecordNumber();
 
             if (number != null)
@@ -0,0 +1,502 @@
+/*
+ * file:       NumericDateParser.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       13/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mpx;
+
+import java.text.DateFormatSymbols;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses dates using a SimpleDateFormat pattern which contains only
+ * numeric day, month, year, hour and minute fields, AM/PM markers and
+ * unquoted literal characters. These are the patterns most commonly
+ * found in MPX files. The result is identical to the result from the
+ * SimpleDateFormat instance the parser was created from, but avoids
+ * most of the cost of SimpleDateFormat.parse by matching the text
+ * directly, and by caching the dates calculated from each combination
+ * of field values.
+ *
+ * The parse method either returns the parsed date, indicates that
+ * SimpleDateFormat would fail to parse the text by setting the error
+ * index of the ParsePosition, or indicates that the text contains
+ * something this class does not handle by leaving the error index as -1.
+ * In the last case the caller must fall back to SimpleDateFormat.
+ */
+final class NumericDateParser
+{
+   /**
+    * Create a parser for the pattern used by a SimpleDateFormat instance.
+    * Returns null if the pattern contains elements this class does
+    * not handle.
+    *
+    * @param format SimpleDateFormat instance
+    * @return NumericDateParser instance or null
+    */
+   public static NumericDateParser getInstance(SimpleDateFormat format)
+   {
+      if (!(format.getCalendar() instanceof GregorianCalendar) || !format.isLenient())
+      {
+         return null;
+      }
+
+      String pattern = format.toPattern();
+      List<Element> elements = new ArrayList<Element>();
+      int index = 0;
+      while (index < pattern.length())
+      {
+         char c = pattern.charAt(index);
+         int count = 1;
+         while (index + count < pattern.length() && pattern.charAt(index + count) == c)
+         {
+            ++count;
+         }
+
+         int type;
+         if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+         {
+            type = getFieldType(c, count);
+            if (type == UNSUPPORTED)
+            {
+               return null;
+            }
+
+            //
+            // Adjacent numeric fields are parsed using the field widths
+            // by SimpleDateFormat, which we don't support here
+            //
+            if (type != AM_PM && !elements.isEmpty() && elements.get(elements.size() - 1).isNumeric())
+            {
+               return null;
+            }
+         }
+         else
+         {
+            if (c == '\'')
+            {
+               return null;
+            }
+            type = LITERAL;
+            count = 1;
+         }
+
+         elements.add(new Element(type, c, count));
+         index += count;
+      }
+
+      return new NumericDateParser(format, elements.toArray(new Element[elements.size()]));
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param format SimpleDateFormat instance
+    * @param elements pattern elements
+    */
+   private NumericDateParser(SimpleDateFormat format, Element[] elements)
+   {
+      m_elements = elements;
+      m_calendar = (Calendar) format.getCalendar().clone();
+
+      DateFormatSymbols symbols = format.getDateFormatSymbols();
+      m_amPmStrings = symbols.getAmPmStrings();
+
+      Calendar calendar = (Calendar) m_calendar.clone();
+      calendar.setTime(format.get2DigitYearStart());
+      m_defaultCenturyStartYear = calendar.get(Calendar.YEAR);
+   }
+
+   /**
+    * Parse a date.
+    *
+    * @param text text to parse
+    * @param pos parse position, updated as described above
+    * @return parsed date, or null
+    */
+   public Date parse(String text, ParsePosition pos)
+   {
+      int index = pos.getIndex();
+      int length = text.length();
+      int year = 0;
+      int month = 0;
+      int day = 0;
+      int hour = 0;
+      int amPm = 0;
+      int minute = 0;
+
+      for (Element element : m_elements)
+      {
+         if (index >= length)
+         {
+            pos.setErrorIndex(index);
+            return null;
+         }
+
+         char c = text.charAt(index);
+         switch (element.m_type)
+         {
+            case LITERAL:
+            {
+               if (c != element.m_char)
+               {
+                  pos.setErrorIndex(index);
+                  return null;
+               }
+               ++index;
+               break;
+            }
+
+            case AM_PM:
+            {
+               int match = matchAmPm(text, index);
+               if (match == -1)
+               {
+                  pos.setErrorIndex(index);
+                  return null;
+               }
+               amPm = match + 1;
+               index += m_amPmStrings[match].length();
+               break;
+            }
+
+            default:
+            {
+               if (c < '0' || c > '9')
+               {
+                  //
+                  // SimpleDateFormat skips whitespace, and accepts signs,
+                  // localised digits and special values such as NaN here,
+                  // so we can only be certain that the text is invalid
+                  // if we have ASCII punctuation.
+                  //
+                  if (isPunctuation(c))
+                  {
+                     pos.setErrorIndex(index);
+                  }
+                  return null;
+               }
+
+               int start = index;
+               int number = 0;
+               while (index < length && (c = text.charAt(index)) >= '0' && c <= '9')
+               {
+                  number = (number * 10) + (c - '0');
+                  ++index;
+               }
+
+               int digits = index - start;
+               if (digits > element.m_maxDigits || (index < length && Character.isDigit(c)))
+               {
+                  return null;
+               }
+
+               switch (element.m_type)
+               {
+                  case YEAR:
+                  {
+                     if (element.m_count <= 2 && digits == 2)
+                     {
+                        int ambiguousTwoDigitYear = m_defaultCenturyStartYear % 100;
+                        if (number == ambiguousTwoDigitYear)
+                        {
+                           return null;
+                        }
+                        number += (m_defaultCenturyStartYear / 100) * 100 + (number < ambiguousTwoDigitYear ? 100 : 0);
+                     }
+                     year = number;
+                     break;
+                  }
+
+                  case MONTH:
+                  {
+                     month = number;
+                     break;
+                  }
+
+                  case DAY:
+                  {
+                     day = number;
+                     break;
+                  }
+
+                  case HOUR_OF_DAY:
+                  case HOUR:
+                  {
+                     hour = number;
+                     break;
+                  }
+
+                  case MINUTE:
+                  {
+                     minute = number;
+                     break;
+                  }
+               }
+               break;
+            }
+         }
+      }
+
+      pos.setIndex(index);
+      return new Date(getTime(year, month, day, hour, amPm, minute));
+   }
+
+   /**
+    * Returns true if the character is ASCII punctuation which
+    * can't form part of a number.
+    *
+    * @param c character
+    * @return true if the character is ASCII punctuation
+    */
+   private boolean isPunctuation(char c)
+   {
+      return c < 128 && c != ' ' && c != '\t' && c != '-' && c != '+' && !Character.isLetterOrDigit(c);
+   }
+
+   /**
+    * Match the AM or PM text at the current position, ignoring case
+    * and preferring the longest match, as SimpleDateFormat does.
+    *
+    * @param text text being parsed
+    * @param index current position
+    * @return 0 for AM, 1 for PM, -1 if neither matches
+    */
+   private int matchAmPm(String text, int index)
+   {
+      int result = -1;
+      int bestLength = 0;
+      for (int loop = 0; loop < m_amPmStrings.length; loop++)
+      {
+         String value = m_amPmStrings[loop];
+         if (value.length() > bestLength && text.regionMatches(true, index, value, 0, value.length()))
+         {
+            result = loop;
+            bestLength = value.length();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the time represented by a set of field values. The
+    * calendar fields are set in the same order and with the same
+    * values as SimpleDateFormat would set them.
+    *
+    * @param year year
+    * @param month month, starting from 1
+    * @param day day of month
+    * @param hour hour value from the text
+    * @param amPm 0 if not present, 1 for AM, 2 for PM
+    * @param minute minute
+    * @return time in milliseconds
+    */
+   private long getTime(int year, int month, int day, int hour, int amPm, int minute)
+   {
+      Long key = Long.valueOf((((((((long) year * 100) + month) * 100 + day) * 100 + hour) * 3) + amPm) * 100 + minute);
+      Long result = m_cache.get(key);
+      if (result == null)
+      {
+         Calendar calendar = m_calendar;
+         calendar.clear();
+         for (Element element : m_elements)
+         {
+            switch (element.m_type)
+            {
+               case YEAR:
+               {
+                  calendar.set(Calendar.YEAR, year);
+                  break;
+               }
+
+               case MONTH:
+               {
+                  calendar.set(Calendar.MONTH, month - 1);
+                  break;
+               }
+
+               case DAY:
+               {
+                  calendar.set(Calendar.DAY_OF_MONTH, day);
+                  break;
+               }
+
+               case HOUR_OF_DAY:
+               {
+                  calendar.set(Calendar.HOUR_OF_DAY, hour);
+                  break;
+               }
+
+               case HOUR:
+               {
+                  calendar.set(Calendar.HOUR, hour == calendar.getLeastMaximum(Calendar.HOUR) + 1 ? 0 : hour);
+                  break;
+               }
+
+               case AM_PM:
+               {
+                  calendar.set(Calendar.AM_PM, amPm - 1);
+                  break;
+               }
+
+               case MINUTE:
+               {
+                  calendar.set(Calendar.MINUTE, minute);
+                  break;
+               }
+            }
+         }
+
+         if (m_cache.size() == MAX_CACHE_SIZE)
+         {
+            m_cache.clear();
+         }
+         result = Long.valueOf(calendar.getTimeInMillis());
+         m_cache.put(key, result);
+      }
+      return result.longValue();
+   }
+
+   /**
+    * Determine the element type represented by a pattern letter.
+    *
+    * @param c pattern letter
+    * @param count number of repetitions of the letter
+    * @return element type
+    */
+   private static int getFieldType(char c, int count)
+   {
+      int result;
+      switch (c)
+      {
+         case 'y':
+         {
+            result = YEAR;
+            break;
+         }
+
+         case 'M':
+         {
+            result = count <= 2 ? MONTH : UNSUPPORTED;
+            break;
+         }
+
+         case 'd':
+         {
+            result = DAY;
+            break;
+         }
+
+         case 'H':
+         {
+            result = HOUR_OF_DAY;
+            break;
+         }
+
+         case 'h':
+         {
+            result = HOUR;
+            break;
+         }
+
+         case 'm':
+         {
+            result = MINUTE;
+            break;
+         }
+
+         case 'a':
+         {
+            result = AM_PM;
+            break;
+         }
+
+         default:
+         {
+            result = UNSUPPORTED;
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Represents a single element of a date pattern.
+    */
+   private static final class Element
+   {
+      /**
+       * Constructor.
+       *
+       * @param type element type
+       * @param c pattern character
+       * @param count number of repetitions of the pattern character
+       */
+      public Element(int type, char c, int count)
+      {
+         m_type = type;
+         m_char = c;
+         m_count = count;
+         m_maxDigits = type == YEAR ? 4 : 2;
+      }
+
+      /**
+       * Returns true if this element is a numeric field.
+       *
+       * @return true if numeric
+       */
+      public boolean isNumeric()
+      {
+         return m_type != LITERAL && m_type != AM_PM;
+      }
+
+      final int m_type;
+      final char m_char;
+      final int m_count;
+      final int m_maxDigits;
+   }
+
+   private final Element[] m_elements;
+   private final Calendar m_calendar;
+   private final String[] m_amPmStrings;
+   private final int m_defaultCenturyStartYear;
+   private final Map<Long, Long> m_cache = new HashMap<Long, Long>();
+
+   private static final int MAX_CACHE_SIZE = 10000;
+
+   private static final int UNSUPPORTED = -1;
+   private static final int YEAR = 0;
+   private static final int MONTH = 1;
+   private static final int DAY = 2;
+   private static final int HOUR = 3;
+   private static final int AM_PM = 4;
+   private static final int MINUTE = 5;
+   private static final int HOUR_OF_DAY = 6;
+   private static final int LITERAL = 7;
+}
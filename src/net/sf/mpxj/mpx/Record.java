@@ -27,7 +27,6 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.Locale;
 
 import net.sf.mpxj.AccrueType;
@@ -60,23 +59,51 @@ final class Record
    Record(Locale locale, Tokenizer tk, MPXJFormats formats)
       throws MPXJException
    {
-      try
-      {
-         m_locale = locale;
+      this(locale, formats);
+      read(tk);
+   }
 
-         m_formats = formats;
+   /**
+    * This constructor creates an empty record, which is populated
+    * by calling the read method.
+    *
+    * @param locale target locale
+    * @param formats formats used when parsing data
+    */
+   Record(Locale locale, MPXJFormats formats)
+   {
+      m_locale = locale;
+      m_formats = formats;
+   }
 
-         LinkedList<String> list = new LinkedList<String>();
+   /**
+    * Replace the contents of this record with the fields of the next record
+    * read from the stream of tokens. This allows a single instance to be
+    * reused to read each record in a file, avoiding the need to allocate
+    * new storage for the fields of each record.
+    *
+    * @param tk tokenizer providing the input stream of tokens
+    * @throws MPXJException normally thrown when parsing fails
+    */
+   void read(Tokenizer tk) throws MPXJException
+   {
+      try
+      {
+         m_recordNumber = null;
+         m_length = 0;
 
-         while (tk.nextToken() == Tokenizer.TT_WORD)
+         if (tk.nextToken() == Tokenizer.TT_WORD)
          {
-            list.add(tk.getToken());
-         }
+            setRecordNumber(tk.getToken());
 
-         if (list.size() > 0)
-         {
-            setRecordNumber(list);
-            m_fields = list.toArray(new String[list.size()]);
+            while (tk.nextToken() == Tokenizer.TT_WORD)
+            {
+               if (m_length == m_fields.length)
+               {
+                  m_fields = Arrays.copyOf(m_fields, m_length * 2);
+               }
+               m_fields[m_length++] = tk.getToken();
+            }
          }
       }
 
@@ -87,16 +114,14 @@ final class Record
    }
 
    /**
-    * Pop the record number from the front of the list, and parse it to ensure that
-    * it is a valid integer.
+    * Parse the record number to ensure that it is a valid integer.
     *
-    * @param list MPX record
+    * @param number record number text
     */
-   private void setRecordNumber(LinkedList<String> list)
+   private void setRecordNumber(String number)
    {
       try
       {
-         String number = list.remove(0);
          m_recordNumber = Integer.valueOf(number);
       }
       catch (NumberFormatException ex)
@@ -129,7 +154,7 @@ final class Record
    {
       String result;
 
-      if (field < m_fields.length)
+      if (field < m_length)
       {
          result = m_fields[field];
 
@@ -158,7 +183,7 @@ final class Record
    {
       Character result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = Character.valueOf(m_fields[field].charAt(0));
       }
@@ -184,7 +209,7 @@ final class Record
       {
          Number result;
 
-         if ((field < m_fields.length) && (m_fields[field].length() != 0))
+         if ((field < m_length) && (m_fields[field].length() != 0))
          {
             result = m_formats.getDecimalFormat().parse(m_fields[field]);
          }
@@ -214,7 +239,7 @@ final class Record
    {
       Integer result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = Integer.valueOf(m_fields[field]);
       }
@@ -239,7 +264,7 @@ final class Record
    {
       Date result = null;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          try
          {
@@ -286,7 +311,7 @@ final class Record
       {
          Date result;
 
-         if ((field < m_fields.length) && (m_fields[field].length() != 0))
+         if ((field < m_length) && (m_fields[field].length() != 0))
          {
             result = m_formats.getDateFormat().parse(m_fields[field]);
          }
@@ -319,7 +344,7 @@ final class Record
       {
          Date result;
 
-         if ((field < m_fields.length) && (m_fields[field].length() != 0))
+         if ((field < m_length) && (m_fields[field].length() != 0))
          {
             result = m_formats.getTimeFormat().parse(m_fields[field]);
          }
@@ -349,7 +374,7 @@ final class Record
    {
       boolean result = false;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = Integer.parseInt(m_fields[field]) == 1;
       }
@@ -370,7 +395,7 @@ final class Record
    {
       Rate result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          try
          {
@@ -419,7 +444,7 @@ final class Record
    {
       Number result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          try
          {
@@ -452,7 +477,7 @@ final class Record
    {
       Number result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          try
          {
@@ -485,7 +510,7 @@ final class Record
    {
       Duration result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = DurationUtility.getInstance(m_fields[field], m_formats.getDurationDecimalFormat(), m_locale);
       }
@@ -510,7 +535,7 @@ final class Record
    {
       Number result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          try
          {
@@ -542,7 +567,7 @@ final class Record
    {
       TimeUnit result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = TimeUnit.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -566,7 +591,7 @@ final class Record
    {
       ProjectTimeFormat result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = ProjectTimeFormat.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -590,7 +615,7 @@ final class Record
    {
       ScheduleFrom result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = ScheduleFrom.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -614,7 +639,7 @@ final class Record
    {
       DateOrder result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = DateOrder.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -638,7 +663,7 @@ final class Record
    {
       CurrencySymbolPosition result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = CurrencySymbolPosition.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -662,7 +687,7 @@ final class Record
    {
       ProjectDateFormat result = null;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = ProjectDateFormat.getInstance(Integer.parseInt(m_fields[field]));
       }
@@ -684,7 +709,7 @@ final class Record
    {
       CodePage result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = CodePage.getInstance(m_fields[field]);
       }
@@ -706,7 +731,7 @@ final class Record
    {
       AccrueType result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = AccrueTypeUtility.getInstance(m_fields[field], m_locale);
       }
@@ -729,7 +754,7 @@ final class Record
    {
       Boolean result;
 
-      if ((field < m_fields.length) && (m_fields[field].length() != 0))
+      if ((field < m_length) && (m_fields[field].length() != 0))
       {
          result = ((m_fields[field].equalsIgnoreCase(falseText) == true) ? Boolean.FALSE : Boolean.TRUE);
       }
@@ -748,7 +773,7 @@ final class Record
     */
    public int getLength()
    {
-      return (m_fields.length);
+      return (m_length);
    }
 
    /**
@@ -756,7 +781,7 @@ final class Record
     */
    @Override public String toString()
    {
-      return (Arrays.toString(m_fields));
+      return (Arrays.toString(Arrays.copyOf(m_fields, m_length)));
    }
 
    /**
@@ -772,7 +797,14 @@ final class Record
    /**
     * Array of field data.
     */
-   private String[] m_fields;
+   private String[] m_fields = new String[INITIAL_FIELD_COUNT];
+
+   /**
+    * Number of fields in the current record.
+    */
+   private int m_length;
 
    private MPXJFormats m_formats;
+
+   private static final int INITIAL_FIELD_COUNT = 64;
 }
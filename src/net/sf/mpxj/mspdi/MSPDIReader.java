@@ -25,6 +25,7 @@ package net.sf.mpxj.mspdi;
 
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -39,9 +40,13 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEvent;
 import javax.xml.bind.ValidationEventHandler;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.sax.SAXSource;
 
 import net.sf.mpxj.AssignmentField;
@@ -87,6 +92,7 @@ import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.Pair;
 import net.sf.mpxj.common.SplitTaskFactory;
 import net.sf.mpxj.common.TimephasedWorkNormaliser;
+import net.sf.mpxj.common.XmlStreamHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.mspdi.schema.Project;
 import net.sf.mpxj.mspdi.schema.Project.Calendars.Calendar.WorkWeeks;
@@ -99,6 +105,8 @@ import net.sf.mpxj.mspdi.schema.Project.Resources.Resource.Rates;
 import net.sf.mpxj.mspdi.schema.TimephasedDataType;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
@@ -131,6 +139,7 @@ public final class MSPDIReader extends AbstractProjectReader
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setFieldStoreFactory(getFieldStoreFactory());
          config.setAutoTaskID(false);
          config.setAutoTaskUniqueID(false);
          config.setAutoResourceID(false);
@@ -143,13 +152,6 @@ public final class MSPDIReader extends AbstractProjectReader
 
          m_eventManager.addProjectListeners(m_projectListeners);
 
-         SAXParserFactory factory = SAXParserFactory.newInstance();
-         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-         factory.setNamespaceAware(true);
-         SAXParser saxParser = factory.newSAXParser();
-         XMLReader xmlReader = saxParser.getXMLReader();
-         SAXSource doc = new SAXSource(xmlReader, new InputSource(stream));
-
          if (CONTEXT == null)
          {
             throw CONTEXT_EXCEPTION;
@@ -173,16 +175,31 @@ public final class MSPDIReader extends AbstractProjectReader
          }
 
          DatatypeConverter.setParentFile(m_projectFile);
-         Project project = (Project) unmarshaller.unmarshal(doc);
-
          HashMap<BigInteger, ProjectCalendar> calendarMap = new HashMap<BigInteger, ProjectCalendar>();
+         Project project;
 
-         readProjectProperties(project);
-         readProjectExtendedAttributes(project);
-         readCalendars(project, calendarMap);
-         readResources(project, calendarMap);
-         readTasks(project);
-         readAssignments(project);
+         if (m_streamingInput)
+         {
+            project = readStreaming(stream, unmarshaller, calendarMap);
+         }
+         else
+         {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setNamespaceAware(true);
+            SAXParser saxParser = factory.newSAXParser();
+            XMLReader xmlReader = saxParser.getXMLReader();
+            SAXSource doc = new SAXSource(xmlReader, new InputSource(stream));
+
+            project = (Project) unmarshaller.unmarshal(doc);
+
+            readProjectProperties(project);
+            readProjectExtendedAttributes(project);
+            readCalendars(project, calendarMap);
+            readResources(project, calendarMap);
+            readTasks(project);
+            readAssignments(project);
+         }
 
          //
          // Ensure that the unique ID counters are correct
@@ -216,12 +233,226 @@ public final class MSPDIReader extends AbstractProjectReader
          throw new MPXJException("Failed to parse file", ex);
       }
 
+      catch (XMLStreamException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+
       finally
       {
+         DatatypeConverter.setParentFile(null);
          m_projectFile = null;
       }
    }
 
+   /**
+    * Reads an MSPDI file without unmarshalling the complete document.
+    * The project properties, calendars and other header data are
+    * unmarshalled together, then each task, resource and assignment
+    * is unmarshalled, read and discarded in turn.
+    *
+    * @param stream input stream
+    * @param unmarshaller JAXB unmarshaller
+    * @param calendarMap map of calendar UIDs to calendars
+    * @return project containing the header data
+    */
+   private Project readStreaming(InputStream stream, Unmarshaller unmarshaller, HashMap<BigInteger, ProjectCalendar> calendarMap) throws XMLStreamException, ParserConfigurationException, JAXBException
+   {
+      XMLStreamReader reader = XmlStreamHelper.createReader(stream);
+
+      try
+      {
+         while (reader.next() != XMLStreamConstants.START_ELEMENT)
+         {
+            // Skip the prolog
+         }
+
+         DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
+         documentFactory.setNamespaceAware(true);
+         Document header = documentFactory.newDocumentBuilder().newDocument();
+         Element root = XmlStreamHelper.createElement(reader, header);
+         header.appendChild(root);
+         reader.next();
+
+         Project project = null;
+         boolean tasksRead = false;
+
+         while (XmlStreamHelper.nextChildElement(reader))
+         {
+            String name = reader.getLocalName();
+            if (name.equals("Tasks") || name.equals("Resources") || name.equals("Assignments"))
+            {
+               if (project == null)
+               {
+                  project = readHeader(unmarshaller, header, calendarMap);
+               }
+
+               reader.next();
+               if (name.equals("Tasks"))
+               {
+                  readTasks(reader, unmarshaller);
+                  tasksRead = true;
+               }
+               else
+               {
+                  if (name.equals("Resources"))
+                  {
+                     readResources(reader, unmarshaller, calendarMap);
+                  }
+                  else
+                  {
+                     readAssignments(reader, unmarshaller);
+                  }
+               }
+            }
+            else
+            {
+               XmlStreamHelper.copyElement(reader, header, root);
+            }
+            reader.next();
+         }
+
+         if (project == null)
+         {
+            project = readHeader(unmarshaller, header, calendarMap);
+         }
+
+         if (!tasksRead)
+         {
+            m_projectFile.updateStructure();
+         }
+
+         return project;
+      }
+
+      finally
+      {
+         reader.close();
+      }
+   }
+
+   /**
+    * Unmarshal the header data collected while streaming, and use it
+    * to populate the project properties, extended attributes and calendars.
+    *
+    * @param unmarshaller JAXB unmarshaller
+    * @param header document containing the header data
+    * @param calendarMap map of calendar UIDs to calendars
+    * @return project containing the header data
+    */
+   private Project readHeader(Unmarshaller unmarshaller, Document header, HashMap<BigInteger, ProjectCalendar> calendarMap) throws JAXBException
+   {
+      Project project = unmarshaller.unmarshal(header, Project.class).getValue();
+      readProjectProperties(project);
+      readProjectExtendedAttributes(project);
+      readCalendars(project, calendarMap);
+      return project;
+   }
+
+   /**
+    * Read each task from the Tasks element, then read the predecessors.
+    *
+    * @param reader XML stream reader positioned inside the Tasks element
+    * @param unmarshaller JAXB unmarshaller
+    */
+   private void readTasks(XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException, JAXBException
+   {
+      List<Pair<Task, List<Project.Tasks.Task.PredecessorLink>>> predecessors = new LinkedList<Pair<Task, List<Project.Tasks.Task.PredecessorLink>>>();
+      int taskCount = 0;
+      int tasksWithoutIDCount = 0;
+
+      while (XmlStreamHelper.nextChildElement(reader))
+      {
+         if (reader.getLocalName().equals("Task"))
+         {
+            Project.Tasks.Task task = unmarshaller.unmarshal(reader, Project.Tasks.Task.class).getValue();
+            Task mpxjTask = readTask(task);
+            ++taskCount;
+            if (mpxjTask.getID() == null)
+            {
+               ++tasksWithoutIDCount;
+            }
+
+            if (task.getUID() != null && !task.getPredecessorLink().isEmpty())
+            {
+               predecessors.add(new Pair<Task, List<Project.Tasks.Task.PredecessorLink>>(mpxjTask, task.getPredecessorLink()));
+            }
+         }
+         else
+         {
+            XmlStreamHelper.skipElement(reader);
+         }
+      }
+
+      List<Relation> relations = new ArrayList<Relation>();
+      for (Pair<Task, List<Project.Tasks.Task.PredecessorLink>> pair : predecessors)
+      {
+         for (Project.Tasks.Task.PredecessorLink link : pair.getSecond())
+         {
+            readPredecessor(pair.getFirst(), link, relations);
+         }
+      }
+
+      for (Relation relation : m_projectFile.getRelations().addPredecessors(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
+      }
+
+      if (tasksWithoutIDCount == taskCount)
+      {
+         m_projectFile.renumberTaskIDs();
+      }
+
+      m_projectFile.updateStructure();
+   }
+
+   /**
+    * Read each resource from the Resources element.
+    *
+    * @param reader XML stream reader positioned inside the Resources element
+    * @param unmarshaller JAXB unmarshaller
+    * @param calendarMap map of calendar UIDs to calendars
+    */
+   private void readResources(XMLStreamReader reader, Unmarshaller unmarshaller, HashMap<BigInteger, ProjectCalendar> calendarMap) throws XMLStreamException, JAXBException
+   {
+      while (XmlStreamHelper.nextChildElement(reader))
+      {
+         if (reader.getLocalName().equals("Resource"))
+         {
+            readResource(unmarshaller.unmarshal(reader, Project.Resources.Resource.class).getValue(), calendarMap);
+         }
+         else
+         {
+            XmlStreamHelper.skipElement(reader);
+         }
+      }
+   }
+
+   /**
+    * Read each assignment, including its timephased data, from the
+    * Assignments element.
+    *
+    * @param reader XML stream reader positioned inside the Assignments element
+    * @param unmarshaller JAXB unmarshaller
+    */
+   private void readAssignments(XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException, JAXBException
+   {
+      SplitTaskFactory splitFactory = new SplitTaskFactory();
+      TimephasedWorkNormaliser normaliser = new MSPDITimephasedWorkNormaliser();
+
+      while (XmlStreamHelper.nextChildElement(reader))
+      {
+         if (reader.getLocalName().equals("Assignment"))
+         {
+            readAssignment(unmarshaller.unmarshal(reader, Project.Assignments.Assignment.class).getValue(), splitFactory, normaliser);
+         }
+         else
+         {
+            XmlStreamHelper.skipElement(reader);
+         }
+      }
+   }
+
    /**
     * This method extracts project properties from an MSPDI file.
     *
@@ -928,9 +1159,15 @@ public final class MSPDIReader extends AbstractProjectReader
             }
          }
 
+         List<Relation> relations = new ArrayList<Relation>();
          for (Project.Tasks.Task task : tasks.getTask())
          {
-            readPredecessors(task);
+            readPredecessors(task, relations);
+         }
+
+         for (Relation relation : m_projectFile.getRelations().addPredecessors(relations))
+         {
+            m_eventManager.fireRelationReadEvent(relation);
          }
 
          //
@@ -1227,8 +1464,9 @@ public final class MSPDIReader extends AbstractProjectReader
     * This method extracts predecessor data from an MSPDI file.
     *
     * @param task Task data
+    * @param relations list to which predecessor relationships are added
     */
-   private void readPredecessors(Project.Tasks.Task task)
+   private void readPredecessors(Project.Tasks.Task task, List<Relation> relations)
    {
       Integer uid = task.getUID();
       if (uid != null)
@@ -1238,7 +1476,7 @@ public final class MSPDIReader extends AbstractProjectReader
          {
             for (Project.Tasks.Task.PredecessorLink link : task.getPredecessorLink())
             {
-               readPredecessor(currTask, link);
+               readPredecessor(currTask, link, relations);
             }
          }
       }
@@ -1249,8 +1487,9 @@ public final class MSPDIReader extends AbstractProjectReader
     *
     * @param currTask Current task object
     * @param link Predecessor data
+    * @param relations list to which the predecessor relationship is added
     */
-   private void readPredecessor(Task currTask, Project.Tasks.Task.PredecessorLink link)
+   private void readPredecessor(Task currTask, Project.Tasks.Task.PredecessorLink link, List<Relation> relations)
    {
       BigInteger uid = link.getPredecessorUID();
       if (uid != null)
@@ -1282,8 +1521,7 @@ public final class MSPDIReader extends AbstractProjectReader
             TimeUnit lagUnits = DatatypeConverter.parseDurationTimeUnits(link.getLagFormat());
             Duration lagDuration = Duration.convertUnits(lag, TimeUnit.MINUTES, lagUnits, m_projectFile.getProjectProperties());
 
-            Relation relation = currTask.addPredecessor(prevTask, type, lagDuration);
-            m_eventManager.fireRelationReadEvent(relation);
+            relations.add(new Relation(currTask, prevTask, type, lagDuration));
          }
       }
    }
@@ -1340,8 +1578,8 @@ public final class MSPDIReader extends AbstractProjectReader
             calendar = m_projectFile.getDefaultCalendar();
          }
 
-         LinkedList<TimephasedWork> timephasedComplete = readTimephasedAssignment(calendar, assignment, 2);
-         LinkedList<TimephasedWork> timephasedPlanned = readTimephasedAssignment(calendar, assignment, 1);
+         List<TimephasedWork> timephasedComplete = readTimephasedAssignment(calendar, assignment, 2);
+         List<TimephasedWork> timephasedPlanned = readTimephasedAssignment(calendar, assignment, 1);
          boolean raw = true;
 
          if (isSplit(calendar, timephasedComplete) || isSplit(calendar, timephasedPlanned))
@@ -1512,9 +1750,9 @@ public final class MSPDIReader extends AbstractProjectReader
     * @param type flag indicating if this is planned or complete work
     * @return list of timephased resource assignment instances
     */
-   private LinkedList<TimephasedWork> readTimephasedAssignment(ProjectCalendar calendar, Project.Assignments.Assignment assignment, int type)
+   private List<TimephasedWork> readTimephasedAssignment(ProjectCalendar calendar, Project.Assignments.Assignment assignment, int type)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      List<TimephasedWork> result = new ArrayList<TimephasedWork>();
 
       for (TimephasedDataType item : assignment.getTimephasedData())
       {
@@ -1572,6 +1810,31 @@ public final class MSPDIReader extends AbstractProjectReader
       return (m_compatibleInput);
    }
 
+   /**
+    * Sets a flag indicating that the MSPDI file should be read as a stream.
+    * Rather than unmarshalling the complete document before it is read,
+    * each task, resource and assignment is unmarshalled, read and
+    * discarded in turn. This significantly reduces the memory required
+    * to read large files. Note that when this flag is set, tasks are read
+    * before resources, matching the order in which they appear in the file.
+    *
+    * @param flag streaming input flag
+    */
+   public void setStreamingInput(boolean flag)
+   {
+      m_streamingInput = flag;
+   }
+
+   /**
+    * Retrieves a flag indicating that the MSPDI file should be read as a stream.
+    *
+    * @return Boolean flag
+    */
+   public boolean getStreamingInput()
+   {
+      return (m_streamingInput);
+   }
+
    /**
     * Cached context to minimise construction cost.
     */
@@ -1605,6 +1868,7 @@ public final class MSPDIReader extends AbstractProjectReader
    }
 
    private boolean m_compatibleInput = true;
+   private boolean m_streamingInput;
 
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
@@ -0,0 +1,636 @@
+/*
+ * file:       MSPDIStreamWriter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       23/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mspdi;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes XML to an output stream as UTF-8. The document is laid out in
+ * exactly the same way as the output of the JAXB reference implementation
+ * when it marshals directly to a stream, so documents written element by
+ * element through this class are identical to those produced by marshalling
+ * a complete tree in one go.
+ */
+final class MSPDIStreamWriter implements XMLStreamWriter
+{
+   /**
+    * Constructor.
+    *
+    * @param stream target output stream
+    * @param formatted true if the output should be indented
+    */
+   public MSPDIStreamWriter(OutputStream stream, boolean formatted)
+   {
+      m_writer = new BufferedWriter(new OutputStreamWriter(stream, UTF8));
+      m_formatted = formatted;
+   }
+
+   /**
+    * When this flag is set, a request to close the root element is ignored.
+    * This allows the root element and its leading children to be marshalled
+    * as a single object, with the remaining children written separately.
+    *
+    * @param leaveRootOpen true if the root element should be left open
+    */
+   public void setLeaveRootOpen(boolean leaveRootOpen)
+   {
+      m_leaveRootOpen = leaveRootOpen;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartDocument() throws XMLStreamException
+   {
+      write(XML_DECLARATION);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartDocument(String version) throws XMLStreamException
+   {
+      writeStartDocument();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartDocument(String encoding, String version) throws XMLStreamException
+   {
+      writeStartDocument();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEndDocument() throws XMLStreamException
+   {
+      m_leaveRootOpen = false;
+      while (!m_names.isEmpty())
+      {
+         writeEndElement();
+      }
+
+      if (m_formatted)
+      {
+         write('\n');
+      }
+
+      try
+      {
+         m_writer.flush();
+      }
+
+      catch (IOException ex)
+      {
+         throw new XMLStreamException(ex);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartElement(String localName) throws XMLStreamException
+   {
+      writeStartElement("", localName, "");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException
+   {
+      writeStartElement("", localName, namespaceURI);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException
+   {
+      closeStartTag();
+      if (!m_textWritten)
+      {
+         writeIndent();
+      }
+
+      String name = prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+      write('<');
+      write(name);
+
+      m_names.add(name);
+      m_namespaceCounts.add(Integer.valueOf(m_namespacePrefixes.size()));
+      m_startTagOpen = true;
+      m_textWritten = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEmptyElement(String localName) throws XMLStreamException
+   {
+      writeStartElement(localName);
+      writeEndElement();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException
+   {
+      writeStartElement(namespaceURI, localName);
+      writeEndElement();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException
+   {
+      writeStartElement(prefix, localName, namespaceURI);
+      writeEndElement();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEndElement() throws XMLStreamException
+   {
+      if (m_leaveRootOpen && m_names.size() == 1)
+      {
+         closeStartTag();
+         return;
+      }
+
+      int depth = m_names.size() - 1;
+      String name = m_names.remove(depth);
+
+      int namespaceCount = m_namespaceCounts.remove(depth).intValue();
+      while (m_namespacePrefixes.size() > namespaceCount)
+      {
+         m_namespacePrefixes.remove(m_namespacePrefixes.size() - 1);
+         m_namespaceURIs.remove(m_namespaceURIs.size() - 1);
+      }
+
+      if (m_startTagOpen)
+      {
+         write("/>");
+         m_startTagOpen = false;
+      }
+      else
+      {
+         if (!m_textWritten)
+         {
+            writeIndent();
+         }
+         write("</");
+         write(name);
+         write('>');
+      }
+      m_textWritten = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeAttribute(String localName, String value) throws XMLStreamException
+   {
+      writeAttribute("", "", localName, value);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException
+   {
+      writeAttribute("", namespaceURI, localName, value);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException
+   {
+      if (!m_startTagOpen)
+      {
+         throw new XMLStreamException("Attribute written outside a start tag");
+      }
+
+      write(' ');
+      if (prefix != null && !prefix.isEmpty())
+      {
+         write(prefix);
+         write(':');
+      }
+      write(localName);
+      write("=\"");
+      writeEscaped(value, true);
+      write('"');
+   }
+
+   /**
+    * Namespace declarations which are already in scope are not repeated,
+    * so an element marshalled as a fragment inherits the declarations
+    * made by the root element.
+    *
+    * {@inheritDoc}
+    */
+   @Override public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException
+   {
+      if (prefix == null || prefix.isEmpty() || XMLNS.equals(prefix))
+      {
+         writeDefaultNamespace(namespaceURI);
+         return;
+      }
+
+      if (!namespaceURI.equals(getNamespaceURI(prefix)))
+      {
+         writeAttribute(XMLNS, "", prefix, namespaceURI);
+         addNamespace(prefix, namespaceURI);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException
+   {
+      if (!namespaceURI.equals(getNamespaceURI("")))
+      {
+         writeAttribute("", "", XMLNS, namespaceURI);
+         addNamespace("", namespaceURI);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeCharacters(String text) throws XMLStreamException
+   {
+      closeStartTag();
+      writeEscaped(text, false);
+      m_textWritten = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeCharacters(char[] text, int start, int len) throws XMLStreamException
+   {
+      writeCharacters(new String(text, start, len));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeCData(String data) throws XMLStreamException
+   {
+      closeStartTag();
+      write("<![CDATA[");
+      write(data);
+      write("]]>");
+      m_textWritten = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeComment(String data) throws XMLStreamException
+   {
+      closeStartTag();
+      write("<!--");
+      write(data);
+      write("-->");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeProcessingInstruction(String target) throws XMLStreamException
+   {
+      writeProcessingInstruction(target, null);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeProcessingInstruction(String target, String data) throws XMLStreamException
+   {
+      closeStartTag();
+      write("<?");
+      write(target);
+      if (data != null)
+      {
+         write(' ');
+         write(data);
+      }
+      write("?>");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeDTD(String dtd) throws XMLStreamException
+   {
+      write(dtd);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void writeEntityRef(String name) throws XMLStreamException
+   {
+      closeStartTag();
+      write('&');
+      write(name);
+      write(';');
+      m_textWritten = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String getPrefix(String uri)
+   {
+      for (int index = m_namespaceURIs.size() - 1; index >= 0; index--)
+      {
+         if (m_namespaceURIs.get(index).equals(uri))
+         {
+            return m_namespacePrefixes.get(index);
+         }
+      }
+      return null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setPrefix(String prefix, String uri)
+   {
+      // Prefixes are bound when a namespace is written
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setDefaultNamespace(String uri)
+   {
+      // The default namespace is bound when it is written
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setNamespaceContext(NamespaceContext context)
+   {
+      m_namespaceContext = context;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public NamespaceContext getNamespaceContext()
+   {
+      return m_namespaceContext;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object getProperty(String name)
+   {
+      throw new IllegalArgumentException(name);
+   }
+
+   /**
+    * JAXB flushes the writer after each object it marshals. As we marshal
+    * many small fragments, the buffered output is only flushed to the
+    * underlying stream when the document is complete.
+    *
+    * {@inheritDoc}
+    */
+   @Override public void flush()
+   {
+      // Deliberately empty
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void close()
+   {
+      // The caller retains ownership of the underlying stream
+   }
+
+   /**
+    * Retrieve the URI bound to a namespace prefix.
+    *
+    * @param prefix namespace prefix
+    * @return namespace URI, or null if the prefix is not bound
+    */
+   private String getNamespaceURI(String prefix)
+   {
+      for (int index = m_namespacePrefixes.size() - 1; index >= 0; index--)
+      {
+         if (m_namespacePrefixes.get(index).equals(prefix))
+         {
+            return m_namespaceURIs.get(index);
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Record a namespace binding for the current element.
+    *
+    * @param prefix namespace prefix
+    * @param namespaceURI namespace URI
+    */
+   private void addNamespace(String prefix, String namespaceURI)
+   {
+      m_namespacePrefixes.add(prefix);
+      m_namespaceURIs.add(namespaceURI);
+   }
+
+   /**
+    * Complete a start tag if we have not already done so.
+    */
+   private void closeStartTag() throws XMLStreamException
+   {
+      if (m_startTagOpen)
+      {
+         write('>');
+         m_startTagOpen = false;
+      }
+   }
+
+   /**
+    * If formatting is enabled, write a new line and indent to the current depth.
+    */
+   private void writeIndent() throws XMLStreamException
+   {
+      if (m_formatted)
+      {
+         write('\n');
+         for (int index = 0; index < m_names.size(); index++)
+         {
+            write(INDENT);
+         }
+      }
+   }
+
+   /**
+    * Write text, escaping characters in the same way as JAXB.
+    *
+    * @param text text to write
+    * @param attribute true if we are writing an attribute value
+    */
+   private void writeEscaped(String text, boolean attribute) throws XMLStreamException
+   {
+      try
+      {
+         int start = 0;
+         int length = text.length();
+         for (int index = 0; index < length; index++)
+         {
+            String entity;
+            switch (text.charAt(index))
+            {
+               case '&':
+               {
+                  entity = "&amp;";
+                  break;
+               }
+
+               case '<':
+               {
+                  entity = "&lt;";
+                  break;
+               }
+
+               case '>':
+               {
+                  entity = "&gt;";
+                  break;
+               }
+
+               case '\r':
+               {
+                  entity = "&#13;";
+                  break;
+               }
+
+               case '"':
+               {
+                  entity = attribute ? "&quot;" : null;
+                  break;
+               }
+
+               default:
+               {
+                  entity = null;
+                  break;
+               }
+            }
+
+            if (entity != null)
+            {
+               m_writer.write(text, start, index - start);
+               m_writer.write(entity);
+               start = index + 1;
+            }
+         }
+         m_writer.write(text, start, length - start);
+      }
+
+      catch (IOException ex)
+      {
+         throw new XMLStreamException(ex);
+      }
+   }
+
+   /**
+    * Write a string.
+    *
+    * @param text text to write
+    */
+   private void write(String text) throws XMLStreamException
+   {
+      try
+      {
+         m_writer.write(text);
+      }
+
+      catch (IOException ex)
+      {
+         throw new XMLStreamException(ex);
+      }
+   }
+
+   /**
+    * Write a single character.
+    *
+    * @param c character to write
+    */
+   private void write(char c) throws XMLStreamException
+   {
+      try
+      {
+         m_writer.write(c);
+      }
+
+      catch (IOException ex)
+      {
+         throw new XMLStreamException(ex);
+      }
+   }
+
+   private final Writer m_writer;
+   private final boolean m_formatted;
+   private final List<String> m_names = new ArrayList<String>();
+   private final List<Integer> m_namespaceCounts = new ArrayList<Integer>();
+   private final List<String> m_namespacePrefixes = new ArrayList<String>();
+   private final List<String> m_namespaceURIs = new ArrayList<String>();
+   private NamespaceContext m_namespaceContext;
+   private boolean m_leaveRootOpen;
+   private boolean m_startTagOpen;
+   private boolean m_textWritten;
+
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+   private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+   private static final String INDENT = "    ";
+   private static final String XMLNS = "xmlns";
+}
@@ -23,9 +23,10 @@
 
 package net.sf.mpxj.mspdi;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.List;
 
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
@@ -49,7 +50,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current calendar
     * @param list list of assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override public void normalise(ProjectCalendar calendar, List<TimephasedWork> list)
    {
       //dumpList("raw", result);
       splitDays(calendar, list);
@@ -63,7 +64,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
    }
 
    /*
-      private void dumpList(String label, LinkedList<TimephasedWork> list)
+      private void dumpList(String label, List<TimephasedWork> list)
       {
          System.out.println(label);
          for (TimephasedWork assignment : list)
@@ -79,9 +80,9 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current project calendar
     * @param list list of assignment data
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void splitDays(ProjectCalendar calendar, List<TimephasedWork> list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      List<TimephasedWork> result = new ArrayList<TimephasedWork>();
       Calendar cal = Calendar.getInstance();
 
       for (TimephasedWork assignment : list)
@@ -202,9 +203,9 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current calendar
     * @param list assignment data
     */
-   private void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void mergeSameDay(ProjectCalendar calendar, List<TimephasedWork> list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      List<TimephasedWork> result = new ArrayList<TimephasedWork>();
 
       TimephasedWork previousAssignment = null;
       for (TimephasedWork assignment : list)
@@ -231,7 +232,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
                   continue;
                }
 
-               result.removeLast();
+               result.remove(result.size() - 1);
 
                if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() != 0)
                {
@@ -262,7 +263,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
          Duration assignmentWork = assignment.getTotalAmount();
          if (calendarWork.getDuration() == 0 && assignmentWork.getDuration() == 0)
          {
-            result.removeLast();
+            result.remove(result.size() - 1);
          }
          else
          {
@@ -281,7 +282,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current calendar
     * @param list assignment data
     */
-   private void validateSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void validateSameDay(ProjectCalendar calendar, List<TimephasedWork> list)
    {
       for (TimephasedWork assignment : list)
       {
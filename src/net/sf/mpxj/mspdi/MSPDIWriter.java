@@ -37,8 +37,12 @@ import java.util.List;
 import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import net.sf.mpxj.AccrueType;
 import net.sf.mpxj.AssignmentField;
@@ -163,6 +167,55 @@ public final class MSPDIWriter extends AbstractProjectWriter
       return m_saveVersion;
    }
 
+   /**
+    * Sets a flag to control whether each calendar, task, resource and
+    * assignment is written to the output stream as soon as it has been
+    * generated, rather than building a complete copy of the project in
+    * memory before writing it. The output is the same either way.
+    * The default is false.
+    *
+    * @param flag boolean flag
+    */
+   public void setStreamingOutput(boolean flag)
+   {
+      m_streamingOutput = flag;
+   }
+
+   /**
+    * Retrieves the flag which controls whether each calendar, task, resource
+    * and assignment is written to the output stream as soon as it has been
+    * generated. The default is false.
+    *
+    * @return boolean flag
+    */
+   public boolean getStreamingOutput()
+   {
+      return m_streamingOutput;
+   }
+
+   /**
+    * Sets a flag to control whether the XML written is indented to make
+    * it readable. Turning this off produces a smaller file, suitable for
+    * passing to another application. The default is true.
+    *
+    * @param flag boolean flag
+    */
+   public void setFormattedOutput(boolean flag)
+   {
+      m_formattedOutput = flag;
+   }
+
+   /**
+    * Retrieves the flag which controls whether the XML written is indented.
+    * The default is true.
+    *
+    * @return boolean flag
+    */
+   public boolean getFormattedOutput()
+   {
+      return m_formattedOutput;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -178,24 +231,17 @@ public final class MSPDIWriter extends AbstractProjectWriter
          m_projectFile = projectFile;
          m_projectFile.validateUniqueIDsForMicrosoftProject();
          m_eventManager = m_projectFile.getEventManager();
-
-         Marshaller marshaller = CONTEXT.createMarshaller();
-         marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-
          m_extendedAttributesInUse = new HashSet<FieldType>();
-
          m_factory = new ObjectFactory();
-         Project project = m_factory.createProject();
 
-         writeProjectProperties(project);
-         writeCalendars(project);
-         writeResources(project);
-         writeTasks(project);
-         writeAssignments(project);
-         writeProjectExtendedAttributes(project);
-
-         DatatypeConverter.setParentFile(m_projectFile);
-         marshaller.marshal(project, stream);
+         if (m_streamingOutput)
+         {
+            writeStream(stream);
+         }
+         else
+         {
+            writeTree(stream);
+         }
       }
 
       catch (JAXBException ex)
@@ -203,14 +249,168 @@ public final class MSPDIWriter extends AbstractProjectWriter
          throw new IOException(ex.toString());
       }
 
+      catch (XMLStreamException ex)
+      {
+         throw new IOException(ex.toString());
+      }
+
       finally
       {
+         DatatypeConverter.setParentFile(null);
          m_projectFile = null;
          m_factory = null;
          m_extendedAttributesInUse = null;
       }
    }
 
+   /**
+    * Build a complete JAXB representation of the project, then marshal it.
+    *
+    * @param stream output stream
+    */
+   private void writeTree(OutputStream stream) throws JAXBException
+   {
+      Marshaller marshaller = CONTEXT.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.valueOf(m_formattedOutput));
+
+      Project project = m_factory.createProject();
+
+      writeProjectProperties(project);
+      writeCalendars(project);
+      writeResources(project);
+      writeTasks(project);
+      writeAssignments(project);
+      writeProjectExtendedAttributes(project);
+
+      DatatypeConverter.setParentFile(m_projectFile);
+      marshaller.marshal(project, stream);
+   }
+
+   /**
+    * Marshal each calendar, task, resource and assignment as soon as it
+    * has been generated, so that only one of them is held in memory at a time.
+    *
+    * @param stream output stream
+    */
+   private void writeStream(OutputStream stream) throws JAXBException, XMLStreamException
+   {
+      Marshaller marshaller = CONTEXT.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+      MSPDIStreamWriter writer = new MSPDIStreamWriter(stream, m_formattedOutput);
+
+      //
+      // The extended attribute definitions precede the calendars, tasks,
+      // resources and assignments, so we need to know which attributes
+      // are in use before we write any of them.
+      //
+      findExtendedAttributesInUse();
+
+      Project project = m_factory.createProject();
+      writeProjectProperties(project);
+      writeProjectExtendedAttributes(project);
+
+      DatatypeConverter.setParentFile(m_projectFile);
+
+      writer.writeStartDocument();
+      writer.setLeaveRootOpen(true);
+      marshaller.marshal(project, writer);
+      writer.setLeaveRootOpen(false);
+
+      writer.writeStartElement(NAMESPACE, "Calendars");
+      for (ProjectCalendar calendar : m_projectFile.getCalendars())
+      {
+         marshal(marshaller, writer, "Calendar", Project.Calendars.Calendar.class, writeCalendar(calendar));
+      }
+      writer.writeEndElement();
+
+      writer.writeStartElement(NAMESPACE, "Tasks");
+      for (Task task : m_projectFile.getAllTasks())
+      {
+         marshal(marshaller, writer, "Task", Project.Tasks.Task.class, writeTask(task));
+      }
+      writer.writeEndElement();
+
+      writer.writeStartElement(NAMESPACE, "Resources");
+      for (Resource resource : m_projectFile.getAllResources())
+      {
+         marshal(marshaller, writer, "Resource", Project.Resources.Resource.class, writeResource(resource));
+      }
+      writer.writeEndElement();
+
+      writer.writeStartElement(NAMESPACE, "Assignments");
+      for (ResourceAssignment assignment : m_projectFile.getAllResourceAssignments())
+      {
+         marshal(marshaller, writer, "Assignment", Project.Assignments.Assignment.class, writeAssignment(assignment));
+      }
+
+      for (ResourceAssignment assignment : createDummyAssignments())
+      {
+         marshal(marshaller, writer, "Assignment", Project.Assignments.Assignment.class, writeAssignment(assignment));
+      }
+      writer.writeEndElement();
+
+      writer.writeEndDocument();
+   }
+
+   /**
+    * Marshal a single child element of one of the lists contained by the project.
+    *
+    * @param marshaller JAXB marshaller
+    * @param writer target writer
+    * @param name element name
+    * @param type element type
+    * @param value element value
+    */
+   private <T> void marshal(Marshaller marshaller, XMLStreamWriter writer, String name, Class<T> type, T value) throws JAXBException
+   {
+      marshaller.marshal(new JAXBElement<T>(new QName(NAMESPACE, name), type, value), writer);
+   }
+
+   /**
+    * Determine which extended attributes will be written for resources,
+    * tasks and assignments. The fields are visited in the same order as they
+    * are when the data itself is written, so the attribute definitions
+    * appear in the same order whichever way the file is written.
+    */
+   private void findExtendedAttributesInUse()
+   {
+      List<ResourceField> resourceFields = getAllResourceExtendedAttributes();
+      for (Resource resource : m_projectFile.getAllResources())
+      {
+         for (ResourceField field : resourceFields)
+         {
+            if (writeExtendedAttribute(resource.getCachedValue(field), field))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+
+      List<TaskField> taskFields = getAllTaskExtendedAttributes();
+      for (Task task : m_projectFile.getAllTasks())
+      {
+         for (TaskField field : taskFields)
+         {
+            if (writeExtendedAttribute(task.getCachedValue(field), field))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+
+      List<AssignmentField> assignmentFields = getAllAssignmentExtendedAttributes();
+      for (ResourceAssignment assignment : m_projectFile.getAllResourceAssignments())
+      {
+         for (AssignmentField field : assignmentFields)
+         {
+            if (writeExtendedAttribute(assignment.getCachedValue(field), field))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+   }
+
    /**
     * This method writes project properties to an MSPDI file.
     *
@@ -1387,12 +1587,23 @@ public final class MSPDIWriter extends AbstractProjectWriter
          list.add(writeAssignment(assignment));
       }
 
-      //
-      // Check to see if we have any tasks that have a percent complete value
-      // but do not have resource assignments. If any exist, then we must
-      // write a dummy resource assignment record to ensure that the MSPDI
-      // file shows the correct percent complete amount for the task.
-      //
+      for (ResourceAssignment assignment : createDummyAssignments())
+      {
+         list.add(writeAssignment(assignment));
+      }
+   }
+
+   /**
+    * Check to see if we have any tasks that have a percent complete value
+    * but do not have resource assignments. If any exist, then we must
+    * write a dummy resource assignment record to ensure that the MSPDI
+    * file shows the correct percent complete amount for the task.
+    *
+    * @return dummy resource assignments
+    */
+   private List<ResourceAssignment> createDummyAssignments()
+   {
+      List<ResourceAssignment> dummies = new ArrayList<ResourceAssignment>();
       ProjectConfig config = m_projectFile.getProjectConfig();
       boolean autoUniqueID = config.getAutoAssignmentUniqueID();
       if (!autoUniqueID)
@@ -1421,11 +1632,13 @@ public final class MSPDIWriter extends AbstractProjectWriter
             dummy.setActualWork(Duration.getInstance(actualWork, durationUnits));
             dummy.setRemainingWork(Duration.getInstance(remainingWork, durationUnits));
 
-            list.add(writeAssignment(dummy));
+            dummies.add(dummy);
          }
       }
 
       config.setAutoAssignmentUniqueID(autoUniqueID);
+
+      return dummies;
    }
 
    /**
@@ -1972,8 +2185,14 @@ public final class MSPDIWriter extends AbstractProjectWriter
 
    private boolean m_writeTimphasedData;
 
+   private boolean m_streamingOutput;
+
+   private boolean m_formattedOutput = true;
+
    private SaveVersion m_saveVersion = SaveVersion.Project2002;
 
+   private static final String NAMESPACE = "http://schemas.microsoft.com/project";
+
    private static final BigInteger BIGINTEGER_ZERO = BigInteger.valueOf(0);
 
    private static final Integer NULL_RESOURCE_ID = Integer.valueOf(-65535);
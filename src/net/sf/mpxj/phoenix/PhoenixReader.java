@@ -117,6 +117,7 @@ public final class PhoenixReader extends AbstractProjectReader
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setFieldStoreFactory(getFieldStoreFactory());
          config.setAutoResourceUniqueID(true);
          config.setAutoOutlineLevel(false);
          config.setAutoOutlineNumber(false);
@@ -117,6 +117,7 @@ public final class PlannerReader extends AbstractProjectReader
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setFieldStoreFactory(getFieldStoreFactory());
          config.setAutoTaskUniqueID(false);
          config.setAutoResourceUniqueID(false);
          config.setAutoOutlineLevel(false);
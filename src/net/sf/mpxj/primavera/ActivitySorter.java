@@ -0,0 +1,159 @@
+/*
+ * file:       ActivitySorter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       23/11/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.primavera;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+import net.sf.mpxj.ChildTaskContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.Task;
+
+/**
+ * Sorts the tasks read from Primavera into the order used by Primavera
+ * itself. Each list of child tasks is sorted once, with the sort key for
+ * each task retrieved before the sort begins.
+ *
+ * Sort Order:
+ * 1. Activities come first
+ * 2. WBS come last
+ * 3. Activities ordered by activity ID
+ * 4. WBS ordered by ID
+ */
+final class ActivitySorter
+{
+   /**
+    * Constructor.
+    *
+    * @param activityIDField field containing the Activity ID value
+    */
+   public ActivitySorter(FieldType activityIDField)
+   {
+      m_activityIDField = activityIDField;
+   }
+
+   /**
+    * Recursively sort the child tasks of the supplied container.
+    *
+    * @param container object containing the tasks to process
+    */
+   public void sort(ChildTaskContainer container)
+   {
+      List<Task> tasks = container.getChildTasks();
+      if (!tasks.isEmpty())
+      {
+         for (Task task : tasks)
+         {
+            sort(task);
+         }
+
+         if (tasks.size() > 1)
+         {
+            sortChildTasks(tasks);
+         }
+      }
+   }
+
+   /**
+    * Sort a single list of child tasks.
+    *
+    * @param tasks child tasks
+    */
+   private void sortChildTasks(List<Task> tasks)
+   {
+      SortKey[] keys = new SortKey[tasks.size()];
+      int index = 0;
+      for (Task task : tasks)
+      {
+         keys[index++] = new SortKey(task, m_activityIDField);
+      }
+
+      Arrays.sort(keys);
+
+      index = 0;
+      ListIterator<Task> iter = tasks.listIterator();
+      while (iter.hasNext())
+      {
+         iter.next();
+         iter.set(keys[index++].m_task);
+      }
+   }
+
+   /**
+    * Pairs a task with the values used to determine its position.
+    */
+   private static final class SortKey implements Comparable<SortKey>
+   {
+      /**
+       * Constructor.
+       *
+       * @param task task
+       * @param activityIDField field containing the Activity ID value
+       */
+      public SortKey(Task task, FieldType activityIDField)
+      {
+         m_task = task;
+         m_wbs = !task.getChildTasks().isEmpty();
+         if (m_wbs)
+         {
+            m_id = task.getID();
+            m_activityID = null;
+         }
+         else
+         {
+            m_id = null;
+            m_activityID = (String) task.getCurrentValue(activityIDField);
+         }
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int compareTo(SortKey o)
+      {
+         // One activity one WBS
+         if (m_wbs != o.m_wbs)
+         {
+            return m_wbs ? 1 : -1;
+         }
+
+         // Both are WBS
+         if (m_wbs)
+         {
+            return m_id.compareTo(o.m_id);
+         }
+
+         // Both are activities
+         return m_activityID.compareTo(o.m_activityID);
+      }
+
+      private final Task m_task;
+      private final boolean m_wbs;
+      private final Integer m_id;
+      private final String m_activityID;
+   }
+
+   private final FieldType m_activityIDField;
+}
@@ -162,13 +162,22 @@ public final class DatatypeConverter
    /**
     * This method is called to set the parent file for the current
     * write operation. This allows task and resource write events
-    * to be captured and passed to any file listeners.
+    * to be captured and passed to any file listeners. The parent file
+    * is held per thread: passing null clears it once the operation
+    * is complete, so that pooled threads do not retain the project.
     *
-    * @param file parent file instance
+    * @param file parent file instance, or null
     */
    public static final void setParentFile(ProjectFile file)
    {
-      PARENT_FILE.set(file);
+      if (file == null)
+      {
+         PARENT_FILE.remove();
+      }
+      else
+      {
+         PARENT_FILE.set(file);
+      }
    }
 
    /**
@@ -183,6 +192,7 @@ public final class DatatypeConverter
       {
          df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
          df.setLenient(false);
+         DATE_FORMAT.set(df);
       }
       return (df);
    }
@@ -199,6 +209,7 @@ public final class DatatypeConverter
       {
          df = new SimpleDateFormat("HH:mm:ss");
          df.setLenient(false);
+         TIME_FORMAT.set(df);
       }
       return (df);
    }
@@ -156,7 +156,7 @@ class MapRow implements Row
     * @param name column name
     * @return column value
     */
-   private final Object getObject(String name)
+   protected Object getObject(String name)
    {
       Object result = m_map.get(name);
       return (result);
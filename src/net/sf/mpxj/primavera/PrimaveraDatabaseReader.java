@@ -31,11 +31,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import javax.sql.DataSource;
 
@@ -44,15 +48,17 @@ import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.common.ColumnarTable;
+import net.sf.mpxj.common.ColumnarTable.ColumnType;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a database.
  */
-public final class PrimaveraDatabaseReader implements ProjectReader
+public final class PrimaveraDatabaseReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -108,6 +114,7 @@ public final class PrimaveraDatabaseReader implements ProjectReader
       {
          m_reader = new PrimaveraReader(m_udfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
          ProjectFile project = m_reader.getProject();
+         project.getProjectConfig().setFieldStoreFactory(getFieldStoreFactory());
          project.getEventManager().addProjectListeners(m_projectListeners);
 
          processAnalytics();
@@ -370,17 +377,10 @@ public final class PrimaveraDatabaseReader implements ProjectReader
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
-
          m_ps = m_connection.prepareStatement(sql);
          m_rs = m_ps.executeQuery();
          populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (readRows());
       }
 
       finally
@@ -404,24 +404,207 @@ public final class PrimaveraDatabaseReader implements ProjectReader
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
-
          m_ps = m_connection.prepareStatement(sql);
          m_ps.setInt(1, NumberHelper.getInt(var));
          m_rs = m_ps.executeQuery();
          populateMetaData();
-         while (m_rs.next())
+         return (readRows());
+      }
+
+      finally
+      {
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Reads the rows from the current result set into a columnar table.
+    *
+    * @return list of rows
+    * @throws SQLException
+    */
+   private List<Row> readRows() throws SQLException
+   {
+      int columnCount = m_meta.size();
+      String[] names = new String[columnCount];
+      int[] sqlTypes = new int[columnCount];
+      ColumnType[] columnTypes = new ColumnType[columnCount];
+
+      int index = 0;
+      for (Entry<String, Integer> entry : m_meta.entrySet())
+      {
+         names[index] = entry.getKey();
+         sqlTypes[index] = entry.getValue().intValue();
+         columnTypes[index] = getColumnType(sqlTypes[index]);
+         ++index;
+      }
+
+      ColumnarTable table = new ColumnarTable(names, columnTypes);
+      List<Row> result = new ArrayList<Row>();
+      while (m_rs.next())
+      {
+         int row = table.addRow();
+         for (int column = 0; column < columnCount; column++)
+         {
+            table.setValue(row, column, getColumnValue(names[column], sqlTypes[column]));
+         }
+         result.add(new TableRow(table, row));
+      }
+      table.trimToSize();
+
+      return result;
+   }
+
+   /**
+    * Determine how values of an SQL type are stored.
+    *
+    * @param type SQL type
+    * @return column type
+    */
+   private ColumnType getColumnType(int type)
+   {
+      ColumnType result;
+
+      switch (type)
+      {
+         case Types.BIT:
+         case Types.BOOLEAN:
          {
-            result.add(new ResultSetRow(m_rs, m_meta));
+            result = ColumnType.BOOLEAN;
+            break;
          }
 
-         return (result);
+         case Types.DATE:
+         case Types.TIMESTAMP:
+         {
+            result = ColumnType.DATE;
+            break;
+         }
+
+         case Types.REAL:
+         case Types.DECIMAL:
+         case Types.DOUBLE:
+         case Types.NUMERIC:
+         {
+            result = ColumnType.DOUBLE;
+            break;
+         }
+
+         case Types.INTEGER:
+         case Types.SMALLINT:
+         {
+            result = ColumnType.INTEGER;
+            break;
+         }
+
+         default:
+         {
+            result = ColumnType.OBJECT;
+            break;
+         }
       }
 
-      finally
+      return result;
+   }
+
+   /**
+    * Retrieve a column value from the current row of the result set.
+    *
+    * @param name column name
+    * @param type SQL type
+    * @return column value
+    * @throws SQLException
+    */
+   private Object getColumnValue(String name, int type) throws SQLException
+   {
+      Object value;
+
+      switch (type)
       {
-         releaseConnection();
+         case Types.BIT:
+         case Types.BOOLEAN:
+         {
+            value = Boolean.valueOf(m_rs.getBoolean(name));
+            break;
+         }
+
+         case Types.CHAR:
+         case Types.VARCHAR:
+         case Types.LONGVARCHAR:
+         case Types.CLOB:
+         {
+            value = m_rs.getString(name);
+            break;
+         }
+
+         case Types.DATE:
+         {
+            value = m_rs.getDate(name);
+            break;
+         }
+
+         case Types.TIMESTAMP:
+         {
+            Timestamp ts = m_rs.getTimestamp(name);
+            if (ts != null)
+            {
+               value = new Date(ts.getTime());
+            }
+            else
+            {
+               value = null;
+            }
+            break;
+         }
+
+         case Types.REAL:
+         case Types.DECIMAL:
+         case Types.DOUBLE:
+         case Types.NUMERIC:
+         {
+            value = NumberHelper.getDouble(m_rs.getDouble(name));
+            break;
+         }
+
+         case Types.INTEGER:
+         case Types.SMALLINT:
+         {
+            value = Integer.valueOf(m_rs.getInt(name));
+            break;
+         }
+
+         case Types.BIGINT:
+         {
+            value = Long.valueOf(m_rs.getLong(name));
+            break;
+         }
+
+         case Types.VARBINARY:
+         case Types.LONGVARBINARY:
+         case Types.BLOB:
+         {
+            value = m_rs.getBytes(name);
+            break;
+         }
+
+         case Types.OTHER:
+         {
+            value = m_rs.getObject(name);
+            break;
+         }
+
+         default:
+         {
+            throw new IllegalArgumentException("Unsupported SQL type: " + type + " for column " + name);
+         }
       }
+
+      if (m_rs.wasNull())
+      {
+         value = null;
+      }
+
+      return value;
    }
 
    /**
@@ -24,11 +24,12 @@
 package net.sf.mpxj.primavera;
 
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -37,13 +38,13 @@ import java.util.Set;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.sax.SAXSource;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import net.sf.mpxj.AssignmentField;
-import net.sf.mpxj.ChildTaskContainer;
 import net.sf.mpxj.ConstraintType;
 import net.sf.mpxj.CustomFieldContainer;
 import net.sf.mpxj.DateRange;
@@ -73,6 +74,7 @@ import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.CharsetHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.XmlStreamHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.mpp.CustomFieldValueItem;
 import net.sf.mpxj.primavera.schema.APIBusinessObjects;
@@ -94,9 +96,8 @@ import net.sf.mpxj.primavera.schema.WBSType;
 import net.sf.mpxj.primavera.schema.WorkTimeType;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 /**
  * This class creates a new ProjectFile instance by reading a Primavera PM file.
@@ -115,83 +116,234 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Set the ObjectId of the project to be read. If no ObjectId is
+    * supplied, the first non-external project in the file is read.
+    * The ObjectId is ignored by readAll.
+    *
+    * @param projectID project ObjectId, or null to read the first
+    * non-external project
+    */
+   public void setProjectID(Integer projectID)
+   {
+      m_projectID = projectID;
+   }
+
+   /**
+    * Retrieve the ObjectId of the project to be read.
+    *
+    * @return project ObjectId, or null if the first non-external
+    * project is read
+    */
+   public Integer getProjectID()
+   {
+      return m_projectID;
+   }
+
    /**
     * {@inheritDoc}
     */
    @Override public ProjectFile read(InputStream stream) throws MPXJException
+   {
+      return readProjects(stream, false).get(0);
+   }
+
+   /**
+    * This is a convenience method which allows all non-external projects
+    * in a PMXML file to be read in a single pass. The calendars, resources
+    * and other data shared between projects are read once, then each
+    * Project element is read and converted in turn, so only one project
+    * is held as XML data at any time. The projects are returned in the
+    * order in which they appear in the file. Any project ObjectId set
+    * on this reader is ignored.
+    *
+    * @param stream input stream
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll(InputStream stream) throws MPXJException
+   {
+      return readProjects(stream, true);
+   }
+
+   /**
+    * Populates a Map instance representing the ObjectIds and IDs of
+    * the non-external projects available in a PMXML file. Only the
+    * ObjectId and Id elements of each project are read.
+    *
+    * @param stream input stream used to read the PMXML file
+    * @return Map instance containing ObjectId and ID pairs, in file order
+    * @throws MPXJException
+    */
+   public Map<Integer, String> listProjects(InputStream stream) throws MPXJException
    {
       try
       {
-         //
-         // This is a hack to ensure that the incoming file has a namespace
-         // which JAXB will accept.
-         //
-         InputStream namespaceCorrectedStream = new ReplaceOnceStream(stream, NAMESPACE_REGEX, NAMESPACE_REPLACEMENT, NAMESPACE_SCOPE, CharsetHelper.UTF8);
+         Map<Integer, String> result = new LinkedHashMap<Integer, String>();
+         XMLStreamReader reader = createReader(stream);
 
-         m_projectFile = new ProjectFile();
-         m_eventManager = m_projectFile.getEventManager();
+         try
+         {
+            reader.next();
+            while (XmlStreamHelper.nextChildElement(reader))
+            {
+               if (reader.getLocalName().equals("Project") && !isExternal(reader))
+               {
+                  reader.next();
+                  Integer objectId = null;
+                  String id = null;
 
-         ProjectConfig config = m_projectFile.getProjectConfig();
-         config.setAutoTaskUniqueID(false);
-         config.setAutoResourceUniqueID(false);
-         config.setAutoCalendarUniqueID(false);
-         config.setAutoAssignmentUniqueID(false);
+                  while (XmlStreamHelper.nextChildElement(reader))
+                  {
+                     String name = reader.getLocalName();
+                     if (name.equals("ObjectId"))
+                     {
+                        objectId = Integer.valueOf(reader.getElementText().trim());
+                        reader.next();
+                     }
+                     else
+                     {
+                        if (name.equals("Id"))
+                        {
+                           id = reader.getElementText();
+                           reader.next();
+                        }
+                        else
+                        {
+                           XmlStreamHelper.skipElement(reader);
+                        }
+                     }
+                  }
 
-         m_projectFile.getProjectProperties().setFileApplication("Primavera");
-         m_projectFile.getProjectProperties().setFileType("PMXML");
+                  result.put(objectId, id);
+               }
+               else
+               {
+                  XmlStreamHelper.skipElement(reader);
+                  continue;
+               }
+               reader.next();
+            }
+         }
 
-         CustomFieldContainer fields = m_projectFile.getCustomFields();
-         fields.getCustomField(TaskField.TEXT1).setAlias("WBS Code");
-         fields.getCustomField(TaskField.TEXT2).setAlias("Task ID");
+         finally
+         {
+            reader.close();
+         }
 
-         m_eventManager.addProjectListeners(m_projectListeners);
+         return result;
+      }
+
+      catch (XMLStreamException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
 
-         SAXParserFactory factory = SAXParserFactory.newInstance();
-         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-         factory.setNamespaceAware(true);
-         SAXParser saxParser = factory.newSAXParser();
-         XMLReader xmlReader = saxParser.getXMLReader();
-         SAXSource doc = new SAXSource(xmlReader, new InputSource(namespaceCorrectedStream));
+      catch (NumberFormatException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+   }
 
+   /**
+    * Reads projects from a PMXML file without unmarshalling the complete
+    * document. The shared elements used by this reader are copied into
+    * a small DOM document, which is unmarshalled when the first Project
+    * element is reached. Each Project element is then unmarshalled,
+    * converted into a ProjectFile and discarded in turn. The PMXML schema
+    * places the shared elements before the projects.
+    *
+    * @param stream input stream
+    * @param readAll true if all non-external projects should be read,
+    * false to stop after the first project matching the project ID
+    * @return list of ProjectFile instances
+    */
+   private List<ProjectFile> readProjects(InputStream stream, boolean readAll) throws MPXJException
+   {
+      try
+      {
          if (CONTEXT == null)
          {
             throw CONTEXT_EXCEPTION;
          }
 
          Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
+         XMLStreamReader reader = createReader(stream);
+         List<ProjectFile> result = new ArrayList<ProjectFile>();
+         int projectCount = 0;
+         int nonExternalProjectCount = 0;
 
-         APIBusinessObjects apibo = (APIBusinessObjects) unmarshaller.unmarshal(doc);
-
-         List<ProjectType> projects = apibo.getProject();
-         ProjectType project = null;
-         for (ProjectType currentProject : projects)
+         try
          {
-            if (!BooleanHelper.getBoolean(currentProject.isExternal()))
+            DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
+            documentFactory.setNamespaceAware(true);
+            Document header = documentFactory.newDocumentBuilder().newDocument();
+            Element root = header.createElementNS(reader.getNamespaceURI(), reader.getLocalName());
+            header.appendChild(root);
+            reader.next();
+            APIBusinessObjects apibo = null;
+
+            while (XmlStreamHelper.nextChildElement(reader))
             {
-               project = currentProject;
-               break;
+               String name = reader.getLocalName();
+               if (name.equals("Project"))
+               {
+                  ++projectCount;
+                  if (apibo == null)
+                  {
+                     apibo = unmarshaller.unmarshal(header, APIBusinessObjects.class).getValue();
+                     header = null;
+                     root = null;
+                  }
+
+                  if (isExternal(reader))
+                  {
+                     XmlStreamHelper.skipElement(reader);
+                  }
+                  else
+                  {
+                     ++nonExternalProjectCount;
+                     ProjectType project = unmarshaller.unmarshal(reader, ProjectType.class).getValue();
+                     if (readAll || m_projectID == null || m_projectID.equals(project.getObjectId()))
+                     {
+                        result.add(readProject(apibo, project));
+                        if (!readAll)
+                        {
+                           break;
+                        }
+                     }
+                  }
+               }
+               else
+               {
+                  if (apibo == null && SHARED_ELEMENTS.contains(name))
+                  {
+                     XmlStreamHelper.copyElement(reader, header, root);
+                     reader.next();
+                  }
+                  else
+                  {
+                     XmlStreamHelper.skipElement(reader);
+                  }
+               }
             }
          }
 
-         if (project == null)
+         finally
          {
-            throw new MPXJException("Unable to locate any non-external projects in a list of " + projects.size() + " projects");
+            reader.close();
          }
 
-         processProjectUDFs(apibo);
-         processProjectProperties(apibo, project);
-         processCalendars(apibo);
-         processResources(apibo);
-         processTasks(project);
-         processPredecessors(project);
-         processAssignments(project);
-
-         //
-         // Ensure that the unique ID counters are correct
-         //
-         config.updateUniqueCounters();
+         if (result.isEmpty() && !readAll)
+         {
+            if (nonExternalProjectCount != 0)
+            {
+               throw new MPXJException("Unable to locate a non-external project with ObjectId " + m_projectID);
+            }
+            throw new MPXJException("Unable to locate any non-external projects in a list of " + projectCount + " projects");
+         }
 
-         return (m_projectFile);
+         return result;
       }
 
       catch (ParserConfigurationException ex)
@@ -204,14 +356,98 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          throw new MPXJException("Failed to parse file", ex);
       }
 
-      catch (SAXException ex)
+      catch (XMLStreamException ex)
       {
          throw new MPXJException("Failed to parse file", ex);
       }
+   }
+
+   /**
+    * Create an XMLStreamReader for a PMXML file, positioned at the start
+    * of the root element.
+    *
+    * @param stream input stream
+    * @return XMLStreamReader instance
+    */
+   private XMLStreamReader createReader(InputStream stream) throws MPXJException, XMLStreamException
+   {
+      //
+      // This is a hack to ensure that the incoming file has a namespace
+      // which JAXB will accept.
+      //
+      InputStream namespaceCorrectedStream = new ReplaceOnceStream(stream, NAMESPACE_REGEX, NAMESPACE_REPLACEMENT, NAMESPACE_SCOPE, CharsetHelper.UTF8);
+      XMLStreamReader reader = XmlStreamHelper.createReader(namespaceCorrectedStream);
+      while (reader.next() != XMLStreamConstants.START_ELEMENT)
+      {
+         // Skip the prolog
+      }
+      return reader;
+   }
+
+   /**
+    * Determine if the Project element at the current position of the
+    * XML stream represents an external project.
+    *
+    * @param reader XML stream reader positioned at the start of a Project element
+    * @return true if this is an external project
+    */
+   private boolean isExternal(XMLStreamReader reader)
+   {
+      String value = reader.getAttributeValue(null, "external");
+      return value != null && (value.trim().equals("true") || value.trim().equals("1"));
+   }
+
+   /**
+    * Convert a single project, along with the shared calendars, resources
+    * and user defined field types, into a ProjectFile instance.
+    *
+    * @param apibo shared data
+    * @param project xml container
+    * @return ProjectFile instance
+    */
+   private ProjectFile readProject(APIBusinessObjects apibo, ProjectType project)
+   {
+      try
+      {
+         m_projectFile = new ProjectFile();
+         m_eventManager = m_projectFile.getEventManager();
+
+         ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setFieldStoreFactory(getFieldStoreFactory());
+         config.setAutoTaskUniqueID(false);
+         config.setAutoResourceUniqueID(false);
+         config.setAutoCalendarUniqueID(false);
+         config.setAutoAssignmentUniqueID(false);
+
+         m_projectFile.getProjectProperties().setFileApplication("Primavera");
+         m_projectFile.getProjectProperties().setFileType("PMXML");
+
+         CustomFieldContainer fields = m_projectFile.getCustomFields();
+         fields.getCustomField(TaskField.TEXT1).setAlias("WBS Code");
+         fields.getCustomField(TaskField.TEXT2).setAlias("Task ID");
+
+         m_eventManager.addProjectListeners(m_projectListeners);
+
+         processProjectUDFs(apibo);
+         processProjectProperties(apibo, project);
+         processCalendars(apibo);
+         processResources(apibo);
+         processTasks(project);
+         processPredecessors(project);
+         processAssignments(project);
+
+         //
+         // Ensure that the unique ID counters are correct
+         //
+         config.updateUniqueCounters();
+
+         return (m_projectFile);
+      }
 
       finally
       {
          m_projectFile = null;
+         m_eventManager = null;
          m_clashMap.clear();
          m_calMap.clear();
       }
@@ -541,66 +777,11 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          m_eventManager.fireTaskReadEvent(task);
       }
 
-      sortActivities(TaskField.TEXT1, m_projectFile);
+      new ActivitySorter(TaskField.TEXT1).sort(m_projectFile);
       updateStructure();
       updateDates();
    }
 
-   /**
-    * Ensure activities are sorted into Activity ID order to match Primavera.
-    *
-    * @param activityIDField field containing the Activity ID value
-    * @param container object containing the tasks to process
-    */
-   private void sortActivities(final FieldType activityIDField, ChildTaskContainer container)
-   {
-      // Do we have any tasks?
-      List<Task> tasks = container.getChildTasks();
-      if (!tasks.isEmpty())
-      {
-         for (Task task : tasks)
-         {
-            //
-            // Sort child activities
-            //
-            sortActivities(activityIDField, task);
-
-            //
-            // Sort Order:
-            // 1. Activities come first
-            // 2. WBS come last
-            // 3. Activities ordered by activity ID
-            // 4. WBS ordered by ID
-            //
-            Collections.sort(tasks, new Comparator<Task>()
-            {
-               @Override public int compare(Task t1, Task t2)
-               {
-                  boolean t1HasChildren = !t1.getChildTasks().isEmpty();
-                  boolean t2HasChildren = !t2.getChildTasks().isEmpty();
-
-                  // Both are WBS
-                  if (t1HasChildren && t2HasChildren)
-                  {
-                     return t1.getID().compareTo(t2.getID());
-                  }
-
-                  // Both are activities
-                  if (!t1HasChildren && !t2HasChildren)
-                  {
-                     String activityID1 = (String) t1.getCurrentValue(activityIDField);
-                     String activityID2 = (String) t2.getCurrentValue(activityIDField);
-                     return activityID1.compareTo(activityID2);
-                  }
-
-                  // One activity one WBS
-                  return t1HasChildren ? 1 : -1;
-               }
-            });
-         }
-      }
-   }
-
    /**
     * The Primavera WBS entries we read in as tasks have user-entered start and end dates
     * which aren't calculated or adjusted based on the child task dates. We try
@@ -804,19 +985,23 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
     */
    private void processPredecessors(ProjectType project)
    {
+      List<Relation> relations = new ArrayList<Relation>(project.getRelationship().size());
       for (RelationshipType row : project.getRelationship())
       {
-
          Task currentTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getSuccessorActivityObjectId()));
          Task predecessorTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getPredecessorActivityObjectId()));
          if (currentTask != null && predecessorTask != null)
          {
             RelationType type = RELATION_TYPE_MAP.get(row.getType());
             Duration lag = getDuration(row.getLag());
-            Relation relation = currentTask.addPredecessor(predecessorTask, type, lag);
-            m_eventManager.fireRelationReadEvent(relation);
+            relations.add(new Relation(currentTask, predecessorTask, type, lag));
          }
       }
+
+      for (Relation relation : m_projectFile.getRelations().addPredecessors(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
+      }
    }
 
    /**
@@ -973,9 +1158,12 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
+   private Integer m_projectID;
    private Map<Integer, Integer> m_clashMap = new HashMap<Integer, Integer>();
    private Map<Integer, ProjectCalendar> m_calMap = new HashMap<Integer, ProjectCalendar>();
 
+   private static final Set<String> SHARED_ELEMENTS = new HashSet<String>(Arrays.asList("Currency", "UDFType", "Calendar", "Resource", "GlobalPreferences"));
+
    private static final int NAMESPACE_SCOPE = 512;
    private static final String NAMESPACE_REGEX = "xmlns=\\\".*BusinessObjects\\\"";
    private static final String NAMESPACE_REPLACEMENT = "xmlns=\"http://xmlns.oracle.com/Primavera/P6/V8.3/API/BusinessObjects\"";
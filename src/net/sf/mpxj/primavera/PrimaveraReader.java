@@ -26,19 +26,16 @@ package net.sf.mpxj.primavera;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import net.sf.mpxj.AssignmentField;
-import net.sf.mpxj.ChildTaskContainer;
 import net.sf.mpxj.ConstraintType;
 import net.sf.mpxj.CurrencySymbolPosition;
 import net.sf.mpxj.CustomFieldContainer;
@@ -439,6 +436,7 @@ final class PrimaveraReader
    {
       Set<Integer> uniqueIDs = new HashSet<Integer>();
       Map<Integer, TaskCosts> taskCostsMap = processCosts(costs);
+      Map<Integer, List<Row>> udfValueMap = getUdfValueMap(udfVals);
 
       //
       // Read WBS entries and create tasks.
@@ -457,6 +455,7 @@ final class PrimaveraReader
       //
       FieldType activityIDField = getActivityIDField(m_wbsFields);
       m_project.getChildTasks().clear();
+      Set<Task> topLevelTasks = new HashSet<Task>();
       for (Row row : wbs)
       {
          Task task = m_project.getTaskByUniqueID(row.getInteger("wbs_id"));
@@ -464,10 +463,17 @@ final class PrimaveraReader
          if (parentTask == null)
          {
             m_project.getChildTasks().add(task);
+            topLevelTasks.add(task);
          }
          else
          {
-            m_project.getChildTasks().remove(task);
+            //
+            // Only search the top level tasks if we know this task is there
+            //
+            if (topLevelTasks.remove(task))
+            {
+               m_project.getChildTasks().remove(task);
+            }
             parentTask.getChildTasks().add(task);
             task.setWBS(parentTask.getWBS() + "." + task.getWBS());
             if (activityIDField != null)
@@ -543,16 +549,19 @@ final class PrimaveraReader
          populateField(task, TaskField.WORK, TaskField.BASELINE_WORK, TaskField.ACTUAL_WORK);
 
          // Add User Defined Fields
-         List<Row> taskUDF = getTaskUDF(uniqueID, udfVals);
-         for (Row r : taskUDF)
+         List<Row> taskUDF = udfValueMap.get(uniqueID);
+         if (taskUDF != null)
          {
-            addTaskUDFValue(task, r);
+            for (Row r : taskUDF)
+            {
+               addTaskUDFValue(task, r);
+            }
          }
 
          m_eventManager.fireTaskReadEvent(task);
       }
 
-      sortActivities(activityIDField, m_project);
+      new ActivitySorter(activityIDField).sort(m_project);
       updateStructure();
       updateDates();
    }
@@ -704,28 +713,32 @@ final class PrimaveraReader
    }
 
    /**
-    * Retrieve the user defined values for a given task.
+    * Group user defined field values by the ID of the entity they belong to,
+    * preserving the order in which the values were supplied.
     *
-    * @param taskID target task ID
-    * @param udfs user defined fields
-    * @return user defined fields for the target task
+    * @param udfs user defined field values
+    * @return map of entity IDs to user defined field values
     */
-   private List<Row> getTaskUDF(Integer taskID, List<Row> udfs)
+   private Map<Integer, List<Row>> getUdfValueMap(List<Row> udfs)
    {
-      List<Row> udf = new LinkedList<Row>();
+      Map<Integer, List<Row>> map = new HashMap<Integer, List<Row>>();
 
       if (udfs != null)
       {
          for (Row row : udfs)
          {
-            if (taskID.equals(row.getInteger("fk_id")))
+            Integer id = row.getInteger("fk_id");
+            List<Row> list = map.get(id);
+            if (list == null)
             {
-               udf.add(row);
+               list = new ArrayList<Row>();
+               map.put(id, list);
             }
+            list.add(row);
          }
       }
 
-      return udf;
+      return map;
    }
 
    /*
@@ -762,61 +775,6 @@ final class PrimaveraReader
       container.set(target, value);
    }
 
-   /**
-    * Ensure activities are sorted into Activity ID order to match Primavera.
-    *
-    * @param activityIDField field containing the Activity ID value
-    * @param container object containing the tasks to process
-    */
-   private void sortActivities(final FieldType activityIDField, ChildTaskContainer container)
-   {
-      // Do we have any tasks?
-      List<Task> tasks = container.getChildTasks();
-      if (!tasks.isEmpty())
-      {
-         for (Task task : tasks)
-         {
-            //
-            // Sort child activities
-            //
-            sortActivities(activityIDField, task);
-
-            //
-            // Sort Order:
-            // 1. Activities come first
-            // 2. WBS come last
-            // 3. Activities ordered by activity ID
-            // 4. WBS ordered by ID
-            //
-            Collections.sort(tasks, new Comparator<Task>()
-            {
-               @Override public int compare(Task t1, Task t2)
-               {
-                  boolean t1HasChildren = !t1.getChildTasks().isEmpty();
-                  boolean t2HasChildren = !t2.getChildTasks().isEmpty();
-
-                  // Both are WBS
-                  if (t1HasChildren && t2HasChildren)
-                  {
-                     return t1.getID().compareTo(t2.getID());
-                  }
-
-                  // Both are activities
-                  if (!t1HasChildren && !t2HasChildren)
-                  {
-                     String activityID1 = (String) t1.getCurrentValue(activityIDField);
-                     String activityID2 = (String) t2.getCurrentValue(activityIDField);
-                     return activityID1.compareTo(activityID2);
-                  }
-
-                  // One activity one WBS
-                  return t1HasChildren ? 1 : -1;
-               }
-            });
-         }
-      }
-   }
-
    /**
     * Iterates through the tasks setting the correct
     * outline level and ID values.
@@ -1016,6 +974,7 @@ final class PrimaveraReader
     */
    public void processPredecessors(List<Row> rows)
    {
+      List<Relation> relations = new ArrayList<Relation>(rows.size());
       for (Row row : rows)
       {
          Task currentTask = m_project.getTaskByUniqueID(mapTaskID(row.getInteger("task_id")));
@@ -1024,10 +983,14 @@ final class PrimaveraReader
          {
             RelationType type = RELATION_TYPE_MAP.get(row.getString("pred_type"));
             Duration lag = row.getDuration("lag_hr_cnt");
-            Relation relation = currentTask.addPredecessor(predecessorTask, type, lag);
-            m_eventManager.fireRelationReadEvent(relation);
+            relations.add(new Relation(currentTask, predecessorTask, type, lag));
          }
       }
+
+      for (Relation relation : m_project.getRelations().addPredecessors(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
+      }
    }
 
    /**
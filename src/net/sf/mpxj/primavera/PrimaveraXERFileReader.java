@@ -35,16 +35,23 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.ColumnarTable;
+import net.sf.mpxj.common.ColumnarTable.ColumnType;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.ReaderTokenizer;
 import net.sf.mpxj.common.Tokenizer;
@@ -107,38 +114,27 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_projectIndexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new DecimalFormat();
 
          processFile(is);
-
-         m_reader = new PrimaveraReader(m_udfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
-         ProjectFile project = m_reader.getProject();
-         project.getProjectProperties().setFileApplication("Primavera");
-         project.getProjectProperties().setFileType("XER");
-         project.getEventManager().addProjectListeners(m_projectListeners);
-
          processProjectID();
-         processProjectProperties();
-         processUserDefinedFields();
-         processCalendars();
-         processResources();
-         processTasks();
-         processPredecessors();
-         processAssignments();
 
-         m_reader = null;
-         project.updateStructure();
+         ProjectFile project = readProject(m_projectID, m_udfCounters, true);
 
          return (project);
       }
 
       finally
       {
-         m_reader = null;
          m_tables = null;
+         m_projectIndexes = null;
+         m_currentIndex = null;
          m_currentTableName = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
+         m_currentColumnarTable = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -148,7 +144,11 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    /**
     * This is a convenience method which allows all projects in an
-    * XER file to be read in a single pass.
+    * XER file to be read in a single pass. If an executor service
+    * has been supplied, each project is built as a separate task
+    * using that executor, otherwise the projects are built in turn
+    * on the calling thread. In both cases the projects are returned
+    * in the order in which they appear in the file.
     *
     * @param is input stream
     * @return list of ProjectFile instances
@@ -159,32 +159,24 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_projectIndexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new DecimalFormat();
 
          processFile(is);
 
          List<Row> rows = getRows("project", null, null);
-         List<ProjectFile> result = new ArrayList<ProjectFile>(rows.size());
-         for (Row row : rows)
+         List<ProjectFile> result;
+         if (m_executorService == null)
          {
-            setProjectID(row.getInt("proj_id"));
-
-            m_reader = new PrimaveraReader(m_udfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
-            ProjectFile project = m_reader.getProject();
-            project.getEventManager().addProjectListeners(m_projectListeners);
-
-            processProjectProperties();
-            processUserDefinedFields();
-            processCalendars();
-            processResources();
-            processTasks();
-            processPredecessors();
-            processAssignments();
-
-            m_reader = null;
-            project.updateStructure();
-
-            result.add(project);
+            result = new ArrayList<ProjectFile>(rows.size());
+            for (Row row : rows)
+            {
+               result.add(readProject(row.getInteger("proj_id"), m_udfCounters, false));
+            }
+         }
+         else
+         {
+            result = readAllProjects(rows);
          }
 
          return result;
@@ -192,11 +184,14 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
       finally
       {
-         m_reader = null;
          m_tables = null;
+         m_projectIndexes = null;
+         m_currentIndex = null;
          m_currentTableName = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
+         m_currentColumnarTable = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -204,6 +199,111 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Builds a ProjectFile instance for a single project from the tables
+    * read from the XER file. This method only reads the shared table
+    * data, so it may be called concurrently for different projects
+    * as long as each call is given its own user field counters.
+    *
+    * @param projectID ID of the project to read
+    * @param udfCounters user defined field counters
+    * @param setFileType true if the file application and type should be set
+    * @return ProjectFile instance
+    */
+   private ProjectFile readProject(Integer projectID, UserFieldCounters udfCounters, boolean setFileType)
+   {
+      PrimaveraReader reader = new PrimaveraReader(udfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
+      ProjectFile project = reader.getProject();
+      project.getProjectConfig().setFieldStoreFactory(getFieldStoreFactory());
+      if (setFileType)
+      {
+         project.getProjectProperties().setFileApplication("Primavera");
+         project.getProjectProperties().setFileType("XER");
+      }
+      project.getEventManager().addProjectListeners(m_projectListeners);
+
+      processProjectProperties(reader, projectID);
+      processUserDefinedFields(reader);
+      processCalendars(reader);
+      processResources(reader);
+      processTasks(reader, projectID);
+      processPredecessors(reader, projectID);
+      processAssignments(reader, projectID);
+
+      project.updateStructure();
+
+      return project;
+   }
+
+   /**
+    * Builds each project as a separate task using the configured
+    * executor service, waiting for all of the tasks to complete.
+    *
+    * @param rows project rows
+    * @return list of ProjectFile instances, in file order
+    * @throws MPXJException
+    */
+   private List<ProjectFile> readAllProjects(List<Row> rows) throws MPXJException
+   {
+      List<Future<ProjectFile>> futures = new ArrayList<Future<ProjectFile>>(rows.size());
+
+      try
+      {
+         for (Row row : rows)
+         {
+            final Integer projectID = row.getInteger("proj_id");
+            final UserFieldCounters udfCounters = new UserFieldCounters(m_udfCounters);
+            futures.add(m_executorService.submit(new Callable<ProjectFile>()
+            {
+               @Override public ProjectFile call()
+               {
+                  return readProject(projectID, udfCounters, false);
+               }
+            }));
+         }
+
+         List<ProjectFile> result = new ArrayList<ProjectFile>(futures.size());
+         for (Future<ProjectFile> future : futures)
+         {
+            result.add(future.get());
+         }
+         return result;
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         //
+         // If we have failed part way through, make sure that
+         // no outstanding tasks are left running once the
+         // shared table data is released.
+         //
+         for (Future<ProjectFile> future : futures)
+         {
+            future.cancel(true);
+         }
+      }
+   }
+
    /**
     * Reads the XER file table and row structure ready for processing.
     *
@@ -326,6 +426,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_projectIndexes = new HashMap<String, Map<Integer, List<Row>>>();
          processFile(is);
 
          Map<Integer, String> result = new HashMap<Integer, String>();
@@ -344,89 +445,111 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       finally
       {
          m_tables = null;
+         m_projectIndexes = null;
+         m_currentIndex = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
+         m_currentColumnarTable = null;
       }
    }
 
    /**
     * Process project properties.
+    *
+    * @param reader reader used to build the project
+    * @param projectID ID of the project being read
     */
-   private void processProjectProperties()
+   private void processProjectProperties(PrimaveraReader reader, Integer projectID)
    {
       //
       // Process common attributes
       //
-      List<Row> rows = getRows("project", "proj_id", m_projectID);
-      m_reader.processProjectProperties(rows);
+      List<Row> rows = getRows("project", "proj_id", projectID);
+      reader.processProjectProperties(rows);
 
       //
       // Process XER-specific attributes
       //
       if (m_defaultCurrencyData != null)
       {
-         m_reader.processDefaultCurrency(m_defaultCurrencyData);
+         reader.processDefaultCurrency(m_defaultCurrencyData);
       }
    }
 
    /**
     * Process user defined fields.
+    *
+    * @param reader reader used to build the project
     */
-   private void processUserDefinedFields()
+   private void processUserDefinedFields(PrimaveraReader reader)
    {
       List<Row> udfs = getRows("udftype", null, null);
-      m_reader.processUserDefinedFields(udfs);
+      reader.processUserDefinedFields(udfs);
    }
 
    /**
     * Process project calendars.
+    *
+    * @param reader reader used to build the project
     */
-   private void processCalendars()
+   private void processCalendars(PrimaveraReader reader)
    {
       List<Row> rows = getRows("calendar", null, null);
-      m_reader.processCalendars(rows);
+      reader.processCalendars(rows);
    }
 
    /**
     * Process resources.
+    *
+    * @param reader reader used to build the project
     */
-   private void processResources()
+   private void processResources(PrimaveraReader reader)
    {
       List<Row> rows = getRows("rsrc", null, null);
-      m_reader.processResources(rows);
+      reader.processResources(rows);
    }
 
    /**
     * Process tasks.
+    *
+    * @param reader reader used to build the project
+    * @param projectID ID of the project being read
     */
-   private void processTasks()
+   private void processTasks(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> wbs = getRows("projwbs", "proj_id", m_projectID);
-      List<Row> tasks = getRows("task", "proj_id", m_projectID);
-      List<Row> costs = getRows("projcost", "proj_id", m_projectID);
-      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", m_projectID);
-      //List<Row> taskmemos = getRows("taskmemo", "proj_id", m_projectID);
-      List<Row> udfVals = getRows("udfvalue", "proj_id", m_projectID);
+      List<Row> wbs = getRows("projwbs", "proj_id", projectID);
+      List<Row> tasks = getRows("task", "proj_id", projectID);
+      List<Row> costs = getRows("projcost", "proj_id", projectID);
+      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", projectID);
+      //List<Row> taskmemos = getRows("taskmemo", "proj_id", projectID);
+      List<Row> udfVals = getRows("udfvalue", "proj_id", projectID);
       Collections.sort(wbs, WBS_ROW_COMPARATOR);
-      m_reader.processTasks(wbs, tasks, costs, udfVals/*, wbsmemos, taskmemos*/);
+      reader.processTasks(wbs, tasks, costs, udfVals/*, wbsmemos, taskmemos*/);
    }
 
    /**
     * Process predecessors.
+    *
+    * @param reader reader used to build the project
+    * @param projectID ID of the project being read
     */
-   private void processPredecessors()
+   private void processPredecessors(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskpred", "proj_id", m_projectID);
-      m_reader.processPredecessors(rows);
+      List<Row> rows = getRows("taskpred", "proj_id", projectID);
+      reader.processPredecessors(rows);
    }
 
    /**
     * Process resource assignments.
+    *
+    * @param reader reader used to build the project
+    * @param projectID ID of the project being read
     */
-   private void processAssignments()
+   private void processAssignments(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskrsrc", "proj_id", m_projectID);
-      m_reader.processAssignments(rows);
+      List<Row> rows = getRows("taskrsrc", "proj_id", projectID);
+      reader.processAssignments(rows);
    }
 
    /**
@@ -473,15 +596,17 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
          case TABLE:
          {
+            trimCurrentTable();
             m_currentTableName = record.get(1).toLowerCase();
             m_skipTable = !REQUIRED_TABLES.contains(m_currentTableName);
+            m_currentIndex = null;
             if (m_skipTable)
             {
                m_currentTable = null;
             }
             else
             {
-               m_currentTable = new LinkedList<Row>();
+               m_currentTable = new ArrayList<Row>();
                m_tables.put(m_currentTableName, m_currentTable);
             }
             break;
@@ -492,14 +617,40 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
             if (m_skipTable)
             {
                m_currentFieldNames = null;
+               m_currentFieldTypes = null;
+               m_currentColumnarTable = null;
             }
             else
             {
                m_currentFieldNames = record.toArray(new String[record.size()]);
+               m_currentFieldTypes = new XerFieldType[m_currentFieldNames.length];
+               String[] columnNames = new String[m_currentFieldNames.length - 1];
+               ColumnType[] columnTypes = new ColumnType[columnNames.length];
+
                for (int loop = 0; loop < m_currentFieldNames.length; loop++)
                {
                   m_currentFieldNames[loop] = m_currentFieldNames[loop].toLowerCase();
+                  if (m_currentFieldNames[loop].equals("proj_id"))
+                  {
+                     m_currentIndex = new HashMap<Integer, List<Row>>();
+                     m_projectIndexes.put(m_currentTableName, m_currentIndex);
+                  }
+
+                  XerFieldType fieldType = FIELD_TYPE_MAP.get(m_currentFieldNames[loop]);
+                  if (fieldType == null)
+                  {
+                     fieldType = XerFieldType.STRING;
+                  }
+                  m_currentFieldTypes[loop] = fieldType;
+
+                  if (loop != 0)
+                  {
+                     columnNames[loop - 1] = m_currentFieldNames[loop];
+                     columnTypes[loop - 1] = COLUMN_TYPE_MAP.get(fieldType);
+                  }
                }
+
+               m_currentColumnarTable = new ColumnarTable(columnNames, columnTypes);
             }
             break;
          }
@@ -508,16 +659,11 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          {
             if (!m_skipTable)
             {
-               Map<String, Object> map = new HashMap<String, Object>();
+               int rowIndex = m_currentColumnarTable.addRow();
                for (int loop = 1; loop < record.size(); loop++)
                {
-                  String fieldName = m_currentFieldNames[loop];
                   String fieldValue = record.get(loop);
-                  XerFieldType fieldType = FIELD_TYPE_MAP.get(fieldName);
-                  if (fieldType == null)
-                  {
-                     fieldType = XerFieldType.STRING;
-                  }
+                  XerFieldType fieldType = m_currentFieldTypes[loop];
 
                   Object objectValue;
                   if (fieldValue.length() == 0)
@@ -573,12 +719,28 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
                      }
                   }
 
-                  map.put(fieldName, objectValue);
+                  m_currentColumnarTable.setValue(rowIndex, loop - 1, objectValue);
                }
 
-               Row currentRow = new MapRow(map);
+               Row currentRow = new TableRow(m_currentColumnarTable, rowIndex);
                m_currentTable.add(currentRow);
 
+               //
+               // Index rows by project as we read them so that
+               // each project's rows can be retrieved directly.
+               //
+               if (m_currentIndex != null)
+               {
+                  Integer projectID = currentRow.getInteger("proj_id");
+                  List<Row> projectRows = m_currentIndex.get(projectID);
+                  if (projectRows == null)
+                  {
+                     projectRows = new ArrayList<Row>();
+                     m_currentIndex.put(projectID, projectRows);
+                  }
+                  projectRows.add(currentRow);
+               }
+
                //
                // Special case - we need to know the default currency format
                // ahead of time, so process each row as we get it so that
@@ -594,6 +756,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
          case END:
          {
+            trimCurrentTable();
             done = true;
             break;
          }
@@ -607,6 +770,18 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       return done;
    }
 
+   /**
+    * Release unused storage held by the table we have just finished reading.
+    */
+   private void trimCurrentTable()
+   {
+      if (m_currentColumnarTable != null)
+      {
+         m_currentColumnarTable.trimToSize();
+         m_currentColumnarTable = null;
+      }
+   }
+
    /**
     * Extract any useful attributes from the header record.
     *
@@ -681,7 +856,8 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    /**
     * Filters a list of rows from the named table. If a column name and a value
     * are supplied, then use this to filter the rows. If no column name is
-    * supplied, then return all rows.
+    * supplied, then return all rows. Filtering by project ID uses the
+    * index built as the table was read, rather than scanning the table.
     *
     * @param tableName table name
     * @param columnName filter column name
@@ -698,18 +874,38 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       }
       else
       {
+         Map<Integer, List<Row>> index = "proj_id".equals(columnName) ? m_projectIndexes.get(tableName) : null;
          if (columnName == null)
          {
             result = table;
          }
          else
          {
-            result = new LinkedList<Row>();
-            for (Row row : table)
+            if (index != null)
+            {
+               result = index.get(id);
+               if (result == null)
+               {
+                  result = Collections.<Row> emptyList();
+               }
+               else
+               {
+                  //
+                  // Callers may sort the list they are given,
+                  // so hand back a copy of the indexed rows.
+                  //
+                  result = new ArrayList<Row>(result);
+               }
+            }
+            else
             {
-               if (NumberHelper.equals(id, row.getInteger(columnName)))
+               result = new ArrayList<Row>();
+               for (Row row : table)
                {
-                  result.add(row);
+                  if (NumberHelper.equals(id, row.getInteger(columnName)))
+                  {
+                     result.add(row);
+                  }
                }
             }
          }
@@ -717,6 +913,31 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       return result;
    }
 
+   /**
+    * Retrieve the executor service used by readAll to build projects.
+    *
+    * @return executor service, or null if projects are built on the calling thread
+    */
+   public ExecutorService getExecutorService()
+   {
+      return m_executorService;
+   }
+
+   /**
+    * Set the executor service used by readAll to build each project
+    * in the file as a separate task. The caller retains ownership of the
+    * executor, and is responsible for shutting it down. Note that any
+    * project listeners will be called from the executor's threads.
+    * Defaults to null, in which case projects are built in turn
+    * on the calling thread.
+    *
+    * @param executorService executor service
+    */
+   public void setExecutorService(ExecutorService executorService)
+   {
+      m_executorService = executorService;
+   }
+
    /**
     * If set to true, the WBS for each task read from Primavera will exactly match the WBS value shown in Primavera.
     * If set to false, each task will be given a unique WBS based on the WBS present in Primavera.
@@ -743,13 +964,16 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    private String m_encoding;
    private Charset m_charset;
-   private PrimaveraReader m_reader;
    private Integer m_projectID;
    boolean m_skipTable;
    private Map<String, List<Row>> m_tables;
    private String m_currentTableName;
    private List<Row> m_currentTable;
+   private Map<String, Map<Integer, List<Row>>> m_projectIndexes;
+   private Map<Integer, List<Row>> m_currentIndex;
    private String[] m_currentFieldNames;
+   private XerFieldType[] m_currentFieldTypes;
+   private ColumnarTable m_currentColumnarTable;
    private String m_defaultCurrencyName;
    private Map<String, DecimalFormat> m_currencyMap = new HashMap<String, DecimalFormat>();
    private DecimalFormat m_numberFormat;
@@ -763,6 +987,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    private Map<FieldType, String> m_assignmentFields = PrimaveraReader.getDefaultAssignmentFieldMap();
    private Map<FieldType, String> m_aliases = PrimaveraReader.getDefaultAliases();
    private boolean m_matchPrimaveraWBS = true;
+   private ExecutorService m_executorService;
 
    /**
     * Represents expected record types.
@@ -899,6 +1124,20 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       FIELD_TYPE_MAP.put("udf_code_id", XerFieldType.INTEGER);
    }
 
+   /**
+    * Maps column data types to the storage used for them.
+    */
+   private static final Map<XerFieldType, ColumnType> COLUMN_TYPE_MAP = new EnumMap<XerFieldType, ColumnType>(XerFieldType.class);
+   static
+   {
+      COLUMN_TYPE_MAP.put(XerFieldType.STRING, ColumnType.OBJECT);
+      COLUMN_TYPE_MAP.put(XerFieldType.INTEGER, ColumnType.INTEGER);
+      COLUMN_TYPE_MAP.put(XerFieldType.DOUBLE, ColumnType.DOUBLE);
+      COLUMN_TYPE_MAP.put(XerFieldType.DATE, ColumnType.DATE);
+      COLUMN_TYPE_MAP.put(XerFieldType.DURATION, ColumnType.DOUBLE);
+      COLUMN_TYPE_MAP.put(XerFieldType.CURRENCY, ColumnType.DOUBLE);
+   }
+
    private static final Set<String> REQUIRED_TABLES = new HashSet<String>();
    static
    {
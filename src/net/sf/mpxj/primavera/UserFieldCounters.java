@@ -43,6 +43,18 @@ class UserFieldCounters
       }
    }
 
+   /**
+    * Copy constructor. Creates a new instance with the same field
+    * names as the source, allowing independent counters to be
+    * used when projects are processed concurrently.
+    *
+    * @param source counters to copy
+    */
+   public UserFieldCounters(UserFieldCounters source)
+   {
+      System.arraycopy(source.m_names, 0, m_names, 0, m_names.length);
+   }
+
    /**
     * Allow the caller to override the default field name assigned
     * to a user defined data type.
@@ -45,6 +45,7 @@ public class ProjectLibreReader extends AbstractProjectReader
 
    @Override public ProjectFile read(InputStream inputStream) throws MPXJException
    {
+      m_reader.setFieldStoreFactory(getFieldStoreFactory());
       ProjectFile file = m_reader.read(new SearchableInputStream(inputStream, "@@@@@@@@@@ProjectLibreSeparator_MSXML@@@@@@@@@@"));
       file.getProjectProperties().setFileApplication("ProjectLibre");
       file.getProjectProperties().setFileType("POD");
@@ -29,6 +29,7 @@ import java.io.IOException;
 
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.FieldStoreFactory;
 
 /**
  * Abstract implementation of the ProjectReader interface
@@ -41,37 +42,7 @@ public abstract class AbstractProjectReader implements ProjectReader
     */
    @Override public ProjectFile read(String fileName) throws MPXJException
    {
-      FileInputStream fis = null;
-
-      try
-      {
-         fis = new FileInputStream(fileName);
-         ProjectFile projectFile = read(fis);
-         fis.close();
-         fis = null;
-         return (projectFile);
-      }
-
-      catch (IOException ex)
-      {
-         throw new MPXJException(MPXJException.READ_ERROR, ex);
-      }
-
-      finally
-      {
-         if (fis != null)
-         {
-            try
-            {
-               fis.close();
-            }
-
-            catch (Exception ex)
-            {
-               // Silently ignore exceptions on close
-            }
-         }
-      }
+      return read(new File(fileName));
    }
 
    /**
@@ -110,4 +81,30 @@ public abstract class AbstractProjectReader implements ProjectReader
          }
       }
    }
+
+   /**
+    * Set the factory used to create the storage which holds field values
+    * for the tasks, resources and resource assignments of each project
+    * read by this reader.
+    *
+    * @param factory field store factory
+    */
+   public void setFieldStoreFactory(FieldStoreFactory factory)
+   {
+      m_fieldStoreFactory = factory;
+   }
+
+   /**
+    * Retrieve the factory used to create the storage which holds field
+    * values for the tasks, resources and resource assignments of each
+    * project read by this reader.
+    *
+    * @return field store factory, default is FieldStoreFactory.DENSE
+    */
+   public FieldStoreFactory getFieldStoreFactory()
+   {
+      return m_fieldStoreFactory;
+   }
+
+   private FieldStoreFactory m_fieldStoreFactory = FieldStoreFactory.DENSE;
 }
@@ -25,6 +25,8 @@ package net.sf.mpxj.reader;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.sql.Connection;
@@ -32,12 +34,17 @@ import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -48,6 +55,7 @@ import net.sf.mpxj.asta.AstaDatabaseFileReader;
 import net.sf.mpxj.asta.AstaDatabaseReader;
 import net.sf.mpxj.asta.AstaFileReader;
 import net.sf.mpxj.common.CharsetHelper;
+import net.sf.mpxj.common.FieldStoreFactory;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.fasttrack.FastTrackReader;
 import net.sf.mpxj.listener.ProjectListener;
@@ -139,7 +147,9 @@ public class UniversalProjectReader extends AbstractProjectReader
 
          if (matchesFingerprint(buffer, MSPDI_FINGERPRINT))
          {
-            return new MSPDIReader().read(bis);
+            MSPDIReader reader = new MSPDIReader();
+            reader.setFieldStoreFactory(getFieldStoreFactory());
+            return reader.read(bis);
          }
 
          if (matchesFingerprint(buffer, PP_FINGERPRINT))
@@ -228,6 +238,118 @@ public class UniversalProjectReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Note that this method returns null if we can't determine the file type.
+    * OLE compound documents are read directly from the file using a
+    * memory mapped file system, and SQLite and MDB databases are opened
+    * in place. All other file types are read from a stream.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      try
+      {
+         byte[] buffer = readFileHeader(file);
+         if (buffer != null)
+         {
+            if (matchesFingerprint(buffer, OLE_COMPOUND_DOC_FINGERPRINT))
+            {
+               POIFSFileSystem fs = new POIFSFileSystem(file, true);
+               try
+               {
+                  return handleOleCompoundDocument(fs);
+               }
+
+               finally
+               {
+                  fs.close();
+               }
+            }
+
+            if (matchesFingerprint(buffer, MDB_FINGERPRINT))
+            {
+               return handleMDBFile(file);
+            }
+
+            if (matchesFingerprint(buffer, SQLITE_FINGERPRINT))
+            {
+               return handleSQLiteFile(file);
+            }
+         }
+      }
+
+      catch (MPXJException ex)
+      {
+         throw ex;
+      }
+
+      catch (Exception ex)
+      {
+         throw new MPXJException(MPXJException.INVALID_FILE, ex);
+      }
+
+      return super.read(file);
+   }
+
+   /**
+    * Read a batch of files. Each file is read by a separate reader, as a
+    * separate task submitted to the supplied executor. A future is returned
+    * for each file, in the same order as the list of files. Retrieving the
+    * result of a future returns the project, which will be null if the file
+    * type was not recognised, or throws an ExecutionException whose cause is
+    * the exception raised when the file could not be read.
+    *
+    * The caller retains ownership of the executor, and is responsible for
+    * shutting it down. Any project listeners attached to this reader will be
+    * called from the executor's threads, and each file is read using this
+    * reader's field store factory. If the executor is null, each file
+    * is read in turn on the calling thread before this method returns.
+    *
+    * @param files files to read
+    * @param executorService executor service, or null
+    * @return one future per file
+    */
+   public List<Future<ProjectFile>> read(List<File> files, ExecutorService executorService)
+   {
+      final List<ProjectListener> listeners = m_projectListeners == null ? null : new ArrayList<ProjectListener>(m_projectListeners);
+      final FieldStoreFactory fieldStoreFactory = getFieldStoreFactory();
+      List<Future<ProjectFile>> result = new ArrayList<Future<ProjectFile>>(files.size());
+
+      for (final File file : files)
+      {
+         Callable<ProjectFile> task = new Callable<ProjectFile>()
+         {
+            @Override public ProjectFile call() throws MPXJException
+            {
+               UniversalProjectReader reader = new UniversalProjectReader();
+               reader.setFieldStoreFactory(fieldStoreFactory);
+               if (listeners != null)
+               {
+                  for (ProjectListener listener : listeners)
+                  {
+                     reader.addProjectListener(listener);
+                  }
+               }
+               return reader.read(file);
+            }
+         };
+
+         if (executorService == null)
+         {
+            FutureTask<ProjectFile> future = new FutureTask<ProjectFile>(task);
+            future.run();
+            result.add(future);
+         }
+         else
+         {
+            result.add(executorService.submit(task));
+         }
+      }
+
+      return result;
+   }
+
    /**
     * Determine if the start of the buffer matches a fingerprint byte array.
     *
@@ -253,54 +375,81 @@ public class UniversalProjectReader extends AbstractProjectReader
    }
 
    /**
-    * Adds listeners and reads from a stream.
+    * Configures the reader and reads from a stream.
     *
     * @param reader reader for file type
     * @param stream schedule data
     * @return ProjectFile instance
     */
-   private ProjectFile readProjectFile(ProjectReader reader, InputStream stream) throws MPXJException
+   private ProjectFile readProjectFile(AbstractProjectReader reader, InputStream stream) throws MPXJException
    {
-      addListeners(reader);
+      configureReader(reader);
       return reader.read(stream);
    }
 
    /**
-    * Adds listeners and reads from a file.
+    * We have an OLE compound document... but is it an MPP file?
     *
-    * @param reader reader for file type
-    * @param file schedule data
+    * @param stream file input stream
     * @return ProjectFile instance
     */
-   private ProjectFile readProjectFile(ProjectReader reader, File file) throws MPXJException
+   private ProjectFile handleOleCompoundDocument(InputStream stream) throws Exception
    {
-      addListeners(reader);
-      return reader.read(file);
+      return handleOleCompoundDocument(new POIFSFileSystem(stream));
    }
 
    /**
     * We have an OLE compound document... but is it an MPP file?
     *
-    * @param stream file input stream
+    * @param fs POI file system
     * @return ProjectFile instance
     */
-   private ProjectFile handleOleCompoundDocument(InputStream stream) throws Exception
+   private ProjectFile handleOleCompoundDocument(POIFSFileSystem fs) throws Exception
    {
-      POIFSFileSystem fs = new POIFSFileSystem(stream);
       MPPReader reader = new MPPReader();
       String fileFormat = reader.getFileFormat(fs);
       if (fileFormat.startsWith("MSProject"))
       {
-         addListeners(reader);
+         configureReader(reader);
          return reader.read(fs);
       }
       return null;
    }
 
    /**
-    * We have identified that we have an MDB file. This could be a Microsoft Project database
-    * or an Asta database. Open the database and use the table names present to determine
-    * which type this is.
+    * Read the bytes from the start of a file used to determine its type.
+    *
+    * @param file file to test
+    * @return header bytes, or null if the file is too small to be a valid schedule file
+    */
+   private byte[] readFileHeader(File file) throws IOException
+   {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int bytesRead = 0;
+      FileInputStream is = new FileInputStream(file);
+      try
+      {
+         while (bytesRead < buffer.length)
+         {
+            int count = is.read(buffer, bytesRead, buffer.length - bytesRead);
+            if (count == -1)
+            {
+               break;
+            }
+            bytesRead += count;
+         }
+      }
+
+      finally
+      {
+         is.close();
+      }
+      return bytesRead == buffer.length ? buffer : null;
+   }
+
+   /**
+    * We have identified that we have an MDB file in a stream. The stream
+    * is copied to a temporary file so that the database can be opened.
     *
     * @param stream schedule data
     * @return ProjectFile instance
@@ -311,18 +460,49 @@ public class UniversalProjectReader extends AbstractProjectReader
 
       try
       {
-         Class.forName("sun.jdbc.odbc.JdbcOdbcDriver");
-         String url = "jdbc:odbc:DRIVER=Microsoft Access Driver (*.mdb);DBQ=" + file.getCanonicalPath();
-         Set<String> tableNames = populateTableNames(url);
+         return handleMDBFile(file);
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * We have identified that we have an MDB file. This could be a Microsoft Project database
+    * or an Asta database. Open the database and use the table names present to determine
+    * which type this is. The same connection is then used to read the project.
+    *
+    * @param file schedule data
+    * @return ProjectFile instance
+    */
+   private ProjectFile handleMDBFile(File file) throws Exception
+   {
+      Class.forName("sun.jdbc.odbc.JdbcOdbcDriver");
+      String url = "jdbc:odbc:DRIVER=Microsoft Access Driver (*.mdb);DBQ=" + file.getCanonicalPath();
+      Connection connection = DriverManager.getConnection(url);
+
+      try
+      {
+         Set<String> tableNames = populateTableNames(connection);
 
          if (tableNames.contains("MSP_PROJECTS"))
          {
-            return readProjectFile(new MPDDatabaseReader(), file);
+            MPDDatabaseReader reader = new MPDDatabaseReader();
+            reader.setConnection(connection);
+            reader.setProjectID(1);
+            configureReader(reader);
+            return reader.read();
          }
 
          if (tableNames.contains("EXCEPTIONN"))
          {
-            return readProjectFile(new AstaDatabaseReader(), file);
+            AstaDatabaseReader reader = new AstaDatabaseReader();
+            reader.setConnection(connection);
+            reader.setProjectID(0);
+            configureReader(reader);
+            return reader.read();
          }
 
          return null;
@@ -330,14 +510,13 @@ public class UniversalProjectReader extends AbstractProjectReader
 
       finally
       {
-         file.delete();
+         connection.close();
       }
    }
 
    /**
-    * We have identified that we have a SQLite file. This could be a Primavera Project database
-    * or an Asta database. Open the database and use the table names present to determine
-    * which type this is.
+    * We have identified that we have a SQLite file in a stream. The stream
+    * is copied to a temporary file so that the database can be opened.
     *
     * @param stream schedule data
     * @return ProjectFile instance
@@ -348,40 +527,58 @@ public class UniversalProjectReader extends AbstractProjectReader
 
       try
       {
-         Class.forName("org.sqlite.JDBC");
-         String url = "jdbc:sqlite:" + file.getCanonicalPath();
-         Set<String> tableNames = populateTableNames(url);
+         return handleSQLiteFile(file);
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * We have identified that we have a SQLite file. This could be a Primavera Project database,
+    * an Asta database, or a Merlin database. Open the database and use the table names present
+    * to determine which type this is. The same connection is then used to read the project.
+    *
+    * @param file schedule data
+    * @return ProjectFile instance
+    */
+   private ProjectFile handleSQLiteFile(File file) throws Exception
+   {
+      Class.forName("org.sqlite.JDBC");
+      String url = "jdbc:sqlite:" + file.getCanonicalPath();
+      Properties props = new Properties();
+      props.setProperty("date_string_format", "yyyy-MM-dd HH:mm:ss");
+      Connection connection = DriverManager.getConnection(url, props);
+
+      try
+      {
+         Set<String> tableNames = populateTableNames(connection);
 
          if (tableNames.contains("EXCEPTIONN"))
          {
-            return readProjectFile(new AstaDatabaseFileReader(), file);
+            AstaDatabaseFileReader reader = new AstaDatabaseFileReader();
+            reader.setConnection(connection);
+            reader.setProjectID(0);
+            configureReader(reader);
+            return reader.read();
          }
 
          if (tableNames.contains("PROJWBS"))
          {
-            Connection connection = null;
-            try
-            {
-               Properties props = new Properties();
-               props.setProperty("date_string_format", "yyyy-MM-dd HH:mm:ss");
-               connection = DriverManager.getConnection(url, props);
-               PrimaveraDatabaseReader reader = new PrimaveraDatabaseReader();
-               reader.setConnection(connection);
-               addListeners(reader);
-               return reader.read();
-            }
-            finally
-            {
-               if (connection != null)
-               {
-                  connection.close();
-               }
-            }
+            PrimaveraDatabaseReader reader = new PrimaveraDatabaseReader();
+            reader.setConnection(connection);
+            configureReader(reader);
+            return reader.read();
          }
 
          if (tableNames.contains("ZSCHEDULEITEM"))
          {
-            return readProjectFile(new MerlinReader(), file);
+            MerlinReader reader = new MerlinReader();
+            reader.setConnection(connection);
+            configureReader(reader);
+            return reader.read();
          }
 
          return null;
@@ -389,7 +586,7 @@ public class UniversalProjectReader extends AbstractProjectReader
 
       finally
       {
-         file.delete();
+         connection.close();
       }
    }
 
@@ -418,7 +615,9 @@ public class UniversalProjectReader extends AbstractProjectReader
             continue;
          }
 
-         ProjectFile result = new UniversalProjectReader().read(zip);
+         UniversalProjectReader reader = new UniversalProjectReader();
+         reader.setFieldStoreFactory(getFieldStoreFactory());
+         ProjectFile result = reader.read(zip);
          if (result != null)
          {
             return result;
@@ -440,24 +639,23 @@ public class UniversalProjectReader extends AbstractProjectReader
       UniversalProjectReader reader = new UniversalProjectReader();
       reader.setSkipBytes(length);
       reader.setCharset(charset);
+      reader.setFieldStoreFactory(getFieldStoreFactory());
       return reader.read(stream);
    }
 
    /**
-    * Open a database and build a set of table names.
+    * Build a set of the table names present in a database.
     *
-    * @param url database URL
+    * @param connection database connection
     * @return set containing table names
     */
-   private Set<String> populateTableNames(String url) throws SQLException
+   private Set<String> populateTableNames(Connection connection) throws SQLException
    {
       Set<String> tableNames = new HashSet<String>();
-      Connection connection = null;
       ResultSet rs = null;
 
       try
       {
-         connection = DriverManager.getConnection(url);
          DatabaseMetaData dmd = connection.getMetaData();
          rs = dmd.getTables(null, null, null, null);
          while (rs.next())
@@ -472,23 +670,20 @@ public class UniversalProjectReader extends AbstractProjectReader
          {
             rs.close();
          }
-
-         if (connection != null)
-         {
-            connection.close();
-         }
       }
 
       return tableNames;
    }
 
    /**
-    * Adds any listeners attached to this reader to the reader created internally.
+    * Adds any listeners attached to this reader to the reader created internally,
+    * and passes on the field store factory.
     *
     * @param reader internal project reader
     */
-   private void addListeners(ProjectReader reader)
+   private void configureReader(AbstractProjectReader reader)
    {
+      reader.setFieldStoreFactory(getFieldStoreFactory());
       if (m_projectListeners != null)
       {
          for (ProjectListener listener : m_projectListeners)
@@ -0,0 +1,539 @@
+/*
+ * file:       CalendarTimeline.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       02/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarDateRanges;
+
+/**
+ * Flattened view of the working time defined by a calendar. Each working
+ * range is held as a pair of absolute timestamps, together with the total
+ * working time which precedes it on the timeline. This allows calendar
+ * arithmetic to be carried out using a binary search rather than by
+ * walking the calendar a day at a time. Ranges are generated on demand,
+ * extending the timeline in either direction as required.
+ *
+ * All working time values are expressed in milliseconds.
+ */
+final class CalendarTimeline
+{
+   /**
+    * Constructor.
+    *
+    * @param calendar source calendar
+    */
+   public CalendarTimeline(ProjectCalendar calendar)
+   {
+      m_calendar = calendar;
+   }
+
+   /**
+    * Calculate the date at which an amount of working time beginning
+    * at the supplied start date is complete.
+    *
+    * @param start start date
+    * @param work working time
+    * @return finish date
+    */
+   public long getFinish(long start, long work)
+   {
+      long target = getPosition(start) + work;
+      if (!extendForward(target))
+      {
+         return start;
+      }
+
+      //
+      // Find the first range ending at or after the target position
+      //
+      int low = m_first;
+      int high = m_first + m_count - 1;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_cumulative[mid] + (m_end[mid] - m_start[mid]) < target)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return m_start[low] + (target - m_cumulative[low]);
+   }
+
+   /**
+    * Calculate the date at which an amount of working time ending
+    * at the supplied finish date must begin.
+    *
+    * @param finish finish date
+    * @param work working time
+    * @return start date
+    */
+   public long getStart(long finish, long work)
+   {
+      long target = getPosition(finish) - work;
+      if (!extendBackward(target))
+      {
+         return finish;
+      }
+
+      //
+      // Find the last range starting at or before the target position
+      //
+      int low = m_first;
+      int high = m_first + m_count - 1;
+      while (low < high)
+      {
+         int mid = (low + high + 1) >>> 1;
+         if (m_cumulative[mid] > target)
+         {
+            high = mid - 1;
+         }
+         else
+         {
+            low = mid;
+         }
+      }
+      return m_start[low] + (target - m_cumulative[low]);
+   }
+
+   /**
+    * Retrieve the start of the next working period at or after a date.
+    *
+    * @param date date
+    * @return next work start
+    */
+   public long getNextWorkStart(long date)
+   {
+      cover(date);
+      int index = findRange(date, true);
+      if (index != -1 && date < m_end[index])
+      {
+         return date;
+      }
+
+      if (m_count == 0 || index == m_first + m_count - 1)
+      {
+         if (!extendForward(m_endPosition + 1))
+         {
+            return date;
+         }
+         index = findRange(date, true);
+      }
+      return m_start[index == -1 ? m_first : index + 1];
+   }
+
+   /**
+    * Retrieve the end of the last working period at or before a date.
+    *
+    * @param date date
+    * @return previous work finish
+    */
+   public long getPreviousWorkFinish(long date)
+   {
+      cover(date);
+      int index = findRange(date, false);
+      if (index == -1)
+      {
+         if (!extendBackward(m_startPosition - 1))
+         {
+            return date;
+         }
+         index = findRange(date, false);
+      }
+      return Math.min(date, m_end[index]);
+   }
+
+   /**
+    * Retrieve the working time between two dates. The result is
+    * negative if the second date is before the first.
+    *
+    * @param start start date
+    * @param end end date
+    * @return working time
+    */
+   public long getWork(long start, long end)
+   {
+      return getPosition(end) - getPosition(start);
+   }
+
+   /**
+    * Retrieve the total working time on the timeline before a given date.
+    * This is only meaningful relative to other positions.
+    *
+    * @param date date
+    * @return position
+    */
+   private long getPosition(long date)
+   {
+      cover(date);
+      int index = findRange(date, true);
+      if (index == -1)
+      {
+         return m_startPosition;
+      }
+      return m_cumulative[index] + (Math.min(date, m_end[index]) - m_start[index]);
+   }
+
+   /**
+    * Find the last range starting before a date.
+    *
+    * @param date date
+    * @param inclusive true if a range starting at the date is included
+    * @return range index, or -1 if no range was found
+    */
+   private int findRange(long date, boolean inclusive)
+   {
+      int low = m_first;
+      int high = m_first + m_count - 1;
+      int result = -1;
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         long start = m_start[mid];
+         if (start < date || (inclusive && start == date))
+         {
+            result = mid;
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid - 1;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Ensure that the timeline covers a date. A day's margin is kept before
+    * the date so that ranges which run overnight from the previous day are
+    * taken into account.
+    *
+    * @param date date
+    */
+   private void cover(long date)
+   {
+      if (m_calendarInstance == null)
+      {
+         m_calendarInstance = Calendar.getInstance();
+         m_calendarInstance.setTimeInMillis(date);
+         m_calendarInstance.set(Calendar.HOUR_OF_DAY, 0);
+         m_calendarInstance.set(Calendar.MINUTE, 0);
+         m_calendarInstance.set(Calendar.SECOND, 0);
+         m_calendarInstance.set(Calendar.MILLISECOND, 0);
+         m_startDay = m_calendarInstance.getTimeInMillis();
+         m_endDay = m_startDay;
+      }
+
+      while (date >= m_endDay)
+      {
+         appendDay();
+      }
+
+      while (date - ONE_DAY < m_startDay)
+      {
+         prependDay();
+      }
+   }
+
+   /**
+    * Extend the timeline forward until it reaches a given position.
+    *
+    * @param position required position
+    * @return false if the calendar has no working time within range
+    */
+   private boolean extendForward(long position)
+   {
+      int nonWorkingDays = 0;
+      while (m_endPosition < position)
+      {
+         if (appendDay())
+         {
+            nonWorkingDays = 0;
+         }
+         else
+         {
+            if (++nonWorkingDays > MAX_NONWORKING_DAYS)
+            {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Extend the timeline backward until it reaches a given position.
+    *
+    * @param position required position
+    * @return false if the calendar has no working time within range
+    */
+   private boolean extendBackward(long position)
+   {
+      int nonWorkingDays = 0;
+      while (m_startPosition > position)
+      {
+         if (prependDay())
+         {
+            nonWorkingDays = 0;
+         }
+         else
+         {
+            if (++nonWorkingDays > MAX_NONWORKING_DAYS)
+            {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Add the working ranges for the day following the end of the timeline.
+    *
+    * @return true if any working time was added
+    */
+   private boolean appendDay()
+   {
+      long day = m_endDay;
+      m_endDay = addDays(day, 1);
+
+      ProjectCalendarDateRanges ranges = getRanges(day);
+      int count = ranges == null ? 0 : ranges.getRangeCount();
+      boolean result = false;
+
+      for (int index = 0; index < count; index++)
+      {
+         DateRange range = ranges.getRange(index);
+         if (range.getStart() == null || range.getEnd() == null)
+         {
+            continue;
+         }
+
+         int startMinutes = getMinuteOfDay(range.getStart());
+         int endMinutes = getMinuteOfDay(range.getEnd());
+         if (endMinutes <= startMinutes)
+         {
+            endMinutes += MINUTES_PER_DAY;
+         }
+
+         long start = getTimestamp(day, startMinutes);
+         long end = getTimestamp(day, endMinutes);
+         if (m_count != 0)
+         {
+            start = Math.max(start, m_end[m_first + m_count - 1]);
+         }
+
+         if (end > start)
+         {
+            if (m_first + m_count == m_start.length)
+            {
+               grow();
+            }
+
+            int insert = m_first + m_count;
+            m_start[insert] = start;
+            m_end[insert] = end;
+            m_cumulative[insert] = m_endPosition;
+            m_endPosition += (end - start);
+            ++m_count;
+            result = true;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Add the working ranges for the day preceding the start of the timeline.
+    *
+    * @return true if any working time was added
+    */
+   private boolean prependDay()
+   {
+      long day = addDays(m_startDay, -1);
+      m_startDay = day;
+
+      ProjectCalendarDateRanges ranges = getRanges(day);
+      int count = ranges == null ? 0 : ranges.getRangeCount();
+      boolean result = false;
+
+      for (int index = count - 1; index >= 0; index--)
+      {
+         DateRange range = ranges.getRange(index);
+         if (range.getStart() == null || range.getEnd() == null)
+         {
+            continue;
+         }
+
+         int startMinutes = getMinuteOfDay(range.getStart());
+         int endMinutes = getMinuteOfDay(range.getEnd());
+         if (endMinutes <= startMinutes)
+         {
+            endMinutes += MINUTES_PER_DAY;
+         }
+
+         long start = getTimestamp(day, startMinutes);
+         long end = getTimestamp(day, endMinutes);
+         if (m_count != 0)
+         {
+            end = Math.min(end, m_start[m_first]);
+         }
+
+         if (end > start)
+         {
+            if (m_first == 0)
+            {
+               grow();
+            }
+
+            --m_first;
+            m_startPosition -= (end - start);
+            m_start[m_first] = start;
+            m_end[m_first] = end;
+            m_cumulative[m_first] = m_startPosition;
+            ++m_count;
+            result = true;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve the working ranges for a day, taking exceptions into account.
+    *
+    * @param day start of day
+    * @return working ranges
+    */
+   private ProjectCalendarDateRanges getRanges(long day)
+   {
+      ProjectCalendarDateRanges ranges = m_calendar.getException(new Date(day));
+      if (ranges == null)
+      {
+         m_calendarInstance.setTimeInMillis(day);
+         ranges = m_calendar.getHours(Day.getInstance(m_calendarInstance.get(Calendar.DAY_OF_WEEK)));
+      }
+      return ranges;
+   }
+
+   /**
+    * Retrieve the time of day represented by a date, in minutes.
+    *
+    * @param date date
+    * @return minutes since midnight
+    */
+   private int getMinuteOfDay(Date date)
+   {
+      m_calendarInstance.setTime(date);
+      return m_calendarInstance.get(Calendar.HOUR_OF_DAY) * 60 + m_calendarInstance.get(Calendar.MINUTE);
+   }
+
+   /**
+    * Combine the start of a day with a time of day.
+    *
+    * @param day start of day
+    * @param minutes minutes since midnight, may extend into the following day
+    * @return timestamp
+    */
+   private long getTimestamp(long day, int minutes)
+   {
+      m_calendarInstance.setTimeInMillis(day);
+      if (minutes >= MINUTES_PER_DAY)
+      {
+         m_calendarInstance.add(Calendar.DAY_OF_YEAR, 1);
+         minutes -= MINUTES_PER_DAY;
+      }
+      m_calendarInstance.set(Calendar.HOUR_OF_DAY, minutes / 60);
+      m_calendarInstance.set(Calendar.MINUTE, minutes % 60);
+      return m_calendarInstance.getTimeInMillis();
+   }
+
+   /**
+    * Add a number of days to the start of a day.
+    *
+    * @param day start of day
+    * @param days number of days
+    * @return start of the resulting day
+    */
+   private long addDays(long day, int days)
+   {
+      m_calendarInstance.setTimeInMillis(day);
+      m_calendarInstance.add(Calendar.DAY_OF_YEAR, days);
+      return m_calendarInstance.getTimeInMillis();
+   }
+
+   /**
+    * Increase the capacity of the range arrays, leaving space
+    * at both ends so the timeline can grow in either direction.
+    */
+   private void grow()
+   {
+      int capacity = Math.max(INITIAL_CAPACITY, m_start.length * 2);
+      int first = (capacity - m_count) / 2;
+
+      long[] start = new long[capacity];
+      long[] end = new long[capacity];
+      long[] cumulative = new long[capacity];
+      System.arraycopy(m_start, m_first, start, first, m_count);
+      System.arraycopy(m_end, m_first, end, first, m_count);
+      System.arraycopy(m_cumulative, m_first, cumulative, first, m_count);
+
+      m_start = start;
+      m_end = end;
+      m_cumulative = cumulative;
+      m_first = first;
+   }
+
+   private final ProjectCalendar m_calendar;
+   private Calendar m_calendarInstance;
+
+   private long[] m_start = new long[0];
+   private long[] m_end = new long[0];
+   private long[] m_cumulative = new long[0];
+   private int m_first;
+   private int m_count;
+
+   private long m_startDay;
+   private long m_endDay;
+   private long m_startPosition;
+   private long m_endPosition;
+
+   private static final int INITIAL_CAPACITY = 64;
+   private static final int MINUTES_PER_DAY = 24 * 60;
+   private static final long ONE_DAY = 24L * 60L * 60L * 1000L;
+
+   /**
+    * Maximum number of consecutive non-working days we'll skip before
+    * assuming that the calendar has no more working time.
+    */
+   private static final int MAX_NONWORKING_DAYS = 1000;
+}
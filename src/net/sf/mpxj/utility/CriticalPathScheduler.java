@@ -0,0 +1,1241 @@
+/*
+ * file:       CriticalPathScheduler.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       02/10/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TaskMode;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.NumberHelper;
+
+/**
+ * Calculates early and late dates, slack and the critical path for the
+ * tasks in a project using the critical path method.
+ *
+ * The task hierarchy and relationships are converted into a network held
+ * in arrays and sorted topologically, then forward and backward passes are
+ * made over the network. Each summary task is represented by two nodes:
+ * one which passes the summary's relationships and constraints down to its
+ * subtasks, and one which rolls up the dates of its subtasks. Relationships
+ * with a summary task as the predecessor use the rolled up dates, and
+ * relationships with a summary task as the successor constrain each of
+ * its subtasks.
+ *
+ * Durations, lags and slack are calculated using each task's calendar, or
+ * the project's default calendar if the task does not have a calendar. Lags
+ * are calculated using the successor task's calendar. Tasks with an actual
+ * start, and manually scheduled tasks with a start and finish, keep their
+ * current dates. Tasks scheduled as late as possible are placed at their
+ * late dates, but their successors are scheduled from their early dates.
+ *
+ * The early start, early finish, late start, late finish, start, finish,
+ * start slack, finish slack and free slack attributes of each task are
+ * updated. Total slack and the critical flag are cleared so that they are
+ * derived from the new values.
+ */
+public final class CriticalPathScheduler
+{
+   /**
+    * Schedule a project from its start date. If the project properties do
+    * not include a start date, the earliest task start date is used.
+    *
+    * @param file project to schedule
+    * @throws MPXJException
+    */
+   public void schedule(ProjectFile file) throws MPXJException
+   {
+      Date startDate = file.getProjectProperties().getStartDate();
+      if (startDate == null)
+      {
+         startDate = file.getStartDate();
+      }
+
+      if (startDate == null)
+      {
+         throw new MPXJException(MPXJException.INVALID_DATE);
+      }
+
+      schedule(file, startDate);
+   }
+
+   /**
+    * Schedule a project from the supplied start date.
+    *
+    * @param file project to schedule
+    * @param startDate project start date
+    * @throws MPXJException
+    */
+   public void schedule(ProjectFile file, Date startDate) throws MPXJException
+   {
+      m_file = file;
+      ProjectProperties properties = file.getProjectProperties();
+      m_minutesPerDay = properties.getMinutesPerDay().doubleValue();
+      m_minutesPerWeek = properties.getMinutesPerWeek().doubleValue();
+      m_daysPerMonth = properties.getDaysPerMonth().doubleValue();
+
+      try
+      {
+         createNodes();
+         createEdges();
+         sortNodes();
+         forwardPass(startDate.getTime());
+         backwardPass();
+         updateTasks();
+      }
+
+      finally
+      {
+         m_file = null;
+         m_task = null;
+         m_kind = null;
+         m_timeline = null;
+         m_durationMinutes = null;
+         m_elapsed = null;
+         m_firstEdge = null;
+         m_edgeTarget = null;
+         m_edgeKind = null;
+         m_edgeRelation = null;
+         m_edgeValue = null;
+         m_order = null;
+         m_startBound = null;
+         m_finishBound = null;
+         m_earlyStart = null;
+         m_earlyFinish = null;
+         m_lateStartBound = null;
+         m_lateFinishBound = null;
+         m_lateStart = null;
+         m_lateFinish = null;
+         m_nodeIndex = null;
+      }
+   }
+
+   /**
+    * Create a node for each leaf task, and a pair of nodes for each
+    * summary task. The second node of a summary task immediately
+    * follows the first.
+    *
+    * @throws MPXJException
+    */
+   private void createNodes() throws MPXJException
+   {
+      List<Task> tasks = new ArrayList<Task>(m_file.getAllTasks().size());
+      for (Task task : m_file.getAllTasks())
+      {
+         if (!task.getNull() && (NumberHelper.getInt(task.getUniqueID()) != 0 || !task.getChildTasks().isEmpty()))
+         {
+            tasks.add(task);
+         }
+      }
+
+      m_nodeIndex = new IdentityHashMap<Task, Integer>(tasks.size());
+      int nodeCount = 0;
+      for (Task task : tasks)
+      {
+         m_nodeIndex.put(task, Integer.valueOf(nodeCount));
+         nodeCount += task.getChildTasks().isEmpty() ? 1 : 2;
+      }
+
+      m_task = new Task[nodeCount];
+      m_kind = new byte[nodeCount];
+      m_timeline = new CalendarTimeline[nodeCount];
+      m_durationMinutes = new double[nodeCount];
+      m_elapsed = new boolean[nodeCount];
+
+      ProjectCalendar defaultCalendar = m_file.getDefaultCalendar();
+      Map<ProjectCalendar, CalendarTimeline> timelines = new IdentityHashMap<ProjectCalendar, CalendarTimeline>();
+      int node = 0;
+      for (Task task : tasks)
+      {
+         ProjectCalendar calendar = task.getCalendar();
+         if (calendar == null)
+         {
+            calendar = defaultCalendar;
+         }
+
+         if (calendar == null)
+         {
+            throw new MPXJException(MPXJException.CALENDAR_ERROR);
+         }
+
+         CalendarTimeline timeline = timelines.get(calendar);
+         if (timeline == null)
+         {
+            timeline = new CalendarTimeline(calendar);
+            timelines.put(calendar, timeline);
+         }
+
+         if (task.getChildTasks().isEmpty())
+         {
+            Duration duration = task.getDuration();
+            if (duration == null)
+            {
+               duration = Duration.getInstance(0, TimeUnit.DAYS);
+            }
+
+            m_task[node] = task;
+            m_kind[node] = LEAF;
+            m_timeline[node] = timeline;
+            m_durationMinutes[node] = convertUnits(duration.getDuration(), duration.getUnits(), TimeUnit.MINUTES);
+            m_elapsed[node] = isElapsed(duration.getUnits());
+            ++node;
+         }
+         else
+         {
+            m_task[node] = task;
+            m_kind[node] = SUMMARY_START;
+            m_timeline[node] = timeline;
+            ++node;
+
+            m_task[node] = task;
+            m_kind[node] = SUMMARY_FINISH;
+            m_timeline[node] = timeline;
+            ++node;
+         }
+      }
+   }
+
+   /**
+    * Create the edges linking the nodes, held in arrays sorted by source node.
+    * Relationship edges link a predecessor's finishing node to a successor's
+    * starting node. Parent edges link a summary task's starting node to each
+    * of its subtasks, and rollup edges link each subtask to its summary task's
+    * finishing node.
+    */
+   private void createEdges()
+   {
+      int nodeCount = m_task.length;
+      int[] from = new int[nodeCount * 2];
+      int[] to = new int[from.length];
+      byte[] kind = new byte[from.length];
+      Relation[] relations = new Relation[from.length];
+      int edgeCount = 0;
+
+      for (int node = 0; node < nodeCount; node++)
+      {
+         if (m_kind[node] == SUMMARY_FINISH)
+         {
+            continue;
+         }
+
+         Task task = m_task[node];
+         for (Relation relation : task.getPredecessors())
+         {
+            Integer predecessor = m_nodeIndex.get(relation.getTargetTask());
+            if (predecessor == null)
+            {
+               continue;
+            }
+
+            if (edgeCount == from.length)
+            {
+               int length = edgeCount * 2;
+               from = Arrays.copyOf(from, length);
+               to = Arrays.copyOf(to, length);
+               kind = Arrays.copyOf(kind, length);
+               relations = Arrays.copyOf(relations, length);
+            }
+
+            from[edgeCount] = getFinishNode(predecessor.intValue());
+            to[edgeCount] = node;
+            kind[edgeCount] = RELATION_EDGE;
+            relations[edgeCount] = relation;
+            ++edgeCount;
+         }
+
+         Task parent = task.getParentTask();
+         Integer parentNode = parent == null ? null : m_nodeIndex.get(parent);
+         if (parentNode != null)
+         {
+            if (edgeCount + 2 > from.length)
+            {
+               int length = edgeCount * 2 + 2;
+               from = Arrays.copyOf(from, length);
+               to = Arrays.copyOf(to, length);
+               kind = Arrays.copyOf(kind, length);
+               relations = Arrays.copyOf(relations, length);
+            }
+
+            from[edgeCount] = parentNode.intValue();
+            to[edgeCount] = node;
+            kind[edgeCount] = PARENT_EDGE;
+            ++edgeCount;
+
+            from[edgeCount] = getFinishNode(node);
+            to[edgeCount] = parentNode.intValue() + 1;
+            kind[edgeCount] = ROLLUP_EDGE;
+            ++edgeCount;
+         }
+      }
+
+      //
+      // Sort the edges by source node
+      //
+      m_firstEdge = new int[nodeCount + 1];
+      for (int edge = 0; edge < edgeCount; edge++)
+      {
+         ++m_firstEdge[from[edge] + 1];
+      }
+
+      for (int node = 0; node < nodeCount; node++)
+      {
+         m_firstEdge[node + 1] += m_firstEdge[node];
+      }
+
+      int[] next = Arrays.copyOf(m_firstEdge, nodeCount);
+      m_edgeTarget = new int[edgeCount];
+      m_edgeKind = new byte[edgeCount];
+      m_edgeRelation = new Relation[edgeCount];
+      m_edgeValue = new long[edgeCount];
+
+      for (int edge = 0; edge < edgeCount; edge++)
+      {
+         int index = next[from[edge]]++;
+         m_edgeTarget[index] = to[edge];
+         m_edgeKind[index] = kind[edge];
+         m_edgeRelation[index] = relations[edge];
+      }
+   }
+
+   /**
+    * Sort the nodes topologically.
+    *
+    * @throws MPXJException
+    */
+   private void sortNodes() throws MPXJException
+   {
+      int nodeCount = m_task.length;
+      int[] inDegree = new int[nodeCount];
+      for (int edge = 0; edge < m_edgeTarget.length; edge++)
+      {
+         ++inDegree[m_edgeTarget[edge]];
+      }
+
+      m_order = new int[nodeCount];
+      int tail = 0;
+      for (int node = 0; node < nodeCount; node++)
+      {
+         if (inDegree[node] == 0)
+         {
+            m_order[tail++] = node;
+         }
+      }
+
+      for (int head = 0; head < tail; head++)
+      {
+         int node = m_order[head];
+         for (int edge = m_firstEdge[node]; edge < m_firstEdge[node + 1]; edge++)
+         {
+            int target = m_edgeTarget[edge];
+            if (--inDegree[target] == 0)
+            {
+               m_order[tail++] = target;
+            }
+         }
+      }
+
+      if (tail != nodeCount)
+      {
+         throw new MPXJException(MPXJException.CYCLIC_RELATIONSHIPS);
+      }
+   }
+
+   /**
+    * Calculate early start and finish dates.
+    *
+    * @param projectStart project start date
+    */
+   private void forwardPass(long projectStart)
+   {
+      int nodeCount = m_task.length;
+      m_startBound = new long[nodeCount];
+      m_finishBound = new long[nodeCount];
+      m_earlyStart = new long[nodeCount];
+      m_earlyFinish = new long[nodeCount];
+      Arrays.fill(m_startBound, projectStart);
+      Arrays.fill(m_finishBound, Long.MIN_VALUE);
+      Arrays.fill(m_earlyStart, Long.MAX_VALUE);
+      Arrays.fill(m_earlyFinish, Long.MIN_VALUE);
+
+      for (int node : m_order)
+      {
+         switch (m_kind[node])
+         {
+            case LEAF:
+            {
+               calculateEarlyDates(node);
+               break;
+            }
+
+            case SUMMARY_START:
+            {
+               applyEarlyConstraint(node);
+               break;
+            }
+
+            default:
+            {
+               // Summary finish dates have been rolled up from the subtasks
+               break;
+            }
+         }
+
+         for (int edge = m_firstEdge[node]; edge < m_firstEdge[node + 1]; edge++)
+         {
+            int target = m_edgeTarget[edge];
+            switch (m_edgeKind[edge])
+            {
+               case RELATION_EDGE:
+               {
+                  Relation relation = m_edgeRelation[edge];
+                  RelationType type = relation.getType();
+                  boolean fromStart = type == RelationType.START_START || type == RelationType.START_FINISH;
+                  long value = addLag(target, relation, fromStart ? m_earlyStart[node] : m_earlyFinish[node], false);
+                  m_edgeValue[edge] = value;
+
+                  if (type == RelationType.FINISH_START || type == RelationType.START_START)
+                  {
+                     m_startBound[target] = Math.max(m_startBound[target], value);
+                  }
+                  else
+                  {
+                     m_finishBound[target] = Math.max(m_finishBound[target], value);
+                  }
+                  break;
+               }
+
+               case PARENT_EDGE:
+               {
+                  m_startBound[target] = Math.max(m_startBound[target], m_startBound[node]);
+                  m_finishBound[target] = Math.max(m_finishBound[target], m_finishBound[node]);
+                  break;
+               }
+
+               default:
+               {
+                  m_earlyStart[target] = Math.min(m_earlyStart[target], m_earlyStart[node]);
+                  m_earlyFinish[target] = Math.max(m_earlyFinish[target], m_earlyFinish[node]);
+                  break;
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Apply a summary task's constraint to the bounds passed to its subtasks.
+    *
+    * @param node summary start node
+    */
+   private void applyEarlyConstraint(int node)
+   {
+      Task task = m_task[node];
+      Date constraintDate = task.getConstraintDate();
+      if (constraintDate != null)
+      {
+         switch (task.getConstraintType())
+         {
+            case MUST_START_ON:
+            case START_NO_EARLIER_THAN:
+            {
+               m_startBound[node] = Math.max(m_startBound[node], constraintDate.getTime());
+               break;
+            }
+
+            case MUST_FINISH_ON:
+            case FINISH_NO_EARLIER_THAN:
+            {
+               m_finishBound[node] = Math.max(m_finishBound[node], constraintDate.getTime());
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
+      }
+   }
+
+   /**
+    * Calculate the early start and finish dates of a leaf task.
+    *
+    * @param node leaf node
+    */
+   private void calculateEarlyDates(int node)
+   {
+      Task task = m_task[node];
+      Date actualStart = task.getActualStart();
+      if (actualStart != null)
+      {
+         Date actualFinish = task.getActualFinish();
+         m_earlyStart[node] = actualStart.getTime();
+         m_earlyFinish[node] = actualFinish == null ? getFinish(node, actualStart.getTime()) : actualFinish.getTime();
+         return;
+      }
+
+      if (task.getTaskMode() == TaskMode.MANUALLY_SCHEDULED && task.getStart() != null && task.getFinish() != null)
+      {
+         m_earlyStart[node] = task.getStart().getTime();
+         m_earlyFinish[node] = task.getFinish().getTime();
+         return;
+      }
+
+      long startBound = m_startBound[node];
+      long finishBound = m_finishBound[node];
+      ConstraintType constraintType = task.getConstraintType();
+      Date constraintDate = task.getConstraintDate();
+      long constraint = constraintDate == null ? 0 : constraintDate.getTime();
+      if (constraintDate == null)
+      {
+         constraintType = ConstraintType.AS_SOON_AS_POSSIBLE;
+      }
+
+      switch (constraintType)
+      {
+         case START_NO_EARLIER_THAN:
+         {
+            startBound = Math.max(startBound, constraint);
+            break;
+         }
+
+         case FINISH_NO_EARLIER_THAN:
+         {
+            finishBound = Math.max(finishBound, constraint);
+            break;
+         }
+
+         case MUST_START_ON:
+         {
+            startBound = constraint;
+            finishBound = Long.MIN_VALUE;
+            break;
+         }
+
+         case MUST_FINISH_ON:
+         {
+            startBound = Long.MIN_VALUE;
+            finishBound = constraint;
+            break;
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+
+      long start;
+      long finish;
+      if (m_durationMinutes[node] == 0)
+      {
+         start = Math.max(startBound, finishBound);
+         finish = start;
+      }
+      else
+      {
+         start = startBound == Long.MIN_VALUE ? Long.MIN_VALUE : getNextWorkStart(node, startBound);
+         finish = start == Long.MIN_VALUE ? Long.MIN_VALUE : getFinish(node, start);
+         if (finishBound > finish)
+         {
+            start = getStart(node, finishBound);
+            finish = getFinish(node, start);
+         }
+      }
+
+      //
+      // Honour "no later than" constraints if predecessors would
+      // push the task past the constraint date.
+      //
+      if (constraintType == ConstraintType.START_NO_LATER_THAN && start > constraint)
+      {
+         start = m_durationMinutes[node] == 0 ? constraint : getNextWorkStart(node, constraint);
+         finish = getFinish(node, start);
+      }
+      else
+      {
+         if (constraintType == ConstraintType.FINISH_NO_LATER_THAN && finish > constraint)
+         {
+            finish = constraint;
+            start = getStart(node, finish);
+            if (m_durationMinutes[node] != 0)
+            {
+               finish = getFinish(node, start);
+            }
+         }
+      }
+
+      m_earlyStart[node] = start;
+      m_earlyFinish[node] = finish;
+   }
+
+   /**
+    * Calculate late start and finish dates.
+    */
+   private void backwardPass()
+   {
+      int nodeCount = m_task.length;
+      long projectFinish = Long.MIN_VALUE;
+      for (int node = 0; node < nodeCount; node++)
+      {
+         projectFinish = Math.max(projectFinish, m_earlyFinish[node]);
+      }
+
+      m_lateStartBound = new long[nodeCount];
+      m_lateFinishBound = new long[nodeCount];
+      m_lateStart = new long[nodeCount];
+      m_lateFinish = new long[nodeCount];
+      Arrays.fill(m_lateStartBound, Long.MAX_VALUE);
+      Arrays.fill(m_lateFinishBound, projectFinish);
+      Arrays.fill(m_lateStart, Long.MAX_VALUE);
+      Arrays.fill(m_lateFinish, Long.MIN_VALUE);
+
+      for (int index = nodeCount - 1; index >= 0; index--)
+      {
+         int node = m_order[index];
+         boolean summaryStart = m_kind[node] == SUMMARY_START;
+         if (summaryStart)
+         {
+            //
+            // The summary start node rolls up the late dates of the subtasks.
+            // The late finish bound holds the earliest subtask late finish,
+            // used by relationships to the summary task.
+            //
+            m_lateFinishBound[node] = Long.MAX_VALUE;
+         }
+
+         for (int edge = m_firstEdge[node]; edge < m_firstEdge[node + 1]; edge++)
+         {
+            int target = m_edgeTarget[edge];
+            switch (m_edgeKind[edge])
+            {
+               case RELATION_EDGE:
+               {
+                  Relation relation = m_edgeRelation[edge];
+                  RelationType type = relation.getType();
+                  boolean toStart = type == RelationType.FINISH_START || type == RelationType.START_START;
+                  long targetDate;
+                  if (toStart)
+                  {
+                     targetDate = m_lateStart[target];
+                  }
+                  else
+                  {
+                     targetDate = m_kind[target] == SUMMARY_START ? m_lateFinishBound[target] : m_lateFinish[target];
+                  }
+
+                  long value = addLag(target, relation, targetDate, true);
+                  if (type == RelationType.FINISH_START || type == RelationType.FINISH_FINISH)
+                  {
+                     m_lateFinishBound[node] = Math.min(m_lateFinishBound[node], value);
+                  }
+                  else
+                  {
+                     m_lateStartBound[node] = Math.min(m_lateStartBound[node], value);
+                  }
+                  break;
+               }
+
+               case PARENT_EDGE:
+               {
+                  m_lateStart[node] = Math.min(m_lateStart[node], m_lateStart[target]);
+                  m_lateFinish[node] = Math.max(m_lateFinish[node], m_lateFinish[target]);
+                  m_lateFinishBound[node] = Math.min(m_lateFinishBound[node], m_kind[target] == SUMMARY_START ? m_lateFinishBound[target] : m_lateFinish[target]);
+                  break;
+               }
+
+               default:
+               {
+                  m_lateStartBound[node] = Math.min(m_lateStartBound[node], m_lateStartBound[target]);
+                  m_lateFinishBound[node] = Math.min(m_lateFinishBound[node], m_lateFinishBound[target]);
+                  break;
+               }
+            }
+         }
+
+         switch (m_kind[node])
+         {
+            case LEAF:
+            {
+               calculateLateDates(node);
+               break;
+            }
+
+            case SUMMARY_FINISH:
+            {
+               applyLateConstraint(node);
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
+      }
+   }
+
+   /**
+    * Apply a summary task's constraint to the bounds passed to its subtasks.
+    *
+    * @param node summary finish node
+    */
+   private void applyLateConstraint(int node)
+   {
+      Task task = m_task[node];
+      Date constraintDate = task.getConstraintDate();
+      if (constraintDate != null)
+      {
+         switch (task.getConstraintType())
+         {
+            case MUST_START_ON:
+            case START_NO_LATER_THAN:
+            {
+               m_lateStartBound[node] = Math.min(m_lateStartBound[node], constraintDate.getTime());
+               break;
+            }
+
+            case MUST_FINISH_ON:
+            case FINISH_NO_LATER_THAN:
+            {
+               m_lateFinishBound[node] = Math.min(m_lateFinishBound[node], constraintDate.getTime());
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
+      }
+   }
+
+   /**
+    * Calculate the late start and finish dates of a leaf task.
+    *
+    * @param node leaf node
+    */
+   private void calculateLateDates(int node)
+   {
+      Task task = m_task[node];
+      if (task.getActualFinish() != null)
+      {
+         m_lateStart[node] = m_earlyStart[node];
+         m_lateFinish[node] = m_earlyFinish[node];
+         return;
+      }
+
+      long startBound = m_lateStartBound[node];
+      long finishBound = m_lateFinishBound[node];
+      ConstraintType constraintType = task.getConstraintType();
+      Date constraintDate = task.getConstraintDate();
+      long constraint = constraintDate == null ? 0 : constraintDate.getTime();
+      if (constraintDate == null)
+      {
+         constraintType = ConstraintType.AS_SOON_AS_POSSIBLE;
+      }
+
+      switch (constraintType)
+      {
+         case START_NO_LATER_THAN:
+         {
+            startBound = Math.min(startBound, constraint);
+            break;
+         }
+
+         case FINISH_NO_LATER_THAN:
+         {
+            finishBound = Math.min(finishBound, constraint);
+            break;
+         }
+
+         case MUST_START_ON:
+         {
+            startBound = constraint;
+            finishBound = Long.MAX_VALUE;
+            break;
+         }
+
+         case MUST_FINISH_ON:
+         {
+            startBound = Long.MAX_VALUE;
+            finishBound = constraint;
+            break;
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+
+      long start;
+      long finish;
+      if (m_durationMinutes[node] == 0)
+      {
+         finish = Math.min(startBound, finishBound == Long.MAX_VALUE ? Long.MAX_VALUE : getPreviousWorkFinish(node, finishBound));
+         start = finish;
+      }
+      else
+      {
+         start = finishBound == Long.MAX_VALUE ? Long.MAX_VALUE : getStart(node, finishBound);
+         if (startBound < start)
+         {
+            start = getNextWorkStart(node, startBound);
+         }
+         finish = getFinish(node, start);
+      }
+
+      m_lateStart[node] = start;
+      m_lateFinish[node] = finish;
+   }
+
+   /**
+    * Write the calculated values to the tasks.
+    */
+   private void updateTasks()
+   {
+      int nodeCount = m_task.length;
+      long[] start = new long[nodeCount];
+      long[] finish = new long[nodeCount];
+      Arrays.fill(start, Long.MAX_VALUE);
+      Arrays.fill(finish, Long.MIN_VALUE);
+
+      for (int node : m_order)
+      {
+         switch (m_kind[node])
+         {
+            case LEAF:
+            {
+               boolean alap = m_task[node].getConstraintType() == ConstraintType.AS_LATE_AS_POSSIBLE && m_task[node].getActualStart() == null;
+               start[node] = alap ? m_lateStart[node] : m_earlyStart[node];
+               finish[node] = alap ? m_lateFinish[node] : m_earlyFinish[node];
+               updateTask(node, m_earlyStart[node], m_earlyFinish[node], m_lateStart[node], m_lateFinish[node], start[node], finish[node]);
+               break;
+            }
+
+            case SUMMARY_FINISH:
+            {
+               updateTask(node, m_earlyStart[node], m_earlyFinish[node], m_lateStart[node - 1], m_lateFinish[node - 1], start[node], finish[node]);
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
+
+         for (int edge = m_firstEdge[node]; edge < m_firstEdge[node + 1]; edge++)
+         {
+            if (m_edgeKind[edge] == ROLLUP_EDGE)
+            {
+               int target = m_edgeTarget[edge];
+               start[target] = Math.min(start[target], start[node]);
+               finish[target] = Math.max(finish[target], finish[node]);
+            }
+         }
+      }
+   }
+
+   /**
+    * Write the calculated values to a single task.
+    *
+    * @param node leaf or summary finish node
+    * @param earlyStart early start
+    * @param earlyFinish early finish
+    * @param lateStart late start
+    * @param lateFinish late finish
+    * @param start scheduled start
+    * @param finish scheduled finish
+    */
+   private void updateTask(int node, long earlyStart, long earlyFinish, long lateStart, long lateFinish, long start, long finish)
+   {
+      Task task = m_task[node];
+      CalendarTimeline timeline = m_timeline[node];
+      TimeUnit units = getSlackUnits(task);
+
+      double startSlack = getWorkMinutes(timeline, earlyStart, lateStart);
+      double finishSlack = getWorkMinutes(timeline, earlyFinish, lateFinish);
+      double totalSlack = Math.min(startSlack, finishSlack);
+
+      //
+      // Free slack is the time by which the task can be delayed
+      // without delaying the early dates of any of its successors.
+      // It can't exceed total slack and is never negative, so there
+      // is no need to look any further once it reaches zero.
+      //
+      double freeSlack = totalSlack;
+      for (int edge = m_firstEdge[node]; freeSlack > 0 && edge < m_firstEdge[node + 1]; edge++)
+      {
+         if (m_edgeKind[edge] == RELATION_EDGE)
+         {
+            int target = getFinishNode(m_edgeTarget[edge]);
+            RelationType type = m_edgeRelation[edge].getType();
+            long targetDate = type == RelationType.FINISH_START || type == RelationType.START_START ? m_earlyStart[target] : m_earlyFinish[target];
+            freeSlack = Math.min(freeSlack, getWorkMinutes(timeline, m_edgeValue[edge], targetDate));
+         }
+      }
+      freeSlack = Math.max(0, freeSlack);
+
+      //
+      // Only fields whose values have changed are written, avoiding
+      // the cost of the change events raised by the task when a
+      // project is rescheduled. The slack values are written after
+      // the dates, as changing a date clears the dependent slack.
+      //
+      updateDate(task, TaskField.EARLY_START, earlyStart);
+      updateDate(task, TaskField.EARLY_FINISH, earlyFinish);
+      updateDate(task, TaskField.LATE_START, lateStart);
+      updateDate(task, TaskField.LATE_FINISH, lateFinish);
+      updateDate(task, TaskField.START, start);
+      updateDate(task, TaskField.FINISH, finish);
+      updateSlack(task, TaskField.START_SLACK, startSlack, units);
+      updateSlack(task, TaskField.FINISH_SLACK, finishSlack, units);
+      updateSlack(task, TaskField.FREE_SLACK, freeSlack, units);
+
+      if (task.getCachedValue(TaskField.TOTAL_SLACK) != null)
+      {
+         task.set(TaskField.TOTAL_SLACK, null);
+      }
+
+      if (task.getCachedValue(TaskField.CRITICAL) != null)
+      {
+         task.set(TaskField.CRITICAL, null);
+      }
+   }
+
+   /**
+    * Write a date to a task if it differs from the current value.
+    *
+    * @param task task
+    * @param field date field
+    * @param date new date
+    */
+   private void updateDate(Task task, TaskField field, long date)
+   {
+      Date value = (Date) task.getCachedValue(field);
+      boolean changed = value == null ? getDate(date) != null : value.getTime() != date;
+      if (changed)
+      {
+         task.set(field, getDate(date));
+      }
+   }
+
+   /**
+    * Write a slack value to a task if it differs from the current value.
+    *
+    * @param task task
+    * @param field slack field
+    * @param minutes slack in minutes
+    * @param units required units
+    */
+   private void updateSlack(Task task, TaskField field, double minutes, TimeUnit units)
+   {
+      double slack = convertUnits(minutes, TimeUnit.MINUTES, units);
+      Duration value = (Duration) task.getCachedValue(field);
+      if (value == null || value.getDuration() != slack || value.getUnits() != units)
+      {
+         task.set(field, Duration.getInstance(slack, units));
+      }
+   }
+
+   /**
+    * Apply a relationship lag to a date, using the successor's calendar.
+    *
+    * @param node successor node
+    * @param relation relationship
+    * @param date date to which the lag is applied
+    * @param subtract true if the lag is subtracted rather than added
+    * @return date with lag applied
+    */
+   private long addLag(int node, Relation relation, long date, boolean subtract)
+   {
+      Duration lag = relation.getLag();
+      double value = lag.getDuration();
+      if (value == 0 || date == Long.MIN_VALUE || date == Long.MAX_VALUE)
+      {
+         return date;
+      }
+
+      TimeUnit units = lag.getUnits();
+      if (units == TimeUnit.PERCENT || units == TimeUnit.ELAPSED_PERCENT)
+      {
+         //
+         // Percentage lags are a proportion of the predecessor's duration
+         //
+         Duration duration = relation.getTargetTask().getDuration();
+         if (duration == null)
+         {
+            return date;
+         }
+         value = (convertUnits(duration.getDuration(), duration.getUnits(), TimeUnit.MINUTES) * value) / 100;
+         units = units == TimeUnit.PERCENT ? TimeUnit.MINUTES : TimeUnit.ELAPSED_MINUTES;
+      }
+
+      if (subtract)
+      {
+         value = -value;
+      }
+
+      if (isElapsed(units))
+      {
+         return date + (long) (convertUnits(value, units, TimeUnit.ELAPSED_MINUTES) * 60000);
+      }
+
+      long amount = getMilliseconds(convertUnits(Math.abs(value), units, TimeUnit.MINUTES));
+      return value > 0 ? m_timeline[node].getFinish(date, amount) : m_timeline[node].getStart(date, amount);
+   }
+
+   /**
+    * Calculate a task's finish date from its start date.
+    *
+    * @param node task node
+    * @param start start date
+    * @return finish date
+    */
+   private long getFinish(int node, long start)
+   {
+      if (m_durationMinutes[node] == 0)
+      {
+         return start;
+      }
+
+      if (m_elapsed[node])
+      {
+         return start + (long) (m_durationMinutes[node] * 60000);
+      }
+
+      return m_timeline[node].getFinish(start, getMilliseconds(m_durationMinutes[node]));
+   }
+
+   /**
+    * Calculate a task's start date from its finish date.
+    *
+    * @param node task node
+    * @param finish finish date
+    * @return start date
+    */
+   private long getStart(int node, long finish)
+   {
+      if (m_durationMinutes[node] == 0)
+      {
+         return finish;
+      }
+
+      if (m_elapsed[node])
+      {
+         return finish - (long) (m_durationMinutes[node] * 60000);
+      }
+
+      return m_timeline[node].getStart(finish, getMilliseconds(m_durationMinutes[node]));
+   }
+
+   /**
+    * Retrieve the start of the next working period at or after a date.
+    *
+    * @param node task node
+    * @param date date
+    * @return next work start
+    */
+   private long getNextWorkStart(int node, long date)
+   {
+      return m_elapsed[node] ? date : m_timeline[node].getNextWorkStart(date);
+   }
+
+   /**
+    * Retrieve the end of the last working period at or before a date.
+    *
+    * @param node task node
+    * @param date date
+    * @return previous work finish
+    */
+   private long getPreviousWorkFinish(int node, long date)
+   {
+      return m_elapsed[node] ? date : m_timeline[node].getPreviousWorkFinish(date);
+   }
+
+   /**
+    * Retrieve the working time between two dates in minutes. The result
+    * is negative if the second date is before the first.
+    *
+    * @param timeline calendar timeline
+    * @param startDate start date
+    * @param endDate end date
+    * @return working minutes
+    */
+   private double getWorkMinutes(CalendarTimeline timeline, long startDate, long endDate)
+   {
+      if (startDate == endDate || startDate == Long.MIN_VALUE || startDate == Long.MAX_VALUE || endDate == Long.MIN_VALUE || endDate == Long.MAX_VALUE)
+      {
+         return 0;
+      }
+
+      return timeline.getWork(startDate, endDate) / 60000.0;
+   }
+
+   /**
+    * Convert a number of minutes to milliseconds.
+    *
+    * @param minutes minutes
+    * @return milliseconds
+    */
+   private long getMilliseconds(double minutes)
+   {
+      return Math.round(minutes * 60000);
+   }
+
+   /**
+    * Convert a duration value between units using the project's
+    * minutes per day, minutes per week and days per month, which are
+    * read once per schedule rather than for every conversion.
+    *
+    * @param duration duration value
+    * @param fromUnits units to convert from
+    * @param toUnits units to convert to
+    * @return converted duration value
+    */
+   private double convertUnits(double duration, TimeUnit fromUnits, TimeUnit toUnits)
+   {
+      return Duration.convertUnits(duration, fromUnits, toUnits, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth).getDuration();
+   }
+
+   /**
+    * Determine the units used to represent a task's slack.
+    *
+    * @param task task
+    * @return slack units
+    */
+   private TimeUnit getSlackUnits(Task task)
+   {
+      Duration duration = task.getDuration();
+      TimeUnit units = duration == null ? TimeUnit.DAYS : duration.getUnits();
+      if (isElapsed(units) || units == TimeUnit.PERCENT)
+      {
+         units = TimeUnit.DAYS;
+      }
+      return units;
+   }
+
+   /**
+    * Convert a timestamp into a date, treating the values used
+    * to represent missing dates as null.
+    *
+    * @param date timestamp
+    * @return Date instance
+    */
+   private Date getDate(long date)
+   {
+      return date == Long.MIN_VALUE || date == Long.MAX_VALUE ? null : new Date(date);
+   }
+
+   /**
+    * Retrieve the node representing the finish of a task.
+    *
+    * @param node leaf or summary start node
+    * @return leaf or summary finish node
+    */
+   private int getFinishNode(int node)
+   {
+      return m_kind[node] == SUMMARY_START ? node + 1 : node;
+   }
+
+   /**
+    * Determine if a time unit represents elapsed time.
+    *
+    * @param units time units
+    * @return true if the units represent elapsed time
+    */
+   private static boolean isElapsed(TimeUnit units)
+   {
+      switch (units)
+      {
+         case ELAPSED_MINUTES:
+         case ELAPSED_HOURS:
+         case ELAPSED_DAYS:
+         case ELAPSED_WEEKS:
+         case ELAPSED_MONTHS:
+         case ELAPSED_YEARS:
+         case ELAPSED_PERCENT:
+         {
+            return true;
+         }
+
+         default:
+         {
+            return false;
+         }
+      }
+   }
+
+   private ProjectFile m_file;
+   private double m_minutesPerDay;
+   private double m_minutesPerWeek;
+   private double m_daysPerMonth;
+   private Map<Task, Integer> m_nodeIndex;
+
+   private Task[] m_task;
+   private byte[] m_kind;
+   private CalendarTimeline[] m_timeline;
+   private double[] m_durationMinutes;
+   private boolean[] m_elapsed;
+
+   private int[] m_firstEdge;
+   private int[] m_edgeTarget;
+   private byte[] m_edgeKind;
+   private Relation[] m_edgeRelation;
+   private long[] m_edgeValue;
+
+   private int[] m_order;
+   private long[] m_startBound;
+   private long[] m_finishBound;
+   private long[] m_earlyStart;
+   private long[] m_earlyFinish;
+   private long[] m_lateStartBound;
+   private long[] m_lateFinishBound;
+   private long[] m_lateStart;
+   private long[] m_lateFinish;
+
+   private static final byte LEAF = 0;
+   private static final byte SUMMARY_START = 1;
+   private static final byte SUMMARY_FINISH = 2;
+
+   private static final byte RELATION_EDGE = 0;
+   private static final byte PARENT_EDGE = 1;
+   private static final byte ROLLUP_EDGE = 2;
+}
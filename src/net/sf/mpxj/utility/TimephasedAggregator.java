@@ -0,0 +1,458 @@
+/*
+ * file:       TimephasedAggregator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       18/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.AbstractTimephasedSeries;
+import net.sf.mpxj.common.TimephasedCostSeries;
+import net.sf.mpxj.common.TimephasedWorkSeries;
+import net.sf.mpxj.mpp.TimescaleUnits;
+
+/**
+ * Segments the timephased work and cost of every resource assignment in a
+ * project against a single timescale, producing dense matrices of values
+ * per resource or per task. This produces the same values as calling
+ * the TimephasedUtility segment methods for each assignment in turn and
+ * summing the results, but the timescale is only prepared once and each
+ * assignment is only visited once.
+ *
+ * Work values are regular work (actual plus remaining) expressed in hours,
+ * overtime is not included. Cost values are actual plus remaining cost,
+ * and are only available for assignments which have a resource. When
+ * aggregating by task, values are not rolled up to summary tasks.
+ */
+public final class TimephasedAggregator
+{
+   /**
+    * Constructor. Creates a timescale using the TimescaleUtility class.
+    *
+    * @param startDate timescale start date
+    * @param segmentUnit timescale segment units
+    * @param segmentCount number of segments
+    */
+   public TimephasedAggregator(Date startDate, TimescaleUnits segmentUnit, int segmentCount)
+   {
+      this(new TimescaleUtility().createTimescale(startDate, segmentUnit, segmentCount), segmentUnit);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param timescale timescale date ranges
+    * @param segmentUnit timescale segment units
+    */
+   public TimephasedAggregator(List<DateRange> timescale, TimescaleUnits segmentUnit)
+   {
+      m_timescale = timescale;
+      m_segmentUnit = segmentUnit;
+      m_rangeStarts = TimephasedUtility.getRangeStarts(timescale);
+      m_rangeEnds = TimephasedUtility.getRangeEnds(timescale);
+
+      boolean ordered = true;
+      for (int index = 1; index < m_rangeStarts.length; index++)
+      {
+         if (m_rangeStarts[index] < m_rangeStarts[index - 1] || m_rangeEnds[index] < m_rangeEnds[index - 1])
+         {
+            ordered = false;
+            break;
+         }
+      }
+      m_ordered = ordered;
+   }
+
+   /**
+    * Retrieve the timescale date ranges.
+    *
+    * @return timescale date ranges
+    */
+   public List<DateRange> getTimescale()
+   {
+      return m_timescale;
+   }
+
+   /**
+    * Retrieve the executor service used to segment assignments.
+    *
+    * @return executor service, or null if assignments are segmented on the calling thread
+    */
+   public ExecutorService getExecutorService()
+   {
+      return m_executorService;
+   }
+
+   /**
+    * Set the executor service used to segment assignments. Each task
+    * submitted to the executor processes a group of rows. The caller
+    * retains ownership of the executor, and is responsible for shutting
+    * it down. Defaults to null, in which case assignments are segmented
+    * in turn on the calling thread.
+    *
+    * @param executorService executor service
+    */
+   public void setExecutorService(ExecutorService executorService)
+   {
+      m_executorService = executorService;
+   }
+
+   /**
+    * Segment the timephased data for all assignments, with one row per resource.
+    * Assignments without a resource are ignored.
+    *
+    * @param file parent project
+    * @return work and cost matrices
+    */
+   public TimephasedMatrix<Resource> aggregateByResource(ProjectFile file)
+   {
+      TimephasedMatrix<Resource> matrix = new TimephasedMatrix<Resource>(new ArrayList<Resource>(file.getAllResources()), m_timescale);
+      List<List<ResourceAssignment>> rows = createRows(matrix.getRows().size());
+      for (ResourceAssignment assignment : file.getAllResourceAssignments())
+      {
+         int index = matrix.getRowIndex(assignment.getResource());
+         if (index != -1)
+         {
+            rows.get(index).add(assignment);
+         }
+      }
+      aggregate(file, rows, matrix.getWork(), matrix.getCost());
+      return matrix;
+   }
+
+   /**
+    * Segment the timephased data for all assignments, with one row per task.
+    *
+    * @param file parent project
+    * @return work and cost matrices
+    */
+   public TimephasedMatrix<Task> aggregateByTask(ProjectFile file)
+   {
+      TimephasedMatrix<Task> matrix = new TimephasedMatrix<Task>(new ArrayList<Task>(file.getAllTasks()), m_timescale);
+      List<List<ResourceAssignment>> rows = createRows(matrix.getRows().size());
+      for (ResourceAssignment assignment : file.getAllResourceAssignments())
+      {
+         int index = matrix.getRowIndex(assignment.getTask());
+         if (index != -1)
+         {
+            rows.get(index).add(assignment);
+         }
+      }
+      aggregate(file, rows, matrix.getWork(), matrix.getCost());
+      return matrix;
+   }
+
+   /**
+    * Create an empty assignment list for each row.
+    *
+    * @param count number of rows
+    * @return assignment lists
+    */
+   private List<List<ResourceAssignment>> createRows(int count)
+   {
+      List<List<ResourceAssignment>> result = new ArrayList<List<ResourceAssignment>>(count);
+      for (int index = 0; index < count; index++)
+      {
+         result.add(new ArrayList<ResourceAssignment>());
+      }
+      return result;
+   }
+
+   /**
+    * Segment the assignments for each row, either on the calling thread
+    * or by submitting groups of rows to the executor. Each row is written
+    * by exactly one task.
+    *
+    * @param file parent project
+    * @param rows assignments for each row
+    * @param work work matrix
+    * @param cost cost matrix
+    */
+   private void aggregate(final ProjectFile file, final List<List<ResourceAssignment>> rows, final double[][] work, final double[][] cost)
+   {
+      if (m_executorService == null)
+      {
+         aggregate(file, rows, work, cost, 0, rows.size());
+         return;
+      }
+
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+      try
+      {
+         for (int fromRow = 0; fromRow < rows.size(); fromRow += ROWS_PER_TASK)
+         {
+            final int from = fromRow;
+            final int to = Math.min(rows.size(), fromRow + ROWS_PER_TASK);
+            futures.add(m_executorService.submit(new Callable<Void>()
+            {
+               @Override public Void call()
+               {
+                  aggregate(file, rows, work, cost, from, to);
+                  return null;
+               }
+            }));
+         }
+
+         for (Future<Void> future : futures)
+         {
+            future.get();
+         }
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw new RuntimeException(ex);
+      }
+
+      finally
+      {
+         for (Future<Void> future : futures)
+         {
+            future.cancel(true);
+         }
+      }
+   }
+
+   /**
+    * Segment the assignments for a group of rows.
+    *
+    * @param file parent project
+    * @param rows assignments for each row
+    * @param work work matrix
+    * @param cost cost matrix
+    * @param fromRow index of the first row to process
+    * @param toRow index after the last row to process
+    */
+   private void aggregate(ProjectFile file, List<List<ResourceAssignment>> rows, double[][] work, double[][] cost, int fromRow, int toRow)
+   {
+      ProjectProperties properties = file.getProjectProperties();
+      TimephasedUtility utility = new TimephasedUtility();
+      double[] amounts = new double[m_rangeStarts.length];
+      int[] lastIndexes = new int[m_rangeStarts.length];
+
+      for (int row = fromRow; row < toRow; row++)
+      {
+         for (ResourceAssignment assignment : rows.get(row))
+         {
+            ProjectCalendar calendar = assignment.getCalendar();
+            addWork(utility, calendar, properties, assignment.getTimephasedActualWork(), work[row], amounts, lastIndexes);
+            addWork(utility, calendar, properties, assignment.getTimephasedWork(), work[row], amounts, lastIndexes);
+
+            if (assignment.getResource() != null)
+            {
+               addCost(utility, calendar, assignment.getTimephasedActualCost(), cost[row], amounts, lastIndexes);
+               addCost(utility, calendar, assignment.getTimephasedCost(), cost[row], amounts, lastIndexes);
+            }
+         }
+      }
+   }
+
+   /**
+    * Segment timephased work and add it to a row, in hours.
+    *
+    * @param utility timephased utility
+    * @param calendar assignment calendar
+    * @param properties project properties used for unit conversion
+    * @param data timephased work
+    * @param row row values
+    * @param amounts scratch array for segment amounts
+    * @param lastIndexes scratch array for block indexes
+    */
+   private void addWork(TimephasedUtility utility, ProjectCalendar calendar, ProjectProperties properties, List<TimephasedWork> data, double[] row, double[] amounts, int[] lastIndexes)
+   {
+      TimephasedWorkSeries series = data == null ? null : TimephasedWorkSeries.getInstance(data);
+      if (series == null || series.size() == 0)
+      {
+         return;
+      }
+
+      int fromRange = getFromRange(series);
+      int toRange = getToRange(series);
+      utility.segment(calendar, series, m_segmentUnit, m_rangeStarts, m_rangeEnds, fromRange, toRange, amounts, lastIndexes);
+
+      for (int range = fromRange; range < toRange; range++)
+      {
+         int lastIndex = lastIndexes[range];
+         if (lastIndex != -1 && amounts[range] != 0)
+         {
+            TimeUnit units = series.getAmountPerDayUnits(lastIndex);
+            double hours = units == null || units == TimeUnit.HOURS ? amounts[range] : Duration.convertUnits(amounts[range], units, TimeUnit.HOURS, properties).getDuration();
+            row[range] += hours;
+         }
+      }
+   }
+
+   /**
+    * Segment timephased cost and add it to a row.
+    *
+    * @param utility timephased utility
+    * @param calendar assignment calendar
+    * @param data timephased cost
+    * @param row row values
+    * @param amounts scratch array for segment amounts
+    * @param lastIndexes scratch array for block indexes
+    */
+   private void addCost(TimephasedUtility utility, ProjectCalendar calendar, List<TimephasedCost> data, double[] row, double[] amounts, int[] lastIndexes)
+   {
+      TimephasedCostSeries series = data == null ? null : TimephasedCostSeries.getInstance(data);
+      if (series == null || series.size() == 0)
+      {
+         return;
+      }
+
+      int fromRange = getFromRange(series);
+      int toRange = getToRange(series);
+      utility.segment(calendar, series, m_segmentUnit, m_rangeStarts, m_rangeEnds, fromRange, toRange, amounts, lastIndexes);
+
+      for (int range = fromRange; range < toRange; range++)
+      {
+         if (lastIndexes[range] != -1)
+         {
+            row[range] += amounts[range];
+         }
+      }
+   }
+
+   /**
+    * Determine the index of the first timescale range which could
+    * intersect with the timephased data. Uses a binary search where the
+    * timescale is ordered, otherwise all ranges are considered.
+    *
+    * @param series timephased data
+    * @return range index
+    */
+   private int getFromRange(AbstractTimephasedSeries<?> series)
+   {
+      if (!m_ordered)
+      {
+         return 0;
+      }
+
+      long start = Long.MAX_VALUE;
+      for (int index = 0; index < series.size(); index++)
+      {
+         start = Math.min(start, series.getStartTime(index));
+      }
+
+      //
+      // First range ending on or after the start of the data
+      //
+      int low = 0;
+      int high = m_rangeEnds.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_rangeEnds[mid] < start)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Determine the index after the last timescale range which could
+    * intersect with the timephased data. Uses a binary search where the
+    * timescale is ordered, otherwise all ranges are considered.
+    *
+    * @param series timephased data
+    * @return range index
+    */
+   private int getToRange(AbstractTimephasedSeries<?> series)
+   {
+      if (!m_ordered)
+      {
+         return m_rangeStarts.length;
+      }
+
+      long finish = Long.MIN_VALUE;
+      for (int index = 0; index < series.size(); index++)
+      {
+         finish = Math.max(finish, series.getFinishTime(index));
+      }
+
+      //
+      // First range starting after the finish of the data
+      //
+      int low = 0;
+      int high = m_rangeStarts.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_rangeStarts[mid] <= finish)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   private static final int ROWS_PER_TASK = 64;
+
+   private final List<DateRange> m_timescale;
+   private final TimescaleUnits m_segmentUnit;
+   private final long[] m_rangeStarts;
+   private final long[] m_rangeEnds;
+   private final boolean m_ordered;
+   private ExecutorService m_executorService;
+}
@@ -0,0 +1,145 @@
+/*
+ * file:       TimephasedMatrix.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2017
+ * date:       18/09/2017
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.DateRange;
+
+/**
+ * Holds timephased work and cost for a set of rows, for example resources
+ * or tasks, segmented into the ranges of a timescale. Values are held in
+ * dense arrays indexed first by row, then by timescale range.
+ *
+ * @param <T> row type
+ */
+public final class TimephasedMatrix<T>
+{
+   /**
+    * Constructor.
+    *
+    * @param rows row objects
+    * @param timescale timescale ranges
+    */
+   TimephasedMatrix(List<T> rows, List<DateRange> timescale)
+   {
+      m_rows = rows;
+      m_timescale = timescale;
+      m_work = new double[rows.size()][timescale.size()];
+      m_cost = new double[rows.size()][timescale.size()];
+
+      m_rowIndex = new IdentityHashMap<T, Integer>(rows.size());
+      int index = 0;
+      for (T row : rows)
+      {
+         m_rowIndex.put(row, Integer.valueOf(index++));
+      }
+   }
+
+   /**
+    * Retrieve the row objects, in row order.
+    *
+    * @return row objects
+    */
+   public List<T> getRows()
+   {
+      return m_rows;
+   }
+
+   /**
+    * Retrieve the timescale ranges, in column order.
+    *
+    * @return timescale ranges
+    */
+   public List<DateRange> getTimescale()
+   {
+      return m_timescale;
+   }
+
+   /**
+    * Retrieve the index of the row representing an object.
+    *
+    * @param row row object
+    * @return row index, or -1 if the object is not represented
+    */
+   public int getRowIndex(T row)
+   {
+      Integer result = m_rowIndex.get(row);
+      return result == null ? -1 : result.intValue();
+   }
+
+   /**
+    * Retrieve the work matrix, in hours. The first index is the row,
+    * the second index is the timescale range.
+    *
+    * @return work matrix
+    */
+   public double[][] getWork()
+   {
+      return m_work;
+   }
+
+   /**
+    * Retrieve the cost matrix. The first index is the row,
+    * the second index is the timescale range.
+    *
+    * @return cost matrix
+    */
+   public double[][] getCost()
+   {
+      return m_cost;
+   }
+
+   /**
+    * Retrieve the work for a row, in hours, one value per timescale range.
+    *
+    * @param row row object
+    * @return work values, or null if the object is not represented
+    */
+   public double[] getWork(T row)
+   {
+      int index = getRowIndex(row);
+      return index == -1 ? null : m_work[index];
+   }
+
+   /**
+    * Retrieve the cost for a row, one value per timescale range.
+    *
+    * @param row row object
+    * @return cost values, or null if the object is not represented
+    */
+   public double[] getCost(T row)
+   {
+      int index = getRowIndex(row);
+      return index == -1 ? null : m_cost[index];
+   }
+
+   private final List<T> m_rows;
+   private final List<DateRange> m_timescale;
+   private final Map<T, Integer> m_rowIndex;
+   private final double[][] m_work;
+   private final double[][] m_cost;
+}
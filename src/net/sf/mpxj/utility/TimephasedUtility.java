@@ -34,10 +34,11 @@ import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedCost;
-import net.sf.mpxj.TimephasedItem;
 import net.sf.mpxj.TimephasedWork;
-import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.AbstractTimephasedSeries;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.TimephasedCostSeries;
+import net.sf.mpxj.common.TimephasedWorkSeries;
 import net.sf.mpxj.mpp.TimescaleUnits;
 
 /**
@@ -58,36 +59,38 @@ public final class TimephasedUtility
     */
    public ArrayList<Duration> segmentWork(ProjectCalendar projectCalendar, List<TimephasedWork> work, TimescaleUnits rangeUnits, List<DateRange> dateList)
    {
-      ArrayList<Duration> result = new ArrayList<Duration>(dateList.size());
-      int lastStartIndex = 0;
+      return segmentWork(projectCalendar, work == null ? null : TimephasedWorkSeries.getInstance(work), rangeUnits, dateList);
+   }
 
-      //
-      // Iterate through the list of dates range we are interested in.
-      // Each date range in this list corresponds to a column
-      // shown on the "timescale" view by MS Project
-      //
-      for (DateRange range : dateList)
+   /**
+    * This is the main entry point used to convert the internal representation
+    * of timephased work into an external form which can
+    * be displayed to the user.
+    *
+    * @param projectCalendar calendar used by the resource assignment
+    * @param work timephased resource assignment data
+    * @param rangeUnits timescale units
+    * @param dateList timescale date ranges
+    * @return list of durations, one per timescale date range
+    */
+   public ArrayList<Duration> segmentWork(ProjectCalendar projectCalendar, TimephasedWorkSeries work, TimescaleUnits rangeUnits, List<DateRange> dateList)
+   {
+      int rangeCount = dateList.size();
+      double[] amounts = new double[rangeCount];
+      int[] lastIndexes = new int[rangeCount];
+      segment(projectCalendar, work, rangeUnits, getRangeStarts(dateList), getRangeEnds(dateList), 0, rangeCount, amounts, lastIndexes);
+
+      ArrayList<Duration> result = new ArrayList<Duration>(rangeCount);
+      for (int index = 0; index < rangeCount; index++)
       {
-         //
-         // If the current date range does not intersect with any of the
-         // assignment date ranges in the list, then we show a zero
-         // duration for this date range.
-         //
-         int startIndex = lastStartIndex == -1 ? -1 : getStartIndex(range, work, lastStartIndex);
-         if (startIndex == -1)
+         int lastIndex = lastIndexes[index];
+         if (lastIndex == -1)
          {
             result.add(Duration.getInstance(0, TimeUnit.HOURS));
          }
          else
          {
-            //
-            // We have found an assignment which intersects with the current
-            // date range, call the method below to determine how
-            // much time from this resource assignment can be allocated
-            // to the current date range.
-            //
-            result.add(getRangeDuration(projectCalendar, rangeUnits, range, work, startIndex));
-            lastStartIndex = startIndex;
+            result.add(Duration.getInstance(amounts[index], work.getAmountPerDayUnits(lastIndex)));
          }
       }
 
@@ -123,37 +126,31 @@ public final class TimephasedUtility
     */
    public ArrayList<Double> segmentCost(ProjectCalendar projectCalendar, List<TimephasedCost> cost, TimescaleUnits rangeUnits, ArrayList<DateRange> dateList)
    {
-      ArrayList<Double> result = new ArrayList<Double>(dateList.size());
-      int lastStartIndex = 0;
+      return segmentCost(projectCalendar, cost == null ? null : TimephasedCostSeries.getInstance(cost), rangeUnits, dateList);
+   }
 
-      //
-      // Iterate through the list of dates range we are interested in.
-      // Each date range in this list corresponds to a column
-      // shown on the "timescale" view by MS Project
-      //
-      for (DateRange range : dateList)
+   /**
+    * This is the main entry point used to convert the internal representation
+    * of timephased cost into an external form which can
+    * be displayed to the user.
+    *
+    * @param projectCalendar calendar used by the resource assignment
+    * @param cost timephased resource assignment data
+    * @param rangeUnits timescale units
+    * @param dateList timescale date ranges
+    * @return list of durations, one per timescale date range
+    */
+   public ArrayList<Double> segmentCost(ProjectCalendar projectCalendar, TimephasedCostSeries cost, TimescaleUnits rangeUnits, List<DateRange> dateList)
+   {
+      int rangeCount = dateList.size();
+      double[] amounts = new double[rangeCount];
+      int[] lastIndexes = new int[rangeCount];
+      segment(projectCalendar, cost, rangeUnits, getRangeStarts(dateList), getRangeEnds(dateList), 0, rangeCount, amounts, lastIndexes);
+
+      ArrayList<Double> result = new ArrayList<Double>(rangeCount);
+      for (int index = 0; index < rangeCount; index++)
       {
-         //
-         // If the current date range does not intersect with any of the
-         // assignment date ranges in the list, then we show a zero
-         // duration for this date range.
-         //
-         int startIndex = lastStartIndex == -1 ? -1 : getStartIndex(range, cost, lastStartIndex);
-         if (startIndex == -1)
-         {
-            result.add(NumberHelper.DOUBLE_ZERO);
-         }
-         else
-         {
-            //
-            // We have found an assignment which intersects with the current
-            // date range, call the method below to determine how
-            // much time from this resource assignment can be allocated
-            // to the current date range.
-            //
-            result.add(getRangeCost(projectCalendar, rangeUnits, range, cost, startIndex));
-            lastStartIndex = startIndex;
-         }
+         result.add(lastIndexes[index] == -1 ? NumberHelper.DOUBLE_ZERO : Double.valueOf(amounts[index]));
       }
 
       return result;
@@ -176,129 +173,116 @@ public final class TimephasedUtility
    }
 
    /**
-    * Used to locate the first timephased resource assignment block which
-    * intersects with the target date range.
+    * Determines the amount of work or cost from a timephased series which
+    * falls into each of a sequence of date ranges. For each range, the
+    * amount is written to the amounts array, and the index of the last
+    * timephased block considered is written to the lastIndexes array. If
+    * no block intersects with the range, the amount is zero and the index
+    * is -1.
     *
-    * @param <T> payload type
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start the search
-    * @return index of timephased resource assignment which intersects with the target date range
+    * @param projectCalendar calendar used by the resource assignment
+    * @param assignments timephased resource assignment data
+    * @param rangeUnits timescale units
+    * @param rangeStarts range start timestamps
+    * @param rangeEnds range end timestamps
+    * @param fromRange index of the first range to process
+    * @param toRange index after the last range to process
+    * @param amounts amount for each range
+    * @param lastIndexes index of the last timephased block considered for each range
     */
-   private <T extends TimephasedItem<?>> int getStartIndex(DateRange range, List<T> assignments, int startIndex)
+   void segment(ProjectCalendar projectCalendar, AbstractTimephasedSeries<?> assignments, TimescaleUnits rangeUnits, long[] rangeStarts, long[] rangeEnds, int fromRange, int toRange, double[] amounts, int[] lastIndexes)
    {
-      int result = -1;
-      if (assignments != null)
-      {
-         long rangeStart = range.getStart().getTime();
-         long rangeEnd = range.getEnd().getTime();
+      Calendar cal = Calendar.getInstance();
+      int lastStartIndex = 0;
 
-         for (int loop = startIndex; loop < assignments.size(); loop++)
+      //
+      // Iterate through the list of dates range we are interested in.
+      // Each date range in this list corresponds to a column
+      // shown on the "timescale" view by MS Project
+      //
+      for (int range = fromRange; range < toRange; range++)
+      {
+         //
+         // If the current date range does not intersect with any of the
+         // assignment date ranges in the list, then we show a zero
+         // duration for this date range.
+         //
+         int startIndex = assignments == null ? -1 : assignments.getStartIndex(rangeStarts[range], rangeEnds[range], lastStartIndex);
+         if (startIndex == -1)
          {
-            T assignment = assignments.get(loop);
-            int compareResult = DateHelper.compare(assignment.getStart(), assignment.getFinish(), rangeStart);
-
-            //
-            // The start of the target range falls after the assignment end -
-            // move on to test the next assignment.
-            //
-            if (compareResult > 0)
-            {
-               continue;
-            }
-
-            //
-            // The start of the target range  falls within the assignment -
-            // return the index of this assignment to the caller.
-            //
-            if (compareResult == 0)
+            amounts[range] = 0;
+            lastIndexes[range] = -1;
+         }
+         else
+         {
+            if (rangeUnits == TimescaleUnits.MINUTES || rangeUnits == TimescaleUnits.HOURS)
             {
-               result = loop;
-               break;
+               throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
             }
 
             //
-            // At this point, we know that the start of the target range is before
-            // the assignment start. We need to determine if the end of the
-            // target range overlaps the assignment.
+            // We have found an assignment which intersects with the current
+            // date range, call the method below to determine how
+            // much time from this resource assignment can be allocated
+            // to the current date range.
             //
-            compareResult = DateHelper.compare(assignment.getStart(), assignment.getFinish(), rangeEnd);
-            if (compareResult >= 0)
-            {
-               result = loop;
-               break;
-            }
+            lastIndexes[range] = getRangeAmountWholeDay(projectCalendar, cal, rangeStarts[range], rangeEnds[range], assignments, startIndex, amounts, range);
+            lastStartIndex = startIndex;
          }
       }
-      return result;
    }
 
    /**
-    * For a given date range, determine the duration of work, based on the
-    * timephased resource assignment data.
+    * Retrieve the start of each date range as a timestamp.
     *
-    * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
+    * @param dateList date ranges
+    * @return start timestamps
     */
-   private Duration getRangeDuration(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   static long[] getRangeStarts(List<DateRange> dateList)
    {
-      Duration result;
-
-      switch (rangeUnits)
+      long[] result = new long[dateList.size()];
+      int index = 0;
+      for (DateRange range : dateList)
       {
-         case MINUTES:
-         case HOURS:
-         {
-            result = getRangeDurationSubDay(projectCalendar, rangeUnits, range, assignments, startIndex);
-            break;
-         }
-
-         default:
-         {
-            result = getRangeDurationWholeDay(projectCalendar, rangeUnits, range, assignments, startIndex);
-            break;
-         }
+         result[index++] = range.getStart().getTime();
       }
-
       return result;
    }
 
    /**
-    * For a given date range, determine the duration of work, based on the
-    * timephased resource assignment data.
-    *
-    * This method deals with timescale units of less than a day.
+    * Retrieve the end of each date range as a timestamp.
     *
-    * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
+    * @param dateList date ranges
+    * @return end timestamps
     */
-   private Duration getRangeDurationSubDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   static long[] getRangeEnds(List<DateRange> dateList)
    {
-      throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
+      long[] result = new long[dateList.size()];
+      int index = 0;
+      for (DateRange range : dateList)
+      {
+         result[index++] = range.getEnd().getTime();
+      }
+      return result;
    }
 
    /**
-    * For a given date range, determine the duration of work, based on the
-    * timephased resource assignment data.
+    * For a given date range, determine the amount of work or cost, based
+    * on the timephased resource assignment data.
     *
     * This method deals with timescale units of one day or more.
     *
     * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
+    * @param cal calendar used for date arithmetic
+    * @param rangeStartDate range start timestamp
+    * @param rangeEndDate range end timestamp
     * @param assignments timephased resource assignments
     * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
+    * @param amounts array to receive the amount
+    * @param range index at which the amount is written
+    * @return index of the last timephased block considered
     */
-   private Duration getRangeDurationWholeDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   private int getRangeAmountWholeDay(ProjectCalendar projectCalendar, Calendar cal, long rangeStartDate, long rangeEndDate, AbstractTimephasedSeries<?> assignments, int startIndex, double[] amounts, int range)
    {
       // option 1:
       // Our date range starts before the start of the TRA at the start index.
@@ -321,142 +305,31 @@ public final class TimephasedUtility
 
       // if it does overlap, then move to the next block and repeat
 
-      int totalDays = 0;
-      double totalWork = 0;
-      TimephasedWork assignment = assignments.get(startIndex);
-      boolean done = false;
-
-      do
-      {
-         //
-         // Select the correct start date
-         //
-         long startDate = range.getStart().getTime();
-         long assignmentStart = assignment.getStart().getTime();
-         if (startDate < assignmentStart)
-         {
-            startDate = assignmentStart;
-         }
-
-         long rangeEndDate = range.getEnd().getTime();
-         long traEndDate = assignment.getFinish().getTime();
-
-         Calendar cal = Calendar.getInstance();
-         cal.setTimeInMillis(startDate);
-         Date calendarDate = cal.getTime();
-
-         //
-         // Start counting forwards
-         //
-         while (startDate < rangeEndDate && startDate < traEndDate)
-         {
-            if (projectCalendar == null || projectCalendar.isWorkingDate(calendarDate))
-            {
-               ++totalDays;
-            }
-            cal.add(Calendar.DAY_OF_YEAR, 1);
-            startDate = cal.getTimeInMillis();
-            calendarDate = cal.getTime();
-         }
-
-         //
-         // If we still haven't reached the end of our range
-         // check to see if the next TRA can be used.
-         //
-         done = true;
-         totalWork += (assignment.getAmountPerDay().getDuration() * totalDays);
-         if (startDate < rangeEndDate)
-         {
-            ++startIndex;
-            if (startIndex < assignments.size())
-            {
-               assignment = assignments.get(startIndex);
-               totalDays = 0;
-               done = false;
-            }
-         }
-      }
-      while (!done);
-
-      return Duration.getInstance(totalWork, assignment.getAmountPerDay().getUnits());
-   }
-
-   /**
-    * For a given date range, determine the cost, based on the
-    * timephased resource assignment data.
-    *
-    * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
-    */
-   private Double getRangeCost(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedCost> assignments, int startIndex)
-   {
-      Double result;
-
-      switch (rangeUnits)
-      {
-         case MINUTES:
-         case HOURS:
-         {
-            result = getRangeCostSubDay(projectCalendar, rangeUnits, range, assignments, startIndex);
-            break;
-         }
-
-         default:
-         {
-            result = getRangeCostWholeDay(projectCalendar, rangeUnits, range, assignments, startIndex);
-            break;
-         }
-      }
-
-      return result;
-   }
-
-   /**
-    * For a given date range, determine the cost, based on the
-    * timephased resource assignment data.
-    *
-    * This method deals with timescale units of one day or more.
-    *
-    * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
-    */
-   private Double getRangeCostWholeDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedCost> assignments, int startIndex)
-   {
-      int totalDays = 0;
-      double totalCost = 0;
-      TimephasedCost assignment = assignments.get(startIndex);
-      boolean done = false;
+      double totalAmount = 0;
+      int index = startIndex;
+      boolean done;
 
       do
       {
          //
          // Select the correct start date
          //
-         long startDate = range.getStart().getTime();
-         long assignmentStart = assignment.getStart().getTime();
+         long startDate = rangeStartDate;
+         long assignmentStart = assignments.getStartTime(index);
          if (startDate < assignmentStart)
          {
             startDate = assignmentStart;
          }
 
-         long rangeEndDate = range.getEnd().getTime();
-         long traEndDate = assignment.getFinish().getTime();
+         long traEndDate = assignments.getFinishTime(index);
 
-         Calendar cal = Calendar.getInstance();
          cal.setTimeInMillis(startDate);
          Date calendarDate = cal.getTime();
 
          //
          // Start counting forwards
          //
+         int totalDays = 0;
          while (startDate < rangeEndDate && startDate < traEndDate)
          {
             if (projectCalendar == null || projectCalendar.isWorkingDate(calendarDate))
@@ -473,38 +346,16 @@ public final class TimephasedUtility
          // check to see if the next TRA can be used.
          //
          done = true;
-         totalCost += (assignment.getAmountPerDay().doubleValue() * totalDays);
-         if (startDate < rangeEndDate)
+         totalAmount += (assignments.getAmountPerDay(index) * totalDays);
+         if (startDate < rangeEndDate && index + 1 < assignments.size())
          {
-            ++startIndex;
-            if (startIndex < assignments.size())
-            {
-               assignment = assignments.get(startIndex);
-               totalDays = 0;
-               done = false;
-            }
+            ++index;
+            done = false;
          }
       }
       while (!done);
 
-      return Double.valueOf(totalCost);
-   }
-
-   /**
-    * For a given date range, determine the cost, based on the
-    * timephased resource assignment data.
-    *
-    * This method deals with timescale units of less than a day.
-    *
-    * @param projectCalendar calendar used for the resource assignment calendar
-    * @param rangeUnits timescale units
-    * @param range target date range
-    * @param assignments timephased resource assignments
-    * @param startIndex index at which to start searching through the timephased resource assignments
-    * @return work duration
-    */
-   private Double getRangeCostSubDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedCost> assignments, int startIndex)
-   {
-      throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
+      amounts[range] = totalAmount;
+      return index;
    }
 }